@@ -25,7 +25,9 @@ import org.springframework.cloud.dataflow.completion.RecoveryStrategy;
 import org.springframework.cloud.dataflow.core.ModuleDefinition;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
 import org.springframework.cloud.dataflow.core.dsl.DSLMessage;
-import org.springframework.cloud.dataflow.core.dsl.ParseException;
+import org.springframework.cloud.dataflow.core.dsl.ParseFailure;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 /**
  * Expands constructs that start with {@literal tap:stream} to add stream and maybe module identifiers.
@@ -34,19 +36,19 @@ import org.springframework.cloud.dataflow.core.dsl.ParseException;
  *
  * @author Eric Bottard
  */
-public class TapOnChannelExpansionStrategy implements RecoveryStrategy<ParseException> {
+public class TapOnChannelExpansionStrategy implements RecoveryStrategy {
 
 	@Autowired
 	private StreamDefinitionRepository streamDefinitionRepository;
 
 	@Override
-	public boolean shouldTrigger(String dslStart, Exception exception) {
+	public boolean shouldTrigger(String dslStart, ParseFailure failure) {
 		return dslStart.startsWith("tap:stream:") && !dslStart.contains(" ") &&
-				((ParseException)exception).getMessageCode() == DSLMessage.EXPECTED_WHITESPACE_AFTER_LABEL_COLON;
+				failure.getMessageCode() == DSLMessage.EXPECTED_WHITESPACE_AFTER_LABEL_COLON;
 	}
 
 	@Override
-	public void addProposals(String dsl, ParseException exception, int detailLevel, List<CompletionProposal> collector) {
+	public void addProposals(String dsl, ParseFailure failure, int detailLevel, List<CompletionProposal> collector) {
 		String streamName = dsl.substring("tap:stream:".length());
 		String moduleName = "";
 		if (streamName.contains(".")) {
@@ -67,10 +69,9 @@ public class TapOnChannelExpansionStrategy implements RecoveryStrategy<ParseExce
 		} // Stream name is not valid (yet). Try to use it as a prefix
 		else {
 			CompletionProposal.Factory proposals = CompletionProposal.expanding("tap:stream:");
-			for (StreamDefinition stream : streamDefinitionRepository.findAll()) {
-				if (stream.getName().startsWith(streamName)) {
-					collector.add(proposals.withSuffix(stream.getName()));
-				}
+			Pageable all = new PageRequest(0, Integer.MAX_VALUE);
+			for (StreamDefinition stream : streamDefinitionRepository.findByNameStartingWith(streamName, all)) {
+				collector.add(proposals.withSuffix(stream.getName()));
 			}
 		}
 
@@ -18,27 +18,53 @@ package org.springframework.cloud.dataflow.admin.config;
 
 import static org.springframework.hateoas.config.EnableHypermediaSupport.HypermediaType.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.actuate.metrics.repository.InMemoryMetricRepository;
 import org.springframework.boot.actuate.metrics.repository.MetricRepository;
 import org.springframework.boot.actuate.metrics.repository.redis.RedisMetricRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.dataflow.admin.completion.TapOnChannelExpansionStrategy;
-import org.springframework.cloud.dataflow.admin.repository.InMemoryStreamDefinitionRepository;
-import org.springframework.cloud.dataflow.admin.repository.InMemoryTaskDefinitionRepository;
+import org.springframework.cloud.dataflow.admin.repository.FileStreamDefinitionRepository;
+import org.springframework.cloud.dataflow.admin.repository.FileTaskDefinitionRepository;
+import org.springframework.cloud.dataflow.admin.repository.RedisStreamDefinitionRepository;
+import org.springframework.cloud.dataflow.admin.repository.RedisTaskDefinitionRepository;
 import org.springframework.cloud.dataflow.admin.repository.StreamDefinitionRepository;
 import org.springframework.cloud.dataflow.admin.repository.TaskDefinitionRepository;
 import org.springframework.cloud.dataflow.completion.CompletionConfiguration;
+import org.springframework.cloud.dataflow.completion.CompletionProposalCache;
+import org.springframework.cloud.dataflow.completion.CompletionStatistics;
+import org.springframework.cloud.dataflow.completion.ModuleConfigurationMetadataIndex;
 import org.springframework.cloud.dataflow.completion.RecoveryStrategy;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
+import org.springframework.cloud.dataflow.artifact.registry.CachingArtifactRegistry;
+import org.springframework.cloud.dataflow.artifact.registry.FileArtifactRegistry;
 import org.springframework.cloud.dataflow.artifact.registry.RedisArtifactRegistry;
+import org.springframework.cloud.dataflow.core.StreamDefinition;
+import org.springframework.cloud.dataflow.core.TaskDefinition;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
 import org.springframework.hateoas.config.EnableHypermediaSupport;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 
@@ -58,29 +84,60 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter
 @Import(CompletionConfiguration.class)
 public class AdminConfiguration {
 
+	@Value("${spring.cloud.dataflow.parseCache.maxSize:" + StreamDefinition.DEFAULT_PARSE_CACHE_SIZE + "}")
+	private int streamDefinitionParseCacheSize;
+
+	@Value("${spring.cloud.dataflow.taskParseCache.maxSize:" + TaskDefinition.DEFAULT_PARSE_CACHE_SIZE + "}")
+	private int taskDefinitionParseCacheSize;
+
+	/**
+	 * Apply the configured sizes to the parse caches. These caches are shared by every
+	 * definition in the JVM, so they are sized once here rather than by the beans
+	 * exposing their metrics.
+	 */
+	@PostConstruct
+	public void configureParseCaches() {
+		StreamDefinition.getParseCache().setMaxSize(streamDefinitionParseCacheSize);
+		TaskDefinition.getParseCache().setMaxSize(taskDefinitionParseCacheSize);
+	}
+
+	@Bean
+	public PublicMetrics streamDefinitionParseCacheMetrics() {
+		return new CacheMetrics("cache.streamDefinitions", CacheMetrics.of(StreamDefinition.getParseCache()));
+	}
+
 	@Bean
-	public MetricRepository metricRepository(RedisConnectionFactory redisConnectionFactory) {
-		return new RedisMetricRepository(redisConnectionFactory);
+	public PublicMetrics taskDefinitionParseCacheMetrics() {
+		return new CacheMetrics("cache.taskDefinitions", CacheMetrics.of(TaskDefinition.getParseCache()));
 	}
 
 	@Bean
-	public StreamDefinitionRepository streamDefinitionRepository() {
-		return new InMemoryStreamDefinitionRepository();
+	public PublicMetrics completionCacheMetrics(CompletionProposalCache completionProposalCache) {
+		return new CacheMetrics("cache.completions", CacheMetrics.of(completionProposalCache));
 	}
 
 	@Bean
-	public TaskDefinitionRepository taskDefinitionRepository() {
-		return new InMemoryTaskDefinitionRepository();
+	public PublicMetrics completionMetrics(CompletionStatistics completionStatistics) {
+		return new CompletionMetrics(completionStatistics);
 	}
 
 	@Bean
-	public ArtifactRegistry artifactRegistry(RedisConnectionFactory redisConnectionFactory) {
-		return new RedisArtifactRegistry(redisConnectionFactory);
+	public TaskExecutor streamImportTaskExecutor(
+			@Value("${spring.cloud.dataflow.streams.import.poolSize:4}") int poolSize,
+			@Value("${spring.cloud.dataflow.streams.import.queueCapacity:64}") int queueCapacity) {
+		// definitions are parsed on the requesting thread once the queue is full
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(poolSize);
+		taskExecutor.setMaxPoolSize(poolSize);
+		taskExecutor.setQueueCapacity(queueCapacity);
+		taskExecutor.setThreadNamePrefix("stream-import-");
+		return taskExecutor;
 	}
 
 	@Bean
-	public ArtifactRegistryPopulator artifactRegistryPopulator(ArtifactRegistry artifactRegistry) {
-		return new ArtifactRegistryPopulator(artifactRegistry);
+	public ArtifactRegistryPopulator artifactRegistryPopulator(ArtifactRegistry artifactRegistry,
+			ModuleConfigurationMetadataIndex moduleConfigurationMetadataIndex) {
+		return new ArtifactRegistryPopulator(artifactRegistry, moduleConfigurationMetadataIndex);
 	}
 
 	@Bean
@@ -101,4 +158,112 @@ public class AdminConfiguration {
 		return new TapOnChannelExpansionStrategy();
 	}
 
+	/**
+	 * Default storage: module registrations, metrics, stream and task definitions
+	 * are kept in Redis.
+	 */
+	@Configuration
+	@ConditionalOnProperty(name = "spring.cloud.dataflow.store.type", havingValue = "redis", matchIfMissing = true)
+	static class RedisStoreConfiguration {
+
+		/**
+		 * Key of the Redis hash holding stream definitions.
+		 */
+		static final String STREAM_DEFINITIONS_KEY = "spring.cloud.dataflow.streams";
+
+		/**
+		 * Key of the Redis hash holding task definitions.
+		 */
+		static final String TASK_DEFINITIONS_KEY = "spring.cloud.dataflow.tasks";
+
+		@Bean
+		public MetricRepository metricRepository(RedisConnectionFactory redisConnectionFactory) {
+			return new RedisMetricRepository(redisConnectionFactory);
+		}
+
+		@Bean
+		public StreamDefinitionRepository streamDefinitionRepository(RedisConnectionFactory redisConnectionFactory) {
+			return new RedisStreamDefinitionRepository(STREAM_DEFINITIONS_KEY, redisConnectionFactory);
+		}
+
+		@Bean
+		public TaskDefinitionRepository taskDefinitionRepository(RedisConnectionFactory redisConnectionFactory) {
+			return new RedisTaskDefinitionRepository(TASK_DEFINITIONS_KEY, redisConnectionFactory);
+		}
+
+		@Bean
+		public ArtifactRegistry artifactRegistry(RedisConnectionFactory redisConnectionFactory,
+				@Value("${spring.cloud.dataflow.artifactRegistry.cache.timeToLive:"
+						+ CachingArtifactRegistry.DEFAULT_TIME_TO_LIVE + "}") long timeToLive) {
+			// the time to live bounds staleness when change notifications are missed,
+			// such as while the listener container reconnects
+			return new CachingArtifactRegistry(new RedisArtifactRegistry(redisConnectionFactory), timeToLive);
+		}
+
+		@Bean
+		public RedisMessageListenerContainer artifactRegistryListenerContainer(
+				RedisConnectionFactory redisConnectionFactory, ArtifactRegistry artifactRegistry) {
+			RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+			container.setConnectionFactory(redisConnectionFactory);
+			// the registry may have been replaced by one that does not cache
+			if (artifactRegistry instanceof CachingArtifactRegistry) {
+				// keyspace notifications also catch changes made without going through a registry,
+				// provided they are enabled on the server (notify-keyspace-events "Kh")
+				container.addMessageListener((CachingArtifactRegistry) artifactRegistry, Arrays.asList(
+						new ChannelTopic(RedisArtifactRegistry.CHANGES_CHANNEL),
+						new PatternTopic("__keyspace@*__:" + RedisArtifactRegistry.KEY_PREFIX + "*")));
+			}
+			return container;
+		}
+
+		@Bean
+		public PublicMetrics artifactRegistryCacheMetrics(ArtifactRegistry artifactRegistry) {
+			// the registry may have been replaced by one that does not cache
+			if (!(artifactRegistry instanceof CachingArtifactRegistry)) {
+				return new PublicMetrics() {
+					@Override
+					public Collection<Metric<?>> metrics() {
+						return Collections.emptyList();
+					}
+				};
+			}
+			return new CacheMetrics("cache.artifactRegistry", CacheMetrics.of((CachingArtifactRegistry) artifactRegistry));
+		}
+
+	}
+
+	/**
+	 * Storage for single node installations without Redis: module registrations and
+	 * stream and task definitions are kept in files under
+	 * {@code spring.cloud.dataflow.store.directory}, metrics in memory.
+	 */
+	@Configuration
+	@ConditionalOnProperty(name = "spring.cloud.dataflow.store.type", havingValue = "file")
+	static class FileStoreConfiguration {
+
+		@Value("${spring.cloud.dataflow.store.directory:${user.home}/.spring-cloud-dataflow}")
+		private File directory;
+
+		@Bean
+		public MetricRepository metricRepository() {
+			return new InMemoryMetricRepository();
+		}
+
+		@Bean
+		public StreamDefinitionRepository streamDefinitionRepository() throws IOException {
+			return new FileStreamDefinitionRepository(new File(directory, "streams.log"));
+		}
+
+		@Bean
+		public TaskDefinitionRepository taskDefinitionRepository() throws IOException {
+			return new FileTaskDefinitionRepository(new File(directory, "tasks.log"));
+		}
+
+		@Bean
+		public ArtifactRegistry artifactRegistry() throws IOException {
+			return new FileArtifactRegistry(new File(directory, "artifacts.log"));
+		}
+
+	}
+
 }
@@ -23,6 +23,8 @@ import static org.springframework.cloud.dataflow.core.ArtifactType.task;
 
 import javax.annotation.PostConstruct;
 
+import org.springframework.cloud.dataflow.admin.controller.ModuleController;
+import org.springframework.cloud.dataflow.completion.ModuleConfigurationMetadataIndex;
 import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
 import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
@@ -30,7 +32,8 @@ import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
 import org.springframework.util.Assert;
 
 /**
- * Populates a {@link ArtifactRegistry} with default modules.
+ * Populates a {@link ArtifactRegistry} with default modules, and optionally
+ * prefetches their metadata in the background.
  *
  * @author Patrick Peralta
  * @author Mark Fisher
@@ -67,14 +70,31 @@ public class ArtifactRegistryPopulator {
 	 */
 	private final ArtifactRegistry artifactRegistry;
 
+	/**
+	 * Index in which to prefetch the metadata of the default modules; may be {@code null}.
+	 */
+	private final ModuleConfigurationMetadataIndex metadataIndex;
+
 	/**
 	 * Construct a {@code ArtifactRegistryPopulator} with the provided {@link ArtifactRegistry}.
 	 *
 	 * @param artifactRegistry the {@link ArtifactRegistry} to populate.
 	 */
 	public ArtifactRegistryPopulator(ArtifactRegistry artifactRegistry) {
+		this(artifactRegistry, null);
+	}
+
+	/**
+	 * Construct a {@code ArtifactRegistryPopulator} with the provided {@link ArtifactRegistry},
+	 * prefetching the metadata of the default modules in the provided index.
+	 *
+	 * @param artifactRegistry the {@link ArtifactRegistry} to populate.
+	 * @param metadataIndex the index in which to prefetch module metadata; may be {@code null}
+	 */
+	public ArtifactRegistryPopulator(ArtifactRegistry artifactRegistry, ModuleConfigurationMetadataIndex metadataIndex) {
 		Assert.notNull(artifactRegistry, "ArtifactRegistry must not be null");
 		this.artifactRegistry = artifactRegistry;
+		this.metadataIndex = metadataIndex;
 	}
 
 	/**
@@ -105,16 +125,23 @@ public class ArtifactRegistryPopulator {
 	/**
 	 * Populate the registry with default values for the provided
 	 * module name and type; will not overwrite existing values.
+	 * The metadata of the registered module is then prefetched,
+	 * whether it was registered by this method or not.
 	 *
 	 * @param name module name
 	 * @param type module type
 	 */
 	private void populateDefault(String name, ArtifactType type) {
-		if (this.artifactRegistry.find(name, type) == null) {
-			this.artifactRegistry.save(new ArtifactRegistration(name, type,
+		ArtifactRegistration registration = this.artifactRegistry.find(name, type);
+		if (registration == null) {
+			registration = new ArtifactRegistration(name, type,
 				(type == task) ?
 					defaultTaskCoordinatesFor(name + '-' + type) :
-					defaultStreamCoordinatesFor(name + '-' + type)));
+					defaultStreamCoordinatesFor(name + '-' + type));
+			this.artifactRegistry.save(registration);
+		}
+		if (this.metadataIndex != null) {
+			this.metadataIndex.prefetch(ModuleController.metadataCoordinates(registration.getCoordinates()));
 		}
 	}
 
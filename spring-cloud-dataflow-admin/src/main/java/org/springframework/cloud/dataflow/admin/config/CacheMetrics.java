@@ -0,0 +1,235 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.dataflow.admin.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.cloud.dataflow.artifact.registry.CachingArtifactRegistry;
+import org.springframework.cloud.dataflow.completion.CompletionProposalCache;
+import org.springframework.cloud.dataflow.core.ParsedDefinitionCache;
+import org.springframework.util.Assert;
+
+/**
+ * Exposes the statistics of a cache through the actuator {@code /metrics} endpoint,
+ * as {@code <prefix>.size}, {@code .maxSize}, {@code .hits}, {@code .misses},
+ * {@code .evictions}, {@code .invalidations} and {@code .hit.ratio} metrics. Statistics
+ * the cache does not track are not reported.
+ *
+ * @author Patrick Peralta
+ */
+public class CacheMetrics implements PublicMetrics {
+
+	/**
+	 * Statistics of a cache. Methods for statistics that a cache does not track
+	 * return a negative value.
+	 */
+	public interface Statistics {
+
+		/**
+		 * @return the number of entries in the cache
+		 */
+		int size();
+
+		/**
+		 * @return the maximum number of entries in the cache
+		 */
+		int getMaxSize();
+
+		/**
+		 * @return the number of lookups served from the cache
+		 */
+		long getHitCount();
+
+		/**
+		 * @return the number of lookups not served from the cache
+		 */
+		long getMissCount();
+
+		/**
+		 * @return the number of entries dropped to keep the cache within its maximum size
+		 */
+		long getEvictionCount();
+
+		/**
+		 * @return the number of times entries were discarded because they may be stale
+		 */
+		long getInvalidationCount();
+
+	}
+
+	private final String prefix;
+
+	private final Statistics statistics;
+
+	/**
+	 * Construct a {@code CacheMetrics}.
+	 *
+	 * @param prefix the prefix of the metric names, such as {@code cache.completions}
+	 * @param statistics the statistics of the cache
+	 */
+	public CacheMetrics(String prefix, Statistics statistics) {
+		Assert.hasText(prefix, "prefix must not be empty");
+		Assert.notNull(statistics, "statistics must not be null");
+		this.prefix = prefix.endsWith(".") ? prefix : prefix + ".";
+		this.statistics = statistics;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		long hits = statistics.getHitCount();
+		long misses = statistics.getMissCount();
+		Collection<Metric<?>> metrics = new ArrayList<>();
+		metrics.add(new Metric<Integer>(prefix + "size", statistics.size()));
+		int maxSize = statistics.getMaxSize();
+		if (maxSize >= 0) {
+			metrics.add(new Metric<Integer>(prefix + "maxSize", maxSize));
+		}
+		metrics.add(new Metric<Long>(prefix + "hits", hits));
+		metrics.add(new Metric<Long>(prefix + "misses", misses));
+		long evictions = statistics.getEvictionCount();
+		if (evictions >= 0) {
+			metrics.add(new Metric<Long>(prefix + "evictions", evictions));
+		}
+		long invalidations = statistics.getInvalidationCount();
+		if (invalidations >= 0) {
+			metrics.add(new Metric<Long>(prefix + "invalidations", invalidations));
+		}
+		if (hits + misses > 0) {
+			metrics.add(new Metric<Double>(prefix + "hit.ratio", (double) hits / (hits + misses)));
+		}
+		return metrics;
+	}
+
+	/**
+	 * Return the statistics of a {@link ParsedDefinitionCache}.
+	 */
+	public static Statistics of(final ParsedDefinitionCache<?> cache) {
+		return new Statistics() {
+
+			@Override
+			public int size() {
+				return cache.size();
+			}
+
+			@Override
+			public int getMaxSize() {
+				return cache.getMaxSize();
+			}
+
+			@Override
+			public long getHitCount() {
+				return cache.getHitCount();
+			}
+
+			@Override
+			public long getMissCount() {
+				return cache.getMissCount();
+			}
+
+			@Override
+			public long getEvictionCount() {
+				return cache.getEvictionCount();
+			}
+
+			@Override
+			public long getInvalidationCount() {
+				return -1;
+			}
+		};
+	}
+
+	/**
+	 * Return the statistics of a {@link CompletionProposalCache}.
+	 */
+	public static Statistics of(final CompletionProposalCache cache) {
+		return new Statistics() {
+
+			@Override
+			public int size() {
+				return cache.size();
+			}
+
+			@Override
+			public int getMaxSize() {
+				return cache.getMaxSize();
+			}
+
+			@Override
+			public long getHitCount() {
+				return cache.getHitCount();
+			}
+
+			@Override
+			public long getMissCount() {
+				return cache.getMissCount();
+			}
+
+			@Override
+			public long getEvictionCount() {
+				return cache.getEvictionCount();
+			}
+
+			@Override
+			public long getInvalidationCount() {
+				return -1;
+			}
+		};
+	}
+
+	/**
+	 * Return the statistics of a {@link CachingArtifactRegistry}, which is unbounded.
+	 */
+	public static Statistics of(final CachingArtifactRegistry registry) {
+		return new Statistics() {
+
+			@Override
+			public int size() {
+				return registry.size();
+			}
+
+			@Override
+			public int getMaxSize() {
+				return -1;
+			}
+
+			@Override
+			public long getHitCount() {
+				return registry.getHitCount();
+			}
+
+			@Override
+			public long getMissCount() {
+				return registry.getMissCount();
+			}
+
+			@Override
+			public long getEvictionCount() {
+				return -1;
+			}
+
+			@Override
+			public long getInvalidationCount() {
+				return registry.getInvalidationCount();
+			}
+		};
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.cloud.dataflow.completion.CompletionStatistics;
+import org.springframework.cloud.dataflow.completion.LatencyHistogram;
+
+/**
+ * Exposes {@link CompletionStatistics} through the actuator {@code /metrics} endpoint:
+ * <ul>
+ * <li>{@code completion.time.*} for the computation of proposals, and
+ * {@code completion.slow} for the number of slow computations</li>
+ * <li>{@code completion.strategy.<name>.*} for each strategy: the latency of its
+ * invocations ({@code time.*}), the number of times it was triggered or skipped,
+ * the number of proposals it produced and the number of times it timed out</li>
+ * <li>{@code completion.valueHint.<name>.*} for each value hint provider: the latency
+ * of its invocations ({@code time.*}) and the number of hints it produced</li>
+ * </ul>
+ * Latencies are histograms exported as {@code count}, {@code mean}, {@code max} and
+ * {@code p50}, {@code p95}, {@code p99} percentiles, in milliseconds.
+ *
+ * @author Patrick Peralta
+ */
+public class CompletionMetrics implements PublicMetrics {
+
+	private static final String PREFIX = "completion.";
+
+	private final CompletionStatistics statistics;
+
+	public CompletionMetrics(CompletionStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		Collection<Metric<?>> metrics = new ArrayList<>();
+		addHistogram(metrics, PREFIX + "time.", statistics.getCompletions());
+		metrics.add(new Metric<Long>(PREFIX + "slow", statistics.getSlowCompletionCount()));
+		for (Map.Entry<String, CompletionStatistics.Statistics> entry : statistics.getStrategies().entrySet()) {
+			String prefix = PREFIX + "strategy." + entry.getKey() + ".";
+			CompletionStatistics.Statistics strategy = entry.getValue();
+			addHistogram(metrics, prefix + "time.", strategy.getLatency());
+			metrics.add(new Metric<Long>(prefix + "triggered", strategy.getTriggeredCount()));
+			metrics.add(new Metric<Long>(prefix + "skipped", strategy.getSkippedCount()));
+			metrics.add(new Metric<Long>(prefix + "proposals", strategy.getProposalCount()));
+			metrics.add(new Metric<Long>(prefix + "timeouts", strategy.getTimeoutCount()));
+		}
+		for (Map.Entry<String, CompletionStatistics.Statistics> entry : statistics.getValueHintProviders().entrySet()) {
+			String prefix = PREFIX + "valueHint." + entry.getKey() + ".";
+			addHistogram(metrics, prefix + "time.", entry.getValue().getLatency());
+			metrics.add(new Metric<Long>(prefix + "hints", entry.getValue().getProposalCount()));
+		}
+		return metrics;
+	}
+
+	private static void addHistogram(Collection<Metric<?>> metrics, String prefix, LatencyHistogram histogram) {
+		metrics.add(new Metric<Long>(prefix + "count", histogram.getCount()));
+		metrics.add(new Metric<Double>(prefix + "mean", histogram.getMean()));
+		metrics.add(new Metric<Double>(prefix + "max", histogram.getMax()));
+		metrics.add(new Metric<Double>(prefix + "p50", histogram.getPercentile(0.5)));
+		metrics.add(new Metric<Double>(prefix + "p95", histogram.getPercentile(0.95)));
+		metrics.add(new Metric<Double>(prefix + "p99", histogram.getPercentile(0.99)));
+	}
+
+}
@@ -18,17 +18,22 @@ package org.springframework.cloud.dataflow.admin.config;
 
 import static org.springframework.context.annotation.ConfigurationCondition.ConfigurationPhase.*;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
+import org.springframework.cloud.dataflow.admin.deployment.ModuleArtifactPrefetcher;
 import org.springframework.cloud.dataflow.module.deployer.ModuleDeployer;
 import org.springframework.cloud.dataflow.module.deployer.local.LocalModuleDeployer;
 import org.springframework.cloud.stream.module.launcher.ModuleLauncher;
 import org.springframework.cloud.stream.module.launcher.ModuleLauncherConfiguration;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
  * Configuration used when no other special case activates. Creates deployers that
@@ -41,6 +46,12 @@ import org.springframework.context.annotation.Profile;
 @Import(ModuleLauncherConfiguration.class)
 public class LocalConfiguration {
 
+	/**
+	 * Maximum number of module artifacts resolved concurrently before a deployment.
+	 */
+	@Value("${spring.cloud.dataflow.deployment.prefetch.concurrency:4}")
+	private int prefetchConcurrency;
+
 	@Bean
 	public ModuleDeployer processModuleDeployer(ModuleLauncher moduleLauncher) {
 		return new LocalModuleDeployer(moduleLauncher);
@@ -51,6 +62,19 @@ public class LocalConfiguration {
 		return new LocalModuleDeployer(moduleLauncher);
 	}
 
+	@Bean
+	public ModuleArtifactPrefetcher moduleArtifactPrefetcher(ModuleResolver moduleResolver) {
+		return new ModuleArtifactPrefetcher(moduleResolver, moduleArtifactPrefetchTaskExecutor());
+	}
+
+	@Bean
+	public TaskExecutor moduleArtifactPrefetchTaskExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(prefetchConcurrency);
+		taskExecutor.setThreadNamePrefix("module-prefetch-");
+		return taskExecutor;
+	}
+
 	/**
 	 * Condition which is used to enable local deployer in the default case, that is when
 	 * neither running <i>in</i> a cloud, <i>targeting</i> a cloud or running on yarn.
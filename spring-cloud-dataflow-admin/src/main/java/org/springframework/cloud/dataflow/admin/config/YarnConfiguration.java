@@ -17,11 +17,13 @@
 package org.springframework.cloud.dataflow.admin.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.dataflow.admin.deployment.ModuleArtifactPrefetcher;
 import org.springframework.cloud.dataflow.module.deployer.ModuleDeployer;
 import org.springframework.cloud.dataflow.module.deployer.yarn.DefaultYarnCloudAppService;
 import org.springframework.cloud.dataflow.module.deployer.yarn.YarnCloudAppService;
 import org.springframework.cloud.dataflow.module.deployer.yarn.YarnCloudAppStateMachine;
 import org.springframework.cloud.dataflow.module.deployer.yarn.YarnModuleDeployer;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -42,6 +44,12 @@ public class YarnConfiguration {
 	@Value("${spring.cloud.bootstrap.name:admin}")
 	private String bootstrapName;
 
+	/**
+	 * Maximum number of module artifacts resolved concurrently before a deployment.
+	 */
+	@Value("${spring.cloud.dataflow.deployment.prefetch.concurrency:4}")
+	private int prefetchConcurrency;
+
 	@Bean
 	public ModuleDeployer processModuleDeployer() throws Exception {
 		return new YarnModuleDeployer(yarnCloudAppService(), yarnCloudAppStateMachine().buildStateMachine());
@@ -70,4 +78,17 @@ public class YarnConfiguration {
 		return taskExecutor;
 	}
 
+	@Bean
+	public ModuleArtifactPrefetcher moduleArtifactPrefetcher(ModuleResolver moduleResolver) {
+		return new ModuleArtifactPrefetcher(moduleResolver, moduleArtifactPrefetchTaskExecutor());
+	}
+
+	@Bean
+	public TaskExecutor moduleArtifactPrefetchTaskExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(prefetchConcurrency);
+		taskExecutor.setThreadNamePrefix("module-prefetch-");
+		return taskExecutor;
+	}
+
 }
@@ -16,29 +16,25 @@
 
 package org.springframework.cloud.dataflow.admin.controller;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.cloud.dataflow.admin.repository.StreamDefinitionRepository;
+import org.springframework.cloud.dataflow.completion.ModuleConfigurationMetadataIndex;
 import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
 import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
 import org.springframework.cloud.dataflow.rest.resource.DetailedModuleRegistrationResource;
 import org.springframework.cloud.dataflow.rest.resource.ModuleRegistrationResource;
-import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
-import org.springframework.cloud.stream.module.resolver.Coordinates;
-import org.springframework.cloud.stream.module.resolver.ModuleResolver;
-import org.springframework.core.io.Resource;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.ExposesResourceFor;
 import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.mvc.ResourceAssemblerSupport;
 import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -66,10 +62,10 @@ public class ModuleController {
 	private final ArtifactRegistry registry;
 
 	@Autowired
-	private ModuleResolver moduleResolver;
+	private ModuleConfigurationMetadataIndex metadataIndex;
 
 	@Autowired
-	private ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver;
+	private StreamDefinitionRepository streamDefinitionRepository;
 
 	@Autowired
 	public ModuleController(ArtifactRegistry registry) {
@@ -77,25 +73,17 @@ public class ModuleController {
 	}
 
 	/**
-	 * List module registrations.
+	 * List module registrations of the given types (all types if none is given),
+	 * ordered by type then name.
 	 */
 	@RequestMapping(method = RequestMethod.GET)
 	@ResponseStatus(HttpStatus.OK)
 	public PagedResources<? extends ModuleRegistrationResource> list(
+			Pageable pageable,
 			PagedResourcesAssembler<ArtifactRegistration> assembler,
-			@RequestParam(value = "type", required = false) ArtifactType type,
+			@RequestParam(value = "type", required = false) ArtifactType[] types,
 			@RequestParam(value = "detailed", defaultValue = "false") boolean detailed) {
-
-		List<ArtifactRegistration> list = new ArrayList<>(registry.findAll());
-		if (type != null) {
-			for (Iterator<ArtifactRegistration> iterator = list.iterator(); iterator.hasNext(); ) {
-				if (iterator.next().getType() != type) {
-					iterator.remove();
-				}
-			}
-		}
-		Collections.sort(list);
-		return assembler.toResource(new PageImpl<>(list), moduleAssembler);
+		return assembler.toResource(registry.findAll(pageable, types), moduleAssembler);
 	}
 
 	/**
@@ -115,26 +103,79 @@ public class ModuleController {
 			return null;
 		}
 		DetailedModuleRegistrationResource result = new DetailedModuleRegistrationResource(moduleAssembler.toResource(registration));
-		Resource resource = moduleResolver.resolve(adapt(registration.getCoordinates()));
-
-		List<ConfigurationMetadataProperty> properties = moduleConfigurationMetadataResolver.listProperties(resource);
-		for (ConfigurationMetadataProperty property : properties) {
+		for (ConfigurationMetadataProperty property : metadataIndex.listProperties(
+				metadataCoordinates(registration.getCoordinates()))) {
 			result.addOption(property);
 		}
 		return result;
 	}
 
-	private Coordinates adapt(ArtifactCoordinates coordinates) {
-		return new Coordinates(coordinates.getGroupId(), coordinates.getArtifactId(), coordinates.getExtension(), "exec", coordinates.getVersion());
+	/**
+	 * List the names of the streams that use a particular module.
+	 *
+	 * @param type  module type
+	 * @param name  module name
+	 * @return the names of the streams, in ascending order
+	 */
+	@RequestMapping(value = "/{type}/{name}/usages", method = RequestMethod.GET)
+	@ResponseStatus(HttpStatus.OK)
+	public List<String> usages(
+			@PathVariable("type") ArtifactType type,
+			@PathVariable("name") String name) {
+		return streamDefinitionRepository.findNamesByModule(type, name);
 	}
 
 	/**
-	 * Register a module name and type with its Maven coordinates.
+	 * Fail if a module is used by streams, which would no longer be deployable as
+	 * defined if its registration changed.
+	 *
+	 * @throws ModuleInUseException if the module is used by streams
+	 */
+	private void assertNotInUse(ArtifactType type, String name) {
+		List<String> streams = streamDefinitionRepository.findNamesByModule(type, name);
+		if (!streams.isEmpty()) {
+			throw new ModuleInUseException(String.format("Module %s:%s is used by streams %s",
+					type, name, StringUtils.collectionToCommaDelimitedString(streams)));
+		}
+	}
+
+	/**
+	 * Return the coordinates of the artifact that module metadata is read from, that is
+	 * the executable ({@literal exec} classifier) variant of the registered artifact.
+	 * Metadata is prefetched, and its status reported, for these coordinates.
+	 *
+	 * @param coordinates the coordinates of a registered module
+	 * @return the coordinates of the artifact holding the module metadata
+	 */
+	public static ArtifactCoordinates metadataCoordinates(ArtifactCoordinates coordinates) {
+		return new ArtifactCoordinates.Builder()
+				.setGroupId(coordinates.getGroupId())
+				.setArtifactId(coordinates.getArtifactId())
+				.setExtension(coordinates.getExtension())
+				.setClassifier("exec")
+				.setVersion(coordinates.getVersion())
+				.build();
+	}
+
+	/**
+	 * Discard the cached metadata of the artifact a registration refers to.
+	 */
+	private void invalidateMetadata(ArtifactRegistration registration) {
+		if (registration != null) {
+			metadataIndex.invalidate(registration.getCoordinates());
+			metadataIndex.invalidate(metadataCoordinates(registration.getCoordinates()));
+		}
+	}
+
+	/**
+	 * Register a module name and type with its Maven coordinates. The module
+	 * artifact is then resolved, and its metadata extracted, in the background.
 	 *
 	 * @param type  module type
 	 * @param name  module name
 	 * @param coordinates  Maven coordinates for the module artifact
-	 * @param force if {@code true}, overwrites a pre-existing registration
+	 * @param force if {@code true}, overwrites a pre-existing registration that is
+	 * not used by any stream
 	 */
 	@RequestMapping(value = "/{type}/{name}", method = RequestMethod.POST)
 	@ResponseStatus(HttpStatus.CREATED)
@@ -143,14 +184,22 @@ public class ModuleController {
 			@PathVariable("name") String name,
 			@RequestParam("coordinates") String coordinates,
 			@RequestParam(value = "force", defaultValue = "false") boolean force) {
-		if (!force && registry.find(name, type) != null) {
+		ArtifactRegistration previous = registry.find(name, type);
+		if (!force && previous != null) {
 			return;
 		}
-		registry.save(new ArtifactRegistration(name, type, ArtifactCoordinates.parse(coordinates)));
+		if (previous != null) {
+			assertNotInUse(type, name);
+		}
+		ArtifactRegistration registration = new ArtifactRegistration(name, type, ArtifactCoordinates.parse(coordinates));
+		registry.save(registration);
+		invalidateMetadata(previous);
+		invalidateMetadata(registration);
+		metadataIndex.prefetch(metadataCoordinates(registration.getCoordinates()));
 	}
 
 	/**
-	 * Unregister a module name and type.
+	 * Unregister a module name and type, unless it is used by a stream.
 	 *
 	 * @param type the module type
 	 * @param name the module name
@@ -158,7 +207,10 @@ public class ModuleController {
 	@RequestMapping(value = "/{type}/{name}", method = RequestMethod.DELETE)
 	@ResponseStatus(HttpStatus.OK)
 	public void unregister(@PathVariable("type") ArtifactType type, @PathVariable("name") String name) {
+		assertNotInUse(type, name);
+		ArtifactRegistration registration = registry.find(name, type);
 		registry.delete(name, type);
+		invalidateMetadata(registration);
 	}
 
 	class Assembler extends ResourceAssemblerSupport<ArtifactRegistration, ModuleRegistrationResource> {
@@ -169,8 +221,14 @@ public class ModuleController {
 
 		@Override
 		public ModuleRegistrationResource toResource(ArtifactRegistration registration) {
-			return new ModuleRegistrationResource(registration.getName(),
+			ModuleRegistrationResource resource = new ModuleRegistrationResource(registration.getName(),
 					registration.getType().name(), registration.getCoordinates().toString());
+			ModuleConfigurationMetadataIndex.Status status =
+					metadataIndex.getStatus(metadataCoordinates(registration.getCoordinates()));
+			if (status != null) {
+				resource.setMetadataStatus(status.name().toLowerCase());
+			}
+			return resource;
 		}
 	}
 
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.dataflow.admin.controller;
+
+/**
+ * Thrown to indicate that a module registration could not be changed or removed
+ * because the module is used by streams.
+ *
+ * @author Patrick Peralta
+ */
+public class ModuleInUseException extends RuntimeException {
+
+	private static final long serialVersionUID = -6146617813208717094L;
+
+	public ModuleInUseException(String message) {
+		super(message);
+	}
+}
@@ -33,6 +33,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
  * @author Eric Bottard
  * @author Gunnar Hillert
  * @author Ilayaperumal Gopinathan
+ * @author Patrick Peralta
  */
 @ControllerAdvice
 public class RestControllerAdvice {
@@ -51,6 +52,18 @@ public class RestControllerAdvice {
 		return new VndErrors(logref, msg);
 	}
 
+	/**
+	 * Handles requests to change or remove a module used by streams. Report a
+	 * conflict with the current state of the server, which the client may resolve.
+	 */
+	@ExceptionHandler(ModuleInUseException.class)
+	@ResponseStatus(HttpStatus.CONFLICT)
+	@ResponseBody
+	public VndErrors onModuleInUseException(ModuleInUseException e) {
+		logger.debug("Refused a change to a module in use", e);
+		return new VndErrors(e.getClass().getSimpleName(), e.getMessage());
+	}
+
 	private String logError(Throwable t) {
 		logger.error("Caught exception while handling a request", t);
 		return t.getClass().getSimpleName();
@@ -16,20 +16,33 @@
 
 package org.springframework.cloud.dataflow.admin.controller;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cloud.dataflow.admin.deployment.ModuleArtifactPrefetcher;
 import org.springframework.cloud.dataflow.admin.repository.DuplicateStreamException;
 import org.springframework.cloud.dataflow.admin.repository.StreamDefinitionRepository;
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactKey;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
 import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
@@ -39,16 +52,25 @@ import org.springframework.cloud.dataflow.core.ModuleDefinition;
 import org.springframework.cloud.dataflow.core.ModuleDeploymentId;
 import org.springframework.cloud.dataflow.core.ModuleDeploymentRequest;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
+import org.springframework.cloud.dataflow.core.StreamDefinitionReader;
+import org.springframework.cloud.dataflow.core.dsl.ScriptParseException;
 import org.springframework.cloud.dataflow.module.ModuleStatus;
 import org.springframework.cloud.dataflow.module.deployer.ModuleDeployer;
 import org.springframework.cloud.dataflow.rest.resource.StreamDefinitionResource;
+import org.springframework.cloud.dataflow.rest.resource.StreamImportResultResource;
 import org.springframework.cloud.dataflow.rest.util.DeploymentPropertiesUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.ExposesResourceFor;
 import org.springframework.hateoas.PagedResources;
+import org.springframework.hateoas.Resources;
 import org.springframework.hateoas.mvc.ResourceAssemblerSupport;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -88,13 +110,33 @@ public class StreamController {
 	 */
 	private final ModuleDeployer deployer;
 
+	/**
+	 * Resolves the artifacts of a stream before its modules are deployed;
+	 * if {@code null}, each deployer resolves artifacts on its own.
+	 */
+	@Autowired(required = false)
+	private ModuleArtifactPrefetcher artifactPrefetcher;
+
 	/**
 	 * Assembler for {@link StreamDefinitionResource} objects.
 	 */
 	private final Assembler streamAssembler = new Assembler();
 
+	/**
+	 * Executor parsing the definitions of a batch import in parallel;
+	 * if {@code null}, they are parsed by the requesting thread.
+	 */
+	@Autowired(required = false)
+	@Qualifier("streamImportTaskExecutor")
+	private Executor importExecutor;
+
 	private static final String DEFAULT_PARTITION_KEY_EXPRESSION = "payload";
 
+	/**
+	 * Number of definitions of a batch import parsed by each task.
+	 */
+	private static final int IMPORT_SLICE_SIZE = 64;
+
 	/**
 	 * Create a {@code StreamController} that delegates
 	 * <ul>
@@ -122,14 +164,62 @@ public class StreamController {
 	 * Return a page-able list of {@link StreamDefinitionResource} defined streams.
 	 *
 	 * @param pageable   page-able collection of {@code StreamDefinitionResource}.
+	 * @param prefix     if set, only list the streams whose name starts with this prefix
+	 * @param channel    if set, only list the streams reading from or writing to this named channel
 	 * @param assembler  assembler for {@link StreamDefinition}
 	 * @return list of stream definitions
 	 */
 	@RequestMapping(value = "/definitions", method = RequestMethod.GET)
 	@ResponseStatus(HttpStatus.OK)
 	public PagedResources<StreamDefinitionResource> list(Pageable pageable,
+			@RequestParam(value = "prefix", required = false) String prefix,
+			@RequestParam(value = "channel", required = false) String channel,
 			PagedResourcesAssembler<StreamDefinition> assembler) {
-		return assembler.toResource(repository.findAll(pageable), streamAssembler);
+		Page<StreamDefinition> page;
+		if (StringUtils.hasLength(channel)) {
+			page = page(repository.findNamesByChannel(channel), prefix, pageable);
+		}
+		else if (StringUtils.hasLength(prefix)) {
+			page = repository.findByNameStartingWith(prefix, pageable);
+		}
+		else {
+			page = repository.findAll(pageable);
+		}
+		return assembler.toResource(page, streamAssembler);
+	}
+
+	/**
+	 * Return the requested page of the definitions of the given streams.
+	 *
+	 * @param names the names of the streams, in ascending order
+	 * @param prefix if set, only include the streams whose name starts with this prefix
+	 * @param pageable the page request
+	 */
+	private Page<StreamDefinition> page(List<String> names, String prefix, Pageable pageable) {
+		if (StringUtils.hasLength(prefix)) {
+			List<String> matching = new ArrayList<>();
+			for (String name : names) {
+				if (name.startsWith(prefix)) {
+					matching.add(name);
+				}
+			}
+			names = matching;
+		}
+		Sort.Order order = (pageable.getSort() == null ? null : pageable.getSort().getOrderFor("name"));
+		if (order != null && order.getDirection() == Sort.Direction.DESC) {
+			names = new ArrayList<>(names);
+			Collections.reverse(names);
+		}
+		int start = Math.min(pageable.getOffset(), names.size());
+		int end = (int) Math.min((long) start + pageable.getPageSize(), names.size());
+		List<StreamDefinition> definitions = new ArrayList<>(end - start);
+		for (StreamDefinition definition : repository.findAll(names.subList(start, end))) {
+			// streams deleted since their names were read
+			if (definition != null) {
+				definitions.add(definition);
+			}
+		}
+		return new PageImpl<>(definitions, pageable, names.size());
 	}
 
 	/**
@@ -145,19 +235,86 @@ public class StreamController {
 			@RequestParam("definition") String dsl,
 			@RequestParam(value = "deploy", defaultValue = "true")
 			boolean deploy) {
-		if (this.repository.exists(name)) {
+		StreamDefinition stream = new StreamDefinition(name, dsl);
+		if (!this.repository.saveAllIfAbsent(Collections.singleton(stream)).isEmpty()) {
 			throw new DuplicateStreamException(
 					String.format("Cannot create stream %s because another one has already " +
 							"been created with the same name", name));
 		}
-
-		StreamDefinition stream = new StreamDefinition(name, dsl);
-		stream = this.repository.save(stream);
 		if (deploy) {
 			deployStream(stream, null);
 		}
 	}
 
+	/**
+	 * Create several streams at once. The request body holds {@literal name = definition}
+	 * entries, separated by newlines or semicolons, as read by {@link StreamDefinitionReader}.
+	 * <p>
+	 * Definitions are parsed in parallel, then checked against existing streams and each
+	 * other. The batch is all or nothing: streams are only created, with a single
+	 * repository write, if every definition is valid and every name is free. Otherwise
+	 * nothing is created and the response tells which entries were rejected and why.
+	 *
+	 * @param definitions the stream definitions
+	 * @return the outcome for each definition, in request order; the response status is
+	 * {@code 201} if the streams were created and {@code 200} if the batch was rejected
+	 */
+	@RequestMapping(value = "/definitions/batch", method = RequestMethod.POST, consumes = MediaType.TEXT_PLAIN_VALUE)
+	public ResponseEntity<Resources<StreamImportResultResource>> saveAll(Reader definitions) throws IOException {
+		List<ImportEntry> entries = readImportEntries(definitions);
+		parseImportEntries(entries);
+
+		Map<String, ImportEntry> byName = new LinkedHashMap<>();
+		for (ImportEntry entry : entries) {
+			if (entry.status != null) {
+				continue;
+			}
+			ImportEntry first = byName.get(entry.name);
+			if (first == null) {
+				byName.put(entry.name, entry);
+			}
+			else {
+				entry.reject(StreamImportResultResource.DUPLICATE,
+						String.format("stream %s is already defined at line %d", entry.name, first.line));
+			}
+		}
+
+		List<StreamDefinition> streams = new ArrayList<>(byName.size());
+		for (ImportEntry entry : byName.values()) {
+			streams.add(entry.definition);
+		}
+		Collection<String> existing = Collections.emptySet();
+		boolean created = false;
+		if (byName.size() < entries.size()) {
+			// rejected anyway: only report which of the other names are taken
+			existing = new ArrayList<>();
+			for (StreamDefinition stream : this.repository.findAll(byName.keySet())) {
+				if (stream != null) {
+					existing.add(stream.getName());
+				}
+			}
+		}
+		else if (!streams.isEmpty()) {
+			// the repository checks the names and saves the streams atomically
+			existing = this.repository.saveAllIfAbsent(streams);
+			created = existing.isEmpty();
+		}
+		for (String name : existing) {
+			byName.get(name).reject(StreamImportResultResource.DUPLICATE,
+					String.format("stream %s already exists", name));
+		}
+
+		List<StreamImportResultResource> results = new ArrayList<>(entries.size());
+		for (ImportEntry entry : entries) {
+			String status = entry.status;
+			if (status == null) {
+				status = created ? StreamImportResultResource.CREATED : StreamImportResultResource.SKIPPED;
+			}
+			results.add(new StreamImportResultResource(entry.name, entry.line, status, entry.message));
+		}
+		return new ResponseEntity<>(new Resources<>(results), created ? HttpStatus.CREATED : HttpStatus.OK);
+	}
+
 	/**
 	 * Request removal of an existing stream definition.
 	 *
@@ -219,22 +376,77 @@ public class StreamController {
 		deployStream(stream, DeploymentPropertiesUtils.parse(properties));
 	}
 
+	/**
+	 * Read the entries of a batch import, without parsing their definitions.
+	 * Entries that do not have the {@literal name = definition} shape are rejected right away.
+	 */
+	private List<ImportEntry> readImportEntries(Reader definitions) throws IOException {
+		List<ImportEntry> entries = new ArrayList<>();
+		StreamDefinitionReader reader = new StreamDefinitionReader(definitions);
+		while (true) {
+			try {
+				StreamDefinitionReader.Entry entry = reader.readEntry();
+				if (entry == null) {
+					return entries;
+				}
+				entries.add(new ImportEntry(entry));
+			}
+			catch (ScriptParseException e) {
+				entries.add(new ImportEntry(e.getLine()).reject(StreamImportResultResource.INVALID, e.getMessage()));
+			}
+		}
+	}
+
+	/**
+	 * Parse the definitions of a batch import. Slices of the entries are handed over to
+	 * {@link #importExecutor}, while the requesting thread parses the last slice, as well
+	 * as any slice that the executor rejects.
+	 */
+	private void parseImportEntries(List<ImportEntry> entries) {
+		List<FutureTask<Void>> tasks = new ArrayList<>();
+		int from = 0;
+		if (this.importExecutor != null) {
+			for (; entries.size() - from > IMPORT_SLICE_SIZE; from += IMPORT_SLICE_SIZE) {
+				FutureTask<Void> task = new FutureTask<>(
+						new ParseImportEntries(entries, from, from + IMPORT_SLICE_SIZE), null);
+				try {
+					this.importExecutor.execute(task);
+				}
+				catch (RejectedExecutionException e) {
+					task.run();
+				}
+				tasks.add(task);
+			}
+		}
+		new ParseImportEntries(entries, from, entries.size()).run();
+		try {
+			for (FutureTask<Void> task : tasks) {
+				task.get();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while parsing stream definitions", e);
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException("Failed to parse stream definitions", e.getCause());
+		}
+	}
+
 	private void deployStream(StreamDefinition stream, Map<String, String> cumulatedDeploymentProperties) {
 		if (cumulatedDeploymentProperties == null) {
 			cumulatedDeploymentProperties = Collections.emptyMap();
 		}
+		Map<ArtifactKey, ArtifactRegistration> registrations = findRegistrations(stream);
+		List<ModuleDeploymentRequest> requests = new ArrayList<>();
 		Iterator<ModuleDefinition> iterator = stream.getDeploymentOrderIterator();
 		int nextModuleCount = 0;
 		boolean isDownStreamModulePartitioned = false;
 		for (int i = 0; iterator.hasNext(); i++) {
 			ModuleDefinition currentModule = iterator.next();
 			ArtifactType type = determineModuleType(currentModule);
-			ArtifactRegistration registration = this.registry.find(currentModule.getName(), type);
-			if (registration == null) {
-				throw new IllegalArgumentException(String.format(
-						"Module %s of type %s not found in registry", currentModule.getName(), type));
-			}
-			ArtifactCoordinates coordinates = registration.getCoordinates();
+			ArtifactCoordinates coordinates = registrations.get(
+					new ArtifactKey(currentModule.getName(), type)).getCoordinates();
 			Map<String, String> moduleDeploymentProperties = getModuleDeploymentProperties(currentModule, cumulatedDeploymentProperties);
 			boolean upstreamModuleSupportsPartition = upstreamModuleHasPartitionInfo(stream, currentModule, cumulatedDeploymentProperties);
 			// consumer module partition properties
@@ -249,34 +461,78 @@ public class StreamController {
 			isDownStreamModulePartitioned = isPartitionedConsumer(currentModule, moduleDeploymentProperties,
 					upstreamModuleSupportsPartition);
 
-			currentModule = postProcessLibraryProperties(currentModule);
+			currentModule = postProcessLibraryProperties(currentModule, registrations);
 
-			this.deployer.deploy(new ModuleDeploymentRequest(currentModule, coordinates, moduleDeploymentProperties));
+			requests.add(new ModuleDeploymentRequest(currentModule, coordinates, moduleDeploymentProperties));
+		}
+		if (this.artifactPrefetcher != null) {
+			this.artifactPrefetcher.prefetch(requests);
+		}
+		for (ModuleDeploymentRequest request : requests) {
+			this.deployer.deploy(request);
 		}
 	}
 
 	/**
-	 * Looks at parameters of a module that represent maven coordinates and, if a simple name has been used,
-	 * resolve it from the {@link ArtifactRegistry}.
+	 * Looks up, in one bulk query, the registrations of all the modules of a stream and of
+	 * the libraries they include by simple name.
+	 *
+	 * @throws IllegalArgumentException listing every module and library that is not registered
 	 */
-	private ModuleDefinition postProcessLibraryProperties(ModuleDefinition module) {
+	private Map<ArtifactKey, ArtifactRegistration> findRegistrations(StreamDefinition stream) {
+		Set<ArtifactKey> keys = new LinkedHashSet<>();
+		for (ModuleDefinition module : stream.getModuleDefinitions()) {
+			keys.add(new ArtifactKey(module.getName(), determineModuleType(module)));
+			for (String lib : getIncludes(module)) {
+				try {
+					ArtifactCoordinates.parse(lib);
+				}
+				catch (IllegalArgumentException e) {
+					keys.add(new ArtifactKey(lib, ArtifactType.library));
+				}
+			}
+		}
+
+		Map<ArtifactKey, ArtifactRegistration> registrations = new HashMap<>();
+		List<String> errors = new ArrayList<>();
+		Iterator<ArtifactRegistration> found = this.registry.findAll(keys).iterator();
+		for (ArtifactKey key : keys) {
+			ArtifactRegistration registration = found.next();
+			if (registration != null) {
+				registrations.put(key, registration);
+			}
+			else if (key.getType() == ArtifactType.library) {
+				errors.add("'" + key.getName() + "' could not be parsed as maven coordinates and is not a registered library");
+			}
+			else {
+				errors.add(String.format("Module %s of type %s not found in registry", key.getName(), key.getType()));
+			}
+		}
+		if (!errors.isEmpty()) {
+			throw new IllegalArgumentException(StringUtils.collectionToDelimitedString(errors, "; "));
+		}
+		return registrations;
+	}
+
+	private String[] getIncludes(ModuleDefinition module) {
 		String includes = module.getParameters().get("includes");
-		if (includes == null) {
+		return (includes == null ? new String[0] : StringUtils.delimitedListToStringArray(includes, ",", " \t"));
+	}
+
+	/**
+	 * Looks at parameters of a module that represent maven coordinates and, if a simple name has been used,
+	 * resolve it with the registrations found in the {@link ArtifactRegistry}.
+	 */
+	private ModuleDefinition postProcessLibraryProperties(ModuleDefinition module,
+			Map<ArtifactKey, ArtifactRegistration> registrations) {
+		String[] libs = getIncludes(module);
+		if (libs.length == 0) {
 			return module;
 		}
-		String[] libs = StringUtils.delimitedListToStringArray(includes, ",", " \t");
 		for (int i = 0; i < libs.length; i++) {
-			ArtifactCoordinates coordinates;
-			try {
-				coordinates = ArtifactCoordinates.parse(libs[i]);
-			}
-			catch (IllegalArgumentException e) {
-				ArtifactRegistration registration = registry.find(libs[i], ArtifactType.library);
-				if (registration == null) {
-					throw new IllegalArgumentException("'" + libs[i] + "' could not be parsed as maven coordinates and is not a registered library");
-				}
-				coordinates = registration.getCoordinates();
-			}
+			ArtifactRegistration registration = registrations.get(new ArtifactKey(libs[i], ArtifactType.library));
+			ArtifactCoordinates coordinates = (registration != null
+					? registration.getCoordinates() : ArtifactCoordinates.parse(libs[i]));
 			libs[i] = coordinates.toString();
 		}
 		return ModuleDefinition.Builder.from(module)
@@ -417,6 +673,77 @@ public class StreamController {
 		}
 	}
 
+	/**
+	 * A definition read from a batch import, along with the outcome of its import
+	 * if it has been rejected.
+	 */
+	private static class ImportEntry {
+
+		private final int line;
+
+		private final String name;
+
+		private final StreamDefinitionReader.Entry source;
+
+		private StreamDefinition definition;
+
+		private String status;
+
+		private String message;
+
+		ImportEntry(StreamDefinitionReader.Entry source) {
+			this.line = source.getLine();
+			this.name = source.getName();
+			this.source = source;
+		}
+
+		ImportEntry(int line) {
+			this.line = line;
+			this.name = null;
+			this.source = null;
+		}
+
+		ImportEntry reject(String status, String message) {
+			this.status = status;
+			this.message = message;
+			return this;
+		}
+	}
+
+	/**
+	 * Parses a range of {@link ImportEntry import entries}.
+	 */
+	private static class ParseImportEntries implements Runnable {
+
+		private final List<ImportEntry> entries;
+
+		private final int from;
+
+		private final int to;
+
+		ParseImportEntries(List<ImportEntry> entries, int from, int to) {
+			this.entries = entries;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public void run() {
+			for (int i = from; i < to; i++) {
+				ImportEntry entry = entries.get(i);
+				if (entry.status != null) {
+					continue;
+				}
+				try {
+					entry.definition = entry.source.parse();
+				}
+				catch (RuntimeException e) {
+					entry.reject(StreamImportResultResource.INVALID, e.getMessage());
+				}
+			}
+		}
+	}
+
 	/**
 	 * {@link org.springframework.hateoas.ResourceAssembler} implementation
 	 * that converts {@link StreamDefinition}s to {@link StreamDefinitionResource}s.
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.deployment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.ModuleDeploymentRequest;
+import org.springframework.cloud.stream.module.resolver.Coordinates;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Resolves the artifacts of the modules of a stream, and the libraries they include,
+ * concurrently and ahead of their deployment. Deployers that resolve artifacts through
+ * the same local repository then find them there, instead of downloading them one
+ * module after the other.
+ * <p>
+ * Prefetching fails as soon as any artifact cannot be resolved, so that a stream is
+ * not partially deployed because of a missing artifact.
+ *
+ * @author Patrick Peralta
+ */
+public class ModuleArtifactPrefetcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(ModuleArtifactPrefetcher.class);
+
+	private static final String[] NO_EXCLUDES = new String[0];
+
+	private final ModuleResolver moduleResolver;
+
+	/**
+	 * Executor resolving the artifacts; it bounds the number of concurrent downloads.
+	 */
+	private final Executor executor;
+
+	/**
+	 * Construct a {@code ModuleArtifactPrefetcher}.
+	 *
+	 * @param moduleResolver the resolver for module artifacts
+	 * @param executor the executor resolving the artifacts
+	 */
+	public ModuleArtifactPrefetcher(ModuleResolver moduleResolver, Executor executor) {
+		Assert.notNull(moduleResolver, "moduleResolver must not be null");
+		Assert.notNull(executor, "executor must not be null");
+		this.moduleResolver = moduleResolver;
+		this.executor = executor;
+	}
+
+	/**
+	 * Resolve the artifacts of the modules to deploy, along with the libraries they
+	 * include, and wait for all of them to be resolved.
+	 *
+	 * @param requests the deployment requests of the modules
+	 * @throws IllegalArgumentException if an artifact could not be resolved; the
+	 * resolution of the remaining artifacts is cancelled
+	 */
+	public void prefetch(Collection<ModuleDeploymentRequest> requests) {
+		long start = System.currentTimeMillis();
+		CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+		List<Future<Void>> futures = new ArrayList<>(requests.size());
+		try {
+			for (ModuleDeploymentRequest request : requests) {
+				futures.add(completionService.submit(new Resolution(request)));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				completionService.take().get();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while resolving module artifacts", e);
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+		finally {
+			for (Future<Void> future : futures) {
+				future.cancel(true);
+			}
+		}
+		logger.debug("Resolved artifacts of {} modules in {} ms", requests.size(), System.currentTimeMillis() - start);
+	}
+
+	private static Coordinates adapt(ArtifactCoordinates coordinates) {
+		return new Coordinates(coordinates.getGroupId(), coordinates.getArtifactId(),
+				coordinates.getExtension(), coordinates.getClassifier(), coordinates.getVersion());
+	}
+
+
+	/**
+	 * Resolution of the artifact of one module, and of its included libraries.
+	 */
+	private class Resolution implements Callable<Void> {
+
+		private final ModuleDeploymentRequest request;
+
+		private Resolution(ModuleDeploymentRequest request) {
+			this.request = request;
+		}
+
+		@Override
+		public Void call() {
+			ArtifactCoordinates coordinates = request.getCoordinates();
+			String includes = request.getDefinition().getParameters().get("includes");
+			try {
+				if (StringUtils.hasText(includes)) {
+					String[] libraries = StringUtils.commaDelimitedListToStringArray(includes);
+					Coordinates[] included = new Coordinates[libraries.length];
+					for (int i = 0; i < libraries.length; i++) {
+						included[i] = adapt(ArtifactCoordinates.parse(libraries[i].trim()));
+					}
+					moduleResolver.resolve(adapt(coordinates), included, NO_EXCLUDES);
+				}
+				else {
+					moduleResolver.resolve(adapt(coordinates));
+				}
+			}
+			catch (RuntimeException e) {
+				throw new IllegalArgumentException(String.format("Could not resolve artifact %s of module %s: %s",
+						coordinates, request.getDefinition().getLabel(), e.getMessage()), e);
+			}
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,4 @@
+/**
+ * Spring Cloud Data Flow Admin Deployment Support.
+ */
+package org.springframework.cloud.dataflow.admin.deployment;
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.repository;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.springframework.cloud.dataflow.core.store.LogFileStore;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.PagingAndSortingRepository;
+
+/**
+ * Base class for repositories of definitions backed by a {@link LogFileStore},
+ * storing each definition as a {@literal name:dsl} mapping. All reads are
+ * served from memory.
+ *
+ * @param <D> the type of definitions
+ *
+ * @author Patrick Peralta
+ */
+abstract class AbstractFileDefinitionRepository<D> implements PagingAndSortingRepository<D, String>, Closeable {
+
+	protected final LogFileStore store;
+
+	protected AbstractFileDefinitionRepository(File file) throws IOException {
+		this.store = new LogFileStore(file);
+	}
+
+	/**
+	 * Return the definition of the given name, made of the given DSL text.
+	 */
+	protected abstract D toDefinition(String name, String dslText);
+
+	protected abstract String getName(D definition);
+
+	protected abstract String getDslText(D definition);
+
+	@Override
+	public Iterable<D> findAll(Sort sort) {
+		return findAll(new PageRequest(0, Integer.MAX_VALUE, sort));
+	}
+
+	@Override
+	public Page<D> findAll(Pageable pageable) {
+		return page("", pageable);
+	}
+
+	/**
+	 * Return a page of the definitions whose name starts with the given prefix.
+	 *
+	 * @param prefix the prefix of the names
+	 * @param pageable the page request
+	 * @return a page of definitions
+	 */
+	public Page<D> findByNameStartingWith(String prefix, Pageable pageable) {
+		return page(prefix, pageable);
+	}
+
+	/**
+	 * Return the requested page of the definitions whose name starts with the given
+	 * prefix, read from a view of the store without copying the other definitions.
+	 */
+	private Page<D> page(String prefix, Pageable pageable) {
+		Sort.Order order = (pageable.getSort() == null ? null : pageable.getSort().getOrderFor("name"));
+		boolean descending = (order != null && order.getDirection() == Sort.Direction.DESC);
+		SortedMap<String, String> view = store.prefixMap(prefix, descending);
+		int total = (prefix.isEmpty() ? store.size() : view.size());
+		int offset = pageable.getOffset();
+		int size = (int) Math.max(Math.min((long) pageable.getPageSize(), (long) total - offset), 0);
+		if (size == 0) {
+			return new PageImpl<>(Collections.<D>emptyList(), pageable, total);
+		}
+		Iterator<Map.Entry<String, String>> iterator = view.entrySet().iterator();
+		for (int i = 0; i < offset && iterator.hasNext(); i++) {
+			iterator.next();
+		}
+		List<D> results = new ArrayList<>(size);
+		while (results.size() < size && iterator.hasNext()) {
+			Map.Entry<String, String> entry = iterator.next();
+			results.add(toDefinition(entry.getKey(), entry.getValue()));
+		}
+		return new PageImpl<>(results, pageable, total);
+	}
+
+	@Override
+	public <S extends D> S save(S definition) {
+		store.put(getName(definition), getDslText(definition));
+		return definition;
+	}
+
+	@Override
+	public <S extends D> Iterable<S> save(Iterable<S> definitions) {
+		Map<String, String> values = new HashMap<>();
+		for (S definition : definitions) {
+			values.put(getName(definition), getDslText(definition));
+		}
+		store.putAll(values);
+		return definitions;
+	}
+
+	@Override
+	public D findOne(String name) {
+		String dslText = store.get(name);
+		return (dslText == null ? null : toDefinition(name, dslText));
+	}
+
+	@Override
+	public boolean exists(String name) {
+		return store.containsKey(name);
+	}
+
+	@Override
+	public Iterable<D> findAll() {
+		return findAll(new Sort("name"));
+	}
+
+	@Override
+	public Iterable<D> findAll(Iterable<String> names) {
+		List<D> results = new ArrayList<>();
+		for (String name : names) {
+			D definition = findOne(name);
+			if (definition != null) {
+				results.add(definition);
+			}
+		}
+		return results;
+	}
+
+	@Override
+	public long count() {
+		return store.size();
+	}
+
+	@Override
+	public void delete(String name) {
+		store.remove(name);
+	}
+
+	@Override
+	public void delete(D definition) {
+		delete(getName(definition));
+	}
+
+	@Override
+	public void delete(Iterable<? extends D> definitions) {
+		List<String> names = new ArrayList<>();
+		for (D definition : definitions) {
+			names.add(getName(definition));
+		}
+		store.removeAll(names);
+	}
+
+	@Override
+	public void deleteAll() {
+		store.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		store.close();
+	}
+
+}
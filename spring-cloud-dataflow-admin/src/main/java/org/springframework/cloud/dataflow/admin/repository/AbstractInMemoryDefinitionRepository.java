@@ -0,0 +1,269 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.PagingAndSortingRepository;
+
+/**
+ * Base class for in-memory repositories of definitions, kept sorted by name.
+ * <p>
+ * Pages are read from views of the sorted map, in either direction, without
+ * copying the definitions that are not part of the page. The number of
+ * definitions is tracked as they are added and removed, since counting the
+ * entries of a {@link ConcurrentSkipListMap} requires traversing it.
+ *
+ * @param <D> the type of definitions
+ *
+ * @author Patrick Peralta
+ */
+abstract class AbstractInMemoryDefinitionRepository<D> implements PagingAndSortingRepository<D, String> {
+
+	protected final ConcurrentSkipListMap<String, D> definitions = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Number of entries in {@link #definitions}.
+	 */
+	private final AtomicInteger count = new AtomicInteger();
+
+	protected abstract String getName(D definition);
+
+	@Override
+	public Iterable<D> findAll(Sort sort) {
+		return findAll(new PageRequest(0, Integer.MAX_VALUE, sort));
+	}
+
+	@Override
+	public Page<D> findAll(Pageable pageable) {
+		return page(definitions, count.get(), pageable);
+	}
+
+	/**
+	 * Return a page of the definitions whose name starts with the given prefix.
+	 *
+	 * @param prefix the prefix of the names
+	 * @param pageable the page request
+	 * @return a page of definitions
+	 */
+	public Page<D> findByNameStartingWith(String prefix, Pageable pageable) {
+		if (prefix.isEmpty()) {
+			return findAll(pageable);
+		}
+		String successor = successor(prefix);
+		NavigableMap<String, D> matching = (successor == null
+				? definitions.tailMap(prefix, true)
+				: definitions.subMap(prefix, true, successor, false));
+		return page(matching, matching.size(), pageable);
+	}
+
+	/**
+	 * Return the requested page of the given view of the definitions, which holds
+	 * {@code total} definitions.
+	 */
+	private Page<D> page(NavigableMap<String, D> view, int total, Pageable pageable) {
+		Sort.Order order = (pageable.getSort() == null ? null : pageable.getSort().getOrderFor("name"));
+		if (order != null && order.getDirection() == Sort.Direction.DESC) {
+			view = view.descendingMap();
+		}
+		int offset = pageable.getOffset();
+		int size = (int) Math.max(Math.min((long) pageable.getPageSize(), (long) total - offset), 0);
+		if (size == 0) {
+			return new PageImpl<>(Collections.<D>emptyList(), pageable, total);
+		}
+		Iterator<D> iterator = view.values().iterator();
+		for (int i = 0; i < offset && iterator.hasNext(); i++) {
+			iterator.next();
+		}
+		List<D> results = new ArrayList<>(size);
+		while (results.size() < size && iterator.hasNext()) {
+			results.add(iterator.next());
+		}
+		return new PageImpl<>(results, pageable, total);
+	}
+
+	/**
+	 * Return the smallest string greater than all strings starting with the given
+	 * prefix, or {@code null} if there is none.
+	 */
+	private static String successor(String prefix) {
+		StringBuilder builder = new StringBuilder(prefix);
+		while (builder.length() > 0) {
+			char last = builder.charAt(builder.length() - 1);
+			builder.setLength(builder.length() - 1);
+			if (last != Character.MAX_VALUE) {
+				return builder.append((char) (last + 1)).toString();
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public <S extends D> Iterable<S> save(Iterable<S> iterableDefinitions) {
+		for (S definition : iterableDefinitions) {
+			save(definition);
+		}
+		return iterableDefinitions;
+	}
+
+	@Override
+	public <S extends D> S save(S definition) {
+		D previous = definitions.put(getName(definition), definition);
+		if (previous == null) {
+			count.incrementAndGet();
+		}
+		replaced(previous, definition);
+		return definition;
+	}
+
+	/**
+	 * Save the given definition unless one of the same name exists.
+	 *
+	 * @return whether the definition was saved
+	 */
+	protected boolean saveIfAbsent(D definition) {
+		if (definitions.putIfAbsent(getName(definition), definition) == null) {
+			count.incrementAndGet();
+			replaced(null, definition);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Save the given definitions, unless one of the same name as any of them exists
+	 * or several of them have the same name, in which case none is saved.
+	 *
+	 * @return the names that prevented saving the definitions, empty if they were saved
+	 */
+	protected Set<String> saveAllIfAbsent(Iterable<? extends D> iterableDefinitions) {
+		Map<String, D> toSave = new LinkedHashMap<>();
+		Set<String> present = new TreeSet<>();
+		for (D definition : iterableDefinitions) {
+			String name = getName(definition);
+			if (toSave.put(name, definition) != null || definitions.containsKey(name)) {
+				present.add(name);
+			}
+		}
+		if (!present.isEmpty()) {
+			return present;
+		}
+		List<D> saved = new ArrayList<>(toSave.size());
+		for (D definition : toSave.values()) {
+			if (definitions.putIfAbsent(getName(definition), definition) != null) {
+				// saved concurrently since it was checked: undo the definitions saved so far
+				for (D undone : saved) {
+					definitions.remove(getName(undone), undone);
+				}
+				count.addAndGet(-saved.size());
+				return Collections.singleton(getName(definition));
+			}
+			count.incrementAndGet();
+			saved.add(definition);
+		}
+		for (D definition : saved) {
+			replaced(null, definition);
+		}
+		return present;
+	}
+
+	/**
+	 * Invoked when a definition was saved or deleted. Does nothing by default.
+	 *
+	 * @param previous the definition that was replaced or deleted, or {@code null}
+	 * @param definition the definition that was saved, or {@code null}
+	 */
+	protected void replaced(D previous, D definition) {
+	}
+
+	@Override
+	public D findOne(String name) {
+		return definitions.get(name);
+	}
+
+	@Override
+	public boolean exists(String name) {
+		return definitions.containsKey(name);
+	}
+
+	@Override
+	public Iterable<D> findAll() {
+		return Collections.unmodifiableCollection(definitions.values());
+	}
+
+	@Override
+	public Iterable<D> findAll(Iterable<String> names) {
+		List<D> results = new ArrayList<>();
+		for (String name : names) {
+			D definition = definitions.get(name);
+			if (definition != null) {
+				results.add(definition);
+			}
+		}
+		return results;
+	}
+
+	@Override
+	public long count() {
+		return count.get();
+	}
+
+	@Override
+	public void delete(String name) {
+		D previous = definitions.remove(name);
+		if (previous != null) {
+			count.decrementAndGet();
+			replaced(previous, null);
+		}
+	}
+
+	@Override
+	public void delete(D definition) {
+		delete(getName(definition));
+	}
+
+	@Override
+	public void delete(Iterable<? extends D> definitions) {
+		for (D definition : definitions) {
+			delete(definition);
+		}
+	}
+
+	@Override
+	public void deleteAll() {
+		// removed one at a time to keep the count exact
+		for (String name : definitions.keySet()) {
+			delete(name);
+		}
+	}
+
+}
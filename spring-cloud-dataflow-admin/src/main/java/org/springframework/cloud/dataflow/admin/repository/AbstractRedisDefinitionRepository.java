@@ -0,0 +1,378 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.BoundHashOperations;
+import org.springframework.data.redis.core.BoundZSetOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.repository.PagingAndSortingRepository;
+
+/**
+ * Base class for repositories of definitions backed by Redis, storing each
+ * definition as a {@literal name:dsl} mapping in a Redis hash.
+ * <p>
+ * The names of the definitions are also kept in a sorted set, all with the same
+ * score so that they are ordered lexicographically, under the key of the hash
+ * suffixed with {@value #INDEX_SUFFIX}. Both are updated in the same transaction.
+ * Pages of definitions, whether or not restricted to a name prefix, are then read
+ * by rank from the sorted set, in {@code O(log(n) + pageSize)}.
+ * <p>
+ * Definitions saved before the sorted set was introduced are indexed on first
+ * access. Requires Redis 2.8.9 or later.
+ *
+ * @param <D> the type of definitions
+ *
+ * @author Eric Bottard
+ * @author Patrick Peralta
+ */
+abstract class AbstractRedisDefinitionRepository<D> implements PagingAndSortingRepository<D, String> {
+
+	/**
+	 * Suffix of the key of the sorted set of names.
+	 */
+	public static final String INDEX_SUFFIX = ".names";
+
+	protected final StringRedisTemplate redisTemplate;
+
+	protected final BoundHashOperations<String, String, String> hashOperations;
+
+	protected final BoundZSetOperations<String, String> indexOperations;
+
+	/**
+	 * Whether the sorted set of names was checked against the hash.
+	 */
+	private volatile boolean indexChecked;
+
+	protected AbstractRedisDefinitionRepository(String hashKey, RedisConnectionFactory redisConnectionFactory) {
+		redisTemplate = new StringRedisTemplate(redisConnectionFactory);
+		hashOperations = redisTemplate.boundHashOps(hashKey);
+		indexOperations = redisTemplate.boundZSetOps(hashKey + INDEX_SUFFIX);
+	}
+
+	/**
+	 * Return the definition of the given name, made of the given DSL text.
+	 */
+	protected abstract D toDefinition(String name, String dslText);
+
+	protected abstract String getName(D definition);
+
+	protected abstract String getDslText(D definition);
+
+	@Override
+	public Iterable<D> findAll(Sort sort) {
+		return findAll(new PageRequest(0, Integer.MAX_VALUE, sort));
+	}
+
+	@Override
+	public Page<D> findAll(Pageable pageable) {
+		checkIndex();
+		long total = indexOperations.size();
+		return page(0, total, pageable);
+	}
+
+	/**
+	 * Return a page of the definitions whose name starts with the given prefix.
+	 *
+	 * @param prefix the prefix of the names
+	 * @param pageable the page request
+	 * @return a page of definitions
+	 */
+	public Page<D> findByNameStartingWith(String prefix, Pageable pageable) {
+		checkIndex();
+		if (prefix.isEmpty()) {
+			return findAll(pageable);
+		}
+		// ranks of the first name with the prefix, and of the first name after them
+		String first = firstNameFrom(prefix);
+		if (first == null || !first.startsWith(prefix)) {
+			return new PageImpl<>(Collections.<D>emptyList(), pageable, 0);
+		}
+		long start = indexOperations.rank(first);
+		String successor = successor(prefix);
+		String after = (successor == null ? null : firstNameFrom(successor));
+		long end = (after == null ? indexOperations.size() : indexOperations.rank(after));
+		return page(start, end, pageable);
+	}
+
+	/**
+	 * Return a page of the definitions whose names have a rank between {@code start},
+	 * inclusive, and {@code end}, exclusive, in the sorted set of names.
+	 */
+	private Page<D> page(long start, long end, Pageable pageable) {
+		long total = end - start;
+		long offset = Math.min(pageable.getOffset(), total);
+		long size = Math.min(pageable.getPageSize(), total - offset);
+		if (size == 0) {
+			return new PageImpl<>(Collections.<D>emptyList(), pageable, total);
+		}
+		Sort.Order order = (pageable.getSort() == null ? null : pageable.getSort().getOrderFor("name"));
+		List<String> names;
+		if (order != null && order.getDirection() == Sort.Direction.DESC) {
+			names = new ArrayList<>(indexOperations.range(end - offset - size, end - offset - 1));
+			Collections.reverse(names);
+		}
+		else {
+			names = new ArrayList<>(indexOperations.range(start + offset, start + offset + size - 1));
+		}
+		List<D> results = zipToDefinitions(names, hashOperations.multiGet(names));
+		// definitions deleted since the names were read
+		results.removeAll(Collections.singleton(null));
+		return new PageImpl<>(results, pageable, total);
+	}
+
+	/**
+	 * Return the first name that is equal to or greater than the given string, or
+	 * {@code null} if there is none.
+	 */
+	private String firstNameFrom(final String from) {
+		final byte[] key = redisTemplate.getStringSerializer().serialize(indexOperations.getKey());
+		byte[] name = redisTemplate.execute(new RedisCallback<byte[]>() {
+
+			@Override
+			public byte[] doInRedis(RedisConnection connection) throws DataAccessException {
+				Set<byte[]> names = connection.zRangeByLex(key, RedisZSetCommands.Range.range().gte(from),
+						RedisZSetCommands.Limit.limit().count(1));
+				return (names == null || names.isEmpty() ? null : names.iterator().next());
+			}
+		});
+		return redisTemplate.getStringSerializer().deserialize(name);
+	}
+
+	/**
+	 * Return the smallest string greater than all strings starting with the given
+	 * prefix, or {@code null} if there is none.
+	 */
+	private static String successor(String prefix) {
+		StringBuilder builder = new StringBuilder(prefix);
+		while (builder.length() > 0) {
+			char last = builder.charAt(builder.length() - 1);
+			builder.setLength(builder.length() - 1);
+			if (last != Character.MAX_VALUE) {
+				return builder.append((char) (last + 1)).toString();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Index the names of the definitions that were saved without being indexed,
+	 * and remove the names of those that no longer exist.
+	 */
+	private void checkIndex() {
+		if (indexChecked) {
+			return;
+		}
+		Long definitions = hashOperations.size();
+		Long indexed = indexOperations.size();
+		if (!definitions.equals(indexed)) {
+			Set<String> names = hashOperations.keys();
+			Set<String> stale = new HashSet<>(indexOperations.range(0, -1));
+			stale.removeAll(names);
+			for (String name : names) {
+				indexOperations.add(name, 0);
+			}
+			if (!stale.isEmpty()) {
+				indexOperations.remove(stale.toArray());
+			}
+		}
+		indexChecked = true;
+	}
+
+	@Override
+	public <S extends D> S save(S entity) {
+		final String name = getName(entity);
+		final String dslText = getDslText(entity);
+		execute(new Transaction() {
+
+			@Override
+			protected void queue(RedisOperations<String, String> operations) {
+				operations.<String, String>opsForHash().put(hashOperations.getKey(), name, dslText);
+				operations.opsForZSet().add(indexOperations.getKey(), name, 0);
+			}
+		});
+		return entity;
+	}
+
+	@Override
+	public <S extends D> Iterable<S> save(Iterable<S> entities) {
+		final Map<String, String> asMap = new HashMap<>();
+		for (D definition : entities) {
+			asMap.put(getName(definition), getDslText(definition));
+		}
+		if (!asMap.isEmpty()) {
+			execute(new Transaction() {
+
+				@Override
+				protected void queue(RedisOperations<String, String> operations) {
+					operations.<String, String>opsForHash().putAll(hashOperations.getKey(), asMap);
+					for (String name : asMap.keySet()) {
+						operations.opsForZSet().add(indexOperations.getKey(), name, 0);
+					}
+				}
+			});
+		}
+		return entities;
+	}
+
+	@Override
+	public D findOne(String s) {
+		String dsl = hashOperations.get(s);
+		return dsl != null ? toDefinition(s, dsl) : null;
+	}
+
+	@Override
+	public boolean exists(String s) {
+		return hashOperations.hasKey(s);
+	}
+
+	@Override
+	public Iterable<D> findAll() {
+		return findAll(new Sort("name"));
+	}
+
+	@Override
+	public Iterable<D> findAll(Iterable<String> strings) {
+		List<String> keys;
+		if (strings instanceof List) {
+			keys = (List<String>) strings;
+		}
+		else {
+			keys = new ArrayList<>();
+			for (String name : strings) {
+				keys.add(name);
+			}
+		}
+		List<String> dslTexts = hashOperations.multiGet(keys);
+		return zipToDefinitions(keys, dslTexts);
+	}
+
+	@Override
+	public long count() {
+		return hashOperations.size();
+	}
+
+	@Override
+	public void delete(String s) {
+		delete(Collections.singletonList(s));
+	}
+
+	@Override
+	public void delete(D entity) {
+		delete(getName(entity));
+	}
+
+	@Override
+	public void delete(Iterable<? extends D> entities) {
+		List<String> names = entities instanceof Collection
+				? new ArrayList<String>(((Collection<?>) entities).size())
+				: new ArrayList<String>();
+
+		for (D definition : entities) {
+			names.add(getName(definition));
+		}
+		delete(names);
+	}
+
+	private void delete(List<String> names) {
+		if (names.isEmpty()) {
+			return;
+		}
+		final Object[] keys = names.toArray();
+		execute(new Transaction() {
+
+			@Override
+			protected void queue(RedisOperations<String, String> operations) {
+				operations.opsForHash().delete(hashOperations.getKey(), keys);
+				operations.opsForZSet().remove(indexOperations.getKey(), keys);
+			}
+		});
+	}
+
+	@Override
+	public void deleteAll() {
+		redisTemplate.delete(Arrays.asList(hashOperations.getKey(), indexOperations.getKey()));
+	}
+
+	/**
+	 * Execute the given transaction.
+	 *
+	 * @return the results of the commands of the transaction
+	 */
+	protected List<Object> execute(Transaction transaction) {
+		return redisTemplate.execute(transaction);
+	}
+
+	/**
+	 * Return a list of definitions, made by mapping a set of non
+	 * null names and possibly null dsl texts. In case of null dsl text,
+	 * a null element is added to the result list.
+	 *
+	 * @param names list of definition names
+	 * @param dslTexts list of DSL texts
+	 */
+	private List<D> zipToDefinitions(List<String> names, List<String> dslTexts) {
+		Iterator<String> it = dslTexts.iterator();
+		List<D> result = new ArrayList<>(dslTexts.size());
+		for (String name : names) {
+			String dsl = it.next();
+			result.add(dsl != null ? toDefinition(name, dsl) : null);
+		}
+		return result;
+	}
+
+
+	/**
+	 * Commands applied to the hash and the sorted set of names in a single
+	 * {@literal MULTI}/{@literal EXEC} transaction.
+	 */
+	protected static abstract class Transaction implements SessionCallback<List<Object>> {
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <K, V> List<Object> execute(RedisOperations<K, V> operations) throws DataAccessException {
+			operations.multi();
+			queue((RedisOperations<String, String>) operations);
+			return operations.exec();
+		}
+
+		protected abstract void queue(RedisOperations<String, String> operations);
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.cloud.dataflow.core.StreamDefinition;
+
+/**
+ * A file-backed implementation of {@link StreamDefinitionRepository}, for
+ * single node installations that do not have a Redis server.
+ *
+ * @author Patrick Peralta
+ */
+public class FileStreamDefinitionRepository extends AbstractFileDefinitionRepository<StreamDefinition>
+		implements StreamDefinitionRepository {
+
+	/**
+	 * Index of the modules and channels used by the definitions, built when the
+	 * file is read. Writes are serialized so that it reflects the last definition
+	 * saved under each name.
+	 */
+	private final StreamUsageIndex usages = new StreamUsageIndex();
+
+	/**
+	 * Construct a {@code FileStreamDefinitionRepository} persisted in the given file.
+	 *
+	 * @param file the file holding the definitions
+	 * @throws IOException if the file cannot be read
+	 */
+	public FileStreamDefinitionRepository(File file) throws IOException {
+		super(file);
+		for (Map.Entry<String, String> entry : store.asMap().entrySet()) {
+			usages.add(toDefinition(entry.getKey(), entry.getValue()));
+		}
+	}
+
+	@Override
+	public synchronized <S extends StreamDefinition> S save(S definition) {
+		StreamDefinition previous = findOne(definition.getName());
+		super.save(definition);
+		usages.replace(previous, definition);
+		return definition;
+	}
+
+	@Override
+	public synchronized <S extends StreamDefinition> Iterable<S> save(Iterable<S> definitions) {
+		// the last definition of a given name is the one saved
+		Map<String, S> saved = new HashMap<>();
+		for (S definition : definitions) {
+			saved.put(definition.getName(), definition);
+		}
+		for (String name : saved.keySet()) {
+			usages.replace(findOne(name), null);
+		}
+		super.save(definitions);
+		for (S definition : saved.values()) {
+			usages.add(definition);
+		}
+		return definitions;
+	}
+
+	/**
+	 * Save the given definitions with a single write to the log, which checks the
+	 * names under the lock of the store.
+	 */
+	@Override
+	public synchronized Set<String> saveAllIfAbsent(Iterable<? extends StreamDefinition> definitions) {
+		Map<String, String> values = new LinkedHashMap<>();
+		Set<String> present = new TreeSet<>();
+		for (StreamDefinition definition : definitions) {
+			if (values.put(definition.getName(), definition.getDslText()) != null) {
+				present.add(definition.getName());
+			}
+		}
+		if (present.isEmpty()) {
+			present = store.putAllIfAbsent(values);
+		}
+		if (present.isEmpty()) {
+			for (StreamDefinition definition : definitions) {
+				usages.add(definition);
+			}
+		}
+		return present;
+	}
+
+	@Override
+	public synchronized void delete(String name) {
+		StreamDefinition previous = findOne(name);
+		super.delete(name);
+		usages.replace(previous, null);
+	}
+
+	@Override
+	public synchronized void delete(Iterable<? extends StreamDefinition> definitions) {
+		for (StreamDefinition definition : definitions) {
+			usages.replace(findOne(definition.getName()), null);
+		}
+		super.delete(definitions);
+	}
+
+	@Override
+	public synchronized void deleteAll() {
+		super.deleteAll();
+		usages.clear();
+	}
+
+	@Override
+	public List<String> findNamesByModule(ArtifactType type, String name) {
+		return usages.find(StreamUsageIndex.moduleKey(type, name));
+	}
+
+	@Override
+	public List<String> findNamesByChannel(String channel) {
+		return usages.find(StreamUsageIndex.channelKey(channel));
+	}
+
+	@Override
+	protected StreamDefinition toDefinition(String name, String dslText) {
+		return StreamDefinition.cached(name, dslText);
+	}
+
+	@Override
+	protected String getName(StreamDefinition definition) {
+		return definition.getName();
+	}
+
+	@Override
+	protected String getDslText(StreamDefinition definition) {
+		return definition.getDslText();
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.cloud.dataflow.core.TaskDefinition;
+import org.springframework.util.StringUtils;
+
+/**
+ * A file-backed implementation of {@link TaskDefinitionRepository}, for
+ * single node installations that do not have a Redis server.
+ *
+ * @author Patrick Peralta
+ */
+public class FileTaskDefinitionRepository extends AbstractFileDefinitionRepository<TaskDefinition>
+		implements TaskDefinitionRepository {
+
+	/**
+	 * Construct a {@code FileTaskDefinitionRepository} persisted in the given file.
+	 *
+	 * @param file the file holding the definitions
+	 * @throws IOException if the file cannot be read
+	 */
+	public FileTaskDefinitionRepository(File file) throws IOException {
+		super(file);
+	}
+
+	@Override
+	public <S extends TaskDefinition> S save(S definition) {
+		if (store.putIfAbsent(definition.getName(), definition.getDslText()) != null) {
+			throw duplicate(definition.getName());
+		}
+		return definition;
+	}
+
+	/**
+	 * Save the given definitions with a single write to the log.
+	 */
+	@Override
+	public <S extends TaskDefinition> Iterable<S> save(Iterable<S> definitions) {
+		Map<String, String> values = new LinkedHashMap<>();
+		Set<String> duplicates = new TreeSet<>();
+		for (S definition : definitions) {
+			if (values.put(definition.getName(), definition.getDslText()) != null) {
+				duplicates.add(definition.getName());
+			}
+		}
+		if (duplicates.isEmpty()) {
+			duplicates = store.putAllIfAbsent(values);
+		}
+		if (!duplicates.isEmpty()) {
+			throw duplicate(StringUtils.collectionToCommaDelimitedString(duplicates));
+		}
+		return definitions;
+	}
+
+	private DuplicateTaskException duplicate(String names) {
+		return new DuplicateTaskException(
+				String.format("Cannot register task %s because another one has already " +
+						"been registered with the same name",
+						names));
+	}
+
+	@Override
+	protected TaskDefinition toDefinition(String name, String dslText) {
+		return TaskDefinition.cached(name, dslText);
+	}
+
+	@Override
+	protected String getName(TaskDefinition definition) {
+		return definition.getName();
+	}
+
+	@Override
+	protected String getDslText(TaskDefinition definition) {
+		return definition.getDslText();
+	}
+
+}
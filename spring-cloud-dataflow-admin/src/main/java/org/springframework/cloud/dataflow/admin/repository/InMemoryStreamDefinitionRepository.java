@@ -16,18 +16,11 @@
 
 package org.springframework.cloud.dataflow.admin.repository;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
+import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 
 /**
  * In-memory implementation of {@link StreamDefinitionRepository}.
@@ -35,88 +28,48 @@ import org.springframework.data.domain.Sort;
  * @author Mark Fisher
  * @author Patrick Peralta
  */
-public class InMemoryStreamDefinitionRepository implements StreamDefinitionRepository {
+public class InMemoryStreamDefinitionRepository extends AbstractInMemoryDefinitionRepository<StreamDefinition>
+		implements StreamDefinitionRepository {
 
-	private final Map<String, StreamDefinition> definitions = new ConcurrentHashMap<>();
+	private final StreamUsageIndex usages = new StreamUsageIndex();
 
+	/*
+	 * Writes are serialized so that the index reflects the last definition saved
+	 * under each name.
+	 */
 	@Override
-	public Iterable<StreamDefinition> findAll(Sort sort) {
-		throw new UnsupportedOperationException();
+	public synchronized <S extends StreamDefinition> S save(S definition) {
+		return super.save(definition);
 	}
 
 	@Override
-	public Page<StreamDefinition> findAll(Pageable pageable) {
-		List<StreamDefinition> results = new ArrayList<>(definitions.values());
-		return new PageImpl<>(results, pageable, results.size());
+	public synchronized Set<String> saveAllIfAbsent(Iterable<? extends StreamDefinition> definitions) {
+		return super.saveAllIfAbsent(definitions);
 	}
 
 	@Override
-	public <S extends StreamDefinition> Iterable<S> save(Iterable<S> iterableDefinitions) {
-		Map<String, StreamDefinition> holder = new HashMap<>();
-		for (S definition : iterableDefinitions) {
-			holder.put(definition.getName(), definition);
-		}
-		definitions.putAll(holder);
-		return iterableDefinitions;
+	public synchronized void delete(String name) {
+		super.delete(name);
 	}
 
 	@Override
-	public <S extends StreamDefinition> S save(S definition) {
-		definitions.put(definition.getName(), definition);
-		return definition;
+	protected void replaced(StreamDefinition previous, StreamDefinition definition) {
+		usages.replace(previous, definition);
 	}
 
 	@Override
-	public StreamDefinition findOne(String name) {
-		return definitions.get(name);
+	public List<String> findNamesByModule(ArtifactType type, String name) {
+		return usages.find(StreamUsageIndex.moduleKey(type, name));
 	}
 
 	@Override
-	public boolean exists(String name) {
-		return definitions.containsKey(name);
+	public List<String> findNamesByChannel(String channel) {
+		return usages.find(StreamUsageIndex.channelKey(channel));
 	}
 
 	@Override
-	public Iterable<StreamDefinition> findAll() {
-		return Collections.unmodifiableCollection(definitions.values());
-	}
-
-	@Override
-	public Iterable<StreamDefinition> findAll(Iterable<String> names) {
-		List<StreamDefinition> results = new ArrayList<>();
-		for (String s : names) {
-			if (definitions.containsKey(s)){
-				results.add(definitions.get(s));
-			}
-		}
-		return results;
-	}
-
-	@Override
-	public long count() {
-		return definitions.size();
-	}
-
-	@Override
-	public void delete(String name) {
-		definitions.remove(name);
-	}
-
-	@Override
-	public void delete(StreamDefinition definition) {
-		delete(definition.getName());
-	}
-
-	@Override
-	public void delete(Iterable<? extends StreamDefinition> definitions) {
-		for (StreamDefinition definition : definitions){
-			delete(definition);
-		}
-	}
-
-	@Override
-	public void deleteAll() {
-		definitions.clear();
+	protected String getName(StreamDefinition definition) {
+		return definition.getName();
 	}
 
 }
@@ -16,17 +16,10 @@
 
 package org.springframework.cloud.dataflow.admin.repository;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 import org.springframework.cloud.dataflow.core.TaskDefinition;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
 
 /**
  * In-memory implementation of {@link TaskDefinitionRepository}.
@@ -35,94 +28,36 @@ import org.springframework.data.domain.Sort;
  * @author Mark Fisher
  * @author Patrick Peralta
  */
-public class InMemoryTaskDefinitionRepository implements TaskDefinitionRepository {
-
-	private final Map<String, TaskDefinition> definitions = new ConcurrentHashMap<>();
-
-	@Override
-	public Iterable<TaskDefinition> findAll(Sort sort) {
-		throw new UnsupportedOperationException();
-	}
-
-	@Override
-	public Page<TaskDefinition> findAll(Pageable pageable) {
-		List<TaskDefinition> results = new ArrayList<>(definitions.values());
-		return new PageImpl<>(results, pageable, results.size());
-	}
-
-	@Override
-	public <S extends TaskDefinition> Iterable<S> save(Iterable<S> iterableDefinitions) {
-		for (S definition : iterableDefinitions) {
-			save(definition);
-		}
-		return iterableDefinitions;
-	}
+public class InMemoryTaskDefinitionRepository extends AbstractInMemoryDefinitionRepository<TaskDefinition>
+		implements TaskDefinitionRepository {
 
 	@Override
 	public <S extends TaskDefinition> S save(S definition) {
-		if(definitions.containsKey(definition.getName())) {
-			throw new DuplicateTaskException(
-					String.format("Cannot register task %s because another one has already " +
-							"been registered with the same name",
-							definition.getName()));
+		if (!saveIfAbsent(definition)) {
+			throw duplicate(definition.getName());
 		}
-
-		definitions.put(definition.getName(), definition);
-
 		return definition;
 	}
 
 	@Override
-	public TaskDefinition findOne(String name) {
-		return definitions.get(name);
-	}
-
-	@Override
-	public boolean exists(String name) {
-		return definitions.containsKey(name);
-	}
-
-	@Override
-	public Iterable<TaskDefinition> findAll() {
-		return Collections.unmodifiableCollection(definitions.values());
-	}
-
-	@Override
-	public Iterable<TaskDefinition> findAll(Iterable<String> names) {
-		List<TaskDefinition> results = new ArrayList<>();
-		for (String s : names) {
-			if (definitions.containsKey(s)){
-				results.add(definitions.get(s));
-			}
+	public <S extends TaskDefinition> Iterable<S> save(Iterable<S> definitions) {
+		Set<String> duplicates = saveAllIfAbsent(definitions);
+		if (!duplicates.isEmpty()) {
+			throw duplicate(StringUtils.collectionToCommaDelimitedString(duplicates));
 		}
-		return results;
-	}
-
-	@Override
-	public long count() {
-		return definitions.size();
+		return definitions;
 	}
 
-	@Override
-	public void delete(String name) {
-		definitions.remove(name);
-	}
-
-	@Override
-	public void delete(TaskDefinition definition) {
-		delete(definition.getName());
-	}
-
-	@Override
-	public void delete(Iterable<? extends TaskDefinition> definitions) {
-		for (TaskDefinition definition : definitions){
-			delete(definition);
-		}
+	private DuplicateTaskException duplicate(String names) {
+		return new DuplicateTaskException(
+				String.format("Cannot register task %s because another one has already " +
+						"been registered with the same name",
+						names));
 	}
 
 	@Override
-	public void deleteAll() {
-		definitions.clear();
+	protected String getName(TaskDefinition definition) {
+		return definition.getName();
 	}
 
 }
@@ -19,32 +19,59 @@ package org.springframework.cloud.dataflow.admin.repository;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.cloud.dataflow.core.dsl.ParseException;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.core.BoundHashOperations;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 
 /**
- * A Redis implementation of {@link StreamDefinitionRepository}, storing each
- * definition as a {@literal name:dsl} mapping in a Redis hash.
+ * A Redis implementation of {@link StreamDefinitionRepository}. Definitions are
+ * read through the {@link StreamDefinition#getParseCache() parse cache}.
+ * <p>
+ * The names of the streams using each module and named channel are kept in Redis
+ * sets, under the key of the hash suffixed with {@value #USAGES_SUFFIX} and the
+ * {@link StreamUsageIndex} key. Writes watch the hash while reading the definitions
+ * they replace, and update the sets in the same transaction as the hash, so that
+ * concurrent updates of a stream cannot leave stale entries behind. The same watch
+ * lets {@link #saveAllIfAbsent} check the names and save the definitions atomically,
+ * even when several admin servers share the hash. Definitions are
+ * parsed before the transaction starts; stored definitions that no longer parse are
+ * left out of the sets rather than failing the transaction.
  *
  * @author Eric Bottard
  * @author Patrick Peralta
  */
-public class RedisStreamDefinitionRepository implements StreamDefinitionRepository {
+public class RedisStreamDefinitionRepository extends AbstractRedisDefinitionRepository<StreamDefinition>
+		implements StreamDefinitionRepository {
+
+	private static final Logger logger = LoggerFactory.getLogger(RedisStreamDefinitionRepository.class);
+
+	/**
+	 * Suffix of the keys of the sets of stream names using a module or channel.
+	 */
+	public static final String USAGES_SUFFIX = ".usages.";
+
+	/**
+	 * Key set once the sets of stream names were built for all definitions.
+	 */
+	private final String usagesBuiltKey;
 
-	private final BoundHashOperations<String, String, String> hashOperations;
+	/**
+	 * Whether the sets of stream names are known to have been built.
+	 */
+	private volatile boolean usagesBuilt;
 
 	/**
 	 * Construct a new StreamDefinitionRepository backed by Redis, storing definitions
@@ -54,142 +81,230 @@ public class RedisStreamDefinitionRepository implements StreamDefinitionReposito
 	 * @param redisConnectionFactory connection factory for Redis
 	 */
 	public RedisStreamDefinitionRepository(String hashKey, RedisConnectionFactory redisConnectionFactory) {
-		StringRedisTemplate redisTemplate = new StringRedisTemplate(redisConnectionFactory);
-		hashOperations = redisTemplate.boundHashOps(hashKey);
+		super(hashKey, redisConnectionFactory);
+		usagesBuiltKey = hashKey + USAGES_SUFFIX + "built";
 	}
 
 	@Override
-	public Iterable<StreamDefinition> findAll(Sort sort) {
-		return findAll(new PageRequest(0, Integer.MAX_VALUE, sort));
+	public <S extends StreamDefinition> S save(S entity) {
+		update(Collections.singletonMap(entity.getName(), entity.getDslText()), Collections.<String>emptyList(),
+				false);
+		return entity;
 	}
 
 	@Override
-	public Page<StreamDefinition> findAll(Pageable pageable) {
-		List<StreamDefinition> results;
-		List<String> allKeys = new ArrayList<>(hashOperations.keys());
-
-		int total = allKeys.size();
-		if (total == 0) {
-			results = Collections.emptyList();
-		}
-		else {
-			Collections.sort(allKeys, comparatorFor(pageable.getSort().getOrderFor("name").getDirection()));
-			int start = pageable.getOffset();
-			int end = Math.min(pageable.getOffset() + pageable.getPageSize(), total);
-
-			List<String> pageKeys = allKeys.subList(start, end);
-			List<String> definitions = hashOperations.multiGet(pageKeys);
-			results = zipToStreamDefinitions(pageKeys, definitions);
+	public <S extends StreamDefinition> Iterable<S> save(Iterable<S> entities) {
+		Map<String, String> saved = new LinkedHashMap<>();
+		for (S entity : entities) {
+			saved.put(entity.getName(), entity.getDslText());
 		}
-
-		return new PageImpl<>(results, pageable, total);
+		update(saved, Collections.<String>emptyList(), false);
+		return entities;
 	}
 
-	private Comparator<String> comparatorFor(final Sort.Direction order) {
-		return new Comparator<String>() {
-			@Override
-			public int compare(String o1, String o2) {
-				return order == Sort.Direction.ASC ? o1.compareTo(o2) : - o1.compareTo(o2);
+	@Override
+	public Set<String> saveAllIfAbsent(Iterable<? extends StreamDefinition> entities) {
+		Map<String, String> saved = new LinkedHashMap<>();
+		Set<String> present = new TreeSet<>();
+		for (StreamDefinition entity : entities) {
+			if (saved.put(entity.getName(), entity.getDslText()) != null) {
+				present.add(entity.getName());
 			}
-		};
+		}
+		return (present.isEmpty() ? update(saved, Collections.<String>emptyList(), true) : present);
 	}
 
 	@Override
-	public <S extends StreamDefinition> S save(S entity) {
-		hashOperations.put(entity.getName(), entity.getDslText());
-		return entity;
+	public void delete(String name) {
+		update(Collections.<String, String>emptyMap(), Collections.singletonList(name), false);
 	}
 
 	@Override
-	public <S extends StreamDefinition> Iterable<S> save(Iterable<S> entities) {
-		Map<String, String> asMap = new HashMap<>();
-		for (StreamDefinition sd : entities) {
-			asMap.put(sd.getName(), sd.getDslText());
+	public void delete(Iterable<? extends StreamDefinition> entities) {
+		List<String> names = new ArrayList<>();
+		for (StreamDefinition entity : entities) {
+			names.add(entity.getName());
 		}
-		hashOperations.putAll(asMap);
-		return entities;
+		update(Collections.<String, String>emptyMap(), names, false);
 	}
 
 	@Override
-	public StreamDefinition findOne(String s) {
-		String dsl = hashOperations.get(s);
-		return dsl != null ? new StreamDefinition(s, dsl) : null;
+	public void deleteAll() {
+		update(Collections.<String, String>emptyMap(), new ArrayList<>(hashOperations.keys()), false);
+		super.deleteAll();
 	}
 
 	@Override
-	public boolean exists(String s) {
-		return hashOperations.hasKey(s);
+	public List<String> findNamesByModule(ArtifactType type, String name) {
+		return findNames(StreamUsageIndex.moduleKey(type, name));
 	}
 
 	@Override
-	public Iterable<StreamDefinition> findAll() {
-		return findAll(new Sort("name"));
+	public List<String> findNamesByChannel(String channel) {
+		return findNames(StreamUsageIndex.channelKey(channel));
 	}
 
-	@Override
-	public Iterable<StreamDefinition> findAll(Iterable<String> strings) {
-		List<String> keys;
-		if (strings instanceof List) {
-			keys = (List<String>) strings;
+	private List<String> findNames(String key) {
+		if (!usagesBuilt) {
+			buildUsages();
 		}
-		else {
-			keys = new ArrayList<>();
-			for (String name : strings) {
-				keys.add(name);
-			}
-		}
-		List<String> dslTexts = hashOperations.multiGet(keys);
-		return zipToStreamDefinitions(keys, dslTexts);
+		List<String> names = new ArrayList<>(redisTemplate.opsForSet().members(usagesKey(key)));
+		Collections.sort(names);
+		return names;
 	}
 
-	@Override
-	public long count() {
-		return hashOperations.size();
+	private String usagesKey(String key) {
+		return hashOperations.getKey() + USAGES_SUFFIX + key;
 	}
 
-	@Override
-	public void delete(String s) {
-		hashOperations.delete(s);
-	}
+	/**
+	 * Save and delete definitions, updating the sets of stream names accordingly.
+	 *
+	 * @param saved the DSL texts of the definitions to save, by name
+	 * @param deleted the names of the definitions to delete
+	 * @param ifAbsent whether to save nothing if any of the definitions exists
+	 * @return the names of the existing definitions that prevented saving, if
+	 * {@code ifAbsent}; empty otherwise
+	 */
+	private Set<String> update(final Map<String, String> saved, final Collection<String> deleted,
+			final boolean ifAbsent) {
+		final List<String> names = new ArrayList<>(saved.keySet());
+		names.addAll(deleted);
+		if (names.isEmpty()) {
+			return Collections.emptySet();
+		}
+		final Map<String, Set<String>> savedKeys = new LinkedHashMap<>();
+		for (Map.Entry<String, String> entry : saved.entrySet()) {
+			savedKeys.put(entry.getKey(), StreamUsageIndex.keys(toDefinition(entry.getKey(), entry.getValue())));
+		}
+		final String hashKey = hashOperations.getKey();
+		final String indexKey = indexOperations.getKey();
+		return redisTemplate.execute(new SessionCallback<Set<String>>() {
 
-	@Override
-	public void delete(StreamDefinition entity) {
-		delete(entity.getName());
+			@Override
+			@SuppressWarnings("unchecked")
+			public <K, V> Set<String> execute(RedisOperations<K, V> operations) throws DataAccessException {
+				RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+				List<Object> results;
+				do {
+					ops.watch(hashKey);
+					List<String> previous = ops.<String, String>opsForHash().multiGet(hashKey, names);
+					if (ifAbsent) {
+						Set<String> present = new TreeSet<>();
+						for (int i = 0; i < names.size(); i++) {
+							if (previous.get(i) != null) {
+								present.add(names.get(i));
+							}
+						}
+						if (!present.isEmpty()) {
+							ops.unwatch();
+							return present;
+						}
+					}
+					// parsed before the transaction starts, as queued commands cannot be taken back
+					Map<String, Set<String>> previousKeys = new LinkedHashMap<>();
+					for (int i = 0; i < names.size(); i++) {
+						if (previous.get(i) != null) {
+							previousKeys.put(names.get(i), usageKeys(names.get(i), previous.get(i)));
+						}
+					}
+					ops.multi();
+					for (Map.Entry<String, Set<String>> entry : previousKeys.entrySet()) {
+						for (String key : entry.getValue()) {
+							ops.opsForSet().remove(usagesKey(key), entry.getKey());
+						}
+					}
+					if (!saved.isEmpty()) {
+						ops.<String, String>opsForHash().putAll(hashKey, saved);
+						for (Map.Entry<String, Set<String>> entry : savedKeys.entrySet()) {
+							ops.opsForZSet().add(indexKey, entry.getKey(), 0);
+							for (String key : entry.getValue()) {
+								ops.opsForSet().add(usagesKey(key), entry.getKey());
+							}
+						}
+					}
+					if (!deleted.isEmpty()) {
+						Object[] keys = deleted.toArray();
+						ops.opsForHash().delete(hashKey, keys);
+						ops.opsForZSet().remove(indexKey, keys);
+					}
+					// the transaction is discarded if the hash changed since it was watched
+					results = ops.exec();
+				}
+				while (results == null || results.isEmpty());
+				return Collections.emptySet();
+			}
+		});
 	}
 
-	@Override
-	public void delete(Iterable<? extends StreamDefinition> entities) {
-		List<String> names = entities instanceof Collection
-				? new ArrayList<String>(((Collection<?>) entities).size())
-				: new ArrayList<String>();
-
-		for (StreamDefinition sd : entities) {
-			names.add(sd.getName());
+	/**
+	 * Build the sets of stream names for definitions saved before they were maintained.
+	 */
+	private void buildUsages() {
+		if (Boolean.TRUE.equals(redisTemplate.hasKey(usagesBuiltKey))) {
+			usagesBuilt = true;
+			return;
 		}
-		hashOperations.delete(names.toArray());
-	}
+		final String hashKey = hashOperations.getKey();
+		redisTemplate.execute(new SessionCallback<Object>() {
 
-	@Override
-	public void deleteAll() {
-		hashOperations.getOperations().delete(hashOperations.getKey());
+			@Override
+			@SuppressWarnings("unchecked")
+			public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+				RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+				List<Object> results;
+				do {
+					ops.watch(hashKey);
+					Map<String, String> definitions = ops.<String, String>opsForHash().entries(hashKey);
+					Map<String, Set<String>> keys = new LinkedHashMap<>();
+					for (Map.Entry<String, String> entry : definitions.entrySet()) {
+						keys.put(entry.getKey(), usageKeys(entry.getKey(), entry.getValue()));
+					}
+					ops.multi();
+					for (Map.Entry<String, Set<String>> entry : keys.entrySet()) {
+						for (String key : entry.getValue()) {
+							ops.opsForSet().add(usagesKey(key), entry.getKey());
+						}
+					}
+					ops.opsForValue().set(usagesBuiltKey, "true");
+					results = ops.exec();
+				}
+				while (results == null || results.isEmpty());
+				return null;
+			}
+		});
+		usagesBuilt = true;
 	}
 
 	/**
-	 * Return a list of {@link StreamDefinition}s, made by mapping a set of non
-	 * null names and possibly null dsl texts. In case of null dsl text,
-	 * a null element is added to the result list.
-	 *
-	 * @param names list of stream names
-	 * @param definitions list of stream definitions
+	 * Return the keys of the sets a stored definition is in. A definition that no
+	 * longer parses, such as one saved by an earlier version, is in none of them, so
+	 * that it can still be listed by the others, replaced and deleted.
 	 */
-	private List<StreamDefinition> zipToStreamDefinitions(List<String> names, List<String> definitions) {
-		Iterator<String> it = definitions.iterator();
-		List<StreamDefinition> result = new ArrayList<>(definitions.size());
-		for (String name : names) {
-			String dsl = it.next();
-			result.add(dsl != null ? new StreamDefinition(name, dsl) : null);
+	private Set<String> usageKeys(String name, String dslText) {
+		try {
+			return StreamUsageIndex.keys(toDefinition(name, dslText));
+		}
+		catch (ParseException e) {
+			logger.warn("Ignoring the usages of stream {}, whose definition cannot be parsed: {}",
+					name, e.getMessage());
+			return Collections.emptySet();
 		}
-		return result;
+	}
+
+	@Override
+	protected StreamDefinition toDefinition(String name, String dslText) {
+		return StreamDefinition.cached(name, dslText);
+	}
+
+	@Override
+	protected String getName(StreamDefinition definition) {
+		return definition.getName();
+	}
+
+	@Override
+	protected String getDslText(StreamDefinition definition) {
+		return definition.getDslText();
 	}
 
 }
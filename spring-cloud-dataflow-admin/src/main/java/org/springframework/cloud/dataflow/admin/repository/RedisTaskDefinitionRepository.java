@@ -0,0 +1,158 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.cloud.dataflow.core.TaskDefinition;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.util.StringUtils;
+
+/**
+ * A Redis implementation of {@link TaskDefinitionRepository}. Definitions are
+ * read through the {@link TaskDefinition#getParseCache() parse cache}.
+ * <p>
+ * Task definitions cannot be overwritten: they are saved with {@literal HSETNX},
+ * so that concurrent attempts to save a task of the same name cannot both succeed.
+ * The name is added to the sorted set of names either way, as it is in the hash
+ * whether or not the definition was saved. Several definitions are saved all
+ * together or not at all, in a transaction that only runs if none of their names
+ * was taken since they were checked.
+ *
+ * @author Patrick Peralta
+ */
+public class RedisTaskDefinitionRepository extends AbstractRedisDefinitionRepository<TaskDefinition>
+		implements TaskDefinitionRepository {
+
+	/**
+	 * Construct a new TaskDefinitionRepository backed by Redis, storing definitions
+	 * under the key specified by {@code 'hashKey}'.
+	 *
+	 * @param hashKey key for task definition hash
+	 * @param redisConnectionFactory connection factory for Redis
+	 */
+	public RedisTaskDefinitionRepository(String hashKey, RedisConnectionFactory redisConnectionFactory) {
+		super(hashKey, redisConnectionFactory);
+	}
+
+	@Override
+	public <S extends TaskDefinition> S save(S definition) {
+		final String name = definition.getName();
+		final String dslText = definition.getDslText();
+		List<Object> results = execute(new Transaction() {
+
+			@Override
+			protected void queue(RedisOperations<String, String> operations) {
+				operations.<String, String>opsForHash().putIfAbsent(hashOperations.getKey(), name, dslText);
+				operations.opsForZSet().add(indexOperations.getKey(), name, 0);
+			}
+		});
+		if (!Boolean.TRUE.equals(results.get(0))) {
+			throw duplicate(name);
+		}
+		return definition;
+	}
+
+	/**
+	 * Save the given definitions in a single transaction, unless a task of the same
+	 * name as any of them exists. The names are checked while watching the hash, so
+	 * that the transaction is retried if a definition is saved in the meantime.
+	 */
+	@Override
+	public <S extends TaskDefinition> Iterable<S> save(Iterable<S> definitions) {
+		final Map<String, String> toSave = new LinkedHashMap<>();
+		Set<String> duplicates = new TreeSet<>();
+		for (S definition : definitions) {
+			if (toSave.put(definition.getName(), definition.getDslText()) != null) {
+				duplicates.add(definition.getName());
+			}
+		}
+		if (!duplicates.isEmpty()) {
+			throw duplicate(StringUtils.collectionToCommaDelimitedString(duplicates));
+		}
+		if (toSave.isEmpty()) {
+			return definitions;
+		}
+		final String hashKey = hashOperations.getKey();
+		final String indexKey = indexOperations.getKey();
+		redisTemplate.execute(new SessionCallback<Object>() {
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+				RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+				List<String> names = new ArrayList<>(toSave.keySet());
+				List<Object> results;
+				do {
+					ops.watch(hashKey);
+					List<String> dslTexts = ops.<String, String>opsForHash().multiGet(hashKey, names);
+					Set<String> existing = new TreeSet<>();
+					for (int i = 0; i < names.size(); i++) {
+						if (dslTexts.get(i) != null) {
+							existing.add(names.get(i));
+						}
+					}
+					if (!existing.isEmpty()) {
+						ops.unwatch();
+						throw duplicate(StringUtils.collectionToCommaDelimitedString(existing));
+					}
+					ops.multi();
+					ops.<String, String>opsForHash().putAll(hashKey, toSave);
+					for (String name : names) {
+						ops.opsForZSet().add(indexKey, name, 0);
+					}
+					// the transaction is discarded if the hash changed since it was watched
+					results = ops.exec();
+				}
+				while (results == null || results.isEmpty());
+				return null;
+			}
+		});
+		return definitions;
+	}
+
+	private DuplicateTaskException duplicate(String names) {
+		return new DuplicateTaskException(
+				String.format("Cannot register task %s because another one has already " +
+						"been registered with the same name",
+						names));
+	}
+
+	@Override
+	protected TaskDefinition toDefinition(String name, String dslText) {
+		return TaskDefinition.cached(name, dslText);
+	}
+
+	@Override
+	protected String getName(TaskDefinition definition) {
+		return definition.getName();
+	}
+
+	@Override
+	protected String getDslText(TaskDefinition definition) {
+		return definition.getDslText();
+	}
+
+}
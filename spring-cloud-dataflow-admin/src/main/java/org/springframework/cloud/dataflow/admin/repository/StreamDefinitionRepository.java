@@ -16,13 +16,64 @@
 
 package org.springframework.cloud.dataflow.admin.repository;
 
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 /**
  * @author Mark Fisher
+ * @author Patrick Peralta
  */
 @Repository
 public interface StreamDefinitionRepository extends PagingAndSortingRepository<StreamDefinition, String> {
+
+	/**
+	 * Return a page of the definitions whose name starts with the given prefix,
+	 * ordered by name in the direction of the {@literal name} sort order of the
+	 * page request, if any, or else in ascending order.
+	 *
+	 * @param prefix the prefix of the names
+	 * @param pageable the page request
+	 * @return a page of definitions
+	 */
+	Page<StreamDefinition> findByNameStartingWith(String prefix, Pageable pageable);
+
+	/**
+	 * Save the given definitions, unless any of them has the name of an existing
+	 * stream or of another of the definitions, in which case none is saved. The
+	 * check and the write are atomic, also for admin servers sharing the repository,
+	 * so that concurrent creations cannot both claim the same stream name.
+	 *
+	 * @param definitions the definitions to save
+	 * @return the names that prevented saving the definitions, empty if they were saved
+	 */
+	Set<String> saveAllIfAbsent(Iterable<? extends StreamDefinition> definitions);
+
+	/**
+	 * Return the names of the streams that include a module of the given type and
+	 * name, in ascending order.
+	 *
+	 * @param type the module type
+	 * @param name the module name
+	 * @return the names of the streams using the module
+	 */
+	List<String> findNamesByModule(ArtifactType type, String name);
+
+	/**
+	 * Return the names of the streams that read from or write to the given named
+	 * channel, in ascending order. Streams tapping a module of a stream are returned
+	 * for the tap of the whole stream as well: {@literal tap:stream:foo} returns the
+	 * streams tapping {@literal tap:stream:foo.time}.
+	 *
+	 * @param channel the channel, such as {@literal queue:foo}
+	 * @return the names of the streams using the channel
+	 */
+	List<String> findNamesByChannel(String channel);
+
 }
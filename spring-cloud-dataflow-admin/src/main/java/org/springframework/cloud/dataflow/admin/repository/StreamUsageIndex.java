@@ -0,0 +1,179 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.cloud.dataflow.core.BindingProperties;
+import org.springframework.cloud.dataflow.core.ModuleDefinition;
+import org.springframework.cloud.dataflow.core.StreamDefinition;
+
+/**
+ * An inverted index from the modules and named channels used by stream definitions
+ * to the names of those streams.
+ * <p>
+ * Each definition is indexed under a key for the type and name of each of its
+ * modules, and under a key for each named channel it reads from or writes to.
+ * A tap on a module, such as {@literal tap:stream:foo.time}, is also indexed under
+ * the tap of the whole stream, {@literal tap:stream:foo}, so that streams tapping
+ * any module of a stream are found together.
+ * <p>
+ * Keys are plain strings, so that they may be used by stores other than this
+ * in-memory index. Updates of a given stream must not run concurrently.
+ *
+ * @author Patrick Peralta
+ */
+class StreamUsageIndex {
+
+	private static final String TAP_STREAM_PREFIX = "tap:stream:";
+
+	/**
+	 * Names of the streams indexed under each key, in ascending order.
+	 */
+	private final ConcurrentMap<String, Set<String>> streams = new ConcurrentHashMap<>();
+
+	/**
+	 * Return the key of the streams using a module of the given type and name.
+	 */
+	static String moduleKey(ArtifactType type, String name) {
+		return "module:" + type + ":" + name;
+	}
+
+	/**
+	 * Return the key of the streams reading from or writing to the given named channel.
+	 */
+	static String channelKey(String channel) {
+		return "channel:" + channel;
+	}
+
+	/**
+	 * Return the keys under which the given definition is indexed.
+	 */
+	static Set<String> keys(StreamDefinition definition) {
+		Set<String> keys = new LinkedHashSet<>();
+		for (ModuleDefinition module : definition.getModuleDefinitions()) {
+			Map<String, String> parameters = module.getParameters();
+			String input = parameters.get(BindingProperties.INPUT_BINDING_KEY);
+			String output = parameters.get(BindingProperties.OUTPUT_BINDING_KEY);
+			keys.add(moduleKey(moduleType(input, output), module.getName()));
+			addChannelKeys(definition.getName(), input, keys);
+			addChannelKeys(definition.getName(), output, keys);
+		}
+		return keys;
+	}
+
+	/**
+	 * Determine the type of a module from its bindings, as the parser has already
+	 * bound modules next to named channels.
+	 */
+	private static ArtifactType moduleType(String input, String output) {
+		if (input != null && output != null) {
+			return ArtifactType.processor;
+		}
+		return (input != null ? ArtifactType.sink : ArtifactType.source);
+	}
+
+	private static void addChannelKeys(String streamName, String channel, Set<String> keys) {
+		if (channel == null || isInternal(streamName, channel)) {
+			return;
+		}
+		keys.add(channelKey(channel));
+		if (channel.startsWith(TAP_STREAM_PREFIX) && channel.indexOf('.') > 0) {
+			keys.add(channelKey(channel.substring(0, channel.indexOf('.'))));
+		}
+	}
+
+	/**
+	 * Whether the channel is one the parser created between two modules of the stream,
+	 * named after the stream and the index of the module writing to it.
+	 */
+	private static boolean isInternal(String streamName, String channel) {
+		if (!channel.startsWith(streamName + ".") || channel.length() == streamName.length() + 1) {
+			return false;
+		}
+		for (int i = streamName.length() + 1; i < channel.length(); i++) {
+			if (!Character.isDigit(channel.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Index the given definition.
+	 */
+	void add(StreamDefinition definition) {
+		for (String key : keys(definition)) {
+			Set<String> names = streams.get(key);
+			if (names == null) {
+				Set<String> created = new ConcurrentSkipListSet<>();
+				names = streams.putIfAbsent(key, created);
+				if (names == null) {
+					names = created;
+				}
+			}
+			names.add(definition.getName());
+		}
+	}
+
+	/**
+	 * Remove the given definition from the index.
+	 */
+	void remove(StreamDefinition definition) {
+		for (String key : keys(definition)) {
+			Set<String> names = streams.get(key);
+			if (names != null) {
+				names.remove(definition.getName());
+			}
+		}
+	}
+
+	/**
+	 * Replace a definition with another one of the same name, either of which may
+	 * be {@code null}.
+	 */
+	void replace(StreamDefinition previous, StreamDefinition definition) {
+		if (previous != null) {
+			remove(previous);
+		}
+		if (definition != null) {
+			add(definition);
+		}
+	}
+
+	void clear() {
+		streams.clear();
+	}
+
+	/**
+	 * Return the names of the streams indexed under the given key, in ascending order.
+	 */
+	List<String> find(String key) {
+		Set<String> names = streams.get(key);
+		return (names == null ? Collections.<String>emptyList() : new ArrayList<>(names));
+	}
+
+}
@@ -19,7 +19,29 @@ import org.springframework.cloud.dataflow.core.TaskDefinition;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
 /**
+ * Repository of task definitions. Unlike stream definitions, task definitions are
+ * never overwritten: saving a task whose name is taken fails with a
+ * {@link DuplicateTaskException}.
+ * <p>
+ * Saving several definitions at once is all or nothing: if any of them has the
+ * name of an existing task, or of another definition being saved, none is saved
+ * and the exception names all such tasks.
+ *
  * @author Michael Minella
+ * @author Patrick Peralta
  */
 public interface TaskDefinitionRepository extends PagingAndSortingRepository<TaskDefinition, String> {
+
+	/**
+	 * Save the given definitions, unless any of them has the name of an existing
+	 * task or of another of the definitions, in which case none is saved.
+	 *
+	 * @param definitions the definitions to save
+	 * @return the saved definitions
+	 * @throws DuplicateTaskException if the definitions were not saved because of
+	 * such names
+	 */
+	@Override
+	<S extends TaskDefinition> Iterable<S> save(Iterable<S> definitions);
+
 }
@@ -18,6 +18,11 @@ package org.springframework.cloud.dataflow.admin.configuration;
 
 import static org.mockito.Mockito.mock;
 
+import org.springframework.cloud.dataflow.admin.deployment.ModuleArtifactPrefetcher;
+import org.springframework.cloud.dataflow.admin.repository.InMemoryStreamDefinitionRepository;
+import org.springframework.cloud.dataflow.admin.repository.InMemoryTaskDefinitionRepository;
+import org.springframework.cloud.dataflow.admin.repository.StreamDefinitionRepository;
+import org.springframework.cloud.dataflow.admin.repository.TaskDefinitionRepository;
 import org.springframework.cloud.dataflow.module.deployer.ModuleDeployer;
 import org.springframework.cloud.dataflow.artifact.registry.InMemoryArtifactRegistry;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
@@ -39,6 +44,16 @@ public class TestDependencies extends WebMvcConfigurationSupport {
 		return new InMemoryArtifactRegistry();
 	}
 
+	@Bean
+	public StreamDefinitionRepository streamDefinitionRepository() {
+		return new InMemoryStreamDefinitionRepository();
+	}
+
+	@Bean
+	public TaskDefinitionRepository taskDefinitionRepository() {
+		return new InMemoryTaskDefinitionRepository();
+	}
+
 	@Bean
 	public ModuleDeployer processModuleDeployer() {
 		return mock(ModuleDeployer.class);
@@ -48,4 +63,9 @@ public class TestDependencies extends WebMvcConfigurationSupport {
 	public ModuleDeployer taskModuleDeployer() {
 		return mock(ModuleDeployer.class);
 	}
+
+	@Bean
+	public ModuleArtifactPrefetcher moduleArtifactPrefetcher() {
+		return mock(ModuleArtifactPrefetcher.class);
+	}
 }
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.dataflow.admin.controller;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.cloud.dataflow.admin.AdminApplication;
+import org.springframework.cloud.dataflow.admin.configuration.TestDependencies;
+import org.springframework.cloud.dataflow.admin.repository.StreamDefinitionRepository;
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
+import org.springframework.cloud.dataflow.completion.ModuleConfigurationMetadataIndex;
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.cloud.dataflow.core.StreamDefinition;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Tests for {@link ModuleController}.
+ *
+ * @author Patrick Peralta
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = {AdminApplication.class, TestDependencies.class})
+@WebAppConfiguration
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class ModuleControllerTests {
+
+	private static final String COORDINATES = "org.example:foo-source:1.0.0";
+
+	@Autowired
+	private ModuleConfigurationMetadataIndex metadataIndex;
+
+	@Autowired
+	private ArtifactRegistry registry;
+
+	@Autowired
+	private StreamDefinitionRepository streamDefinitionRepository;
+
+	@Autowired
+	private WebApplicationContext wac;
+
+	private MockMvc mockMvc;
+
+	/**
+	 * Prefetch tasks submitted to the index, which are never run.
+	 */
+	private final List<Runnable> prefetchTasks = new ArrayList<>();
+
+	@Before
+	public void setupMockMVC() {
+		this.mockMvc = MockMvcBuilders.webAppContextSetup(wac).defaultRequest(
+				get("/").accept(MediaType.APPLICATION_JSON)).build();
+		metadataIndex.setExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				prefetchTasks.add(command);
+			}
+		});
+	}
+
+	@Test
+	public void testUsages() throws Exception {
+		streamDefinitionRepository.save(new StreamDefinition("ticktock", "time | log"));
+		streamDefinitionRepository.save(new StreamDefinition("clock", "time --fixedDelay=5 | log"));
+		streamDefinitionRepository.save(new StreamDefinition("ingest", "http | hdfs"));
+		mockMvc.perform(get("/modules/source/time/usages").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(content().string("[\"clock\",\"ticktock\"]"));
+		mockMvc.perform(get("/modules/sink/hdfs/usages").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(content().string("[\"ingest\"]"));
+		mockMvc.perform(get("/modules/processor/transform/usages").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(content().string("[]"));
+	}
+
+	@Test
+	public void testUnregisterModuleInUseIsRefused() throws Exception {
+		registry.save(new ArtifactRegistration("time", ArtifactType.source, ArtifactCoordinates.parse(COORDINATES)));
+		streamDefinitionRepository.save(new StreamDefinition("ticktock", "time | log"));
+		mockMvc.perform(delete("/modules/source/time").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isConflict())
+				.andExpect(content().string(containsString("ticktock")));
+		assertNotNull(registry.find("time", ArtifactType.source));
+	}
+
+	@Test
+	public void testForcedRegistrationOfModuleInUseIsRefused() throws Exception {
+		registry.save(new ArtifactRegistration("time", ArtifactType.source, ArtifactCoordinates.parse(COORDINATES)));
+		streamDefinitionRepository.save(new StreamDefinition("ticktock", "time | log"));
+		mockMvc.perform(post("/modules/source/time").param("coordinates", "org.example:foo-source:2.0.0")
+				.param("force", "true").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isConflict())
+				.andExpect(content().string(containsString("ticktock")));
+		assertEquals(ArtifactCoordinates.parse(COORDINATES), registry.find("time", ArtifactType.source).getCoordinates());
+	}
+
+	@Test
+	public void testForcedRegistrationOfModuleNotInUse() throws Exception {
+		registry.save(new ArtifactRegistration("time", ArtifactType.source, ArtifactCoordinates.parse(COORDINATES)));
+		streamDefinitionRepository.save(new StreamDefinition("ingest", "http | log"));
+		mockMvc.perform(post("/modules/source/time").param("coordinates", "org.example:foo-source:2.0.0")
+				.param("force", "true").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated());
+		assertEquals(ArtifactCoordinates.parse("org.example:foo-source:2.0.0"),
+				registry.find("time", ArtifactType.source).getCoordinates());
+		mockMvc.perform(delete("/modules/source/time").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk());
+		assertNull(registry.find("time", ArtifactType.source));
+	}
+
+	@Test
+	public void testRegisterPrefetchesMetadataOfExecutableArtifact() throws Exception {
+		mockMvc.perform(post("/modules/source/foo").param("coordinates", COORDINATES)
+				.accept(MediaType.APPLICATION_JSON)).andExpect(status().isCreated());
+		assertEquals(1, prefetchTasks.size());
+		ArtifactCoordinates coordinates = ArtifactCoordinates.parse(COORDINATES);
+		assertEquals(ModuleConfigurationMetadataIndex.Status.PENDING,
+				metadataIndex.getStatus(ModuleController.metadataCoordinates(coordinates)));
+		assertNull(metadataIndex.getStatus(coordinates));
+	}
+
+	@Test
+	public void testListReportsMetadataStatusOfExecutableArtifact() throws Exception {
+		mockMvc.perform(post("/modules/source/foo").param("coordinates", COORDINATES)
+				.accept(MediaType.APPLICATION_JSON)).andExpect(status().isCreated());
+		mockMvc.perform(get("/modules").param("type", "source").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("\"metadataStatus\":\"pending\"")));
+	}
+
+	@Test
+	public void testRejectedPrefetchDoesNotFailRegistration() throws Exception {
+		metadataIndex.setExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				throw new RejectedExecutionException();
+			}
+		});
+		mockMvc.perform(post("/modules/source/foo").param("coordinates", COORDINATES)
+				.accept(MediaType.APPLICATION_JSON)).andExpect(status().isCreated());
+		assertNull(metadataIndex.getStatus(
+				ModuleController.metadataCoordinates(ArtifactCoordinates.parse(COORDINATES))));
+	}
+
+}
@@ -16,10 +16,16 @@
 
 package org.springframework.cloud.dataflow.admin.controller;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -27,10 +33,13 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.List;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -51,6 +60,7 @@ import org.springframework.cloud.dataflow.core.ModuleDeploymentRequest;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
 import org.springframework.cloud.dataflow.module.ModuleStatus;
 import org.springframework.cloud.dataflow.module.deployer.ModuleDeployer;
+import org.springframework.cloud.dataflow.rest.resource.StreamImportResultResource;
 import org.springframework.cloud.dataflow.artifact.registry.InMemoryArtifactRegistry;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
@@ -58,6 +68,7 @@ import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
@@ -140,6 +151,99 @@ public class StreamControllerTests {
 		assertEquals(1, repository.count());
 	}
 
+	@Test
+	public void testSaveAll() throws Exception {
+		String definitions = "# imported streams\n"
+				+ "ticktock = time | log\n"
+				+ "\n"
+				+ "myStream = time --fixedDelay=500 | log\r\n";
+		mockMvc.perform(
+				post("/streams/definitions/batch").contentType(MediaType.TEXT_PLAIN).content(definitions)
+						.accept(MediaType.APPLICATION_JSON)).andDo(print())
+				.andExpect(status().isCreated());
+		assertEquals(2, repository.count());
+		assertEquals("time | log", repository.findOne("ticktock").getDslText());
+		StreamDefinition myStream = repository.findOne("myStream");
+		assertEquals("time --fixedDelay=500 | log", myStream.getDslText());
+		assertEquals("500", myStream.getModuleDefinitions().get(0).getParameters().get("fixedDelay"));
+	}
+
+	@Test
+	public void testSaveAllRejectsWholeBatch() throws Exception {
+		repository.save(new StreamDefinition("myStream", "time | log"));
+		String definitions = "ticktock = time | log\n"
+				+ "myStream = time | log\n"
+				+ "other = time | log\n"
+				+ "other = http | log\n"
+				+ "broken = time |\n"
+				+ "time | log\n";
+		MvcResult result = mockMvc.perform(
+				post("/streams/definitions/batch").contentType(MediaType.TEXT_PLAIN).content(definitions)
+						.accept(MediaType.APPLICATION_JSON)).andDo(print())
+				.andExpect(status().isOk()).andReturn();
+		List<JsonNode> results = importResults(result);
+		assertEquals(6, results.size());
+		assertImportResult(results.get(0), "ticktock", 1, StreamImportResultResource.SKIPPED, null);
+		assertImportResult(results.get(1), "myStream", 2, StreamImportResultResource.DUPLICATE,
+				"stream myStream already exists");
+		assertImportResult(results.get(2), "other", 3, StreamImportResultResource.SKIPPED, null);
+		assertImportResult(results.get(3), "other", 4, StreamImportResultResource.DUPLICATE,
+				"stream other is already defined at line 3");
+		assertImportResult(results.get(4), "broken", 5, StreamImportResultResource.INVALID,
+				"line 5, column 16: ");
+		assertImportResult(results.get(5), null, 6, StreamImportResultResource.INVALID,
+				"line 6, column 1: ");
+		assertEquals(1, repository.count());
+		assertEquals("time | log", repository.findOne("myStream").getDslText());
+	}
+
+	@Test
+	public void testSaveAllParsesLargeBatchInSlices() throws Exception {
+		StringBuilder definitions = new StringBuilder();
+		for (int i = 1; i <= 200; i++) {
+			definitions.append("stream").append(i).append(i == 150 ? " = time |\n" : " = time | log\n");
+		}
+		MvcResult result = mockMvc.perform(
+				post("/streams/definitions/batch").contentType(MediaType.TEXT_PLAIN).content(definitions.toString())
+						.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk()).andReturn();
+		List<JsonNode> results = importResults(result);
+		assertEquals(200, results.size());
+		for (int i = 1; i <= 200; i++) {
+			if (i == 150) {
+				assertImportResult(results.get(i - 1), "stream150", 150, StreamImportResultResource.INVALID,
+						"line 150, column ");
+			}
+			else {
+				assertImportResult(results.get(i - 1), "stream" + i, i, StreamImportResultResource.SKIPPED, null);
+			}
+		}
+		assertEquals(0, repository.count());
+	}
+
+	/**
+	 * Return the per-definition results held by the response to a batch import, in request order.
+	 */
+	private List<JsonNode> importResults(MvcResult result) throws Exception {
+		return new ObjectMapper().readTree(result.getResponse().getContentAsString()).findParents("status");
+	}
+
+	/**
+	 * Assert the outcome of a definition of a batch import; the message is checked by prefix.
+	 */
+	private void assertImportResult(JsonNode result, String name, int line, String status, String messagePrefix) {
+		assertEquals(name, result.path("name").textValue());
+		assertEquals(line, result.path("line").intValue());
+		assertEquals(status, result.path("status").textValue());
+		String message = result.path("message").textValue();
+		if (messagePrefix == null) {
+			assertNull(message);
+		}
+		else {
+			assertTrue(message, message.startsWith(messagePrefix));
+		}
+	}
+
 	@Test
 	public void testSaveWithParameters() throws Exception {
 		assertEquals(0, repository.count());
@@ -292,6 +396,34 @@ public class StreamControllerTests {
 		assertThat(request.getCoordinates().getArtifactId(), is("filter-processor"));
 	}
 
+	@Test
+	public void testListWithPrefix() throws Exception {
+		repository.save(new StreamDefinition("ticktock", "time | log"));
+		repository.save(new StreamDefinition("tick", "time | log"));
+		repository.save(new StreamDefinition("other", "time | log"));
+		mockMvc.perform(
+				get("/streams/definitions").param("prefix", "tick").param("sort", "name")
+						.accept(MediaType.APPLICATION_JSON)).andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("\"name\":\"tick\"")))
+				.andExpect(content().string(containsString("\"name\":\"ticktock\"")))
+				.andExpect(content().string(not(containsString("\"name\":\"other\""))));
+	}
+
+	@Test
+	public void testListWithChannel() throws Exception {
+		repository.save(new StreamDefinition("producer", "time > queue:foo"));
+		repository.save(new StreamDefinition("consumer", "queue:foo > log"));
+		repository.save(new StreamDefinition("other", "time > queue:bar"));
+		mockMvc.perform(
+				get("/streams/definitions").param("channel", "queue:foo")
+						.accept(MediaType.APPLICATION_JSON)).andDo(print())
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("\"name\":\"producer\"")))
+				.andExpect(content().string(containsString("\"name\":\"consumer\"")))
+				.andExpect(content().string(not(containsString("\"name\":\"other\""))));
+	}
+
 	@Test
 	public void testDestroyStream() throws Exception {
 		repository.save(new StreamDefinition("myStream", "time | log"));
@@ -329,4 +461,16 @@ public class StreamControllerTests {
 		ModuleDeploymentRequest timeRequest = requests.get(1);
 		assertThat(timeRequest.getDefinition().getName(), is("time"));
 	}
+
+	@Test
+	public void testDeployReportsAllMissingRegistrations() throws Exception {
+		repository.save(new StreamDefinition("myStream", "foo | log --includes=bar,org.example:lib:1.0"));
+		mockMvc.perform(
+				post("/streams/deployments/myStream").accept(MediaType.APPLICATION_JSON)).andDo(print())
+				.andExpect(status().is5xxServerError())
+				.andExpect(content().string(containsString("Module foo of type source not found in registry")))
+				.andExpect(content().string(containsString("'bar' could not be parsed as maven coordinates")));
+		verify(moduleDeployer, never()).deploy(any(ModuleDeploymentRequest.class));
+	}
+
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.deployment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.ModuleDefinition;
+import org.springframework.cloud.dataflow.core.ModuleDeploymentRequest;
+import org.springframework.cloud.stream.module.resolver.Coordinates;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+import org.springframework.core.io.Resource;
+
+/**
+ * Tests for {@link ModuleArtifactPrefetcher}.
+ *
+ * @author Patrick Peralta
+ */
+public class ModuleArtifactPrefetcherTests {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+	/**
+	 * Artifact ids resolved so far.
+	 */
+	private final Set<String> resolved = new ConcurrentSkipListSet<>();
+
+	private final ModuleResolver moduleResolver = new ModuleResolver() {
+
+		@Override
+		public Resource resolve(Coordinates coordinates) {
+			if (coordinates.getArtifactId().startsWith("missing")) {
+				throw new IllegalStateException("artifact not found");
+			}
+			resolved.add(coordinates.getArtifactId());
+			return null;
+		}
+
+		@Override
+		public Resource[] resolve(Coordinates root, Coordinates[] includes, String[] excludePatterns) {
+			resolve(root);
+			for (Coordinates include : includes) {
+				resolve(include);
+			}
+			return null;
+		}
+	};
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void modulesAndLibrariesAreResolved() {
+		new ModuleArtifactPrefetcher(moduleResolver, executor).prefetch(Arrays.asList(
+				request("time", "time-source", null),
+				request("log", "log-sink", "org.example:lib1:1.0, org.example:lib2:1.0")));
+		assertEquals("[lib1, lib2, log-sink, time-source]", resolved.toString());
+	}
+
+	@Test
+	public void missingArtifactFails() {
+		try {
+			new ModuleArtifactPrefetcher(moduleResolver, executor).prefetch(Arrays.asList(
+					request("time", "time-source", null),
+					request("log", "log-sink", "org.example:missing-lib:1.0")));
+			fail("IllegalArgumentException expected");
+		}
+		catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("org.example:log-sink:jar:1.0 of module log"));
+			assertTrue(e.getMessage(), e.getMessage().contains("artifact not found"));
+		}
+	}
+
+	private static ModuleDeploymentRequest request(String name, String artifactId, String includes) {
+		ModuleDefinition.Builder builder = new ModuleDefinition.Builder()
+				.setName(name)
+				.setLabel(name)
+				.setGroup("ticktock");
+		if (includes != null) {
+			builder.setParameter("includes", includes);
+		}
+		return new ModuleDeploymentRequest(builder.build(),
+				ArtifactCoordinates.parse("org.example:" + artifactId + ":1.0"));
+	}
+
+}
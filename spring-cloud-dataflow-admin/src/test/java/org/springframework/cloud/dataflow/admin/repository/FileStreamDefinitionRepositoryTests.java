@@ -0,0 +1,197 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.cloud.dataflow.core.StreamDefinition;
+
+/**
+ * @author Patrick Peralta
+ */
+public class FileStreamDefinitionRepositoryTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+	private FileStreamDefinitionRepository repository;
+
+	@Before
+	public void setUp() throws IOException {
+		file = new File(folder.getRoot(), "streams.log");
+		repository = new FileStreamDefinitionRepository(file);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		repository.close();
+	}
+
+	@Test
+	public void testSaveAndFind() {
+		repository.save(new StreamDefinition("ticktock", "time | log"));
+		repository.save(Arrays.asList(new StreamDefinition("ingest", "http | log"),
+				new StreamDefinition("archive", "file | log")));
+		assertEquals(3, repository.count());
+		StreamDefinition ticktock = repository.findOne("ticktock");
+		assertEquals("time | log", ticktock.getDslText());
+		assertEquals("time", ticktock.getModuleDefinitions().get(0).getName());
+		assertNull(repository.findOne("other"));
+		repository.delete("ingest");
+		assertFalse(repository.exists("ingest"));
+		assertEquals(2, repository.count());
+	}
+
+	@Test
+	public void testUsagesUpdatedOnSaveReplaceAndDelete() {
+		repository.save(new StreamDefinition("stream", "time > queue:foo"));
+		assertEquals(Arrays.asList("stream"), repository.findNamesByModule(ArtifactType.source, "time"));
+		assertEquals(Arrays.asList("stream"), repository.findNamesByChannel("queue:foo"));
+
+		repository.save(new StreamDefinition("stream", "http > queue:bar"));
+		assertTrue(repository.findNamesByModule(ArtifactType.source, "time").isEmpty());
+		assertTrue(repository.findNamesByChannel("queue:foo").isEmpty());
+		assertEquals(Arrays.asList("stream"), repository.findNamesByModule(ArtifactType.source, "http"));
+		assertEquals(Arrays.asList("stream"), repository.findNamesByChannel("queue:bar"));
+
+		repository.save(Arrays.asList(new StreamDefinition("ticktock", "time | log"),
+				new StreamDefinition("archive", "file | log")));
+		assertEquals(Arrays.asList("archive", "ticktock"), repository.findNamesByModule(ArtifactType.sink, "log"));
+
+		repository.delete("stream");
+		assertTrue(repository.findNamesByModule(ArtifactType.source, "http").isEmpty());
+		assertTrue(repository.findNamesByChannel("queue:bar").isEmpty());
+		repository.delete(repository.findOne("archive"));
+		assertEquals(Arrays.asList("ticktock"), repository.findNamesByModule(ArtifactType.sink, "log"));
+
+		repository.deleteAll();
+		assertTrue(repository.findNamesByModule(ArtifactType.source, "time").isEmpty());
+		assertTrue(repository.findNamesByModule(ArtifactType.sink, "log").isEmpty());
+	}
+
+	@Test
+	public void testSaveAllIfAbsentSavesAllOrNone() throws IOException {
+		repository.save(new StreamDefinition("ingest", "http | log"));
+		assertEquals(new TreeSet<>(Arrays.asList("ingest")), repository.saveAllIfAbsent(Arrays.asList(
+				new StreamDefinition("ticktock", "time | log"), new StreamDefinition("ingest", "http | file"))));
+		assertEquals(new TreeSet<>(Arrays.asList("ticktock")), repository.saveAllIfAbsent(Arrays.asList(
+				new StreamDefinition("ticktock", "time | log"), new StreamDefinition("ticktock", "time | file"))));
+		assertFalse(repository.exists("ticktock"));
+		assertEquals("http | log", repository.findOne("ingest").getDslText());
+
+		assertTrue(repository.saveAllIfAbsent(Arrays.asList(new StreamDefinition("ticktock", "time | log"),
+				new StreamDefinition("archive", "file | log"))).isEmpty());
+		assertEquals(Arrays.asList("archive", "ingest", "ticktock"),
+				repository.findNamesByModule(ArtifactType.sink, "log"));
+		repository.close();
+		repository = new FileStreamDefinitionRepository(file);
+		assertEquals(3, repository.count());
+	}
+
+	@Test
+	public void testUsagesRebuiltOnRestart() throws IOException {
+		repository.save(new StreamDefinition("ticktock", "time | log"));
+		repository.save(new StreamDefinition("ingest", "http > queue:foo"));
+		repository.save(new StreamDefinition("ingest", "http | log"));
+		repository.close();
+		repository = new FileStreamDefinitionRepository(file);
+		assertEquals(Arrays.asList("ingest", "ticktock"), repository.findNamesByModule(ArtifactType.sink, "log"));
+		assertEquals(Arrays.asList("ticktock"), repository.findNamesByModule(ArtifactType.source, "time"));
+		assertTrue(repository.findNamesByChannel("queue:foo").isEmpty());
+	}
+
+	@Test
+	public void testDefinitionsSurviveRestart() throws IOException {
+		repository.save(new StreamDefinition("ticktock", "time | log"));
+		repository.save(new StreamDefinition("ticktock", "time --fixedDelay=5 | log"));
+		repository.save(new StreamDefinition("ingest", "http | log"));
+		repository.save(new StreamDefinition("archive", "file | log"));
+		repository.delete("ingest");
+		repository.close();
+
+		repository = new FileStreamDefinitionRepository(file);
+		assertEquals(2, repository.count());
+		assertFalse(repository.exists("ingest"));
+		assertEquals("5", repository.findOne("ticktock").getModuleDefinitions().get(0).getParameters().get("fixedDelay"));
+		assertEquals("file | log", repository.findOne("archive").getDslText());
+
+		repository.deleteAll();
+		repository.close();
+		repository = new FileStreamDefinitionRepository(file);
+		assertEquals(0, repository.count());
+	}
+
+	@Test
+	public void testLogIsCompacted() throws IOException {
+		StringBuilder dsl = new StringBuilder("time | log --name=");
+		for (int i = 0; i < 1500; i++) {
+			dsl.append('x');
+		}
+		repository.save(new StreamDefinition("other", "http | log"));
+		for (int i = 0; i < 200; i++) {
+			repository.save(new StreamDefinition("stream", dsl.toString() + i));
+		}
+		// without compaction, the log would hold 200 definitions of about 1.5 KB each
+		assertTrue(file.length() < 2 * 64 * 1024);
+		repository.close();
+
+		repository = new FileStreamDefinitionRepository(file);
+		assertEquals(2, repository.count());
+		assertEquals(dsl.toString() + 199, repository.findOne("stream").getDslText());
+		assertEquals("http | log", repository.findOne("other").getDslText());
+	}
+
+	@Test
+	public void testTornWriteIsDiscarded() throws IOException {
+		repository.save(new StreamDefinition("ticktock", "time | log"));
+		repository.save(new StreamDefinition("ingest", "http | log"));
+		repository.close();
+		// as if the process died in the middle of the last write
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(raf.length() - 5);
+		}
+
+		repository = new FileStreamDefinitionRepository(file);
+		assertEquals(1, repository.count());
+		assertEquals("time | log", repository.findOne("ticktock").getDslText());
+		repository.save(new StreamDefinition("archive", "file | log"));
+		repository.close();
+
+		repository = new FileStreamDefinitionRepository(file);
+		assertEquals(2, repository.count());
+		assertEquals("file | log", repository.findOne("archive").getDslText());
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.cloud.dataflow.core.TaskDefinition;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * @author Patrick Peralta
+ */
+public class FileTaskDefinitionRepositoryTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+	private FileTaskDefinitionRepository repository;
+
+	@Before
+	public void setUp() throws IOException {
+		file = new File(folder.getRoot(), "tasks.log");
+		repository = new FileTaskDefinitionRepository(file);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		repository.close();
+	}
+
+	@Test
+	public void testDefinitionsSurviveRestart() throws IOException {
+		repository.save(new TaskDefinition("task1", "timestamp"));
+		repository.save(new TaskDefinition("task2", "timestamp --format=yyyy"));
+		repository.delete("task1");
+		repository.close();
+
+		repository = new FileTaskDefinitionRepository(file);
+		assertEquals(1, repository.count());
+		assertFalse(repository.exists("task1"));
+		assertEquals("yyyy", repository.findOne("task2").getParameters().get("format"));
+		assertNull(repository.findOne("task3"));
+	}
+
+	@Test(expected = DuplicateTaskException.class)
+	public void testSaveDuplicate() {
+		repository.save(new TaskDefinition("task1", "timestamp"));
+		repository.save(new TaskDefinition("task1", "timestamp"));
+	}
+
+	@Test
+	public void testSaveAllWithDuplicateSavesNone() throws IOException {
+		repository.save(new TaskDefinition("task2", "timestamp"));
+		try {
+			repository.save(Arrays.asList(new TaskDefinition("task1", "timestamp"),
+					new TaskDefinition("task2", "timestamp --format=yyyy"), new TaskDefinition("task3", "timestamp")));
+			fail("DuplicateTaskException expected");
+		}
+		catch (DuplicateTaskException e) {
+			assertTrue(e.getMessage().contains("task2"));
+		}
+		repository.close();
+		repository = new FileTaskDefinitionRepository(file);
+		assertEquals(1, repository.count());
+		assertEquals("timestamp", repository.findOne("task2").getDslText());
+		assertFalse(repository.exists("task1"));
+		assertFalse(repository.exists("task3"));
+	}
+
+	@Test
+	public void testSaveAllWithRepeatedNameSavesNone() {
+		try {
+			repository.save(Arrays.asList(new TaskDefinition("task1", "timestamp"),
+					new TaskDefinition("task1", "timestamp --format=yyyy")));
+			fail("DuplicateTaskException expected");
+		}
+		catch (DuplicateTaskException e) {
+			assertTrue(e.getMessage().contains("task1"));
+		}
+		assertEquals(0, repository.count());
+	}
+
+	@Test
+	public void testFindAllPageable() {
+		for (String name : new String[] {"c", "a", "d", "b", "e"}) {
+			repository.save(new TaskDefinition(name, "timestamp"));
+		}
+		Page<TaskDefinition> page = repository.findAll(new PageRequest(1, 2));
+		assertEquals(5, page.getTotalElements());
+		assertEquals(2, page.getNumberOfElements());
+		assertEquals("c", page.getContent().get(0).getName());
+		assertEquals("d", page.getContent().get(1).getName());
+
+		page = repository.findAll(new PageRequest(0, 2, new Sort(Sort.Direction.DESC, "name")));
+		assertEquals("e", page.getContent().get(0).getName());
+		assertEquals("d", page.getContent().get(1).getName());
+
+		page = repository.findAll(new PageRequest(3, 2));
+		assertEquals(0, page.getNumberOfElements());
+	}
+
+	@Test
+	public void testFindByNameStartingWithPageable() {
+		for (String name : new String[] {"ab", "b", "aa", "ac", "a"}) {
+			repository.save(new TaskDefinition(name, "timestamp"));
+		}
+		Page<TaskDefinition> page = repository.findByNameStartingWith("a",
+				new PageRequest(1, 2, new Sort(Sort.Direction.DESC, "name")));
+		assertEquals(4, page.getTotalElements());
+		assertEquals(2, page.getNumberOfElements());
+		assertEquals("aa", page.getContent().get(0).getName());
+		assertEquals("a", page.getContent().get(1).getName());
+
+		page = repository.findByNameStartingWith("a", new PageRequest(0, 3));
+		assertEquals("a", page.getContent().get(0).getName());
+		assertEquals("ab", page.getContent().get(2).getName());
+
+		page = repository.findByNameStartingWith("c", new PageRequest(0, 3));
+		assertEquals(0, page.getTotalElements());
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.admin.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.cloud.dataflow.core.StreamDefinition;
+
+/**
+ * @author Patrick Peralta
+ */
+public class InMemoryStreamDefinitionRepositoryTests {
+
+	private InMemoryStreamDefinitionRepository repository;
+
+	@Before
+	public void setUp() {
+		repository = new InMemoryStreamDefinitionRepository();
+	}
+
+	@Test
+	public void testFindNamesByModule() {
+		repository.save(new StreamDefinition("ticktock", "time | log"));
+		repository.save(new StreamDefinition("filtered", "time | filter | log"));
+		repository.save(new StreamDefinition("labeled", "t: time | l: log"));
+
+		assertEquals(Arrays.asList("filtered", "labeled", "ticktock"),
+				repository.findNamesByModule(ArtifactType.source, "time"));
+		assertEquals(Arrays.asList("filtered"), repository.findNamesByModule(ArtifactType.processor, "filter"));
+		assertTrue(repository.findNamesByModule(ArtifactType.source, "log").isEmpty());
+	}
+
+	@Test
+	public void testFindNamesByChannel() {
+		repository.save(new StreamDefinition("producer", "time > queue:foo"));
+		repository.save(new StreamDefinition("consumer", "queue:foo > log"));
+		repository.save(new StreamDefinition("ticktock", "time | log"));
+		repository.save(new StreamDefinition("tapper", "tap:stream:ticktock.time > log"));
+
+		assertEquals(Arrays.asList("consumer", "producer"), repository.findNamesByChannel("queue:foo"));
+		assertEquals(Arrays.asList("tapper"), repository.findNamesByChannel("tap:stream:ticktock.time"));
+		assertEquals(Arrays.asList("tapper"), repository.findNamesByChannel("tap:stream:ticktock"));
+		assertTrue(repository.findNamesByChannel("ticktock.0").isEmpty());
+		assertEquals(Arrays.asList("consumer", "tapper", "ticktock"),
+				repository.findNamesByModule(ArtifactType.sink, "log"));
+	}
+
+	@Test
+	public void testUsagesUpdatedOnSaveAndDelete() {
+		repository.save(new StreamDefinition("s", "time > queue:foo"));
+		repository.save(new StreamDefinition("s", "http > queue:bar"));
+
+		assertTrue(repository.findNamesByChannel("queue:foo").isEmpty());
+		assertTrue(repository.findNamesByModule(ArtifactType.source, "time").isEmpty());
+		assertEquals(Arrays.asList("s"), repository.findNamesByChannel("queue:bar"));
+
+		repository.delete("s");
+		assertTrue(repository.findNamesByChannel("queue:bar").isEmpty());
+		assertTrue(repository.findNamesByModule(ArtifactType.source, "http").isEmpty());
+
+		repository.save(Arrays.asList(new StreamDefinition("a", "time | log"), new StreamDefinition("b", "time | log")));
+		repository.deleteAll();
+		assertTrue(repository.findNamesByModule(ArtifactType.source, "time").isEmpty());
+	}
+
+	@Test
+	public void testSaveAllIfAbsentSavesAllOrNone() {
+		repository.save(new StreamDefinition("ingest", "http | log"));
+		assertEquals(Collections.singleton("ingest"), repository.saveAllIfAbsent(Arrays.asList(
+				new StreamDefinition("ticktock", "time | log"), new StreamDefinition("ingest", "http | file"))));
+		assertFalse(repository.exists("ticktock"));
+		assertEquals(1, repository.count());
+		assertTrue(repository.findNamesByModule(ArtifactType.source, "time").isEmpty());
+
+		assertTrue(repository.saveAllIfAbsent(Arrays.asList(new StreamDefinition("ticktock", "time | log"),
+				new StreamDefinition("archive", "file | log"))).isEmpty());
+		assertEquals(3, repository.count());
+		assertEquals(Arrays.asList("archive", "ingest", "ticktock"),
+				repository.findNamesByModule(ArtifactType.sink, "log"));
+	}
+
+}
@@ -21,6 +21,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -33,6 +34,7 @@ import org.springframework.cloud.dataflow.core.TaskDefinition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 /**
  * @author Michael Minella
@@ -63,17 +65,56 @@ public class InMemoryTaskDefinitionRepositoryTests {
 	@Test
 	public void testFindAllPageable() {
 		initializeRepository();
-		Pageable pageable = new PageRequest(1, 10);
+		Pageable pageable = new PageRequest(0, 10);
 
 		Page<TaskDefinition> page = repository.findAll(pageable);
 
 		assertEquals(page.getTotalElements(), 3);
-		assertEquals(page.getNumber(), 1);
+		assertEquals(page.getNumber(), 0);
 		assertEquals(page.getNumberOfElements(), 3);
 		assertEquals(page.getSize(), 10);
 		assertEquals(page.getContent().size(), 3);
 	}
 
+	@Test
+	public void testFindAllPageableBeyondLastPage() {
+		initializeRepository();
+		Pageable pageable = new PageRequest(1, 10);
+
+		Page<TaskDefinition> page = repository.findAll(pageable);
+
+		assertEquals(page.getTotalElements(), 3);
+		assertEquals(page.getNumber(), 1);
+		assertEquals(page.getNumberOfElements(), 0);
+	}
+
+	@Test
+	public void testFindAllPageableSorted() {
+		for (int i = 0; i < 10; i++) {
+			repository.save(new TaskDefinition("task" + i, "myTask"));
+		}
+
+		Page<TaskDefinition> page = repository.findAll(new PageRequest(1, 3, Sort.Direction.ASC, "name"));
+		assertEquals(10, page.getTotalElements());
+		assertEquals(Arrays.asList("task3", "task4", "task5"), names(page));
+
+		page = repository.findAll(new PageRequest(1, 3, Sort.Direction.DESC, "name"));
+		assertEquals(10, page.getTotalElements());
+		assertEquals(Arrays.asList("task6", "task5", "task4"), names(page));
+
+		page = repository.findAll(new PageRequest(3, 3, Sort.Direction.DESC, "name"));
+		assertEquals(Arrays.asList("task0"), names(page));
+	}
+
+	@Test
+	public void testFindAllSorted() {
+		initializeRepository();
+
+		assertEquals(Arrays.asList("task3", "task2", "task1"),
+				names(repository.findAll(new Sort(Sort.Direction.DESC, "name"))));
+		assertEquals(Arrays.asList("task1", "task2", "task3"), names(repository.findAll(new Sort("name"))));
+	}
+
 	@Test(expected = DuplicateTaskException.class)
 	public void testSaveDuplicate() {
 		repository.save(new TaskDefinition("task1", "myTask"));
@@ -89,6 +130,36 @@ public class InMemoryTaskDefinitionRepositoryTests {
 		repository.save(definitions);
 	}
 
+	@Test
+	public void testSaveAllWithDuplicateSavesNone() {
+		repository.save(new TaskDefinition("task2", "myTask"));
+		try {
+			repository.save(Arrays.asList(new TaskDefinition("task1", "myTask"),
+					new TaskDefinition("task2", "myTask --format=yyyy"), new TaskDefinition("task3", "myTask")));
+			fail("DuplicateTaskException expected");
+		}
+		catch (DuplicateTaskException e) {
+			assertTrue(e.getMessage().contains("task2"));
+		}
+		assertEquals(1, repository.count());
+		assertEquals("myTask", repository.findOne("task2").getDslText());
+		assertFalse(repository.exists("task1"));
+		assertFalse(repository.exists("task3"));
+	}
+
+	@Test
+	public void testSaveAllWithRepeatedNameSavesNone() {
+		try {
+			repository.save(Arrays.asList(new TaskDefinition("task1", "myTask"),
+					new TaskDefinition("task1", "myTask --format=yyyy")));
+			fail("DuplicateTaskException expected");
+		}
+		catch (DuplicateTaskException e) {
+			assertTrue(e.getMessage().contains("task1"));
+		}
+		assertEquals(0, repository.count());
+	}
+
 	@Test
 	public void testFindOneNoneFound() {
 		assertNull(repository.findOne("notFound"));
@@ -216,6 +287,14 @@ public class InMemoryTaskDefinitionRepositoryTests {
 		assertEquals(0, repository.count());
 	}
 
+	private List<String> names(Iterable<TaskDefinition> definitions) {
+		List<String> names = new ArrayList<>();
+		for (TaskDefinition definition : definitions) {
+			names.add(definition.getName());
+		}
+		return names;
+	}
+
 	private void initializeRepository() {
 		repository.save(new TaskDefinition("task1", "myTask"));
 		repository.save(new TaskDefinition("task2", "myTask"));
@@ -27,15 +27,19 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 /**
  * Tests for RedisStreamDefinitionRepository that connect to an actual redis instance.
  *
  * @author Eric Bottard
+ * @author Patrick Peralta
  */
 // todo: disabling tests until https://jira.spring.io/browse/XD-3414 is complete
 @Ignore
@@ -98,6 +102,33 @@ public class RedisStreamDefinitionRepositoryTests {
 				hasProperty("name", is("a4"))));
 	}
 
+	@Test
+	public void testFindByNameStartingWith() {
+		for (String name : Arrays.asList("ticktock", "tick", "tack", "tickle", "tic", "ticktack")) {
+			repository.save(new StreamDefinition(name, "time | log"));
+		}
+		assertThat(repository.findByNameStartingWith("tick", new PageRequest(0, 10)), contains(
+				hasProperty("name", is("tick")),
+				hasProperty("name", is("tickle")),
+				hasProperty("name", is("ticktack")),
+				hasProperty("name", is("ticktock"))));
+		Page<StreamDefinition> page = repository.findByNameStartingWith("tick",
+				new PageRequest(1, 3, Sort.Direction.DESC, "name"));
+		assertThat(page, contains(hasProperty("name", is("tick"))));
+		assertThat(page.getTotalElements(), is(4L));
+		assertThat(repository.findByNameStartingWith("toc", new PageRequest(0, 10)),
+				is(emptyIterableOf(StreamDefinition.class)));
+	}
+
+	@Test
+	public void testFindByNameStartingWithAfterDelete() {
+		repository.save(Arrays.asList(new StreamDefinition("ab", "time | log"),
+				new StreamDefinition("ac", "time | log"), new StreamDefinition("b", "time | log")));
+		repository.delete("ab");
+		assertThat(repository.findByNameStartingWith("a", new PageRequest(0, 10)),
+				contains(hasProperty("name", is("ac"))));
+	}
+
 	@Test
 	public void testSaveIterable() {
 		repository.save(Arrays.asList(new StreamDefinition("a", "time | log"), new StreamDefinition("b", "time | log")));
@@ -170,6 +201,73 @@ public class RedisStreamDefinitionRepositoryTests {
 		assertThat(repository.findOne("a"), hasProperty("dslText", is("time | file")));
 	}
 
+	@Test
+	public void testUsagesUpdatedOnSaveReplaceAndDelete() {
+		repository.save(new StreamDefinition("s", "time > queue:foo"));
+		assertThat(repository.findNamesByModule(ArtifactType.source, "time"), contains("s"));
+		assertThat(repository.findNamesByChannel("queue:foo"), contains("s"));
+
+		repository.save(new StreamDefinition("s", "http > queue:bar"));
+		assertThat(repository.findNamesByModule(ArtifactType.source, "time"), is(empty()));
+		assertThat(repository.findNamesByChannel("queue:foo"), is(empty()));
+		assertThat(repository.findNamesByModule(ArtifactType.source, "http"), contains("s"));
+		assertThat(repository.findNamesByChannel("queue:bar"), contains("s"));
+
+		repository.save(Arrays.asList(new StreamDefinition("b", "time | log"), new StreamDefinition("a", "time | log")));
+		assertThat(repository.findNamesByModule(ArtifactType.sink, "log"), contains("a", "b"));
+
+		repository.delete("s");
+		assertThat(repository.findNamesByModule(ArtifactType.source, "http"), is(empty()));
+		assertThat(repository.findNamesByChannel("queue:bar"), is(empty()));
+		repository.delete(repository.findOne("a"));
+		assertThat(repository.findNamesByModule(ArtifactType.sink, "log"), contains("b"));
+
+		repository.deleteAll();
+		assertThat(repository.findNamesByModule(ArtifactType.source, "time"), is(empty()));
+	}
+
+	@Test
+	public void testUsagesBuiltForDefinitionsSavedWithoutThem() {
+		StringRedisTemplate redisTemplate = new StringRedisTemplate(cf);
+		redisTemplate.<String, String>opsForHash().put(key, "ticktock", "time | log");
+		redisTemplate.<String, String>opsForHash().put(key, "ingest", "http | log");
+		repository = new RedisStreamDefinitionRepository(key, cf);
+		assertThat(repository.findNamesByModule(ArtifactType.sink, "log"), contains("ingest", "ticktock"));
+		assertThat(redisTemplate.hasKey(key + RedisStreamDefinitionRepository.USAGES_SUFFIX + "built"), is(true));
+		repository.delete("ingest");
+		assertThat(new RedisStreamDefinitionRepository(key, cf).findNamesByModule(ArtifactType.sink, "log"),
+				contains("ticktock"));
+		repository.deleteAll();
+	}
+
+	@Test
+	public void testDefinitionThatNoLongerParsesCanBeReplacedAndDeleted() {
+		StringRedisTemplate redisTemplate = new StringRedisTemplate(cf);
+		redisTemplate.<String, String>opsForHash().put(key, "broken", "time |");
+		redisTemplate.<String, String>opsForHash().put(key, "ticktock", "time | log");
+		assertThat(repository.findNamesByModule(ArtifactType.sink, "log"), contains("ticktock"));
+		repository.save(new StreamDefinition("broken", "http | log"));
+		assertThat(repository.findNamesByModule(ArtifactType.sink, "log"), contains("broken", "ticktock"));
+		redisTemplate.<String, String>opsForHash().put(key, "broken", "time |");
+		repository.delete("broken");
+		assertThat(repository.exists("broken"), is(false));
+		repository.deleteAll();
+	}
+
+	@Test
+	public void testSaveAllIfAbsentSavesAllOrNone() {
+		repository.save(new StreamDefinition("ingest", "http | log"));
+		assertThat(repository.saveAllIfAbsent(Arrays.asList(new StreamDefinition("ticktock", "time | log"),
+				new StreamDefinition("ingest", "http | file"))), contains("ingest"));
+		assertThat(repository.exists("ticktock"), is(false));
+		assertThat(repository.findOne("ingest"), hasProperty("dslText", is("http | log")));
+
+		assertThat(repository.saveAllIfAbsent(Arrays.asList(new StreamDefinition("ticktock", "time | log"),
+				new StreamDefinition("archive", "file | log"))), is(empty()));
+		assertThat(repository.count(), is(3L));
+		assertThat(repository.findNamesByModule(ArtifactType.sink, "log"), contains("archive", "ingest", "ticktock"));
+		repository.deleteAll();
+	}
 
 	@After
 	public void tearDown() {
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.artifact.registry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Base class for {@link ArtifactRegistry} implementations. Queries by type are implemented
+ * in terms of {@link #findAllOfTypes(Set)}, which by default filters the result of
+ * {@link #findAll()}; implementations that store registrations by type should override it.
+ * Bulk lookups default to one {@link #find(String, ArtifactType)} per key.
+ * <p>
+ * Implementations call {@link #changed()} once a registration has been saved or deleted.
+ *
+ * @author Patrick Peralta
+ */
+public abstract class AbstractArtifactRegistry implements ArtifactRegistry {
+
+	private final AtomicLong changeCount = new AtomicLong();
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation looks up each key with {@link #find(String, ArtifactType)}.
+	 */
+	@Override
+	public List<ArtifactRegistration> findAll(Collection<ArtifactKey> keys) {
+		List<ArtifactRegistration> list = new ArrayList<>(keys.size());
+		for (ArtifactKey key : keys) {
+			list.add(find(key.getName(), key.getType()));
+		}
+		return list;
+	}
+
+	@Override
+	public List<ArtifactRegistration> findAll(ArtifactType type) {
+		return findAllOfTypes(EnumSet.of(type));
+	}
+
+	@Override
+	public Page<ArtifactRegistration> findAll(Pageable pageable, ArtifactType... types) {
+		Set<ArtifactType> typeSet = (types == null || types.length == 0
+				? EnumSet.allOf(ArtifactType.class) : EnumSet.copyOf(Arrays.asList(types)));
+		List<ArtifactRegistration> registrations = new ArrayList<>(findAllOfTypes(typeSet));
+		Collections.sort(registrations);
+
+		int total = registrations.size();
+		int start = Math.min(pageable.getOffset(), total);
+		int end = Math.min(start + pageable.getPageSize(), total);
+		return new PageImpl<>(new ArrayList<>(registrations.subList(start, end)), pageable, total);
+	}
+
+	/**
+	 * Return all artifact registrations of the given types, in no particular order.
+	 *
+	 * @param types the artifact types
+	 *
+	 * @return all artifact registrations of the given types
+	 */
+	protected List<ArtifactRegistration> findAllOfTypes(Set<ArtifactType> types) {
+		List<ArtifactRegistration> list = new ArrayList<>();
+		for (ArtifactRegistration registration : findAll()) {
+			if (types.contains(registration.getType())) {
+				list.add(registration);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation counts the calls to {@link #changed()}.
+	 */
+	@Override
+	public long getChangeCount() {
+		return changeCount.get();
+	}
+
+	/**
+	 * Record a change of the registrations.
+	 */
+	protected void changed() {
+		changeCount.incrementAndGet();
+	}
+
+}
@@ -17,9 +17,12 @@
 package org.springframework.cloud.dataflow.artifact.registry;
 
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 /**
  * {@code ArtifactRegistry} is used to manage artifact registrations.
@@ -45,6 +48,17 @@ public interface ArtifactRegistry {
 	 */
 	ArtifactRegistration find(String name, ArtifactType type);
 
+	/**
+	 * Look up the registrations for several artifacts at once. The returned
+	 * list holds the registration of each key in iteration order, or
+	 * {@code null} for keys that are not registered.
+	 *
+	 * @param keys the names and types of the artifacts
+	 *
+	 * @return registrations for the artifacts, with {@code null} for those not found
+	 */
+	List<ArtifactRegistration> findAll(Collection<ArtifactKey> keys);
+
 	/**
 	 * Return all artifact registrations.
 	 *
@@ -52,6 +66,27 @@ public interface ArtifactRegistry {
 	 */
 	List<ArtifactRegistration> findAll();
 
+	/**
+	 * Return all artifact registrations of the given type.
+	 *
+	 * @param type the artifact type
+	 *
+	 * @return all artifact registrations of the given type
+	 */
+	List<ArtifactRegistration> findAll(ArtifactType type);
+
+	/**
+	 * Return a page of the artifact registrations of the given types,
+	 * ordered by type then name. Sort criteria of the page request are
+	 * not taken into account.
+	 *
+	 * @param pageable the page request
+	 * @param types the artifact types; all types if none is given
+	 *
+	 * @return a page of artifact registrations
+	 */
+	Page<ArtifactRegistration> findAll(Pageable pageable, ArtifactType... types);
+
 	/**
 	 * Save a new artifact registration. Pre-existing registrations
 	 * with a given name and type will be overwritten.
@@ -68,4 +103,13 @@ public interface ArtifactRegistry {
 	 */
 	void delete(String name, ArtifactType type);
 
+	/**
+	 * Return a counter that changes whenever registrations are saved or deleted, so that
+	 * data derived from registrations can be recognized as stale. Only its changes are
+	 * meaningful, not its value.
+	 *
+	 * @return the registration change counter
+	 */
+	long getChangeCount();
+
 }
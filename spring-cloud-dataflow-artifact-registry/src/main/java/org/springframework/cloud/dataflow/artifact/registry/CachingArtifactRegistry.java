@@ -0,0 +1,333 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.artifact.registry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ArtifactRegistry} that keeps a local copy of the registrations of another
+ * registry, one map per {@link ArtifactType}, so that lookups do not have to reach
+ * the backing store.
+ * <p>
+ * Saving or deleting a registration through this registry invalidates the local copy
+ * of its type. Changes made through other instances (such as other admin nodes sharing
+ * the same Redis server) are picked up by registering this registry as a
+ * {@link MessageListener} for {@link RedisArtifactRegistry#CHANGES_CHANNEL} and,
+ * optionally, for the keyspace notifications of the registry hashes
+ * ({@code __keyspace@*__:spring.cloud.artifact.*}).
+ * <p>
+ * As notifications are not delivered while the listener is disconnected, the local copy
+ * is also discarded once it is older than a time to live, which bounds how long a missed
+ * change goes unnoticed.
+ *
+ * @author Patrick Peralta
+ */
+public class CachingArtifactRegistry extends AbstractArtifactRegistry implements MessageListener {
+
+	private static final Log logger = LogFactory.getLog(CachingArtifactRegistry.class);
+
+	/**
+	 * Default time, in milliseconds, during which registrations are served locally.
+	 */
+	public static final long DEFAULT_TIME_TO_LIVE = 60 * 1000L;
+
+	/**
+	 * Registry holding the registrations.
+	 */
+	private final ArtifactRegistry delegate;
+
+	/**
+	 * Local copy of the registrations of each type, keyed by name. A type
+	 * without an entry has not been loaded, or has been invalidated.
+	 */
+	private final Map<ArtifactType, Map<String, ArtifactRegistration>> cache =
+			Collections.synchronizedMap(new EnumMap<ArtifactType, Map<String, ArtifactRegistration>>(ArtifactType.class));
+
+	/**
+	 * Incremented on every invalidation, so that registrations loaded concurrently
+	 * with an invalidation are not cached.
+	 */
+	private long generation;
+
+	/**
+	 * Time, in nanoseconds, during which registrations are served locally.
+	 */
+	private final long timeToLiveNanos;
+
+	/**
+	 * Value of {@link System#nanoTime()} when the loading of the registrations held in
+	 * {@link #cache} started.
+	 */
+	private long loadTime;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong invalidations = new AtomicLong();
+
+	/**
+	 * Construct a {@code CachingArtifactRegistry} for the given registry, with the
+	 * default time to live.
+	 *
+	 * @param delegate the registry holding the registrations
+	 */
+	public CachingArtifactRegistry(ArtifactRegistry delegate) {
+		this(delegate, DEFAULT_TIME_TO_LIVE);
+	}
+
+	/**
+	 * Construct a {@code CachingArtifactRegistry} for the given registry.
+	 *
+	 * @param delegate the registry holding the registrations
+	 * @param timeToLive time, in milliseconds, during which registrations are served locally
+	 */
+	public CachingArtifactRegistry(ArtifactRegistry delegate, long timeToLive) {
+		Assert.notNull(delegate, "delegate must not be null");
+		Assert.isTrue(timeToLive >= 0, "timeToLive must not be negative");
+		this.delegate = delegate;
+		this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+	}
+
+	@Override
+	public ArtifactRegistration find(String name, ArtifactType type) {
+		Map<String, ArtifactRegistration> registrations;
+		synchronized (cache) {
+			expireStaleRegistrations();
+			registrations = cache.get(type);
+		}
+		if (registrations != null) {
+			hits.incrementAndGet();
+		}
+		else {
+			misses.incrementAndGet();
+			registrations = load().get(type);
+		}
+		return registrations.get(name);
+	}
+
+	@Override
+	public List<ArtifactRegistration> findAll() {
+		return findAllOfTypes(EnumSet.allOf(ArtifactType.class));
+	}
+
+	@Override
+	protected List<ArtifactRegistration> findAllOfTypes(Set<ArtifactType> types) {
+		Map<ArtifactType, Map<String, ArtifactRegistration>> registrations =
+				new EnumMap<>(ArtifactType.class);
+		synchronized (cache) {
+			expireStaleRegistrations();
+			for (ArtifactType type : types) {
+				if (cache.containsKey(type)) {
+					registrations.put(type, cache.get(type));
+				}
+			}
+		}
+		if (registrations.size() == types.size()) {
+			hits.incrementAndGet();
+		}
+		else {
+			misses.incrementAndGet();
+			registrations = load();
+		}
+		List<ArtifactRegistration> list = new ArrayList<>();
+		for (ArtifactType type : types) {
+			list.addAll(registrations.get(type).values());
+		}
+		return list;
+	}
+
+	@Override
+	public void save(ArtifactRegistration registration) {
+		delegate.save(registration);
+		invalidate(registration.getType());
+	}
+
+	@Override
+	public void delete(String name, ArtifactType type) {
+		delegate.delete(name, type);
+		invalidate(type);
+	}
+
+	/**
+	 * Discard the local copy of the registrations of the given type, so that
+	 * they are read from the backing registry on next access.
+	 *
+	 * @param type the artifact type
+	 */
+	public void invalidate(ArtifactType type) {
+		synchronized (cache) {
+			generation++;
+			cache.remove(type);
+		}
+		invalidations.incrementAndGet();
+	}
+
+	/**
+	 * Discard the local copy of all registrations.
+	 */
+	public void invalidateAll() {
+		synchronized (cache) {
+			generation++;
+			cache.clear();
+		}
+		invalidations.incrementAndGet();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This implementation counts invalidations, so that changes made through other
+	 * instances are accounted for as soon as they are notified, or at the latest once
+	 * the local copy expires.
+	 */
+	@Override
+	public long getChangeCount() {
+		synchronized (cache) {
+			expireStaleRegistrations();
+			return generation;
+		}
+	}
+
+	/**
+	 * Discard the local copy of all registrations if it is older than the time to live.
+	 * Must be called while holding the lock on {@link #cache}.
+	 */
+	private void expireStaleRegistrations() {
+		if (!cache.isEmpty() && System.nanoTime() - loadTime >= timeToLiveNanos) {
+			generation++;
+			cache.clear();
+			invalidations.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Invalidate the registrations of the type a message refers to. Messages published
+	 * on {@link RedisArtifactRegistry#CHANGES_CHANNEL} carry the name of the type; keyspace
+	 * notifications are published on a channel ending with the key of the type hash.
+	 * Everything is invalidated if the type cannot be determined.
+	 */
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+		String typeName;
+		if (channel.equals(RedisArtifactRegistry.CHANGES_CHANNEL)) {
+			typeName = new String(message.getBody(), StandardCharsets.UTF_8);
+		}
+		else {
+			int index = channel.lastIndexOf(RedisArtifactRegistry.KEY_PREFIX);
+			typeName = (index < 0 ? "" : channel.substring(index + RedisArtifactRegistry.KEY_PREFIX.length()));
+		}
+		ArtifactType type = null;
+		for (ArtifactType candidate : ArtifactType.values()) {
+			if (candidate.name().equals(typeName)) {
+				type = candidate;
+			}
+		}
+		if (type != null) {
+			invalidate(type);
+		}
+		else {
+			logger.debug("Invalidating all artifact registrations on message from " + channel);
+			invalidateAll();
+		}
+	}
+
+	/**
+	 * Read all registrations from the backing registry, and cache those of the types
+	 * that were not invalidated in the meantime.
+	 *
+	 * @return the registrations, keyed by type then name
+	 */
+	private Map<ArtifactType, Map<String, ArtifactRegistration>> load() {
+		long loadGeneration;
+		long start = System.nanoTime();
+		synchronized (cache) {
+			loadGeneration = generation;
+		}
+		Map<ArtifactType, Map<String, ArtifactRegistration>> registrations = new EnumMap<>(ArtifactType.class);
+		for (ArtifactType type : ArtifactType.values()) {
+			registrations.put(type, new HashMap<String, ArtifactRegistration>());
+		}
+		for (ArtifactRegistration registration : delegate.findAll()) {
+			registrations.get(registration.getType()).put(registration.getName(), registration);
+		}
+		for (Map.Entry<ArtifactType, Map<String, ArtifactRegistration>> entry : registrations.entrySet()) {
+			entry.setValue(Collections.unmodifiableMap(entry.getValue()));
+		}
+		synchronized (cache) {
+			if (generation == loadGeneration) {
+				cache.putAll(registrations);
+				loadTime = start;
+			}
+		}
+		return registrations;
+	}
+
+	/**
+	 * @return the number of lookups served from the local copy
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of lookups that had to read the backing registry
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * @return the number of invalidations, whether local, remote or on expiry
+	 */
+	public long getInvalidationCount() {
+		return invalidations.get();
+	}
+
+	/**
+	 * @return the number of registrations held locally
+	 */
+	public int size() {
+		int size = 0;
+		synchronized (cache) {
+			for (Map<String, ArtifactRegistration> registrations : cache.values()) {
+				size += registrations.size();
+			}
+		}
+		return size;
+	}
+
+}
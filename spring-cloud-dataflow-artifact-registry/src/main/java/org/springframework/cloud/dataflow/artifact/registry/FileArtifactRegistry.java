@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.artifact.registry;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.cloud.dataflow.core.store.LogFileStore;
+
+/**
+ * {@link ArtifactRegistry} implementation backed by a {@link LogFileStore}, for
+ * single node installations that do not have a Redis server. All lookups are served
+ * from memory. Coordinates are stored under {@literal <type>.<name>} keys.
+ *
+ * @author Patrick Peralta
+ */
+public class FileArtifactRegistry extends AbstractArtifactRegistry implements Closeable {
+
+	private final LogFileStore store;
+
+	/**
+	 * Construct a {@code FileArtifactRegistry} persisted in the given file.
+	 *
+	 * @param file the file holding the registrations
+	 * @throws IOException if the file cannot be read
+	 */
+	public FileArtifactRegistry(File file) throws IOException {
+		this.store = new LogFileStore(file);
+	}
+
+	@Override
+	public ArtifactRegistration find(String name, ArtifactType type) {
+		String coordinates = store.get(key(name, type));
+		return (coordinates == null ? null :
+				new ArtifactRegistration(name, type, ArtifactCoordinates.parse(coordinates)));
+	}
+
+	@Override
+	public List<ArtifactRegistration> findAll() {
+		List<ArtifactRegistration> list = new ArrayList<>(store.size());
+		for (ArtifactType type : ArtifactType.values()) {
+			addAll(type, list);
+		}
+		return list;
+	}
+
+	@Override
+	protected List<ArtifactRegistration> findAllOfTypes(Set<ArtifactType> types) {
+		List<ArtifactRegistration> list = new ArrayList<>();
+		for (ArtifactType type : types) {
+			addAll(type, list);
+		}
+		return list;
+	}
+
+	private void addAll(ArtifactType type, List<ArtifactRegistration> list) {
+		String prefix = key("", type);
+		for (Map.Entry<String, String> entry : store.prefixMap(prefix).entrySet()) {
+			list.add(new ArtifactRegistration(entry.getKey().substring(prefix.length()), type,
+					ArtifactCoordinates.parse(entry.getValue())));
+		}
+	}
+
+	@Override
+	public void save(ArtifactRegistration registration) {
+		store.put(key(registration.getName(), registration.getType()), registration.getCoordinates().toString());
+		changed();
+	}
+
+	@Override
+	public void delete(String name, ArtifactType type) {
+		store.remove(key(name, type));
+		changed();
+	}
+
+	private static String key(String name, ArtifactType type) {
+		return type + "." + name;
+	}
+
+	@Override
+	public void close() throws IOException {
+		store.close();
+	}
+
+}
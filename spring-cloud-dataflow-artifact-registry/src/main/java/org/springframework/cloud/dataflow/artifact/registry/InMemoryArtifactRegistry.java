@@ -17,8 +17,10 @@
 package org.springframework.cloud.dataflow.artifact.registry;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
@@ -30,88 +32,51 @@ import org.springframework.cloud.dataflow.core.ArtifactType;
  * @author Mark Fisher
  * @author Patrick Peralta
  */
-public class InMemoryArtifactRegistry implements ArtifactRegistry {
+public class InMemoryArtifactRegistry extends AbstractArtifactRegistry {
 
-	private final Map<Key, ArtifactCoordinates> map = new ConcurrentHashMap<>();
+	/**
+	 * Coordinates of the registered artifacts, by type then name.
+	 */
+	private final Map<ArtifactType, Map<String, ArtifactCoordinates>> map = new EnumMap<>(ArtifactType.class);
+
+	public InMemoryArtifactRegistry() {
+		for (ArtifactType type : ArtifactType.values()) {
+			this.map.put(type, new ConcurrentHashMap<String, ArtifactCoordinates>());
+		}
+	}
 
 	@Override
 	public ArtifactRegistration find(String name, ArtifactType type) {
-		ArtifactCoordinates coordinates = this.map.get(new Key(name, type));
+		ArtifactCoordinates coordinates = this.map.get(type).get(name);
 		return (coordinates == null ? null : new ArtifactRegistration(name, type, coordinates));
 	}
 
 	@Override
 	public List<ArtifactRegistration> findAll() {
-		List<ArtifactRegistration> list = new ArrayList<>(this.map.size());
-		for (Map.Entry<Key, ArtifactCoordinates> entry : this.map.entrySet()) {
-			list.add(new ArtifactRegistration(entry.getKey().getName(),
-					entry.getKey().getType(), entry.getValue()));
+		return findAllOfTypes(this.map.keySet());
+	}
+
+	@Override
+	protected List<ArtifactRegistration> findAllOfTypes(Set<ArtifactType> types) {
+		List<ArtifactRegistration> list = new ArrayList<>();
+		for (ArtifactType type : types) {
+			for (Map.Entry<String, ArtifactCoordinates> entry : this.map.get(type).entrySet()) {
+				list.add(new ArtifactRegistration(entry.getKey(), type, entry.getValue()));
+			}
 		}
 		return list;
 	}
 
 	@Override
 	public void save(ArtifactRegistration registration) {
-		String name = registration.getName();
-		ArtifactType type = registration.getType();
-		ArtifactCoordinates coordinates = registration.getCoordinates();
-
-		this.map.put(new Key(name, type), coordinates);
+		this.map.get(registration.getType()).put(registration.getName(), registration.getCoordinates());
+		changed();
 	}
 
 	@Override
 	public void delete(String name, ArtifactType type) {
-		this.map.remove(new Key(name, type));
-	}
-
-	/**
-	 * Key class for module registration.
-	 */
-	private static class Key {
-
-		private String name;
-
-		private ArtifactType type;
-
-		public Key(String name, ArtifactType type) {
-			this.name = name;
-			this.type = type;
-		}
-
-		public String getName() {
-			return name;
-		}
-
-		public ArtifactType getType() {
-			return type;
-		}
-
-		@Override
-		public boolean equals(Object o) {
-			if (this == o) {
-				return true;
-			}
-			if (o == null || getClass() != o.getClass()) {
-				return false;
-			}
-			Key that = (Key) o;
-			return this.getName().equals(that.getName()) && this.getType() == that.getType();
-		}
-
-		@Override
-		public int hashCode() {
-			int result = name.hashCode();
-			result = 31 * result + type.hashCode();
-			return result;
-		}
-
-		@Override
-		public String toString() {
-			return "Key{" +
-					"name='" + name + '\'' +
-					", type=" + type +
-					'}';
-		}
+		this.map.get(type).remove(name);
+		changed();
 	}
 
 }
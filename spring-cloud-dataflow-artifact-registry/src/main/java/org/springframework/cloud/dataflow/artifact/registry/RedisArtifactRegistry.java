@@ -17,33 +17,58 @@
 package org.springframework.cloud.dataflow.artifact.registry;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
 import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
  * {@link ArtifactRegistry} implementation backed by Redis.
+ * <p>
+ * Its {@link #getChangeCount() change count} only accounts for changes made through
+ * this instance; see {@link CachingArtifactRegistry} for changes made by other ones.
  *
  * @author Patrick Peralta
  * @author Mark Fisher
  */
-public class RedisArtifactRegistry implements ArtifactRegistry {
+public class RedisArtifactRegistry extends AbstractArtifactRegistry {
 
 	/**
 	 * Prefix for keys used for storing artifact coordinates.
 	 */
 	public static final String KEY_PREFIX = "spring.cloud.artifact.";
 
+	/**
+	 * Channel on which the type of the registrations is published whenever a
+	 * registration is saved or deleted. This allows caches of the registry to be
+	 * invalidated without relying on keyspace notifications being enabled on the server.
+	 *
+	 * @see CachingArtifactRegistry
+	 */
+	public static final String CHANGES_CHANNEL = "spring.cloud.artifact.changes";
+
 	/**
 	 * Redis operations template.
 	 */
 	private final RedisOperations<String, String> redisOperations;
 
+	/**
+	 * Serializer for keys used in pipelined commands.
+	 */
+	private final RedisSerializer<String> keySerializer = new StringRedisSerializer();
 
 	/**
 	 * Construct a {@code RedisArtifactRegistry} with the provided
@@ -62,15 +87,93 @@ public class RedisArtifactRegistry implements ArtifactRegistry {
 				new ArtifactRegistration(name, type, ArtifactCoordinates.parse(coordinates)));
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The names are looked up with one {@code HMGET} per type, all sent in a
+	 * single pipelined round trip.
+	 */
+	@Override
+	public List<ArtifactRegistration> findAll(Collection<ArtifactKey> keys) {
+		final Map<ArtifactType, List<String>> namesByType = new EnumMap<>(ArtifactType.class);
+		for (ArtifactKey key : keys) {
+			List<String> names = namesByType.get(key.getType());
+			if (names == null) {
+				names = new ArrayList<>();
+				namesByType.put(key.getType(), names);
+			}
+			names.add(key.getName());
+		}
+		if (namesByType.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		List<Object> results = redisOperations.executePipelined(new RedisCallback<Object>() {
+
+			@Override
+			public Object doInRedis(RedisConnection connection) {
+				for (Map.Entry<ArtifactType, List<String>> entry : namesByType.entrySet()) {
+					byte[][] fields = new byte[entry.getValue().size()][];
+					for (int i = 0; i < fields.length; i++) {
+						fields[i] = keySerializer.serialize(entry.getValue().get(i));
+					}
+					connection.hMGet(keySerializer.serialize(KEY_PREFIX + entry.getKey()), fields);
+				}
+				return null;
+			}
+		});
+
+		Map<ArtifactKey, ArtifactRegistration> found = new HashMap<>();
+		int i = 0;
+		for (Map.Entry<ArtifactType, List<String>> entry : namesByType.entrySet()) {
+			@SuppressWarnings("unchecked")
+			List<String> coordinates = (List<String>) results.get(i++);
+			for (int j = 0; j < coordinates.size(); j++) {
+				if (coordinates.get(j) != null) {
+					String name = entry.getValue().get(j);
+					found.put(new ArtifactKey(name, entry.getKey()), new ArtifactRegistration(name,
+							entry.getKey(), ArtifactCoordinates.parse(coordinates.get(j))));
+				}
+			}
+		}
+
+		List<ArtifactRegistration> list = new ArrayList<>(keys.size());
+		for (ArtifactKey key : keys) {
+			list.add(found.get(key));
+		}
+		return list;
+	}
+
 	@Override
 	public List<ArtifactRegistration> findAll() {
-		List<ArtifactRegistration> list = new ArrayList<>();
+		return findAllOfTypes(EnumSet.allOf(ArtifactType.class));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The hashes of all requested types are read in a single pipelined round trip.
+	 */
+	@Override
+	protected List<ArtifactRegistration> findAllOfTypes(Set<ArtifactType> types) {
+		final List<ArtifactType> typeList = new ArrayList<>(types);
+		List<Object> results = redisOperations.executePipelined(new RedisCallback<Object>() {
+
+			@Override
+			public Object doInRedis(RedisConnection connection) {
+				for (ArtifactType type : typeList) {
+					connection.hGetAll(keySerializer.serialize(KEY_PREFIX + type));
+				}
+				return null;
+			}
+		});
 
-		for (ArtifactType type : ArtifactType.values()) {
-			for (Map.Entry<String, String> entry :
-					redisOperations.<String, String>boundHashOps(KEY_PREFIX + type)
-							.entries().entrySet()) {
-				list.add(new ArtifactRegistration(entry.getKey(), type,
+		List<ArtifactRegistration> list = new ArrayList<>();
+		for (int i = 0; i < typeList.size(); i++) {
+			@SuppressWarnings("unchecked")
+			Map<String, String> entries = (Map<String, String>) results.get(i);
+			for (Map.Entry<String, String> entry : entries.entrySet()) {
+				list.add(new ArtifactRegistration(entry.getKey(), typeList.get(i),
 						ArtifactCoordinates.parse(entry.getValue())));
 			}
 		}
@@ -82,11 +185,15 @@ public class RedisArtifactRegistry implements ArtifactRegistry {
 	public void save(ArtifactRegistration registration) {
 		redisOperations.boundHashOps(KEY_PREFIX + registration.getType())
 				.put(registration.getName(), registration.getCoordinates().toString());
+		redisOperations.convertAndSend(CHANGES_CHANNEL, registration.getType().name());
+		changed();
 	}
 
 	@Override
 	public void delete(String name, ArtifactType type) {
 		redisOperations.boundHashOps(KEY_PREFIX + type).delete(name);
+		redisOperations.convertAndSend(CHANGES_CHANNEL, type.name());
+		changed();
 	}
 
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.artifact.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+
+/**
+ * Tests for {@link CachingArtifactRegistry}, with two caching registries standing for
+ * two admin nodes that share a backing registry and a change notification channel.
+ *
+ * @author Patrick Peralta
+ */
+public class CachingArtifactRegistryTests {
+
+	private NotifyingArtifactRegistry backingRegistry;
+
+	private CachingArtifactRegistry node1;
+
+	private CachingArtifactRegistry node2;
+
+	@Before
+	public void setUp() {
+		backingRegistry = new NotifyingArtifactRegistry();
+		backingRegistry.save(registration("time", ArtifactType.source, "1.0.0"));
+		backingRegistry.save(registration("log", ArtifactType.sink, "1.0.0"));
+		node1 = new CachingArtifactRegistry(backingRegistry);
+		node2 = new CachingArtifactRegistry(backingRegistry);
+		backingRegistry.listeners.add(node1);
+		backingRegistry.listeners.add(node2);
+	}
+
+	@Test
+	public void lookupsAreServedLocally() {
+		assertEquals("1.0.0", node1.find("time", ArtifactType.source).getCoordinates().getVersion());
+		assertNull(node1.find("time", ArtifactType.sink));
+		assertEquals("1.0.0", node1.find("log", ArtifactType.sink).getCoordinates().getVersion());
+		assertEquals(2, node1.findAll().size());
+		assertEquals(1, node1.getMissCount());
+		assertEquals(3, node1.getHitCount());
+		assertEquals(2, node1.size());
+		assertEquals(1, backingRegistry.findAllCount);
+	}
+
+	@Test
+	public void changesFromOtherNodesInvalidateOnlyTheirType() {
+		node1.find("time", ArtifactType.source);
+		node2.save(registration("time", ArtifactType.source, "2.0.0"));
+		node2.save(registration("http", ArtifactType.source, "1.0.0"));
+		assertEquals("2.0.0", node1.find("time", ArtifactType.source).getCoordinates().getVersion());
+		assertEquals("1.0.0", node1.find("http", ArtifactType.source).getCoordinates().getVersion());
+		node1.find("log", ArtifactType.sink);
+		assertEquals(2, node1.getMissCount());
+
+		node2.delete("http", ArtifactType.source);
+		assertNull(node1.find("http", ArtifactType.source));
+		assertEquals(3, node1.getMissCount());
+	}
+
+	@Test
+	public void keyspaceNotifications() {
+		node1.find("time", ArtifactType.source);
+		node1.onMessage(message("__keyspace@0__:" + RedisArtifactRegistry.KEY_PREFIX + "sink", "hdel"), null);
+		node1.find("time", ArtifactType.source);
+		assertEquals(1, node1.getMissCount());
+		node1.find("log", ArtifactType.sink);
+		assertEquals(2, node1.getMissCount());
+
+		node1.onMessage(message(RedisArtifactRegistry.CHANGES_CHANNEL, "unknown"), null);
+		node1.find("time", ArtifactType.source);
+		assertEquals(3, node1.getMissCount());
+		assertEquals(2, node1.getInvalidationCount());
+	}
+
+	@Test
+	public void missedChangesArePickedUpOnExpiry() {
+		CachingArtifactRegistry node3 = new CachingArtifactRegistry(backingRegistry, 0);
+		assertEquals("1.0.0", node3.find("time", ArtifactType.source).getCoordinates().getVersion());
+		long changeCount = node3.getChangeCount();
+		// node3 does not listen to notifications, as if it were disconnected
+		node1.save(registration("time", ArtifactType.source, "2.0.0"));
+		assertEquals("2.0.0", node3.find("time", ArtifactType.source).getCoordinates().getVersion());
+		assertEquals(2, node3.getMissCount());
+		assertTrue(node3.getChangeCount() > changeCount);
+	}
+
+	private static ArtifactRegistration registration(String name, ArtifactType type, String version) {
+		return new ArtifactRegistration(name, type,
+				ArtifactCoordinates.parse("org.example:" + name + ":" + version));
+	}
+
+	private static DefaultMessage message(String channel, String body) {
+		return new DefaultMessage(channel.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+	}
+
+
+	/**
+	 * In-process stand-in for {@link RedisArtifactRegistry}, which publishes the
+	 * type of every change on {@link RedisArtifactRegistry#CHANGES_CHANNEL}.
+	 */
+	private static class NotifyingArtifactRegistry extends InMemoryArtifactRegistry {
+
+		private final List<MessageListener> listeners = new CopyOnWriteArrayList<>();
+
+		private int findAllCount;
+
+		@Override
+		public List<ArtifactRegistration> findAll() {
+			findAllCount++;
+			return super.findAll();
+		}
+
+		@Override
+		public void save(ArtifactRegistration registration) {
+			super.save(registration);
+			publish(registration.getType());
+		}
+
+		@Override
+		public void delete(String name, ArtifactType type) {
+			super.delete(name, type);
+			publish(type);
+		}
+
+		private void publish(ArtifactType type) {
+			for (MessageListener listener : listeners) {
+				listener.onMessage(message(RedisArtifactRegistry.CHANGES_CHANNEL, type.name()), null);
+			}
+		}
+	}
+
+}
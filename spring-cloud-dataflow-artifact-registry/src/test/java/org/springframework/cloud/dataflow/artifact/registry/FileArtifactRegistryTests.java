@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.artifact.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.ArtifactType;
+
+/**
+ * @author Patrick Peralta
+ */
+public class FileArtifactRegistryTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+	private FileArtifactRegistry registry;
+
+	@Before
+	public void setUp() throws IOException {
+		file = new File(folder.getRoot(), "artifacts.log");
+		registry = new FileArtifactRegistry(file);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		registry.close();
+	}
+
+	@Test
+	public void saveAndFind() {
+		registry.save(registration("time", ArtifactType.source, "1.0.0"));
+		registry.save(registration("log", ArtifactType.sink, "1.0.0"));
+		registry.save(registration("time", ArtifactType.task, "2.0.0"));
+		assertEquals("1.0.0", registry.find("time", ArtifactType.source).getCoordinates().getVersion());
+		assertEquals("2.0.0", registry.find("time", ArtifactType.task).getCoordinates().getVersion());
+		assertNull(registry.find("log", ArtifactType.source));
+		assertEquals(3, registry.findAll().size());
+		registry.delete("time", ArtifactType.source);
+		assertNull(registry.find("time", ArtifactType.source));
+		assertEquals(2, registry.findAll().size());
+	}
+
+	@Test
+	public void registrationsSurviveRestart() throws IOException {
+		registry.save(registration("time", ArtifactType.source, "1.0.0"));
+		registry.save(registration("time", ArtifactType.source, "1.1.0"));
+		registry.save(registration("http", ArtifactType.source, "1.0.0"));
+		registry.save(registration("log", ArtifactType.sink, "1.0.0"));
+		registry.delete("http", ArtifactType.source);
+		registry.close();
+
+		registry = new FileArtifactRegistry(file);
+		assertEquals(2, registry.findAll().size());
+		assertEquals("1.1.0", registry.find("time", ArtifactType.source).getCoordinates().getVersion());
+		assertNull(registry.find("http", ArtifactType.source));
+		assertEquals("org.example:log:jar:1.0.0", registry.find("log", ArtifactType.sink).getCoordinates().toString());
+	}
+
+	@Test
+	public void logIsCompacted() throws IOException {
+		for (int i = 0; i < 5000; i++) {
+			registry.save(registration("time", ArtifactType.source, "1.0." + i));
+		}
+		registry.save(registration("log", ArtifactType.sink, "1.0.0"));
+		// without compaction, the log would hold 5000 registrations of about 50 bytes each
+		assertTrue(file.length() < 2 * 64 * 1024);
+		registry.close();
+
+		registry = new FileArtifactRegistry(file);
+		assertEquals(2, registry.findAll().size());
+		assertEquals("1.0.4999", registry.find("time", ArtifactType.source).getCoordinates().getVersion());
+	}
+
+	@Test
+	public void tornWriteIsDiscarded() throws IOException {
+		registry.save(registration("time", ArtifactType.source, "1.0.0"));
+		registry.save(registration("log", ArtifactType.sink, "1.0.0"));
+		registry.close();
+		// as if the process died in the middle of the last write
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(raf.length() - 5);
+		}
+
+		registry = new FileArtifactRegistry(file);
+		assertEquals(1, registry.findAll().size());
+		assertNull(registry.find("log", ArtifactType.sink));
+		registry.save(registration("http", ArtifactType.source, "1.0.0"));
+		registry.close();
+
+		registry = new FileArtifactRegistry(file);
+		assertEquals(2, registry.findAll().size());
+		assertEquals("1.0.0", registry.find("http", ArtifactType.source).getCoordinates().getVersion());
+	}
+
+	private static ArtifactRegistration registration(String name, ArtifactType type, String version) {
+		return new ArtifactRegistration(name, type,
+				ArtifactCoordinates.parse("org.example:" + name + ":" + version));
+	}
+
+}
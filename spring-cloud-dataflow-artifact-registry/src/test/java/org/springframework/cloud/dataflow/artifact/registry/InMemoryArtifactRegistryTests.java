@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.artifact.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Tests for {@link InMemoryArtifactRegistry}.
+ *
+ * @author Patrick Peralta
+ */
+public class InMemoryArtifactRegistryTests {
+
+	private InMemoryArtifactRegistry registry;
+
+	@Before
+	public void setUp() {
+		registry = new InMemoryArtifactRegistry();
+		for (String name : Arrays.asList("time", "http", "twitter")) {
+			save(name, ArtifactType.source);
+		}
+		for (String name : Arrays.asList("log", "file")) {
+			save(name, ArtifactType.sink);
+		}
+		save("filter", ArtifactType.processor);
+	}
+
+	@Test
+	public void findAllOfType() {
+		assertEquals(new HashSet<>(Arrays.asList("file", "log")),
+				new HashSet<>(names(registry.findAll(ArtifactType.sink))));
+		assertEquals(0, registry.findAll(ArtifactType.task).size());
+		assertEquals(6, registry.findAll().size());
+	}
+
+	@Test
+	public void pagesAreOrderedByTypeThenName() {
+		Page<ArtifactRegistration> page = registry.findAll(new PageRequest(0, 4));
+		assertEquals(6, page.getTotalElements());
+		assertEquals(Arrays.asList("http", "time", "twitter", "filter"), names(page.getContent()));
+		page = registry.findAll(new PageRequest(1, 4));
+		assertEquals(Arrays.asList("file", "log"), names(page.getContent()));
+		page = registry.findAll(new PageRequest(2, 4));
+		assertEquals(0, page.getContent().size());
+	}
+
+	@Test
+	public void pagesFilteredByType() {
+		Page<ArtifactRegistration> page = registry.findAll(new PageRequest(0, 3),
+				ArtifactType.sink, ArtifactType.processor);
+		assertEquals(3, page.getTotalElements());
+		assertEquals(Arrays.asList("filter", "file", "log"), names(page.getContent()));
+		page = registry.findAll(new PageRequest(0, 2), ArtifactType.source);
+		assertEquals(3, page.getTotalElements());
+		assertEquals(Arrays.asList("http", "time"), names(page.getContent()));
+	}
+
+	@Test
+	public void bulkLookup() {
+		List<ArtifactRegistration> registrations = registry.findAll(Arrays.asList(
+				new ArtifactKey("log", ArtifactType.sink),
+				new ArtifactKey("log", ArtifactType.source),
+				new ArtifactKey("time", ArtifactType.source)));
+		assertEquals(3, registrations.size());
+		assertEquals("log", registrations.get(0).getName());
+		assertNull(registrations.get(1));
+		assertEquals(ArtifactType.source, registrations.get(2).getType());
+	}
+
+	private void save(String name, ArtifactType type) {
+		registry.save(new ArtifactRegistration(name, type,
+				ArtifactCoordinates.parse("org.example:" + name + "-" + type + ":1.0.0")));
+	}
+
+	private static List<String> names(List<ArtifactRegistration> registrations) {
+		List<String> names = new ArrayList<>();
+		for (ArtifactRegistration registration : registrations) {
+			names.add(registration.getName());
+		}
+		return names;
+	}
+
+}
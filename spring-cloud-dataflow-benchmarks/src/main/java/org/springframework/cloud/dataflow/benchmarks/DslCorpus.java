@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A named set of definitions loaded from the checked-in corpus under
+ * {@code /corpus} on the classpath.
+ * <p>
+ * Each corpus file holds one definition per line in the form {@code name = dsl}.
+ * Blank lines and lines starting with {@code #} are ignored.
+ *
+ * @author Eric Bottard
+ */
+public class DslCorpus {
+
+	/**
+	 * Corpora of stream definitions, usable as a JMH {@code @Param}.
+	 */
+	public static final String SHORT_PIPES = "short-pipes";
+
+	public static final String LONG_CHAINS = "long-chains";
+
+	public static final String NAMED_CHANNELS = "named-channels";
+
+	public static final String TAPS = "taps";
+
+	public static final String SPEL = "spel";
+
+	/**
+	 * Corpus of task definitions.
+	 */
+	public static final String TASKS = "tasks";
+
+	private final String[] names;
+
+	private final String[] definitions;
+
+	private DslCorpus(List<String> names, List<String> definitions) {
+		this.names = names.toArray(new String[names.size()]);
+		this.definitions = definitions.toArray(new String[definitions.size()]);
+	}
+
+	/**
+	 * Load the corpus with the given name.
+	 *
+	 * @param corpus the corpus name, one of the constants of this class
+	 * @return the loaded corpus
+	 */
+	public static DslCorpus load(String corpus) {
+		String resource = "/corpus/" + corpus + ".txt";
+		InputStream in = DslCorpus.class.getResourceAsStream(resource);
+		if (in == null) {
+			throw new IllegalArgumentException("No such corpus: " + resource);
+		}
+		List<String> names = new ArrayList<>();
+		List<String> definitions = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				int equals = line.indexOf('=');
+				if (equals < 0) {
+					throw new IllegalStateException(String.format("Malformed line in %s: %s", resource, line));
+				}
+				names.add(line.substring(0, equals).trim());
+				definitions.add(line.substring(equals + 1).trim());
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not read " + resource, e);
+		}
+		return new DslCorpus(names, definitions);
+	}
+
+	public int size() {
+		return names.length;
+	}
+
+	public String getName(int i) {
+		return names[i];
+	}
+
+	public String getDefinition(int i) {
+		return definitions[i];
+	}
+}
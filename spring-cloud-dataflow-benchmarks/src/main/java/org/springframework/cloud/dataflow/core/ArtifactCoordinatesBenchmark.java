@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of {@link ArtifactCoordinates} parsing and formatting, which
+ * happens for every artifact registry read.
+ *
+ * @author Patrick Peralta
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArtifactCoordinatesBenchmark {
+
+	private ArtifactCoordinates coordinates;
+
+	/**
+	 * String form of {@link #coordinates}, as stored by the artifact registry.
+	 */
+	private String canonical;
+
+	/**
+	 * Short form of {@link #coordinates}, with the default extension left out.
+	 */
+	private String shortForm;
+
+	@Setup
+	public void setup() {
+		coordinates = ArtifactCoordinates.parse(
+				"org.springframework.cloud.stream.module:time-source:jar:exec:1.0.0.BUILD-SNAPSHOT");
+		canonical = new String(coordinates.toString());
+		shortForm = "org.springframework.cloud.stream.module:log-sink:1.0.0.BUILD-SNAPSHOT";
+	}
+
+	@Benchmark
+	public ArtifactCoordinates parseCanonical() {
+		return ArtifactCoordinates.parse(canonical);
+	}
+
+	@Benchmark
+	public ArtifactCoordinates parseShortForm() {
+		return ArtifactCoordinates.parse(shortForm);
+	}
+
+	@Benchmark
+	public String toStringForm() {
+		return coordinates.toString();
+	}
+
+	@Benchmark
+	public int hashCodeOf() {
+		return coordinates.hashCode();
+	}
+
+}
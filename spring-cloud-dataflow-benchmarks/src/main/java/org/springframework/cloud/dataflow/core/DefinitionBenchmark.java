@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.cloud.dataflow.benchmarks.DslCorpus;
+
+/**
+ * Measures the end to end cost of creating {@link StreamDefinition StreamDefinitions} and
+ * {@link TaskDefinition TaskDefinitions}, which is what the admin pays for every definition
+ * loaded from a repository.
+ *
+ * @author Patrick Peralta
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefinitionBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Streams {
+
+		@Param({DslCorpus.SHORT_PIPES, DslCorpus.LONG_CHAINS, DslCorpus.NAMED_CHANNELS, DslCorpus.TAPS, DslCorpus.SPEL})
+		public String corpus;
+
+		DslCorpus definitions;
+
+		@Setup
+		public void setup() {
+			definitions = DslCorpus.load(corpus);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Tasks {
+
+		DslCorpus definitions;
+
+		@Setup
+		public void setup() {
+			definitions = DslCorpus.load(DslCorpus.TASKS);
+		}
+	}
+
+	@Benchmark
+	public void streamDefinition(Streams streams, Blackhole blackhole) {
+		DslCorpus definitions = streams.definitions;
+		for (int i = 0; i < definitions.size(); i++) {
+			blackhole.consume(new StreamDefinition(definitions.getName(i), definitions.getDefinition(i)));
+		}
+	}
+
+	@Benchmark
+	public void taskDefinition(Tasks tasks, Blackhole blackhole) {
+		DslCorpus definitions = tasks.definitions;
+		for (int i = 0; i < definitions.size(); i++) {
+			blackhole.consume(new TaskDefinition(definitions.getName(i), definitions.getDefinition(i)));
+		}
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.cloud.dataflow.benchmarks.DslCorpus;
+import org.springframework.cloud.dataflow.core.dsl.StreamNode;
+import org.springframework.cloud.dataflow.core.dsl.StreamParser;
+
+/**
+ * Measures {@link ModuleDefinitionBuilder#build()} in isolation, over ASTs that are parsed
+ * once up front. Lives in the {@code core} package as the builder is not public.
+ *
+ * @author Patrick Peralta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModuleDefinitionBuilderBenchmark {
+
+	@Param({DslCorpus.SHORT_PIPES, DslCorpus.LONG_CHAINS, DslCorpus.NAMED_CHANNELS, DslCorpus.TAPS, DslCorpus.SPEL})
+	public String corpus;
+
+	private String[] names;
+
+	private StreamNode[] streamNodes;
+
+	@Setup
+	public void setup() {
+		DslCorpus definitions = DslCorpus.load(corpus);
+		names = new String[definitions.size()];
+		streamNodes = new StreamNode[definitions.size()];
+		for (int i = 0; i < definitions.size(); i++) {
+			names[i] = definitions.getName(i);
+			streamNodes[i] = new StreamParser(names[i], definitions.getDefinition(i)).parse();
+		}
+	}
+
+	@Benchmark
+	public void build(Blackhole blackhole) {
+		for (int i = 0; i < streamNodes.length; i++) {
+			blackhole.consume(new ModuleDefinitionBuilder(names[i], streamNodes[i]).build());
+		}
+	}
+
+}
@@ -28,9 +28,6 @@ import org.springframework.cloud.dataflow.core.ModuleDefinition;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
-import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
-import org.springframework.cloud.stream.module.resolver.ModuleResolver;
-import org.springframework.core.io.Resource;
 
 /**
  * Adds missing module configuration properties at the end of a well formed stream definition.
@@ -41,16 +38,12 @@ class AddModuleOptionsExpansionStrategy implements ExpansionStrategy {
 
 	private final ArtifactRegistry artifactRegistry;
 
-	private final ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver;
-
-	private final ModuleResolver moduleResolver;
+	private final ModuleConfigurationMetadataIndex metadataIndex;
 
 	public AddModuleOptionsExpansionStrategy(ArtifactRegistry artifactRegistry,
-			ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver,
-			ModuleResolver moduleResolver) {
+			ModuleConfigurationMetadataIndex metadataIndex) {
 		this.artifactRegistry = artifactRegistry;
-		this.moduleConfigurationMetadataResolver = moduleConfigurationMetadataResolver;
-		this.moduleResolver = moduleResolver;
+		this.metadataIndex = metadataIndex;
 	}
 
 	@Override
@@ -72,11 +65,9 @@ class AddModuleOptionsExpansionStrategy implements ExpansionStrategy {
 		}
 		Set<String> alreadyPresentOptions = new HashSet<>(lastModule.getParameters().keySet());
 
-		Resource jarFile = moduleResolver.resolve(CompletionUtils.fromModuleCoordinates(lastArtifactRegistration.getCoordinates()));
-
 		CompletionProposal.Factory proposals = expanding(text);
 
-		for (ConfigurationMetadataProperty property : moduleConfigurationMetadataResolver.listProperties(jarFile)) {
+		for (ConfigurationMetadataProperty property : metadataIndex.listProperties(lastArtifactRegistration.getCoordinates())) {
 			if (!alreadyPresentOptions.contains(property.getId())) {
 				collector.add(proposals.withSeparateTokens("--" + property.getId() + "=", property.getShortDescription()));
 			}
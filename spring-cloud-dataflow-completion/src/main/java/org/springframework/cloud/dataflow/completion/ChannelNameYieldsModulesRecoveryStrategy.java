@@ -20,7 +20,7 @@ import static org.springframework.cloud.dataflow.core.ArtifactType.*;
 
 import java.util.List;
 
-import org.springframework.cloud.dataflow.core.dsl.CheckPointedParseException;
+import org.springframework.cloud.dataflow.core.dsl.ParseFailure;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
 
@@ -30,27 +30,26 @@ import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
  * @author Eric Bottard
  */
 class ChannelNameYieldsModulesRecoveryStrategy extends
-		StacktraceFingerprintingRecoveryStrategy<CheckPointedParseException> {
+		ParseFailureFingerprintingRecoveryStrategy {
 
 	private final ArtifactRegistry artifactRegistry;
 
 	public ChannelNameYieldsModulesRecoveryStrategy(ArtifactRegistry artifactRegistry) {
-		super(CheckPointedParseException.class, "queue:foo >", "queue:foo > ");
+		super("queue:foo >", "queue:foo > ");
 		this.artifactRegistry = artifactRegistry;
 	}
 
 	@Override
-	public boolean shouldTrigger(String dslStart, Exception exception) {
-		if( !super.shouldTrigger(dslStart, exception)) {
+	public boolean shouldTrigger(String dslStart, ParseFailure failure) {
+		if( !super.shouldTrigger(dslStart, failure)) {
 			return false;
 		}
-		// Cast is safe from call to super.
 		// Backtracking would return even before the named channel
-		return ((CheckPointedParseException)exception).getExpressionStringUntilCheckpoint().trim().isEmpty();
+		return failure.getExpressionStringUntilCheckpoint().trim().isEmpty();
 	}
 
 	@Override
-	public void addProposals(String dsl, CheckPointedParseException exception,
+	public void addProposals(String dsl, ParseFailure failure,
 			int detailLevel, List<CompletionProposal> proposals) {
 		CompletionProposal.Factory completionFactory = CompletionProposal.expanding(dsl);
 		for (ArtifactRegistration moduleRegistration : artifactRegistry.findAll()) {
@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.dataflow.completion;
 
+import java.io.File;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
@@ -25,6 +26,11 @@ import org.springframework.cloud.stream.module.resolver.ModuleResolverConfigurat
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.StringUtils;
 
 /**
  * Include this Configuration class to expose a fully configured {@link StreamCompletionProvider}.
@@ -44,15 +50,96 @@ public class CompletionConfiguration {
 	@Autowired
 	private ModuleResolver moduleResolver;
 
+	@Autowired
+	private Environment environment;
+
 
 	@Bean
 	public StreamCompletionProvider streamCompletionProvider() {
-		return new StreamCompletionProvider();
+		StreamCompletionProvider provider = new StreamCompletionProvider();
+		provider.setExecutor(completionTaskExecutor());
+		provider.setTimeout(environment.getProperty("spring.cloud.dataflow.completion.timeout",
+				Long.class, StreamCompletionProvider.DEFAULT_TIMEOUT));
+		return provider;
+	}
+
+	@Bean
+	public CompletionStatistics completionStatistics() {
+		CompletionStatistics statistics = new CompletionStatistics();
+		statistics.setSlowThreshold(environment.getProperty("spring.cloud.dataflow.completion.slowThreshold",
+				Long.class, CompletionStatistics.DEFAULT_SLOW_THRESHOLD));
+		return statistics;
+	}
+
+	@Bean
+	public TaskExecutor completionTaskExecutor() {
+		// strategies are run on the requesting thread once the queue is full
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		int poolSize = environment.getProperty("spring.cloud.dataflow.completion.executor.poolSize", Integer.class, 8);
+		taskExecutor.setCorePoolSize(poolSize);
+		taskExecutor.setMaxPoolSize(poolSize);
+		taskExecutor.setQueueCapacity(
+				environment.getProperty("spring.cloud.dataflow.completion.executor.queueCapacity", Integer.class, 64));
+		taskExecutor.setThreadNamePrefix("completion-");
+		return taskExecutor;
+	}
+
+	@Bean
+	public CompletionProposalCache completionProposalCache() {
+		return new CompletionProposalCache(artifactRegistry,
+				environment.getProperty("spring.cloud.dataflow.completion.cache.maxSize",
+						Integer.class, CompletionProposalCache.DEFAULT_MAX_SIZE),
+				environment.getProperty("spring.cloud.dataflow.completion.cache.timeToLive",
+						Long.class, CompletionProposalCache.DEFAULT_TIME_TO_LIVE));
+	}
+
+	@Bean
+	public ModuleConfigurationMetadataIndex moduleConfigurationMetadataIndex() {
+		// The index is only kept in memory unless a directory is configured
+		String directory = environment.getProperty("spring.cloud.dataflow.completion.metadataDirectory");
+		ModuleConfigurationMetadataIndex index = new ModuleConfigurationMetadataIndex(moduleResolver,
+				moduleConfigurationMetadataResolver, StringUtils.hasText(directory) ? new File(directory) : null);
+		if (environment.getProperty("spring.cloud.dataflow.completion.prefetch.enabled", Boolean.class, true)) {
+			index.setExecutor(moduleMetadataTaskExecutor());
+		}
+		return index;
+	}
+
+	@Bean
+	public TaskExecutor moduleMetadataTaskExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		int poolSize = environment.getProperty("spring.cloud.dataflow.completion.prefetch.poolSize", Integer.class, 4);
+		taskExecutor.setCorePoolSize(poolSize);
+		taskExecutor.setMaxPoolSize(poolSize);
+		taskExecutor.setQueueCapacity(
+				environment.getProperty("spring.cloud.dataflow.completion.prefetch.queueCapacity", Integer.class, 256));
+		taskExecutor.setThreadNamePrefix("module-metadata-");
+		return taskExecutor;
+	}
+
+	@Bean
+	public ModuleClassLoaderPool moduleClassLoaderPool() {
+		ModuleClassLoaderPool pool = new ModuleClassLoaderPool(
+				environment.getProperty("spring.cloud.dataflow.completion.classLoaderPool.maxSize",
+						Integer.class, ModuleClassLoaderPool.DEFAULT_MAX_SIZE),
+				environment.getProperty("spring.cloud.dataflow.completion.classLoaderPool.idleTimeout",
+						Long.class, ModuleClassLoaderPool.DEFAULT_IDLE_TIMEOUT));
+		// idle class loaders hold open jar files, so do not wait for the next acquisition to close them
+		pool.setEvictionScheduler(moduleClassLoaderEvictionScheduler());
+		return pool;
+	}
+
+	@Bean
+	public ThreadPoolTaskScheduler moduleClassLoaderEvictionScheduler() {
+		ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.setThreadNamePrefix("module-classloader-eviction-");
+		taskScheduler.setDaemon(true);
+		return taskScheduler;
 	}
 
 	@Bean
 	public ExpansionStrategy addModuleOptionsExpansionStrategy() {
-		return new AddModuleOptionsExpansionStrategy(artifactRegistry, moduleConfigurationMetadataResolver, moduleResolver);
+		return new AddModuleOptionsExpansionStrategy(artifactRegistry, moduleConfigurationMetadataIndex());
 	}
 
 	@Bean
@@ -68,13 +155,13 @@ public class CompletionConfiguration {
 	@Bean
 	public RecoveryStrategy configurationPropertyNameAfterDashDashRecoveryStrategy() {
 		return new ConfigurationPropertyNameAfterDashDashRecoveryStrategy(artifactRegistry,
-				moduleResolver, moduleConfigurationMetadataResolver);
+				moduleConfigurationMetadataIndex());
 	}
 
 	@Bean
 	public RecoveryStrategy unfinishedConfigurationPropertyNameRecoveryStrategy() {
 		return new UnfinishedConfigurationPropertyNameRecoveryStrategy(artifactRegistry,
-				moduleResolver, moduleConfigurationMetadataResolver);
+				moduleConfigurationMetadataIndex());
 	}
 
 	@Bean
@@ -100,13 +187,13 @@ public class CompletionConfiguration {
 	@Bean
 	public RecoveryStrategy configurationPropertyValueHintRecoveryStrategy() {
 		return new ConfigurationPropertyValueHintRecoveryStrategy(artifactRegistry,
-				moduleResolver, moduleConfigurationMetadataResolver);
+				moduleConfigurationMetadataIndex(), moduleClassLoaderPool());
 	}
 
 	@Bean
 	public ExpansionStrategy configurationPropertyValueHintExpansionStrategy() {
 		return new ConfigurationPropertyValueHintExpansionStrategy(artifactRegistry,
-				moduleResolver, moduleConfigurationMetadataResolver);
+				moduleConfigurationMetadataIndex(), moduleClassLoaderPool());
 	}
 
 	@Bean
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
+import org.springframework.util.Assert;
+
+/**
+ * A size bounded, least recently used cache of completion proposals, keyed on the
+ * text typed so far, the requested level of detail and the
+ * {@link ArtifactRegistry#getChangeCount() change count} of the artifact registry.
+ * Registering or unregistering a module thus makes all cached proposals stale; they
+ * are discarded as soon as the change is noticed.
+ * <p>
+ * Proposals may also depend on state the registry knows nothing about (such as the
+ * names of existing streams), hence entries expire after a time to live.
+ * <p>
+ * Cached lists are shared by every caller asking for the same key and must not be
+ * modified. Hit, miss and eviction counts are kept for monitoring purposes.
+ *
+ * @author Patrick Peralta
+ */
+public class CompletionProposalCache {
+
+	/**
+	 * Default maximum number of cached lists of proposals.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 256;
+
+	/**
+	 * Default time, in milliseconds, during which cached proposals are used.
+	 */
+	public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.SECONDS.toMillis(30);
+
+	private final ArtifactRegistry artifactRegistry;
+
+	/**
+	 * Maximum number of cached lists of proposals, {@code 0} if caching is disabled.
+	 */
+	private final int maxSize;
+
+	/**
+	 * Time, in nanoseconds, during which cached proposals are used.
+	 */
+	private final long timeToLiveNanos;
+
+	/**
+	 * Cached proposals, in access order. Guarded by itself.
+	 */
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+			if (size() > maxSize) {
+				evictions.incrementAndGet();
+				return true;
+			}
+			return false;
+		}
+	};
+
+	/**
+	 * Registry change count of the cached entries. Guarded by {@link #entries}.
+	 */
+	private long changeCount;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Construct a {@code CompletionProposalCache} with the default size and time to live.
+	 *
+	 * @param artifactRegistry the registry whose changes invalidate cached proposals
+	 */
+	public CompletionProposalCache(ArtifactRegistry artifactRegistry) {
+		this(artifactRegistry, DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE);
+	}
+
+	/**
+	 * Construct a {@code CompletionProposalCache}.
+	 *
+	 * @param artifactRegistry the registry whose changes invalidate cached proposals
+	 * @param maxSize maximum number of cached lists of proposals, {@code 0} disables caching
+	 * @param timeToLive time, in milliseconds, during which cached proposals are used
+	 */
+	public CompletionProposalCache(ArtifactRegistry artifactRegistry, int maxSize, long timeToLive) {
+		Assert.notNull(artifactRegistry, "artifactRegistry must not be null");
+		Assert.isTrue(maxSize >= 0, "maxSize must not be negative");
+		Assert.isTrue(timeToLive >= 0, "timeToLive must not be negative");
+		this.artifactRegistry = artifactRegistry;
+		this.maxSize = maxSize;
+		this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+	}
+
+	/**
+	 * Return the key for the given request, taking the current state of the registry
+	 * into account. The key must be obtained before computing the proposals to cache,
+	 * so that proposals computed while the registry changes are not used afterwards.
+	 *
+	 * @param dslStart the text typed so far
+	 * @param detailLevel the requested level of detail
+	 * @return the cache key
+	 */
+	public Key key(String dslStart, int detailLevel) {
+		return new Key(dslStart, detailLevel, artifactRegistry.getChangeCount());
+	}
+
+	/**
+	 * Return the proposals cached for the given key, or {@code null} if there are
+	 * none or they expired.
+	 *
+	 * @param key the cache key
+	 * @return the cached proposals, or {@code null}
+	 */
+	public List<CompletionProposal> get(Key key) {
+		Entry entry;
+		synchronized (entries) {
+			discardStale(key);
+			entry = entries.get(key);
+			if (entry != null && System.nanoTime() - entry.created >= timeToLiveNanos) {
+				entries.remove(key);
+				entry = null;
+			}
+		}
+		if (entry != null) {
+			hits.incrementAndGet();
+			return entry.proposals;
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Cache the proposals computed for the given key, evicting the least recently used
+	 * entry if the cache is full.
+	 *
+	 * @param key the cache key, as obtained before computing the proposals
+	 * @param proposals the proposals, which must not be modified afterwards
+	 */
+	public void put(Key key, List<CompletionProposal> proposals) {
+		Assert.notNull(proposals, "proposals must not be null");
+		if (maxSize == 0) {
+			return;
+		}
+		synchronized (entries) {
+			discardStale(key);
+			if (key.changeCount == changeCount) {
+				entries.put(key, new Entry(proposals));
+			}
+		}
+	}
+
+	/**
+	 * Remove all entries. Statistics are preserved.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * Remove all entries if the registry changed since they were cached. Must be called
+	 * while holding the lock.
+	 */
+	private void discardStale(Key key) {
+		if (key.changeCount > changeCount) {
+			changeCount = key.changeCount;
+			entries.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * @see #maxSize
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+
+	/**
+	 * Key of cached proposals.
+	 */
+	public static final class Key {
+
+		private final String dslStart;
+
+		private final int detailLevel;
+
+		private final long changeCount;
+
+		private Key(String dslStart, int detailLevel, long changeCount) {
+			this.dslStart = dslStart;
+			this.detailLevel = detailLevel;
+			this.changeCount = changeCount;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return detailLevel == other.detailLevel && changeCount == other.changeCount
+					&& dslStart.equals(other.dslStart);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = dslStart.hashCode();
+			result = 31 * result + detailLevel;
+			return 31 * result + (int) (changeCount ^ (changeCount >>> 32));
+		}
+	}
+
+	/**
+	 * Cached proposals, with their creation time from {@link System#nanoTime()}.
+	 */
+	private static final class Entry {
+
+		private final List<CompletionProposal> proposals;
+
+		private final long created = System.nanoTime();
+
+		private Entry(List<CompletionProposal> proposals) {
+			this.proposals = proposals;
+		}
+	}
+
+}
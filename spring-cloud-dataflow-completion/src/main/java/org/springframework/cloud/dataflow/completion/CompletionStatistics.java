@@ -0,0 +1,246 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Statistics about completion requests and the strategies and value hint providers
+ * that serve them, keyed by the short class name of the strategies and providers.
+ * <p>
+ * Completions slower than a threshold are logged along with the text they were
+ * requested for, and with the time taken by each strategy.
+ *
+ * @author Patrick Peralta
+ */
+public class CompletionStatistics {
+
+	private static final Log logger = LogFactory.getLog(CompletionStatistics.class);
+
+	/**
+	 * Default duration, in milliseconds, beyond which completions are logged.
+	 */
+	public static final long DEFAULT_SLOW_THRESHOLD = 500;
+
+	/**
+	 * Duration, in nanoseconds, beyond which completions are logged.
+	 */
+	private volatile long slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_THRESHOLD);
+
+	private final LatencyHistogram completions = new LatencyHistogram();
+
+	private final AtomicLong slowCompletions = new AtomicLong();
+
+	private final ConcurrentMap<String, Statistics> strategies = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, Statistics> valueHintProviders = new ConcurrentHashMap<>();
+
+	/**
+	 * Set the duration beyond which completions are logged.
+	 *
+	 * @param slowThreshold the duration, in milliseconds
+	 */
+	public void setSlowThreshold(long slowThreshold) {
+		Assert.isTrue(slowThreshold >= 0, "slowThreshold must not be negative");
+		this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThreshold);
+	}
+
+	/**
+	 * Record whether a {@link RecoveryStrategy} was triggered.
+	 *
+	 * @param strategy the strategy
+	 * @param triggered whether {@link RecoveryStrategy#shouldTrigger} returned {@code true}
+	 */
+	public void recordTrigger(Object strategy, boolean triggered) {
+		Statistics statistics = statistics(strategies, strategy);
+		(triggered ? statistics.triggered : statistics.skipped).incrementAndGet();
+	}
+
+	/**
+	 * Record the invocation of a strategy to add proposals.
+	 *
+	 * @param strategy the strategy
+	 * @param nanos the duration of the invocation, in nanoseconds
+	 * @param proposals the number of proposals produced
+	 */
+	public void recordProposals(Object strategy, long nanos, int proposals) {
+		statistics(strategies, strategy).record(nanos, proposals);
+	}
+
+	/**
+	 * Record that a strategy did not produce its proposals in time.
+	 *
+	 * @param strategy the strategy
+	 */
+	public void recordTimeout(Object strategy) {
+		statistics(strategies, strategy).timeouts.incrementAndGet();
+	}
+
+	/**
+	 * Record the invocation of a value hint provider.
+	 *
+	 * @param provider the value hint provider
+	 * @param nanos the duration of the invocation, in nanoseconds
+	 * @param hints the number of value hints produced
+	 */
+	public void recordValueHints(ValueHintProvider provider, long nanos, int hints) {
+		statistics(valueHintProviders, provider).record(nanos, hints);
+	}
+
+	/**
+	 * Record the computation of the proposals for a completion request, logging it
+	 * if it was slow.
+	 *
+	 * @param dslStart the text the completion was requested for
+	 * @param detailLevel the requested level of detail
+	 * @param nanos the duration of the computation, in nanoseconds
+	 * @param strategyNanos the duration of the invocation of each strategy that was
+	 * triggered, in nanoseconds, keyed by strategy
+	 */
+	public void recordCompletion(String dslStart, int detailLevel, long nanos, Map<Object, Long> strategyNanos) {
+		completions.record(nanos);
+		if (nanos >= slowThresholdNanos) {
+			slowCompletions.incrementAndGet();
+			if (logger.isWarnEnabled()) {
+				StringBuilder builder = new StringBuilder();
+				for (Map.Entry<Object, Long> entry : strategyNanos.entrySet()) {
+					builder.append(builder.length() == 0 ? "" : ", ").append(name(entry.getKey()))
+							.append('=').append(TimeUnit.NANOSECONDS.toMillis(entry.getValue())).append(" ms");
+				}
+				logger.warn(String.format("Slow completion of '%s' at detail level %d took %d ms [%s]",
+						dslStart, detailLevel, TimeUnit.NANOSECONDS.toMillis(nanos), builder));
+			}
+		}
+	}
+
+	/**
+	 * @return the latencies of the computation of proposals
+	 */
+	public LatencyHistogram getCompletions() {
+		return completions;
+	}
+
+	/**
+	 * @return the number of completions slower than the threshold
+	 */
+	public long getSlowCompletionCount() {
+		return slowCompletions.get();
+	}
+
+	/**
+	 * @return the statistics of each strategy
+	 */
+	public Map<String, Statistics> getStrategies() {
+		return Collections.unmodifiableMap(strategies);
+	}
+
+	/**
+	 * @return the statistics of each value hint provider
+	 */
+	public Map<String, Statistics> getValueHintProviders() {
+		return Collections.unmodifiableMap(valueHintProviders);
+	}
+
+	private static Statistics statistics(ConcurrentMap<String, Statistics> map, Object target) {
+		String name = name(target);
+		Statistics statistics = map.get(name);
+		if (statistics == null) {
+			Statistics created = new Statistics();
+			statistics = map.putIfAbsent(name, created);
+			if (statistics == null) {
+				statistics = created;
+			}
+		}
+		return statistics;
+	}
+
+	private static String name(Object target) {
+		return ClassUtils.getShortName(target.getClass());
+	}
+
+
+	/**
+	 * Statistics of a strategy or value hint provider.
+	 */
+	public static final class Statistics {
+
+		private final LatencyHistogram latency = new LatencyHistogram();
+
+		private final AtomicLong triggered = new AtomicLong();
+
+		private final AtomicLong skipped = new AtomicLong();
+
+		private final AtomicLong proposals = new AtomicLong();
+
+		private final AtomicLong timeouts = new AtomicLong();
+
+		private Statistics() {
+		}
+
+		private void record(long nanos, int proposals) {
+			latency.record(nanos);
+			this.proposals.addAndGet(proposals);
+		}
+
+		/**
+		 * @return the latencies of the invocations
+		 */
+		public LatencyHistogram getLatency() {
+			return latency;
+		}
+
+		/**
+		 * @return the number of times a recovery strategy was triggered
+		 */
+		public long getTriggeredCount() {
+			return triggered.get();
+		}
+
+		/**
+		 * @return the number of times a recovery strategy was not triggered
+		 */
+		public long getSkippedCount() {
+			return skipped.get();
+		}
+
+		/**
+		 * @return the number of proposals, or value hints, produced
+		 */
+		public long getProposalCount() {
+			return proposals.get();
+		}
+
+		/**
+		 * @return the number of times a strategy did not produce its proposals in time
+		 */
+		public long getTimeoutCount() {
+			return timeouts.get();
+		}
+	}
+
+}
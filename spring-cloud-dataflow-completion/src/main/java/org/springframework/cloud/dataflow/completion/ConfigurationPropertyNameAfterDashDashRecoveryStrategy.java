@@ -26,12 +26,9 @@ import org.springframework.boot.configurationmetadata.ConfigurationMetadataPrope
 import org.springframework.cloud.dataflow.core.ModuleDefinition;
 import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
-import org.springframework.cloud.dataflow.core.dsl.CheckPointedParseException;
+import org.springframework.cloud.dataflow.core.dsl.ParseFailure;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
-import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
-import org.springframework.cloud.stream.module.resolver.ModuleResolver;
-import org.springframework.core.io.Resource;
 
 /**
  * Provides completion proposals when the user has typed the two dashes that
@@ -40,27 +37,24 @@ import org.springframework.core.io.Resource;
  * @author Eric Bottard
  */
 class ConfigurationPropertyNameAfterDashDashRecoveryStrategy
-		extends StacktraceFingerprintingRecoveryStrategy<CheckPointedParseException> {
+		extends ParseFailureFingerprintingRecoveryStrategy {
 
 	private final ArtifactRegistry artifactRegistry;
 
-	private final ModuleResolver moduleResolver;
-
-	private final ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver;
+	private final ModuleConfigurationMetadataIndex metadataIndex;
 
 	ConfigurationPropertyNameAfterDashDashRecoveryStrategy(ArtifactRegistry artifactRegistry,
-			ModuleResolver moduleResolver, ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver) {
-		super(CheckPointedParseException.class, "file --", "file | foo --");
+			ModuleConfigurationMetadataIndex metadataIndex) {
+		super("file --", "file | foo --");
 		this.artifactRegistry = artifactRegistry;
-		this.moduleResolver = moduleResolver;
-		this.moduleConfigurationMetadataResolver = moduleConfigurationMetadataResolver;
+		this.metadataIndex = metadataIndex;
 	}
 
 	@Override
-	public void addProposals(String dsl, CheckPointedParseException exception,
+	public void addProposals(String dsl, ParseFailure failure,
 			int detailLevel, List<CompletionProposal> collector) {
 
-		String safe = exception.getExpressionStringUntilCheckpoint();
+		String safe = failure.getExpressionStringUntilCheckpoint();
 		StreamDefinition streamDefinition = new StreamDefinition("__dummy", safe);
 		ModuleDefinition lastModule = streamDefinition.getDeploymentOrderIterator().next();
 
@@ -78,12 +72,9 @@ class ConfigurationPropertyNameAfterDashDashRecoveryStrategy
 		}
 		Set<String> alreadyPresentOptions = new HashSet<>(lastModule.getParameters().keySet());
 
-		Resource jarFile = moduleResolver.resolve(CompletionUtils
-				.fromModuleCoordinates(lastArtifactRegistration.getCoordinates()));
-
 		CompletionProposal.Factory proposals = expanding(dsl);
 
-		for (ConfigurationMetadataProperty property : moduleConfigurationMetadataResolver.listProperties(jarFile)) {
+		for (ConfigurationMetadataProperty property : metadataIndex.listProperties(lastArtifactRegistration.getCoordinates())) {
 			if (!alreadyPresentOptions.contains(property.getId())) {
 				collector.add(proposals.withSuffix(property.getId() + "=", property.getShortDescription()));
 			}
@@ -18,9 +18,6 @@ package org.springframework.cloud.dataflow.completion;
 
 import static org.springframework.cloud.dataflow.completion.CompletionProposal.*;
 
-import java.io.Closeable;
-import java.io.File;
-import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -28,20 +25,16 @@ import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
 import org.springframework.boot.configurationmetadata.ValueHint;
-import org.springframework.boot.loader.archive.Archive;
-import org.springframework.boot.loader.archive.ExplodedArchive;
-import org.springframework.boot.loader.archive.JarFileArchive;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
 import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.core.ModuleDefinition;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
-import org.springframework.cloud.dataflow.core.dsl.CheckPointedParseException;
 import org.springframework.cloud.dataflow.core.dsl.Token;
+import org.springframework.cloud.dataflow.core.dsl.TokenBuffer;
 import org.springframework.cloud.dataflow.core.dsl.TokenKind;
-import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
-import org.springframework.cloud.stream.module.resolver.ModuleResolver;
-import org.springframework.core.io.Resource;
+import org.springframework.cloud.dataflow.core.dsl.Tokens;
 
 /**
  * Attempts to fill in possible values after a {@literal --foo=prefix}
@@ -53,19 +46,21 @@ public class ConfigurationPropertyValueHintExpansionStrategy implements Expansio
 
 	private final ArtifactRegistry artifactRegistry;
 
-	private final ModuleResolver moduleResolver;
+	private final ModuleConfigurationMetadataIndex metadataIndex;
 
-	private final ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver;
+	private final ModuleClassLoaderPool classLoaderPool;
 
 	@Autowired
 	private ValueHintProvider[] valueHintProviders = new ValueHintProvider[0];
 
+	@Autowired(required = false)
+	private CompletionStatistics statistics;
+
 	ConfigurationPropertyValueHintExpansionStrategy(ArtifactRegistry artifactRegistry,
-			ModuleResolver moduleResolver,
-			ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver) {
+			ModuleConfigurationMetadataIndex metadataIndex, ModuleClassLoaderPool classLoaderPool) {
 		this.artifactRegistry = artifactRegistry;
-		this.moduleResolver = moduleResolver;
-		this.moduleConfigurationMetadataResolver = moduleConfigurationMetadataResolver;
+		this.metadataIndex = metadataIndex;
+		this.classLoaderPool = classLoaderPool;
 	}
 
 	@Override
@@ -96,83 +91,77 @@ public class ConfigurationPropertyValueHintExpansionStrategy implements Expansio
 			// Not a valid module name, do nothing
 			return false;
 		}
-		Resource moduleResource = moduleResolver.resolve(CompletionUtils
-				.fromModuleCoordinates(lastArtifactRegistration.getCoordinates()));
+		ConfigurationMetadataProperty property = metadataIndex.findProperty(
+				lastArtifactRegistration.getCoordinates(), propertyName);
+		if (property == null) {
+			return false;
+		}
 
 		CompletionProposal.Factory proposals = expanding(text);
 
-		for (ConfigurationMetadataProperty property : moduleConfigurationMetadataResolver
-				.listProperties(moduleResource)) {
-			if (property.getId().equals(propertyName)) {
-				ClassLoader classLoader = null;
-				try {
-
-					File file = moduleResource.getFile();
-					Archive jarFileArchive = file.isDirectory() ? new ExplodedArchive(file) : new JarFileArchive(file);
-					classLoader = new ClassLoaderExposingJarLauncher(jarFileArchive).createClassLoader();
-
-					for (ValueHintProvider valueHintProvider : valueHintProviders) {
-						List<ValueHint> valueHints = valueHintProvider.generateValueHints(property, classLoader);
-						if (!valueHints.isEmpty() && valueHintProvider.isExclusive(property)) {
-							collector.clear();
-						}
-						for (ValueHint valueHint : valueHints) {
-							String candidate = String.valueOf(valueHint.getValue());
-							if (!candidate.equals(alreadyTyped) && candidate.startsWith(alreadyTyped)) {
-								collector.add(proposals.withSuffix(candidate.substring(alreadyTyped.length()),
-										valueHint.getShortDescription()));
-							}
-						}
-						if (!valueHints.isEmpty() && valueHintProvider.isExclusive(property)) {
-							return true;
-						}
-					}
+		ArtifactCoordinates coordinates = lastArtifactRegistration.getCoordinates();
+		try (ModuleClassLoaderPool.Lease lease = classLoaderPool.acquire(coordinates, metadataIndex.resolve(coordinates))) {
+			ClassLoader classLoader = lease.getClassLoader();
+			for (ValueHintProvider valueHintProvider : valueHintProviders) {
+				List<ValueHint> valueHints = generateValueHints(valueHintProvider, property, classLoader);
+				if (!valueHints.isEmpty() && valueHintProvider.isExclusive(property)) {
+					collector.clear();
 				}
-				catch (Exception e) {
-					throw new RuntimeException(e);
-				}
-				finally {
-					if (classLoader instanceof Closeable) {
-						try {
-							((Closeable) classLoader).close();
-						}
-						catch (IOException e) {
-							// ignore
-						}
+				for (ValueHint valueHint : valueHints) {
+					String candidate = String.valueOf(valueHint.getValue());
+					if (!candidate.equals(alreadyTyped) && candidate.startsWith(alreadyTyped)) {
+						collector.add(proposals.withSuffix(candidate.substring(alreadyTyped.length()),
+								valueHint.getShortDescription()));
 					}
 				}
+				if (!valueHints.isEmpty() && valueHintProvider.isExclusive(property)) {
+					return true;
+				}
 			}
 		}
+		catch (Exception e) {
+			throw new RuntimeException(e);
+		}
 
 		return false;
 	}
 
-	// This may be the safest way to backtrack to the property name
-	// to avoid dealing with escaped space characters, etc.
+	// Tokenizing (rather than parsing) is enough to backtrack to the property name
+	// and avoids dealing with escaped space characters, etc.
 	private String recoverPropertyName(String text) {
-		try {
-			new StreamDefinition("__dummy", text + " --");
+		List<Token> tokens = new Tokens(text, TokenBuffer.forCurrentThread()).getTokenStream();
+		int end = tokens.size() - 1;
+		while (!tokens.get(end).isKind(TokenKind.EQUALS)) {
+			end--;
 		}
-		catch (CheckPointedParseException exception) {
-			List<Token> tokens = exception.getTokens();
-			int end = tokens.size() - 1 - 2; // -2 for skipping dangling -- and space preceding it
-			int tokenPointer = end;
-			while (!tokens.get(tokenPointer - 1).isKind(TokenKind.DOUBLE_MINUS)) {
-				tokenPointer--;
+		int tokenPointer = end;
+		while (!tokens.get(tokenPointer - 1).isKind(TokenKind.DOUBLE_MINUS)) {
+			tokenPointer--;
+		}
+		StringBuilder builder;
+		for (builder = new StringBuilder(); tokenPointer < end; tokenPointer++) {
+			Token t = tokens.get(tokenPointer);
+			if (t.isIdentifier()) {
+				builder.append(t.stringValue());
 			}
-			StringBuilder builder;
-			for (builder = new StringBuilder(); tokenPointer < end; tokenPointer++) {
-				Token t = tokens.get(tokenPointer);
-				if (t.isIdentifier()) {
-					builder.append(t.stringValue());
-				}
-				else {
-					builder.append(t.getKind().getTokenChars());
-				}
+			else {
+				builder.append(t.getKind().getTokenChars());
 			}
-			return builder.toString();
 		}
-		throw new AssertionError("Can't be reached");
+		return builder.toString();
+	}
+
+	/**
+	 * Generate the value hints of the given provider, recording how long it took.
+	 */
+	private List<ValueHint> generateValueHints(ValueHintProvider valueHintProvider,
+			ConfigurationMetadataProperty property, ClassLoader classLoader) {
+		long start = System.nanoTime();
+		List<ValueHint> valueHints = valueHintProvider.generateValueHints(property, classLoader);
+		if (statistics != null) {
+			statistics.recordValueHints(valueHintProvider, System.nanoTime() - start, valueHints.size());
+		}
+		return valueHints;
 	}
 
 }
@@ -18,102 +18,84 @@ package org.springframework.cloud.dataflow.completion;
 
 import static org.springframework.cloud.dataflow.completion.CompletionProposal.*;
 
-import java.io.Closeable;
-import java.io.File;
-import java.io.IOException;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
 import org.springframework.boot.configurationmetadata.ValueHint;
-import org.springframework.boot.loader.archive.Archive;
-import org.springframework.boot.loader.archive.ExplodedArchive;
-import org.springframework.boot.loader.archive.JarFileArchive;
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
 import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.core.ModuleDefinition;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
-import org.springframework.cloud.dataflow.core.dsl.CheckPointedParseException;
+import org.springframework.cloud.dataflow.core.dsl.ParseFailure;
 import org.springframework.cloud.dataflow.core.dsl.Token;
 import org.springframework.cloud.dataflow.core.dsl.TokenKind;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
-import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
-import org.springframework.cloud.stream.module.resolver.ModuleResolver;
-import org.springframework.core.io.Resource;
 
 /**
  * Attempts to fill in possible values after a {@literal --foo=} dangling construct in the DSL.
  *
  * @author Eric Bottard
  */
-public class ConfigurationPropertyValueHintRecoveryStrategy extends StacktraceFingerprintingRecoveryStrategy<CheckPointedParseException> {
+public class ConfigurationPropertyValueHintRecoveryStrategy extends ParseFailureFingerprintingRecoveryStrategy {
 
 	private final ArtifactRegistry artifactRegistry;
 
-	private final ModuleResolver moduleResolver;
+	private final ModuleConfigurationMetadataIndex metadataIndex;
 
-	private final ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver;
+	private final ModuleClassLoaderPool classLoaderPool;
 
 	@Autowired
 	private ValueHintProvider[] valueHintProviders = new ValueHintProvider[0];
 
-	ConfigurationPropertyValueHintRecoveryStrategy(ArtifactRegistry artifactRegistry, ModuleResolver moduleResolver, ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver) {
-		super(CheckPointedParseException.class, "foo --bar=", "foo | wizz --bar=");
+	@Autowired(required = false)
+	private CompletionStatistics statistics;
+
+	ConfigurationPropertyValueHintRecoveryStrategy(ArtifactRegistry artifactRegistry, ModuleConfigurationMetadataIndex metadataIndex,
+			ModuleClassLoaderPool classLoaderPool) {
+		super("foo --bar=", "foo | wizz --bar=");
 		this.artifactRegistry = artifactRegistry;
-		this.moduleResolver = moduleResolver;
-		this.moduleConfigurationMetadataResolver = moduleConfigurationMetadataResolver;
+		this.metadataIndex = metadataIndex;
+		this.classLoaderPool = classLoaderPool;
 	}
 
 	@Override
-	public void addProposals(String dsl, CheckPointedParseException exception, int detailLevel, List<CompletionProposal> collector) {
+	public void addProposals(String dsl, ParseFailure failure, int detailLevel, List<CompletionProposal> collector) {
 
-		String propertyName = recoverPropertyName(exception);
+		String propertyName = recoverPropertyName(failure);
 
-		ArtifactRegistration lastArtifactRegistration = lookupLastModule(exception);
+		ArtifactRegistration lastArtifactRegistration = lookupLastModule(failure);
 
 		if (lastArtifactRegistration == null) {
 			// Not a valid module name, do nothing
 			return;
 		}
-		Resource moduleResource = moduleResolver.resolve(CompletionUtils.fromModuleCoordinates(lastArtifactRegistration.getCoordinates()));
+		ConfigurationMetadataProperty property = metadataIndex.findProperty(
+				lastArtifactRegistration.getCoordinates(), propertyName);
+		if (property == null) {
+			return;
+		}
 
 		CompletionProposal.Factory proposals = expanding(dsl);
 
-		for (ConfigurationMetadataProperty property : moduleConfigurationMetadataResolver.listProperties(moduleResource)) {
-			if (property.getId().equals(propertyName)) {
-				ClassLoader classLoader = null;
-				try {
-
-					File moduleFile = moduleResource.getFile();
-					Archive jarFileArchive = moduleFile.isDirectory() ? new ExplodedArchive(moduleFile) : new JarFileArchive(moduleFile);
-					classLoader = new ClassLoaderExposingJarLauncher(jarFileArchive).createClassLoader();
-
-					for (ValueHintProvider valueHintProvider : valueHintProviders) {
-						for (ValueHint valueHint : valueHintProvider.generateValueHints(property, classLoader)) {
-							collector.add(proposals.withSuffix(String.valueOf(valueHint.getValue()), valueHint.getShortDescription()));
-						}
-					}
-				}
-				catch (Exception e) {
-					throw new RuntimeException(e);
-				} finally {
-					if (classLoader instanceof Closeable) {
-						try {
-							((Closeable)classLoader).close();
-						}
-						catch (IOException e) {
-							// ignore
-						}
-					}
+		ArtifactCoordinates coordinates = lastArtifactRegistration.getCoordinates();
+		try (ModuleClassLoaderPool.Lease lease = classLoaderPool.acquire(coordinates, metadataIndex.resolve(coordinates))) {
+			ClassLoader classLoader = lease.getClassLoader();
+			for (ValueHintProvider valueHintProvider : valueHintProviders) {
+				for (ValueHint valueHint : generateValueHints(valueHintProvider, property, classLoader)) {
+					collector.add(proposals.withSuffix(String.valueOf(valueHint.getValue()), valueHint.getShortDescription()));
 				}
 			}
-
+		}
+		catch (Exception e) {
+			throw new RuntimeException(e);
 		}
 
 	}
 
-	private ArtifactRegistration lookupLastModule(CheckPointedParseException exception) {
-		String safe = exception.getExpressionStringUntilCheckpoint();
+	private ArtifactRegistration lookupLastModule(ParseFailure failure) {
+		String safe = failure.getExpressionStringUntilCheckpoint();
 		StreamDefinition streamDefinition = new StreamDefinition("__dummy", safe);
 		ModuleDefinition lastModule = streamDefinition.getDeploymentOrderIterator().next();
 
@@ -128,8 +110,8 @@ public class ConfigurationPropertyValueHintRecoveryStrategy extends StacktraceFi
 		return lastArtifactRegistration;
 	}
 
-	private String recoverPropertyName(CheckPointedParseException exception) {
-		List<Token> tokens = exception.getTokens();
+	private String recoverPropertyName(ParseFailure failure) {
+		List<Token> tokens = failure.getTokens();
 		int tokenPointer = tokens.size() - 1;
 		while (!tokens.get(tokenPointer - 1).isKind(TokenKind.DOUBLE_MINUS)) {
 			tokenPointer--;
@@ -147,4 +129,18 @@ public class ConfigurationPropertyValueHintRecoveryStrategy extends StacktraceFi
 		}
 		return builder.toString();
 	}
+
+	/**
+	 * Generate the value hints of the given provider, recording how long it took.
+	 */
+	private List<ValueHint> generateValueHints(ValueHintProvider valueHintProvider,
+			ConfigurationMetadataProperty property, ClassLoader classLoader) {
+		long start = System.nanoTime();
+		List<ValueHint> valueHints = valueHintProvider.generateValueHints(property, classLoader);
+		if (statistics != null) {
+			statistics.recordValueHints(valueHintProvider, System.nanoTime() - start, valueHints.size());
+		}
+		return valueHints;
+	}
+
 }
@@ -19,6 +19,7 @@ package org.springframework.cloud.dataflow.completion;
 import java.util.List;
 
 import org.springframework.cloud.dataflow.core.ArtifactType;
+import org.springframework.cloud.dataflow.core.dsl.ParseFailure;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
 
@@ -28,17 +29,17 @@ import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
  * @author Eric Bottard
  */
 class EmptyStartYieldsSourceModulesRecoveryStrategy extends
-		StacktraceFingerprintingRecoveryStrategy<IllegalArgumentException> {
+		ParseFailureFingerprintingRecoveryStrategy {
 
 	private final ArtifactRegistry artifactRegistry;
 
 	public EmptyStartYieldsSourceModulesRecoveryStrategy(ArtifactRegistry artifactRegistry) {
-		super(IllegalArgumentException.class, "");
+		super("");
 		this.artifactRegistry = artifactRegistry;
 	}
 
 	@Override
-	public void addProposals(String dsl, IllegalArgumentException exception,
+	public void addProposals(String dsl, ParseFailure failure,
 			int detailLevel, List<CompletionProposal> proposals) {
 		CompletionProposal.Factory completionFactory = CompletionProposal.expanding(dsl);
 		for (ArtifactRegistration moduleRegistration : artifactRegistry.findAll()) {
@@ -19,24 +19,30 @@ package org.springframework.cloud.dataflow.completion;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cloud.dataflow.core.dsl.ParseException;
+import org.springframework.cloud.dataflow.core.dsl.ParseFailure;
 
 /**
  * Provides completion when the user has typed in the first dash to a module configuration property.
  *
  * @author Eric Bottard
  */
-class ExpandOneDashToTwoDashesRecoveryStrategy extends StacktraceFingerprintingRecoveryStrategy<ParseException> {
+class ExpandOneDashToTwoDashesRecoveryStrategy extends ParseFailureFingerprintingRecoveryStrategy {
 
 	@Autowired
 	private StreamCompletionProvider completionProvider;
 
 	public ExpandOneDashToTwoDashesRecoveryStrategy() {
-		super(ParseException.class, "file -");
+		super("file -");
 	}
 
 	@Override
-	public void addProposals(String dsl, ParseException exception, int detailLevel, List<CompletionProposal> proposals) {
+	public boolean shouldTrigger(String dslStart, ParseFailure failure) {
+		// Only when the lone dash is the last character, or recursion would not add anything
+		return super.shouldTrigger(dslStart, failure) && failure.getPosition() == dslStart.length() - 1;
+	}
+
+	@Override
+	public void addProposals(String dsl, ParseFailure failure, int detailLevel, List<CompletionProposal> proposals) {
 		// Pretend there was an additional dash and invoke recursively
 		List<CompletionProposal> completions = completionProvider.complete(dsl + "-", detailLevel);
 		proposals.addAll(completions);
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.util.Assert;
+
+/**
+ * A histogram of latencies, counting durations in buckets of exponentially growing
+ * upper bounds, from 1 ms to 30 s. Percentiles are estimated as the upper bound of the
+ * bucket they fall into, hence the coarse but constant memory footprint.
+ *
+ * @author Patrick Peralta
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Upper bounds, in milliseconds, of the buckets; the last bucket holds longer durations.
+	 */
+	private static final long[] BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000};
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong totalNanos = new AtomicLong();
+
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/**
+	 * Record a duration.
+	 *
+	 * @param nanos the duration, in nanoseconds
+	 */
+	public void record(long nanos) {
+		long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+		int bucket = 0;
+		while (bucket < BOUNDS.length && millis >= BOUNDS[bucket]) {
+			bucket++;
+		}
+		buckets.incrementAndGet(bucket);
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+	/**
+	 * @return the number of recorded durations
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return the mean of the recorded durations, in milliseconds
+	 */
+	public double getMean() {
+		long count = this.count.get();
+		return (count == 0 ? 0 : (double) totalNanos.get() / count / TimeUnit.MILLISECONDS.toNanos(1));
+	}
+
+	/**
+	 * @return the longest recorded duration, in milliseconds
+	 */
+	public double getMax() {
+		return (double) maxNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	/**
+	 * Estimate a percentile of the recorded durations.
+	 *
+	 * @param percentile the percentile, between 0 and 1
+	 * @return the upper bound, in milliseconds, of the durations of the given percentile,
+	 * which never exceeds the longest recorded duration
+	 */
+	public double getPercentile(double percentile) {
+		Assert.isTrue(percentile >= 0 && percentile <= 1, "percentile must be between 0 and 1");
+		long count = this.count.get();
+		long rank = (long) Math.ceil(percentile * count);
+		long seen = 0;
+		for (int bucket = 0; bucket < BOUNDS.length; bucket++) {
+			seen += buckets.get(bucket);
+			if (seen >= rank && seen > 0) {
+				return Math.min(BOUNDS[bucket], getMax());
+			}
+		}
+		return getMax();
+	}
+
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.boot.loader.archive.Archive;
+import org.springframework.boot.loader.archive.ExplodedArchive;
+import org.springframework.boot.loader.archive.JarFileArchive;
+import org.springframework.boot.loader.jar.JarFile;
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
+
+/**
+ * Pool of module class loaders, keyed by {@link ArtifactCoordinates}, so that value
+ * hints for the same module do not open its archive and define its classes again on
+ * every completion request.
+ * <p>
+ * Class loaders are reference counted: each {@link #acquire acquisition} returns a
+ * {@link Lease} that must be closed once the class loader is no longer used. The pool
+ * holds at most {@code maxSize} class loaders; the least recently used ones are evicted
+ * beyond that, as well as those that have not been used for {@code idleTimeout}. Idle
+ * class loaders are looked for on every acquisition and, if an
+ * {@link #setEvictionScheduler eviction scheduler} is set, every half idle timeout, so
+ * that they are closed even if no module is acquired any more. An evicted class loader,
+ * and the archive it was created from, is closed as soon as its last lease is closed.
+ *
+ * @author Patrick Peralta
+ */
+public class ModuleClassLoaderPool implements Closeable {
+
+	private static final Log logger = LogFactory.getLog(ModuleClassLoaderPool.class);
+
+	/**
+	 * Default maximum number of class loaders held by the pool.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 16;
+
+	/**
+	 * Default time, in milliseconds, after which an unused class loader is evicted.
+	 */
+	public static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+	/**
+	 * Maximum number of class loaders held by the pool.
+	 */
+	private final int maxSize;
+
+	/**
+	 * Time, in nanoseconds, after which an unused class loader is evicted.
+	 */
+	private final long idleTimeoutNanos;
+
+	/**
+	 * Pooled class loaders, in access order. Guarded by {@code this}.
+	 */
+	private final Map<ArtifactCoordinates, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Periodic eviction of idle class loaders, if scheduled. Guarded by {@code this}.
+	 */
+	private ScheduledFuture<?> evictionTask;
+
+	private long hits;
+
+	private long misses;
+
+	private long evictions;
+
+	/**
+	 * Construct a {@code ModuleClassLoaderPool} with the default size and idle timeout.
+	 */
+	public ModuleClassLoaderPool() {
+		this(DEFAULT_MAX_SIZE, DEFAULT_IDLE_TIMEOUT);
+	}
+
+	/**
+	 * Construct a {@code ModuleClassLoaderPool}.
+	 *
+	 * @param maxSize maximum number of class loaders held by the pool
+	 * @param idleTimeout time, in milliseconds, after which an unused class loader is evicted
+	 */
+	public ModuleClassLoaderPool(int maxSize, long idleTimeout) {
+		Assert.isTrue(maxSize > 0, "maxSize must be positive");
+		Assert.isTrue(idleTimeout >= 0, "idleTimeout must not be negative");
+		this.maxSize = maxSize;
+		this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+	}
+
+	/**
+	 * Acquire the class loader for the module artifact with the given coordinates,
+	 * creating it from the given resource if it is not pooled.
+	 *
+	 * @param coordinates the coordinates of the artifact
+	 * @param resource the resource for the artifact, either a jar file or a directory
+	 * @return a lease on the class loader, to be closed once it is no longer used
+	 * @throws IOException if the artifact could not be opened
+	 */
+	public Lease acquire(ArtifactCoordinates coordinates, Resource resource) throws IOException {
+		Assert.notNull(coordinates, "coordinates must not be null");
+		List<Entry> evicted = new ArrayList<>();
+		Entry entry;
+		try {
+			synchronized (this) {
+				evictIdle(evicted);
+				entry = entries.get(coordinates);
+				if (entry != null) {
+					hits++;
+					entry.references++;
+					return new Lease(entry);
+				}
+				misses++;
+			}
+			// open the archive without holding the lock; should another thread pool the
+			// same module in the meantime, its class loader is used instead
+			Entry created = open(coordinates, resource);
+			synchronized (this) {
+				entry = entries.get(coordinates);
+				if (entry == null) {
+					entry = created;
+					entries.put(coordinates, entry);
+					trimToSize(evicted);
+				}
+				else {
+					evicted.add(created);
+				}
+				entry.references++;
+				return new Lease(entry);
+			}
+		}
+		finally {
+			closeAll(evicted);
+		}
+	}
+
+	/**
+	 * Evict the class loaders that have not been used for the idle timeout.
+	 */
+	public void evictIdle() {
+		List<Entry> evicted = new ArrayList<>();
+		synchronized (this) {
+			evictIdle(evicted);
+		}
+		closeAll(evicted);
+	}
+
+	/**
+	 * Set the scheduler on which idle class loaders are evicted every half idle timeout,
+	 * until the pool is closed.
+	 *
+	 * @param scheduler the scheduler, or {@code null} to only evict idle class loaders
+	 * when acquiring one
+	 */
+	public synchronized void setEvictionScheduler(TaskScheduler scheduler) {
+		if (evictionTask != null) {
+			evictionTask.cancel(false);
+			evictionTask = null;
+		}
+		if (scheduler != null) {
+			long period = Math.max(TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos) / 2, 1);
+			evictionTask = scheduler.scheduleAtFixedRate(new Runnable() {
+
+				@Override
+				public void run() {
+					evictIdle();
+				}
+			}, period);
+		}
+	}
+
+	/**
+	 * Evict all class loaders, and stop evicting idle ones periodically. Those in use
+	 * are closed once their last lease is closed.
+	 */
+	@Override
+	public void close() {
+		List<Entry> evicted = new ArrayList<>();
+		synchronized (this) {
+			if (evictionTask != null) {
+				evictionTask.cancel(false);
+				evictionTask = null;
+			}
+			for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext();) {
+				evict(iterator.next(), evicted);
+				iterator.remove();
+			}
+		}
+		closeAll(evicted);
+	}
+
+	private void release(Entry entry) {
+		List<Entry> evicted = new ArrayList<>();
+		synchronized (this) {
+			entry.references--;
+			entry.lastUsed = System.nanoTime();
+			if (entry.evicted && entry.references == 0) {
+				evicted.add(entry);
+			}
+		}
+		closeAll(evicted);
+	}
+
+	/**
+	 * Remove the unused entries that have been idle for too long. Must be called
+	 * while holding the lock; the removed entries are added to the given list, to
+	 * be closed once the lock is released.
+	 */
+	private void evictIdle(List<Entry> evicted) {
+		long now = System.nanoTime();
+		for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext();) {
+			Entry entry = iterator.next();
+			if (entry.references == 0 && now - entry.lastUsed >= idleTimeoutNanos) {
+				evict(entry, evicted);
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Remove the least recently used entries beyond the maximum size. Must be called
+	 * while holding the lock.
+	 */
+	private void trimToSize(List<Entry> evicted) {
+		for (Iterator<Entry> iterator = entries.values().iterator(); entries.size() > maxSize;) {
+			evict(iterator.next(), evicted);
+			iterator.remove();
+		}
+	}
+
+	private void evict(Entry entry, List<Entry> evicted) {
+		evictions++;
+		entry.evicted = true;
+		if (entry.references == 0) {
+			evicted.add(entry);
+		}
+	}
+
+	private Entry open(ArtifactCoordinates coordinates, Resource resource) throws IOException {
+		File file = resource.getFile();
+		JarFile jarFile = null;
+		try {
+			Archive archive;
+			if (file.isDirectory()) {
+				archive = new ExplodedArchive(file);
+			}
+			else {
+				jarFile = new JarFile(file);
+				archive = new JarFileArchive(jarFile);
+			}
+			return new Entry(coordinates, new ClassLoaderExposingJarLauncher(archive).createClassLoader(), jarFile);
+		}
+		catch (Exception e) {
+			closeQuietly(jarFile);
+			if (e instanceof IOException) {
+				throw (IOException) e;
+			}
+			throw new IllegalStateException("Could not create class loader for " + coordinates, e);
+		}
+	}
+
+	private void closeAll(List<Entry> evicted) {
+		for (Entry entry : evicted) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Closing class loader of " + entry.coordinates);
+			}
+			if (entry.classLoader instanceof Closeable) {
+				closeQuietly((Closeable) entry.classLoader);
+			}
+			closeQuietly(entry.jarFile);
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			}
+			catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * @return the number of pooled class loaders
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @see #maxSize
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return the number of acquisitions served by a pooled class loader
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of acquisitions that had to create a class loader
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * @return the number of class loaders evicted from the pool
+	 */
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+
+
+	/**
+	 * A pooled class loader, with the jar file it reads from.
+	 */
+	private static class Entry {
+
+		private final ArtifactCoordinates coordinates;
+
+		private final ClassLoader classLoader;
+
+		/**
+		 * The jar file of the module, or {@code null} for an exploded module.
+		 */
+		private final JarFile jarFile;
+
+		/**
+		 * Number of open leases. Guarded by the pool.
+		 */
+		private int references;
+
+		/**
+		 * Time of the last release, from {@link System#nanoTime()}. Guarded by the pool.
+		 */
+		private long lastUsed = System.nanoTime();
+
+		/**
+		 * Whether this entry was removed from the pool. Guarded by the pool.
+		 */
+		private boolean evicted;
+
+		private Entry(ArtifactCoordinates coordinates, ClassLoader classLoader, JarFile jarFile) {
+			this.coordinates = coordinates;
+			this.classLoader = classLoader;
+			this.jarFile = jarFile;
+		}
+	}
+
+	/**
+	 * A reference to a pooled class loader. The class loader must not be used once
+	 * the lease is closed.
+	 */
+	public final class Lease implements Closeable {
+
+		private final Entry entry;
+
+		private boolean closed;
+
+		private Lease(Entry entry) {
+			this.entry = entry;
+		}
+
+		/**
+		 * @return the class loader of the module
+		 */
+		public ClassLoader getClassLoader() {
+			Assert.state(!closed, "Lease is closed");
+			return entry.classLoader;
+		}
+
+		/**
+		 * Release the class loader to the pool. Closing a lease more than once has no effect.
+		 */
+		@Override
+		public void close() {
+			if (!closed) {
+				closed = true;
+				release(entry);
+			}
+		}
+	}
+
+}
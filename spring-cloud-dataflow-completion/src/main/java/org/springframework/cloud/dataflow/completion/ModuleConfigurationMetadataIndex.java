@@ -0,0 +1,441 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+/**
+ * Index of the configuration properties exposed by module artifacts, keyed by
+ * {@link ArtifactCoordinates}. The metadata of an artifact is extracted from its
+ * archive the first time it is requested; subsequent requests, such as those issued
+ * by code completion on every keystroke, are served from memory.
+ * <p>
+ * As the metadata of released artifacts never changes, it may also be written to a
+ * directory, so that it survives restarts. Snapshot versions are only kept in memory.
+ * <p>
+ * Registrations map names to coordinates, so changing a registration to other
+ * coordinates never serves stale metadata. Entries are {@link #invalidate invalidated}
+ * when a registration is (re)written or removed, so that the artifact is resolved
+ * again the next time it is requested. Failures are kept as well: requests for an
+ * artifact whose metadata could not be extracted fail without resolving it again,
+ * until its entry is invalidated.
+ * <p>
+ * If an {@link Executor} is {@link #setExecutor set}, the metadata of an artifact can
+ * be {@link #prefetch prefetched} in the background, and its progress observed through
+ * {@link #getStatus}.
+ *
+ * @author Patrick Peralta
+ */
+public class ModuleConfigurationMetadataIndex {
+
+	/**
+	 * Progress of the extraction of the metadata of an artifact.
+	 */
+	public enum Status {
+
+		/**
+		 * The metadata is being extracted, or is scheduled to be.
+		 */
+		PENDING,
+
+		/**
+		 * The metadata is available.
+		 */
+		READY,
+
+		/**
+		 * The metadata could not be extracted.
+		 */
+		FAILED
+	}
+
+	private static final Log logger = LogFactory.getLog(ModuleConfigurationMetadataIndex.class);
+
+	private static final String SNAPSHOT_SUFFIX = "-SNAPSHOT";
+
+	private static final String FILE_EXTENSION = ".metadata";
+
+	private final ModuleResolver moduleResolver;
+
+	private final ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver;
+
+	/**
+	 * Directory holding the on-disk copy of the index; {@code null} if the index
+	 * is only kept in memory.
+	 */
+	private final File directory;
+
+	/**
+	 * Metadata of each artifact, or why it could not be extracted. Entries are futures
+	 * so that concurrent requests for the same artifact extract its metadata only once.
+	 */
+	private final ConcurrentMap<ArtifactCoordinates, FutureTask<Entry>> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Executor for {@link #prefetch prefetching}; {@code null} if prefetching is disabled.
+	 */
+	private volatile Executor executor;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Construct a {@code ModuleConfigurationMetadataIndex} kept in memory only.
+	 *
+	 * @param moduleResolver resolver for module artifacts
+	 * @param moduleConfigurationMetadataResolver extractor of module metadata
+	 */
+	public ModuleConfigurationMetadataIndex(ModuleResolver moduleResolver,
+			ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver) {
+		this(moduleResolver, moduleConfigurationMetadataResolver, null);
+	}
+
+	/**
+	 * Construct a {@code ModuleConfigurationMetadataIndex} that keeps a copy of the
+	 * metadata of released artifacts in the given directory.
+	 *
+	 * @param moduleResolver resolver for module artifacts
+	 * @param moduleConfigurationMetadataResolver extractor of module metadata
+	 * @param directory directory for the on-disk copy of the index; may be {@code null}
+	 */
+	public ModuleConfigurationMetadataIndex(ModuleResolver moduleResolver,
+			ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver, File directory) {
+		Assert.notNull(moduleResolver, "moduleResolver must not be null");
+		Assert.notNull(moduleConfigurationMetadataResolver, "moduleConfigurationMetadataResolver must not be null");
+		this.moduleResolver = moduleResolver;
+		this.moduleConfigurationMetadataResolver = moduleConfigurationMetadataResolver;
+		this.directory = directory;
+	}
+
+	/**
+	 * Set the executor used to {@link #prefetch prefetch} metadata. Prefetching is
+	 * disabled if no executor is set. A bounded executor should be used, as
+	 * prefetching is requested for every registered module.
+	 *
+	 * @param executor the executor, may be {@code null}
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Extract the metadata of the artifact with the given coordinates in the
+	 * background, unless it is available or being extracted already. This has no
+	 * effect if no executor is set; the request is dropped if the executor rejects it.
+	 *
+	 * @param coordinates the coordinates of the artifact
+	 */
+	public void prefetch(ArtifactCoordinates coordinates) {
+		Assert.notNull(coordinates, "coordinates must not be null");
+		Executor executor = this.executor;
+		if (executor == null) {
+			return;
+		}
+		FutureTask<Entry> task = newTask(coordinates);
+		if (entries.putIfAbsent(coordinates, task) == null) {
+			try {
+				executor.execute(task);
+			}
+			catch (RejectedExecutionException e) {
+				entries.remove(coordinates, task);
+				logger.warn("Could not schedule prefetching of metadata of " + coordinates, e);
+			}
+		}
+	}
+
+	/**
+	 * Return the progress of the extraction of the metadata of the artifact with
+	 * the given coordinates.
+	 *
+	 * @param coordinates the coordinates of the artifact
+	 * @return the status, or {@code null} if the metadata of the artifact was never
+	 * requested, or was invalidated
+	 */
+	public Status getStatus(ArtifactCoordinates coordinates) {
+		FutureTask<Entry> future = entries.get(coordinates);
+		if (future == null) {
+			return null;
+		}
+		if (!future.isDone()) {
+			return Status.PENDING;
+		}
+		try {
+			future.get();
+			return Status.READY;
+		}
+		catch (ExecutionException e) {
+			return Status.FAILED;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Status.PENDING;
+		}
+	}
+
+	/**
+	 * Return the configuration properties of the module artifact with the given
+	 * coordinates, in the order they were listed by the artifact.
+	 *
+	 * @param coordinates the coordinates of the artifact
+	 * @return the configuration properties of the artifact
+	 */
+	public List<ConfigurationMetadataProperty> listProperties(ArtifactCoordinates coordinates) {
+		return entry(coordinates).properties;
+	}
+
+	/**
+	 * Return the configuration property of the module artifact with the given
+	 * coordinates and id.
+	 *
+	 * @param coordinates the coordinates of the artifact
+	 * @param id the id of the property
+	 * @return the property, or {@code null} if the artifact has no such property
+	 */
+	public ConfigurationMetadataProperty findProperty(ArtifactCoordinates coordinates, String id) {
+		return entry(coordinates).propertiesById.get(id);
+	}
+
+	/**
+	 * Return the resource for the module artifact with the given coordinates. The
+	 * artifact is resolved once, even if its metadata was read from disk.
+	 *
+	 * @param coordinates the coordinates of the artifact
+	 * @return the resource for the artifact
+	 */
+	public Resource resolve(ArtifactCoordinates coordinates) {
+		Entry entry = entry(coordinates);
+		Resource resource = entry.resource;
+		if (resource == null) {
+			resource = moduleResolver.resolve(CompletionUtils.fromModuleCoordinates(coordinates));
+			entry.resource = resource;
+		}
+		return resource;
+	}
+
+	/**
+	 * Discard the metadata of the artifact with the given coordinates, in memory
+	 * and on disk, so that it is extracted again the next time it is requested.
+	 *
+	 * @param coordinates the coordinates of the artifact
+	 */
+	public void invalidate(ArtifactCoordinates coordinates) {
+		entries.remove(coordinates);
+		if (directory != null) {
+			File file = fileFor(coordinates);
+			if (file.exists() && !file.delete()) {
+				logger.warn("Could not delete " + file);
+			}
+		}
+	}
+
+	/**
+	 * Discard the in-memory metadata of all artifacts.
+	 */
+	public void invalidateAll() {
+		entries.clear();
+	}
+
+	/**
+	 * Return the entry for the given coordinates, extracting the metadata of the
+	 * artifact if no other thread did or is doing so. A prefetch that is still
+	 * queued is run by the calling thread. A failed extraction is not retried:
+	 * its cause is thrown again until the entry is invalidated.
+	 */
+	private Entry entry(ArtifactCoordinates coordinates) {
+		Assert.notNull(coordinates, "coordinates must not be null");
+		FutureTask<Entry> future = entries.get(coordinates);
+		if (future != null && future.isDone()) {
+			hits.incrementAndGet();
+		}
+		else {
+			if (future == null) {
+				FutureTask<Entry> task = newTask(coordinates);
+				future = entries.putIfAbsent(coordinates, task);
+				if (future == null) {
+					future = task;
+				}
+			}
+			misses.incrementAndGet();
+			// no-op if the task is running or has run already
+			future.run();
+		}
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while extracting metadata of " + coordinates, e);
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException("Could not extract metadata of " + coordinates, cause);
+		}
+	}
+
+	private FutureTask<Entry> newTask(final ArtifactCoordinates coordinates) {
+		return new FutureTask<>(new Callable<Entry>() {
+			@Override
+			public Entry call() throws Exception {
+				try {
+					return load(coordinates);
+				}
+				catch (Exception | Error e) {
+					logger.debug("Could not extract metadata of " + coordinates, e);
+					throw e;
+				}
+			}
+		});
+	}
+
+	private Entry load(ArtifactCoordinates coordinates) {
+		boolean persistent = directory != null && !coordinates.getVersion().endsWith(SNAPSHOT_SUFFIX);
+		if (persistent) {
+			List<ConfigurationMetadataProperty> properties = read(coordinates);
+			if (properties != null) {
+				return new Entry(properties, null);
+			}
+		}
+		Resource resource = moduleResolver.resolve(CompletionUtils.fromModuleCoordinates(coordinates));
+		List<ConfigurationMetadataProperty> properties = moduleConfigurationMetadataResolver.listProperties(resource);
+		if (persistent) {
+			write(coordinates, properties);
+		}
+		return new Entry(properties, resource);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<ConfigurationMetadataProperty> read(ArtifactCoordinates coordinates) {
+		File file = fileFor(coordinates);
+		if (!file.isFile()) {
+			return null;
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			return (List<ConfigurationMetadataProperty>) in.readObject();
+		}
+		catch (IOException | ClassNotFoundException | ClassCastException e) {
+			logger.warn("Ignoring unreadable metadata of " + coordinates + " in " + file, e);
+			return null;
+		}
+	}
+
+	private void write(ArtifactCoordinates coordinates, List<ConfigurationMetadataProperty> properties) {
+		File file = fileFor(coordinates);
+		File temp = new File(file.getPath() + ".tmp");
+		try {
+			if (!directory.isDirectory() && !directory.mkdirs()) {
+				throw new IOException("Could not create directory " + directory);
+			}
+			try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.writeObject(new ArrayList<>(properties));
+			}
+			if (!temp.renameTo(file)) {
+				throw new IOException("Could not rename " + temp + " to " + file);
+			}
+		}
+		catch (IOException e) {
+			logger.warn("Could not write metadata of " + coordinates + " to " + file, e);
+			temp.delete();
+		}
+	}
+
+	private File fileFor(ArtifactCoordinates coordinates) {
+		return new File(directory, coordinates.toString().replaceAll("[^A-Za-z0-9._-]", "_") + FILE_EXTENSION);
+	}
+
+	/**
+	 * @return the number of artifacts held in memory
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the number of requests served from memory, without waiting for an extraction
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of requests that had to extract the metadata of an artifact,
+	 * or wait for its extraction
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+
+	/**
+	 * Metadata of a single artifact.
+	 */
+	private static class Entry {
+
+		private final List<ConfigurationMetadataProperty> properties;
+
+		private final Map<String, ConfigurationMetadataProperty> propertiesById;
+
+		/**
+		 * The resource for the artifact, resolved lazily if the metadata was read from disk.
+		 */
+		private volatile Resource resource;
+
+		private Entry(List<ConfigurationMetadataProperty> properties, Resource resource) {
+			Map<String, ConfigurationMetadataProperty> byId = new LinkedHashMap<>();
+			for (ConfigurationMetadataProperty property : properties) {
+				byId.put(property.getId(), property);
+			}
+			this.properties = Collections.unmodifiableList(new ArrayList<>(properties));
+			this.propertiesById = Collections.unmodifiableMap(byId);
+			this.resource = resource;
+		}
+	}
+
+}
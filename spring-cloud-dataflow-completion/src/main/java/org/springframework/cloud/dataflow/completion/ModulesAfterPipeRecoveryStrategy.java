@@ -21,7 +21,7 @@ import static org.springframework.cloud.dataflow.core.ArtifactType.*;
 import java.util.List;
 
 import org.springframework.cloud.dataflow.core.StreamDefinition;
-import org.springframework.cloud.dataflow.core.dsl.CheckPointedParseException;
+import org.springframework.cloud.dataflow.core.dsl.ParseFailure;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
 
@@ -32,22 +32,22 @@ import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
  * @author Eric Bottard
  */
 public class ModulesAfterPipeRecoveryStrategy extends
-		StacktraceFingerprintingRecoveryStrategy<CheckPointedParseException> {
+		ParseFailureFingerprintingRecoveryStrategy {
 
 	private final ArtifactRegistry artifactRegistry;
 
 	ModulesAfterPipeRecoveryStrategy(ArtifactRegistry artifactRegistry) {
-		super(CheckPointedParseException.class, "foo |", "foo | ");
+		super("foo |", "foo | ");
 		this.artifactRegistry = artifactRegistry;
 	}
 
 
 	@Override
-	public void addProposals(String dsl, CheckPointedParseException exception,
+	public void addProposals(String dsl, ParseFailure failure,
 			int detailLevel, List<CompletionProposal> collector) {
 
 		StreamDefinition streamDefinition = new StreamDefinition("__dummy",
-				exception.getExpressionStringUntilCheckpoint());
+				failure.getExpressionStringUntilCheckpoint());
 
 		CompletionProposal.Factory proposals = CompletionProposal.expanding(dsl);
 
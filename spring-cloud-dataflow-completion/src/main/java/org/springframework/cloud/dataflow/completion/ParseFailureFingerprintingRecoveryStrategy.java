@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.cloud.dataflow.core.dsl.ParseFailure;
+import org.springframework.cloud.dataflow.core.dsl.ParseResult;
+import org.springframework.cloud.dataflow.core.dsl.StreamNode;
+import org.springframework.cloud.dataflow.core.dsl.StreamParser;
+import org.springframework.cloud.dataflow.core.dsl.Token;
+import org.springframework.cloud.dataflow.core.dsl.TokenKind;
+import org.springframework.util.Assert;
+
+/**
+ * A recovery strategy that will trigger if the parser failure is similar
+ * to that of some sample unfinished stream definition. The match is decided
+ * by comparing the {@link ParseFailure} reported by the parser when it
+ * encounters the ill formed input: the message code, the kinds of token the
+ * parser was expecting, and the kind of token that precedes the failure.
+ * For example, both {@code "foo |"} and {@code "foo | bar |"} fail because
+ * input ran out where a module name (an identifier) was expected, right after
+ * a pipe.
+ * <p>
+ * Multiple samples are supported, as different forms of the expression may
+ * fail in different ways while calling for the same completions.
+ *
+ * @author Eric Bottard
+ */
+public abstract class ParseFailureFingerprintingRecoveryStrategy implements RecoveryStrategy {
+
+	private final Set<List<Object>> fingerprints = new LinkedHashSet<>();
+
+	/**
+	 * Construct a new ParseFailureFingerprintingRecoveryStrategy given sample
+	 * fragments of stream definitions, each of which must fail to parse.
+	 *
+	 * @param samples the sample fragments of stream definitions.
+	 */
+	public ParseFailureFingerprintingRecoveryStrategy(String... samples) {
+		Assert.notEmpty(samples, "samples should not be null or empty");
+		for (String sample : samples) {
+			ParseResult<StreamNode> result = new StreamParser("__dummy", sample).tryParse();
+			Assert.isTrue(!result.isSuccessful(), "sample '" + sample + "' should not be well formed");
+			fingerprints.add(fingerprint(result.getFailure()));
+		}
+	}
+
+	/**
+	 * Return the characteristics of a failure that decide whether this strategy triggers.
+	 */
+	private List<Object> fingerprint(ParseFailure failure) {
+		TokenKind preceding = null;
+		for (Token token : failure.getTokens()) {
+			if (token.getEndPos() > failure.getPosition()) {
+				break;
+			}
+			preceding = token.getKind();
+		}
+		return Arrays.<Object>asList(failure.getMessageCode(), failure.getExpectedTokens(), preceding);
+	}
+
+	@Override
+	public boolean shouldTrigger(String dslStart, ParseFailure failure) {
+		return fingerprints.contains(fingerprint(failure));
+	}
+
+}
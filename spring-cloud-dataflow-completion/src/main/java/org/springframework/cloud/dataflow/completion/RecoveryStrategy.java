@@ -18,22 +18,22 @@ package org.springframework.cloud.dataflow.completion;
 
 import java.util.List;
 
+import org.springframework.cloud.dataflow.core.dsl.ParseFailure;
+
 /**
  * Used to provide completions on ill-formed stream definitions, after an initial (failed) parse.
  * 
- * @param <E> the kind of exception that is intercepted during parsing
- * 
  * @author Eric Bottard
  */
-public interface RecoveryStrategy<E extends Exception> {
+public interface RecoveryStrategy {
 
 	/**
 	 * Whether this completion should be triggered.
 	 */
-	boolean shouldTrigger(String dslStart, Exception exception);
+	boolean shouldTrigger(String dslStart, ParseFailure failure);
 
 	/**
 	 * Perform code completion by adding proposals to the {@code proposals} list.
 	 */
-	void addProposals(String dsl, E exception, int detailLevel, List<CompletionProposal> proposals);
+	void addProposals(String dsl, ParseFailure failure, int detailLevel, List<CompletionProposal> proposals);
 }
\ No newline at end of file
@@ -17,24 +17,110 @@
 package org.springframework.cloud.dataflow.completion;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
+import org.springframework.cloud.dataflow.core.StreamDefinitionParseSessionPool;
+import org.springframework.cloud.dataflow.core.dsl.ParseFailure;
+import org.springframework.cloud.dataflow.core.dsl.ParseResult;
+import org.springframework.util.Assert;
 
 /**
  * Provides code completion on a (maybe ill-formed) stream definition.
+ * <p>
+ * If an {@link #setExecutor executor} is set, strategies run concurrently on it and
+ * the proposals of those that do not complete within the {@link #setTimeout timeout}
+ * are left out; such strategies are interrupted. Strategies the executor rejects are
+ * skipped, rather than run on the calling thread without a deadline. Proposals are
+ * always ordered as the strategies are.
  *
  * @author Eric Bottard
+ * @author Patrick Peralta
  */
 public class StreamCompletionProvider {
 
+	private static final Log logger = LogFactory.getLog(StreamCompletionProvider.class);
+
+	/**
+	 * Default time, in milliseconds, granted to strategies per level of detail.
+	 */
+	public static final long DEFAULT_TIMEOUT = 1000;
+
 	@Autowired
-	private List<? extends RecoveryStrategy<Exception>> completionRecoveryStrategies = new ArrayList<>();
+	private List<? extends RecoveryStrategy> completionRecoveryStrategies = new ArrayList<>();
 
 	@Autowired
 	private List<? extends ExpansionStrategy> completionExpansionStrategies = new ArrayList<>();
 
+	/**
+	 * Successive completion requests of a user typically differ by a few trailing
+	 * characters, so parse them incrementally, in the session that parsed the
+	 * closest previous text.
+	 */
+	private final StreamDefinitionParseSessionPool parseSessions = new StreamDefinitionParseSessionPool("__dummy");
+
+	/**
+	 * The same requests are typically sent again as the user moves around or erases
+	 * characters, so their proposals are cached if a cache is available.
+	 */
+	@Autowired(required = false)
+	private CompletionProposalCache proposalCache;
+
+	@Autowired(required = false)
+	private CompletionStatistics statistics;
+
+	/**
+	 * Executor running the strategies, or {@code null} to run them on the calling thread.
+	 */
+	private Executor executor;
+
+	/**
+	 * Time, in milliseconds, granted to strategies per level of detail: higher levels
+	 * are explicitly asked for, and are worth waiting longer.
+	 */
+	private long timeout = DEFAULT_TIMEOUT;
+
+	/**
+	 * Set on the threads of the executor while they run a strategy. Strategies that
+	 * ask for completions themselves then have them computed on their own thread,
+	 * rather than waiting for threads of the executor that may all be busy.
+	 */
+	private final ThreadLocal<Boolean> runningStrategy = new ThreadLocal<>();
+
+	/**
+	 * Set the executor running the strategies.
+	 *
+	 * @param executor the executor, or {@code null} to run strategies on the calling thread
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Set the time granted to strategies running on the executor, which is multiplied
+	 * by the requested level of detail.
+	 *
+	 * @param timeout time, in milliseconds, granted per level of detail
+	 */
+	public void setTimeout(long timeout) {
+		Assert.isTrue(timeout > 0, "timeout must be positive");
+		this.timeout = timeout;
+	}
+
 	/*
 	 * Attempt to parse the text the user has already typed in. This either succeeds,
 	 * in which case we may propose to expand what she has typed, or it fails
@@ -42,25 +128,242 @@ public class StreamCompletionProvider {
 	 * recover from the parsing failure and still add proposals.
 	 */
 	public List<CompletionProposal> complete(String dslStart, int detailLevel) {
-		List<CompletionProposal> collector = new ArrayList<>();
+		if (proposalCache == null) {
+			List<CompletionProposal> collector = new ArrayList<>();
+			collect(dslStart, detailLevel, collector);
+			return collector;
+		}
+		CompletionProposalCache.Key key = proposalCache.key(dslStart, detailLevel);
+		List<CompletionProposal> proposals = proposalCache.get(key);
+		if (proposals == null) {
+			List<CompletionProposal> collector = new ArrayList<>();
+			proposals = Collections.unmodifiableList(collector);
+			// proposals missing the contribution of slow strategies are not worth keeping
+			if (collect(dslStart, detailLevel, collector)) {
+				proposalCache.put(key, proposals);
+			}
+		}
+		return proposals;
+	}
 
-		StreamDefinition parsed;
-		try {
-			parsed = new StreamDefinition("__dummy", dslStart);
+	/**
+	 * Add the proposals of the strategies that apply to the given text to the collector.
+	 *
+	 * @return whether all strategies contributed their proposals in time
+	 */
+	private boolean collect(String dslStart, int detailLevel, List<CompletionProposal> collector) {
+		long start = System.nanoTime();
+		// the time granted to strategies includes the time they wait for a thread
+		long timeoutMillis = timeout * Math.max(detailLevel, 1);
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		List<Contribution> contributions = new ArrayList<>();
+		ParseResult<StreamDefinition> result = parseSessions.tryParse(dslStart);
+		if (!result.isSuccessful()) {
+			ParseFailure recoverable = result.getFailure();
+			for (RecoveryStrategy strategy : completionRecoveryStrategies) {
+				contributions.add(new Contribution(new Recovery(strategy, dslStart, recoverable, detailLevel)));
+			}
+		}
+		else {
+			StreamDefinition parsed = result.getValue();
+			for (ExpansionStrategy strategy : completionExpansionStrategies) {
+				contributions.add(new Contribution(new Expansion(strategy, dslStart, parsed, detailLevel)));
+			}
+		}
+
+		Executor executor = this.executor;
+		boolean concurrent = (executor != null && !Boolean.TRUE.equals(runningStrategy.get()));
+		boolean complete = true;
+		for (Contribution contribution : contributions) {
+			if (!concurrent) {
+				contribution.run();
+				continue;
+			}
+			try {
+				executor.execute(contribution);
+			}
+			catch (RejectedExecutionException e) {
+				// running the strategy here would not be bound by the deadline
+				logger.debug(String.format("Skipping completion strategy %s for '%s': %s",
+						contribution.invocation.strategy.getClass().getName(), dslStart, e.getMessage()));
+				contribution.cancel(false);
+				recordTimeout(contribution);
+				complete = false;
+			}
 		}
-		catch (Exception recoverable) {
-			for (RecoveryStrategy<Exception> strategy : completionRecoveryStrategies) {
-				if (strategy.shouldTrigger(dslStart, recoverable)) {
-					strategy.addProposals(dslStart, recoverable, detailLevel, collector);
+
+		for (Contribution contribution : contributions) {
+			if (contribution.isCancelled()) {
+				continue;
+			}
+			List<CompletionProposal> proposals;
+			try {
+				proposals = contribution.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+			}
+			catch (TimeoutException e) {
+				logger.warn(String.format("Completion strategy %s did not complete within %d ms for '%s'",
+						contribution.invocation.strategy.getClass().getName(), timeoutMillis, dslStart));
+				// free the thread for other requests
+				contribution.cancel(true);
+				recordTimeout(contribution);
+				complete = false;
+				continue;
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				for (Contribution pending : contributions) {
+					pending.cancel(true);
 				}
+				return false;
 			}
+			catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw new IllegalStateException(cause);
+			}
+			if (contribution.invocation.exclusive) {
+				// the strategy asked for its proposals to replace those collected before
+				collector.clear();
+			}
+			collector.addAll(proposals);
+		}
 
-			return collector;
+		if (statistics != null) {
+			Map<Object, Long> strategyNanos = new LinkedHashMap<>();
+			for (Contribution contribution : contributions) {
+				if (contribution.invocation.elapsed >= 0) {
+					strategyNanos.put(contribution.invocation.strategy, contribution.invocation.elapsed);
+				}
+			}
+			statistics.recordCompletion(dslStart, detailLevel, System.nanoTime() - start, strategyNanos);
 		}
+		return complete;
+	}
 
-		for (ExpansionStrategy strategy : completionExpansionStrategies) {
-			strategy.addProposals(dslStart, parsed, detailLevel, collector);
+	private void recordTimeout(Contribution contribution) {
+		if (statistics != null) {
+			statistics.recordTimeout(contribution.invocation.strategy);
 		}
-		return collector;
 	}
+
+
+	/**
+	 * The proposals of one strategy. Strategies that are not running on the calling
+	 * thread may not complete in time, in which case they are cancelled.
+	 */
+	private class Contribution extends FutureTask<List<CompletionProposal>> {
+
+		private final Invocation invocation;
+
+		private Contribution(Invocation invocation) {
+			super(invocation);
+			this.invocation = invocation;
+		}
+
+		@Override
+		public void run() {
+			Boolean running = runningStrategy.get();
+			runningStrategy.set(Boolean.TRUE);
+			try {
+				super.run();
+			}
+			finally {
+				runningStrategy.set(running);
+			}
+		}
+	}
+
+	/**
+	 * The invocation of a strategy, returning its proposals.
+	 */
+	private abstract class Invocation implements Callable<List<CompletionProposal>> {
+
+		protected final Object strategy;
+
+		protected final String dslStart;
+
+		protected final int detailLevel;
+
+		/**
+		 * Whether the proposals replace those of the preceding strategies. Read once
+		 * the invocation has completed.
+		 */
+		protected boolean exclusive;
+
+		/**
+		 * Time, in nanoseconds, the strategy took to add its proposals, or {@code -1}
+		 * if it was not triggered or has not completed.
+		 */
+		protected volatile long elapsed = -1;
+
+		protected Invocation(Object strategy, String dslStart, int detailLevel) {
+			this.strategy = strategy;
+			this.dslStart = dslStart;
+			this.detailLevel = detailLevel;
+		}
+
+		/**
+		 * Record that the strategy, invoked at the given time, produced the given proposals.
+		 */
+		protected void recordProposals(long start, List<CompletionProposal> proposals) {
+			elapsed = System.nanoTime() - start;
+			if (statistics != null) {
+				statistics.recordProposals(strategy, elapsed, proposals.size());
+			}
+		}
+	}
+
+	/**
+	 * Invokes a {@link RecoveryStrategy}, if it should be triggered.
+	 */
+	private class Recovery extends Invocation {
+
+		private final ParseFailure failure;
+
+		private Recovery(RecoveryStrategy strategy, String dslStart, ParseFailure failure, int detailLevel) {
+			super(strategy, dslStart, detailLevel);
+			this.failure = failure;
+		}
+
+		@Override
+		public List<CompletionProposal> call() {
+			RecoveryStrategy strategy = (RecoveryStrategy) this.strategy;
+			List<CompletionProposal> proposals = new ArrayList<>();
+			boolean triggered = strategy.shouldTrigger(dslStart, failure);
+			if (statistics != null) {
+				statistics.recordTrigger(strategy, triggered);
+			}
+			if (triggered) {
+				long start = System.nanoTime();
+				strategy.addProposals(dslStart, failure, detailLevel, proposals);
+				recordProposals(start, proposals);
+			}
+			return proposals;
+		}
+	}
+
+	/**
+	 * Invokes an {@link ExpansionStrategy}.
+	 */
+	private class Expansion extends Invocation {
+
+		private final StreamDefinition parsed;
+
+		private Expansion(ExpansionStrategy strategy, String dslStart, StreamDefinition parsed, int detailLevel) {
+			super(strategy, dslStart, detailLevel);
+			this.parsed = parsed;
+		}
+
+		@Override
+		public List<CompletionProposal> call() {
+			List<CompletionProposal> proposals = new ArrayList<>();
+			long start = System.nanoTime();
+			exclusive = ((ExpansionStrategy) strategy).addProposals(dslStart, parsed, detailLevel, proposals);
+			recordProposals(start, proposals);
+			return proposals;
+		}
+	}
+
 }
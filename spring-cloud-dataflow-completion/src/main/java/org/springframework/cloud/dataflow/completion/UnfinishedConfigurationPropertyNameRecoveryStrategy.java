@@ -26,14 +26,11 @@ import org.springframework.boot.configurationmetadata.ConfigurationMetadataPrope
 import org.springframework.cloud.dataflow.core.ModuleDefinition;
 import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.core.StreamDefinition;
-import org.springframework.cloud.dataflow.core.dsl.CheckPointedParseException;
+import org.springframework.cloud.dataflow.core.dsl.ParseFailure;
 import org.springframework.cloud.dataflow.core.dsl.Token;
 import org.springframework.cloud.dataflow.core.dsl.TokenKind;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
-import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
-import org.springframework.cloud.stream.module.resolver.ModuleResolver;
-import org.springframework.core.io.Resource;
 
 /**
  * Provides completions for the case where the user has started to type a
@@ -42,29 +39,26 @@ import org.springframework.core.io.Resource;
  * @author Eric Bottard
  */
 public class UnfinishedConfigurationPropertyNameRecoveryStrategy
-		extends StacktraceFingerprintingRecoveryStrategy<CheckPointedParseException> {
+		extends ParseFailureFingerprintingRecoveryStrategy {
 
 	private final ArtifactRegistry artifactRegistry;
 
-	private final ModuleResolver moduleResolver;
-
-	private final ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver;
+	private final ModuleConfigurationMetadataIndex metadataIndex;
 
 	UnfinishedConfigurationPropertyNameRecoveryStrategy(ArtifactRegistry artifactRegistry,
-			ModuleResolver moduleResolver, ModuleConfigurationMetadataResolver moduleConfigurationMetadataResolver) {
-		super(CheckPointedParseException.class, "file --foo", "file | bar --quick");
+			ModuleConfigurationMetadataIndex metadataIndex) {
+		super("file --foo", "file | bar --quick");
 		this.artifactRegistry = artifactRegistry;
-		this.moduleResolver = moduleResolver;
-		this.moduleConfigurationMetadataResolver = moduleConfigurationMetadataResolver;
+		this.metadataIndex = metadataIndex;
 	}
 
 	@Override
-	public void addProposals(String dsl, CheckPointedParseException exception,
+	public void addProposals(String dsl, ParseFailure failure,
 			int detailLevel, List<CompletionProposal> collector) {
 
-		String safe = exception.getExpressionStringUntilCheckpoint();
+		String safe = failure.getExpressionStringUntilCheckpoint();
 
-		List<Token> tokens = exception.getTokens();
+		List<Token> tokens = failure.getTokens();
 		int tokenPointer = tokens.size() - 1;
 		while (!tokens.get(tokenPointer - 1).isKind(TokenKind.DOUBLE_MINUS)) {
 			tokenPointer--;
@@ -98,12 +92,9 @@ public class UnfinishedConfigurationPropertyNameRecoveryStrategy
 		}
 		Set<String> alreadyPresentOptions = new HashSet<>(lastModule.getParameters().keySet());
 
-		Resource jarFile = moduleResolver.resolve(CompletionUtils
-				.fromModuleCoordinates(lastArtifactRegistration.getCoordinates()));
-
 		CompletionProposal.Factory proposals = expanding(safe);
 
-		for (ConfigurationMetadataProperty property : moduleConfigurationMetadataResolver.listProperties(jarFile)) {
+		for (ConfigurationMetadataProperty property : metadataIndex.listProperties(lastArtifactRegistration.getCoordinates())) {
 			if (!alreadyPresentOptions.contains(property.getId()) && property.getId().startsWith(prefix)) {
 				collector.add(proposals.withSeparateTokens("--" + property.getId()
 						+ "=", property.getShortDescription()));
@@ -34,7 +34,8 @@ public interface ValueHintProvider {
 	 * @param property     property for which to generate value hints
 	 * @param classLoader  class loader for the artifact/module that this
 	 * property applies to; this may be used to load other classes/resources
-	 * for generating value hints
+	 * for generating value hints. The class loader is shared through a
+	 * {@link ModuleClassLoaderPool}, so it must neither be closed nor retained
 	 * @return list of value hints for the provided property
 	 */
 	List<ValueHint> generateValueHints(ConfigurationMetadataProperty property, ClassLoader classLoader);
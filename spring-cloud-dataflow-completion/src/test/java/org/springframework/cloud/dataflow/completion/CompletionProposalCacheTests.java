@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
+import org.springframework.cloud.dataflow.artifact.registry.InMemoryArtifactRegistry;
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.core.ArtifactType;
+
+/**
+ * Tests for {@link CompletionProposalCache}.
+ *
+ * @author Patrick Peralta
+ */
+public class CompletionProposalCacheTests {
+
+	private final InMemoryArtifactRegistry registry = new InMemoryArtifactRegistry();
+
+	private final List<CompletionProposal> proposals = Collections.singletonList(
+			new CompletionProposal("time", "a time source"));
+
+	@Test
+	public void proposalsAreCachedPerDetailLevel() {
+		CompletionProposalCache cache = new CompletionProposalCache(registry);
+		cache.put(cache.key("ti", 1), proposals);
+		assertSame(proposals, cache.get(cache.key("ti", 1)));
+		assertNull(cache.get(cache.key("ti", 2)));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void registryChangesInvalidateProposals() {
+		CompletionProposalCache cache = new CompletionProposalCache(registry);
+		CompletionProposalCache.Key key = cache.key("ti", 1);
+		registry.save(new ArtifactRegistration("time", ArtifactType.source,
+				ArtifactCoordinates.parse("org.example:time-source:1.0.0")));
+		// computed before the change, hence not cached
+		cache.put(key, proposals);
+		assertNull(cache.get(cache.key("ti", 1)));
+		cache.put(cache.key("ti", 1), proposals);
+		assertEquals(1, cache.size());
+		registry.delete("time", ArtifactType.source);
+		assertNull(cache.get(cache.key("ti", 1)));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void expiredProposalsAreDiscarded() {
+		CompletionProposalCache cache = new CompletionProposalCache(registry, 4, 0);
+		cache.put(cache.key("ti", 1), proposals);
+		assertNull(cache.get(cache.key("ti", 1)));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void leastRecentlyUsedIsEvicted() {
+		CompletionProposalCache cache = new CompletionProposalCache(registry, 2, CompletionProposalCache.DEFAULT_TIME_TO_LIVE);
+		cache.put(cache.key("a", 1), proposals);
+		cache.put(cache.key("b", 1), proposals);
+		cache.get(cache.key("a", 1));
+		cache.put(cache.key("c", 1), proposals);
+		assertSame(proposals, cache.get(cache.key("a", 1)));
+		assertNull(cache.get(cache.key("b", 1)));
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link CompletionStatistics} and {@link LatencyHistogram}.
+ *
+ * @author Patrick Peralta
+ */
+public class CompletionStatisticsTests {
+
+	@Test
+	public void percentilesAreEstimatedFromBuckets() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 98; i++) {
+			histogram.record(TimeUnit.MICROSECONDS.toNanos(300));
+		}
+		histogram.record(TimeUnit.MILLISECONDS.toNanos(40));
+		histogram.record(TimeUnit.MILLISECONDS.toNanos(70));
+		assertEquals(100, histogram.getCount());
+		assertEquals(70, histogram.getMax(), 0);
+		assertEquals(1, histogram.getPercentile(0.5), 0);
+		assertEquals(50, histogram.getPercentile(0.99), 0);
+		// the upper bound of the last bucket is capped by the maximum
+		assertEquals(70, histogram.getPercentile(1), 0);
+	}
+
+	@Test
+	public void strategiesAreRecordedByName() {
+		CompletionStatistics statistics = new CompletionStatistics();
+		RecoveryStrategy strategy = new ExpandOneDashToTwoDashesRecoveryStrategy();
+		statistics.recordTrigger(strategy, true);
+		statistics.recordTrigger(strategy, false);
+		statistics.recordProposals(strategy, TimeUnit.MILLISECONDS.toNanos(3), 4);
+		statistics.recordCompletion("time --", 1, TimeUnit.SECONDS.toNanos(1),
+				Collections.<Object, Long>singletonMap(strategy, TimeUnit.MILLISECONDS.toNanos(3)));
+		CompletionStatistics.Statistics recorded = statistics.getStrategies().get("ExpandOneDashToTwoDashesRecoveryStrategy");
+		assertEquals(1, recorded.getTriggeredCount());
+		assertEquals(1, recorded.getSkippedCount());
+		assertEquals(4, recorded.getProposalCount());
+		assertEquals(1, recorded.getLatency().getCount());
+		assertEquals(1, statistics.getSlowCompletionCount());
+	}
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Tests for {@link ModuleClassLoaderPool}, using the exploded modules of
+ * {@link StreamCompletionProviderTests}.
+ *
+ * @author Patrick Peralta
+ */
+public class ModuleClassLoaderPoolTests {
+
+	private static final File ROOT = new File("src/test/resources",
+			ModuleClassLoaderPoolTests.class.getPackage().getName().replace('.', '/') + "/modules");
+
+	private static final ArtifactCoordinates HTTP = ArtifactCoordinates.parse("com.acme:http-source:1.0");
+
+	private static final ArtifactCoordinates LOG = ArtifactCoordinates.parse("com.acme:log-sink:1.0");
+
+	@Test
+	public void classLoadersAreShared() throws IOException {
+		ModuleClassLoaderPool pool = new ModuleClassLoaderPool();
+		ClassLoader classLoader;
+		try (ModuleClassLoaderPool.Lease lease = pool.acquire(HTTP, resource(HTTP))) {
+			classLoader = lease.getClassLoader();
+			try (ModuleClassLoaderPool.Lease other = pool.acquire(HTTP, resource(HTTP))) {
+				assertSame(classLoader, other.getClassLoader());
+			}
+		}
+		try (ModuleClassLoaderPool.Lease lease = pool.acquire(HTTP, resource(HTTP))) {
+			assertSame(classLoader, lease.getClassLoader());
+		}
+		assertEquals(1, pool.size());
+		assertEquals(1, pool.getMissCount());
+		assertEquals(2, pool.getHitCount());
+	}
+
+	@Test
+	public void leastRecentlyUsedIsEvicted() throws IOException {
+		ModuleClassLoaderPool pool = new ModuleClassLoaderPool(1, ModuleClassLoaderPool.DEFAULT_IDLE_TIMEOUT);
+		ModuleClassLoaderPool.Lease http = pool.acquire(HTTP, resource(HTTP));
+		pool.acquire(LOG, resource(LOG)).close();
+		assertEquals(1, pool.size());
+		assertEquals(1, pool.getEvictionCount());
+		// the evicted class loader remains usable until its lease is closed
+		ClassLoader evicted = http.getClassLoader();
+		http.close();
+		try (ModuleClassLoaderPool.Lease lease = pool.acquire(HTTP, resource(HTTP))) {
+			assertNotSame(evicted, lease.getClassLoader());
+		}
+		assertEquals(3, pool.getMissCount());
+	}
+
+	@Test
+	public void idleClassLoadersAreEvicted() throws IOException {
+		ModuleClassLoaderPool pool = new ModuleClassLoaderPool(4, 0);
+		try (ModuleClassLoaderPool.Lease lease = pool.acquire(HTTP, resource(HTTP))) {
+			pool.evictIdle();
+			assertEquals(1, pool.size());
+		}
+		pool.evictIdle();
+		assertEquals(0, pool.size());
+		pool.close();
+	}
+
+	@Test
+	public void idleClassLoadersAreEvictedOnSchedule() throws Exception {
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.initialize();
+		ModuleClassLoaderPool pool = new ModuleClassLoaderPool(4, 100);
+		try {
+			pool.setEvictionScheduler(scheduler);
+			pool.acquire(HTTP, resource(HTTP)).close();
+			pool.acquire(LOG, resource(LOG)).close();
+			long deadline = System.currentTimeMillis() + 5000;
+			while (pool.size() > 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(20);
+			}
+			assertEquals(0, pool.size());
+			assertEquals(2, pool.getEvictionCount());
+			assertEquals(0, pool.getHitCount());
+		}
+		finally {
+			pool.close();
+			scheduler.shutdown();
+		}
+	}
+
+	private static Resource resource(ArtifactCoordinates coordinates) {
+		return new FileSystemResource(new File(ROOT, coordinates.getArtifactId()));
+	}
+
+}
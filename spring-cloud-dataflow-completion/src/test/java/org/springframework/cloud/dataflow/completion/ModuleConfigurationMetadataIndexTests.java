@@ -0,0 +1,246 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.boot.configurationmetadata.ConfigurationMetadataProperty;
+import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
+import org.springframework.cloud.stream.module.resolver.Coordinates;
+import org.springframework.cloud.stream.module.resolver.ModuleResolver;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Tests for {@link ModuleConfigurationMetadataIndex}.
+ *
+ * @author Patrick Peralta
+ */
+public class ModuleConfigurationMetadataIndexTests {
+
+	private static final ArtifactCoordinates TIME = ArtifactCoordinates.parse("org.example:time-source:1.0.0");
+
+	private static final ArtifactCoordinates TIME_SNAPSHOT =
+			ArtifactCoordinates.parse("org.example:time-source:1.1.0-SNAPSHOT");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Resource resource = new ByteArrayResource(new byte[0]);
+
+	private ModuleResolver moduleResolver;
+
+	private ModuleConfigurationMetadataResolver metadataResolver;
+
+	private ModuleConfigurationMetadataIndex index;
+
+	@Before
+	public void setUp() {
+		moduleResolver = mock(ModuleResolver.class);
+		metadataResolver = mock(ModuleConfigurationMetadataResolver.class);
+		when(moduleResolver.resolve(any(Coordinates.class))).thenReturn(resource);
+		when(metadataResolver.listProperties(resource)).thenReturn(Arrays.asList(
+				property("fixedDelay"), property("timeUnit")));
+		index = new ModuleConfigurationMetadataIndex(moduleResolver, metadataResolver);
+	}
+
+	@Test
+	public void metadataIsExtractedOnce() {
+		assertEquals(2, index.listProperties(TIME).size());
+		assertEquals("timeUnit", index.findProperty(TIME, "timeUnit").getId());
+		assertNull(index.findProperty(TIME, "unknown"));
+		assertSame(resource, index.resolve(TIME));
+		verify(moduleResolver, times(1)).resolve(any(Coordinates.class));
+		verify(metadataResolver, times(1)).listProperties(resource);
+		assertEquals(1, index.getMissCount());
+		assertEquals(3, index.getHitCount());
+	}
+
+	@Test
+	public void invalidatedMetadataIsExtractedAgain() {
+		index.listProperties(TIME);
+		index.invalidate(TIME);
+		assertEquals(0, index.size());
+		index.listProperties(TIME);
+		verify(metadataResolver, times(2)).listProperties(resource);
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	public void prefetchedMetadataIsReadyOnceExtracted() {
+		List<Runnable> tasks = new ArrayList<>();
+		index.setExecutor(collecting(tasks));
+		index.prefetch(TIME);
+		index.prefetch(TIME);
+		assertEquals(1, tasks.size());
+		assertEquals(ModuleConfigurationMetadataIndex.Status.PENDING, index.getStatus(TIME));
+		tasks.get(0).run();
+		assertEquals(ModuleConfigurationMetadataIndex.Status.READY, index.getStatus(TIME));
+		assertEquals(2, index.listProperties(TIME).size());
+		verify(metadataResolver, times(1)).listProperties(resource);
+	}
+
+	@Test
+	public void failedPrefetchIsReported() {
+		when(metadataResolver.listProperties(resource)).thenThrow(new IllegalStateException("corrupt archive"));
+		List<Runnable> tasks = new ArrayList<>();
+		index.setExecutor(collecting(tasks));
+		index.prefetch(TIME);
+		tasks.get(0).run();
+		assertEquals(ModuleConfigurationMetadataIndex.Status.FAILED, index.getStatus(TIME));
+		index.invalidate(TIME);
+		assertNull(index.getStatus(TIME));
+	}
+
+	@Test
+	public void failedExtractionIsKeptUntilInvalidated() {
+		when(metadataResolver.listProperties(resource)).thenThrow(new IllegalStateException("corrupt archive"));
+		for (int i = 0; i < 2; i++) {
+			try {
+				index.listProperties(TIME);
+				fail("IllegalStateException expected");
+			}
+			catch (IllegalStateException e) {
+				assertEquals("corrupt archive", e.getMessage());
+			}
+		}
+		assertEquals(ModuleConfigurationMetadataIndex.Status.FAILED, index.getStatus(TIME));
+		verify(moduleResolver, times(1)).resolve(any(Coordinates.class));
+
+		index.invalidate(TIME);
+		when(metadataResolver.listProperties(resource)).thenReturn(Arrays.asList(property("fixedDelay")));
+		assertEquals(1, index.listProperties(TIME).size());
+		verify(moduleResolver, times(2)).resolve(any(Coordinates.class));
+	}
+
+	@Test
+	public void releasedMetadataIsReadFromDiskByNewIndex() {
+		index = new ModuleConfigurationMetadataIndex(moduleResolver, metadataResolver, folder.getRoot());
+		assertEquals(2, index.listProperties(TIME).size());
+		assertEquals(1, folder.getRoot().listFiles().length);
+
+		index = new ModuleConfigurationMetadataIndex(moduleResolver, metadataResolver, folder.getRoot());
+		assertEquals(2, index.listProperties(TIME).size());
+		assertEquals("timeUnit", index.findProperty(TIME, "timeUnit").getId());
+		verify(moduleResolver, times(1)).resolve(any(Coordinates.class));
+		verify(metadataResolver, times(1)).listProperties(resource);
+		// the artifact itself is only resolved when asked for
+		assertSame(resource, index.resolve(TIME));
+		verify(moduleResolver, times(2)).resolve(any(Coordinates.class));
+	}
+
+	@Test
+	public void snapshotMetadataIsNotWrittenToDisk() {
+		index = new ModuleConfigurationMetadataIndex(moduleResolver, metadataResolver, folder.getRoot());
+		assertEquals(2, index.listProperties(TIME_SNAPSHOT).size());
+		File[] files = folder.getRoot().listFiles();
+		assertTrue(files == null || files.length == 0);
+
+		index = new ModuleConfigurationMetadataIndex(moduleResolver, metadataResolver, folder.getRoot());
+		index.listProperties(TIME_SNAPSHOT);
+		verify(metadataResolver, times(2)).listProperties(resource);
+	}
+
+	@Test
+	public void invalidatedMetadataIsDeletedFromDisk() {
+		index = new ModuleConfigurationMetadataIndex(moduleResolver, metadataResolver, folder.getRoot());
+		index.listProperties(TIME);
+		index.invalidate(TIME);
+		assertEquals(0, folder.getRoot().listFiles().length);
+
+		index = new ModuleConfigurationMetadataIndex(moduleResolver, metadataResolver, folder.getRoot());
+		index.listProperties(TIME);
+		verify(metadataResolver, times(2)).listProperties(resource);
+		assertEquals(ModuleConfigurationMetadataIndex.Status.READY, index.getStatus(TIME));
+	}
+
+	@Test
+	public void rejectedPrefetchIsDropped() {
+		index.setExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				throw new RejectedExecutionException();
+			}
+		});
+		index.prefetch(TIME);
+		assertNull(index.getStatus(TIME));
+		assertEquals(0, index.size());
+		assertEquals(2, index.listProperties(TIME).size());
+		assertEquals(ModuleConfigurationMetadataIndex.Status.READY, index.getStatus(TIME));
+	}
+
+	@Test
+	public void prefetchWithoutExecutorIsIgnored() {
+		index.prefetch(TIME);
+		assertNull(index.getStatus(TIME));
+		verify(moduleResolver, never()).resolve(any(Coordinates.class));
+	}
+
+	@Test
+	public void queuedPrefetchIsRunByRequestingThread() {
+		List<Runnable> tasks = new ArrayList<>();
+		index.setExecutor(collecting(tasks));
+		index.prefetch(TIME);
+		assertEquals(2, index.listProperties(TIME).size());
+		assertEquals(ModuleConfigurationMetadataIndex.Status.READY, index.getStatus(TIME));
+		// the queued task has nothing left to do when the executor gets to it
+		tasks.get(0).run();
+		verify(metadataResolver, times(1)).listProperties(resource);
+	}
+
+	/**
+	 * Return an executor that queues tasks in the given list, for the test to run.
+	 */
+	private static Executor collecting(final List<Runnable> tasks) {
+		return new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				tasks.add(command);
+			}
+		};
+	}
+
+	private static ConfigurationMetadataProperty property(String id) {
+		ConfigurationMetadataProperty property = new ConfigurationMetadataProperty();
+		property.setId(id);
+		return property;
+	}
+
+}
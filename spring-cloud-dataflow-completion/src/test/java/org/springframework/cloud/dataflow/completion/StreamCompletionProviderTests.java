@@ -36,6 +36,7 @@ import org.springframework.boot.loader.LaunchedURLClassLoader;
 import org.springframework.boot.loader.archive.Archive;
 import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.core.ArtifactCoordinates;
+import org.springframework.cloud.dataflow.artifact.registry.AbstractArtifactRegistry;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistration;
 import org.springframework.cloud.dataflow.artifact.registry.ArtifactRegistry;
 import org.springframework.cloud.stream.configuration.metadata.ModuleConfigurationMetadataResolver;
@@ -274,7 +275,7 @@ public class StreamCompletionProviderTests {
 
 		@Bean
 		public ArtifactRegistry artifactRegistry() {
-			return new ArtifactRegistry() {
+			return new AbstractArtifactRegistry() {
 				@Override
 				public ArtifactRegistration find(String name, ArtifactType type) {
 					String filename = name + "-" + type;
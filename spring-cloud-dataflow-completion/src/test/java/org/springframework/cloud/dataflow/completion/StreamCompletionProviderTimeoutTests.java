@@ -0,0 +1,193 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.completion;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cloud.dataflow.core.StreamDefinition;
+import org.springframework.cloud.dataflow.core.dsl.ParseFailure;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Tests for {@link StreamCompletionProvider} running strategies concurrently.
+ *
+ * @author Patrick Peralta
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = StreamCompletionProviderTimeoutTests.Config.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class StreamCompletionProviderTimeoutTests {
+
+	@Autowired
+	private StreamCompletionProvider completionProvider;
+
+	@Autowired
+	@Qualifier("rejectingStreamCompletionProvider")
+	private StreamCompletionProvider rejectingCompletionProvider;
+
+	@Autowired
+	private CountDownLatch latch;
+
+	@Autowired
+	private CountDownLatch interrupted;
+
+	@Test
+	public void proposalsOfSlowStrategiesAreLeftOut() {
+		assertThat(texts(completionProvider.complete("time | log", 1)), contains("fast"));
+		latch.countDown();
+		// proposals are ordered as the strategies are, whichever completes first
+		assertThat(texts(completionProvider.complete("time | log", 1)), contains("slow", "fast"));
+	}
+
+	@Test
+	public void slowStrategiesAreInterrupted() throws InterruptedException {
+		assertThat(texts(completionProvider.complete("time | log", 1)), contains("fast"));
+		assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void rejectedStrategiesAreSkipped() {
+		long start = System.nanoTime();
+		assertThat(rejectingCompletionProvider.complete("time | log", 1), is(empty()));
+		// the slow strategy did not run on the calling thread
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+		assertThat(interrupted.getCount(), is(1L));
+	}
+
+	private static List<String> texts(List<CompletionProposal> proposals) {
+		List<String> texts = new ArrayList<>();
+		for (CompletionProposal proposal : proposals) {
+			texts.add(proposal.getText());
+		}
+		return texts;
+	}
+
+	@Configuration
+	public static class Config {
+
+		@Bean(destroyMethod = "shutdownNow")
+		public ExecutorService executor() {
+			return Executors.newCachedThreadPool();
+		}
+
+		@Bean
+		public CountDownLatch latch() {
+			return new CountDownLatch(1);
+		}
+
+		@Bean
+		public CountDownLatch interrupted() {
+			return new CountDownLatch(1);
+		}
+
+		@Bean
+		@Primary
+		public StreamCompletionProvider streamCompletionProvider() {
+			StreamCompletionProvider provider = new StreamCompletionProvider();
+			provider.setExecutor(executor());
+			provider.setTimeout(200);
+			return provider;
+		}
+
+		@Bean
+		public StreamCompletionProvider rejectingStreamCompletionProvider() {
+			StreamCompletionProvider provider = new StreamCompletionProvider();
+			provider.setExecutor(new Executor() {
+				@Override
+				public void execute(Runnable command) {
+					throw new RejectedExecutionException("no thread available");
+				}
+			});
+			return provider;
+		}
+
+		@Bean
+		public RecoveryStrategy unusedRecoveryStrategy() {
+			return new RecoveryStrategy() {
+
+				@Override
+				public boolean shouldTrigger(String dslStart, ParseFailure failure) {
+					return false;
+				}
+
+				@Override
+				public void addProposals(String dsl, ParseFailure failure, int detailLevel,
+						List<CompletionProposal> proposals) {
+				}
+			};
+		}
+
+		@Bean
+		public ExpansionStrategy slowExpansionStrategy() {
+			return new ExpansionStrategy() {
+
+				@Override
+				public boolean addProposals(String text, StreamDefinition streamDefinition, int detailLevel,
+						List<CompletionProposal> collector) {
+					try {
+						latch().await(10, TimeUnit.SECONDS);
+					}
+					catch (InterruptedException e) {
+						interrupted().countDown();
+						Thread.currentThread().interrupt();
+					}
+					collector.add(new CompletionProposal("slow", "waits for the latch"));
+					return false;
+				}
+			};
+		}
+
+		@Bean
+		public ExpansionStrategy fastExpansionStrategy() {
+			return new ExpansionStrategy() {
+
+				@Override
+				public boolean addProposals(String text, StreamDefinition streamDefinition, int detailLevel,
+						List<CompletionProposal> collector) {
+					collector.add(new CompletionProposal("fast", "returns at once"));
+					return false;
+				}
+			};
+		}
+
+	}
+
+}
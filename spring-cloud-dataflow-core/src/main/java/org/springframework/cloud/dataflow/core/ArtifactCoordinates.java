@@ -16,8 +16,9 @@
 
 package org.springframework.cloud.dataflow.core;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
@@ -43,6 +44,9 @@ import org.springframework.util.StringUtils;
  * ArtifactCoordinates.parse("org.springframework.cloud.stream.module:time-source:jar:exec:2.0.0);
  * </pre>
  * </p>
+ * Instances are canonicalized: as long as some instance is in use, equal coordinates
+ * that are parsed or built resolve to that same instance.
+ *
  * @author David Turanski
  * @author Mark Fisher
  * @author Patrick Peralta
@@ -59,6 +63,14 @@ public class ArtifactCoordinates {
 	 */
 	final static String EMPTY_CLASSIFIER = "";
 
+	/**
+	 * Canonical instances, keyed by their {@link #toString() string form}. Entries
+	 * go away once their instance is no longer used, as it holds the only strong
+	 * reference to its key.
+	 */
+	private static final Map<String, WeakReference<ArtifactCoordinates>> canonicalInstances =
+			new WeakHashMap<>();
+
 	/**
 	 * Group ID for artifact; generally this includes the name of the
 	 * organization that generated the artifact.
@@ -85,6 +97,14 @@ public class ArtifactCoordinates {
 	 */
 	private final String version;
 
+	/**
+	 * String form of these coordinates.
+	 *
+	 * @see #toString()
+	 */
+	private final String string;
+
+	private final int hash;
 
 	/**
 	 * Construct a {@code ArtifactCoordinates} object.
@@ -105,6 +125,49 @@ public class ArtifactCoordinates {
 		this.extension = extension;
 		this.classifier = classifier == null ? EMPTY_CLASSIFIER : classifier;
 		this.version = version;
+
+		StringBuilder builder = new StringBuilder(groupId.length() + artifactId.length() + extension.length()
+				+ this.classifier.length() + version.length() + 4);
+		builder.append(groupId).append(':').append(artifactId).append(':').append(extension).append(':');
+		if (StringUtils.hasLength(this.classifier)) {
+			builder.append(this.classifier).append(':');
+		}
+		this.string = builder.append(version).toString();
+
+		int result = groupId.hashCode();
+		result = 31 * result + artifactId.hashCode();
+		result = 31 * result + extension.hashCode();
+		if (StringUtils.hasLength(this.classifier)) {
+			result = 31 * result + this.classifier.hashCode();
+		}
+		result = 31 * result + version.hashCode();
+		this.hash = result;
+	}
+
+	/**
+	 * Return the canonical instance equal to the given coordinates, making them
+	 * the canonical instance if there is none yet.
+	 */
+	private static ArtifactCoordinates canonical(ArtifactCoordinates coordinates) {
+		synchronized (canonicalInstances) {
+			WeakReference<ArtifactCoordinates> reference = canonicalInstances.get(coordinates.string);
+			ArtifactCoordinates canonical = reference != null ? reference.get() : null;
+			if (canonical == null) {
+				canonicalInstances.put(coordinates.string, new WeakReference<>(coordinates));
+				canonical = coordinates;
+			}
+			return canonical;
+		}
+	}
+
+	/**
+	 * Return the canonical instance whose string form is the given text, or {@code null}.
+	 */
+	private static ArtifactCoordinates canonical(String string) {
+		synchronized (canonicalInstances) {
+			WeakReference<ArtifactCoordinates> reference = canonicalInstances.get(string);
+			return reference != null ? reference.get() : null;
+		}
 	}
 
 	/**
@@ -162,14 +225,7 @@ public class ArtifactCoordinates {
 
 	@Override
 	public int hashCode() {
-		int result = groupId.hashCode();
-		result = 31 * result + artifactId.hashCode();
-		result = 31 * result + extension.hashCode();
-		if (StringUtils.hasLength(classifier)) {
-			result = 31 * result + classifier.hashCode();
-		}
-		result = 31 * result + version.hashCode();
-		return result;
+		return hash;
 	}
 
 	/**
@@ -179,9 +235,7 @@ public class ArtifactCoordinates {
 	 */
 	@Override
 	public String toString() {
-		return StringUtils.hasLength(classifier) ?
-				String.format("%s:%s:%s:%s:%s", groupId, artifactId, extension, classifier, version) :
-				String.format("%s:%s:%s:%s", groupId, artifactId, extension, version);
+		return string;
 	}
 
 	/**
@@ -193,21 +247,62 @@ public class ArtifactCoordinates {
 	 */
 	public static ArtifactCoordinates parse(String coordinates) {
 		Assert.hasText(coordinates);
+		ArtifactCoordinates canonical = canonical(coordinates);
+		if (canonical != null) {
+			return canonical;
+		}
 
-		Pattern p = Pattern.compile("([^: ]+):([^: ]+)(:([^: ]*)(:([^: ]+))?)?:([^: ]+)");
-		Matcher m = p.matcher(coordinates);
-		Assert.isTrue(m.matches(), "Bad artifact coordinates " + coordinates
-				+ ", expected format is <groupId>:<artifactId>[:<extension>[:<classifier>]]:<version>");
+		// Offsets of the (up to 4) colons separating the segments
+		int[] colons = new int[4];
+		int colonCount = 0;
+		for (int i = 0; i < coordinates.length(); i++) {
+			char c = coordinates.charAt(i);
+			if (c == ' ') {
+				throw badCoordinates(coordinates);
+			}
+			if (c == ':') {
+				if (colonCount == colons.length) {
+					throw badCoordinates(coordinates);
+				}
+				colons[colonCount++] = i;
+			}
+		}
+		if (colonCount < 2) {
+			throw badCoordinates(coordinates);
+		}
 
-		String groupId = m.group(1);
-		String artifactId = m.group(2);
-		String extension = StringUtils.hasLength(m.group(4)) ? m.group(4) : DEFAULT_EXTENSION;
-		String classifier = StringUtils.hasLength(m.group(6)) ? m.group(6) : EMPTY_CLASSIFIER;
-		String version = m.group(7);
+		String groupId = segment(coordinates, -1, colons[0], false);
+		String artifactId = segment(coordinates, colons[0], colons[1], false);
+		String extension = DEFAULT_EXTENSION;
+		String classifier = EMPTY_CLASSIFIER;
+		if (colonCount > 2) {
+			String segment = segment(coordinates, colons[1], colons[2], true);
+			if (!segment.isEmpty()) {
+				extension = segment;
+			}
+		}
+		if (colonCount > 3) {
+			classifier = segment(coordinates, colons[2], colons[3], false);
+		}
+		String version = segment(coordinates, colons[colonCount - 1], coordinates.length(), false);
 
-		return new ArtifactCoordinates(groupId, artifactId, extension, classifier, version);
+		return canonical(new ArtifactCoordinates(groupId, artifactId, extension, classifier, version));
 	}
 
+	/**
+	 * Return the segment of the given coordinates that lies between two offsets, exclusive.
+	 */
+	private static String segment(String coordinates, int from, int to, boolean mayBeEmpty) {
+		if (to - from == 1 && !mayBeEmpty) {
+			throw badCoordinates(coordinates);
+		}
+		return coordinates.substring(from + 1, to);
+	}
+
+	private static IllegalArgumentException badCoordinates(String coordinates) {
+		return new IllegalArgumentException("Bad artifact coordinates " + coordinates
+				+ ", expected format is <groupId>:<artifactId>[:<extension>[:<classifier>]]:<version>");
+	}
 
 	public static class Builder {
 
@@ -248,7 +343,7 @@ public class ArtifactCoordinates {
 		}
 
 		public ArtifactCoordinates build() {
-			return new ArtifactCoordinates(groupId, artifactId, extension, classifier, version);
+			return canonical(new ArtifactCoordinates(groupId, artifactId, extension, classifier, version));
 		}
 	}
 
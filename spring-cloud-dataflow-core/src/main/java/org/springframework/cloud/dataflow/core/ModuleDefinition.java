@@ -17,7 +17,6 @@
 package org.springframework.cloud.dataflow.core;
 
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -57,7 +56,7 @@ public class ModuleDefinition {
 	 * Parameters for module. This is specific to the type of module - for
 	 * instance an http module would include a port number as a parameter.
 	 */
-	private final Map<String, String> parameters;
+	private final ModuleParameters parameters;
 
 
 	/**
@@ -76,9 +75,7 @@ public class ModuleDefinition {
 		this.name = name;
 		this.label = label;
 		this.group = group;
-		this.parameters = parameters == null
-				? Collections.<String, String>emptyMap()
-				: Collections.unmodifiableMap(new HashMap<String, String>(parameters));
+		this.parameters = ModuleParameters.of(parameters);
 	}
 
 	/**
@@ -154,13 +151,24 @@ public class ModuleDefinition {
 		private String group;
 
 		/**
+		 * Immutable parameters, shared with the definition this builder was
+		 * created {@link #from(ModuleDefinition) from} until they are modified.
+		 *
 		 * @see ModuleDefinition#parameters
 		 */
-		private final Map<String, String> parameters = new HashMap<String, String>();
+		private ModuleParameters parameters = ModuleParameters.EMPTY;
+
+		/**
+		 * Mutable copy of the parameters, made when {@link #getParameters()} is
+		 * first called; from then on, it holds the parameters of this builder.
+		 */
+		private Map<String, String> mutableParameters;
 
 		/**
 		 * Create a new builder that is initialized with properties of the given definition.
 		 * Useful for "mutating" a definition by building a slightly different copy.
+		 * The parameters of the given definition are not copied, and remain shared
+		 * with the built copy as long as they are not modified.
 		 */
 		public static Builder from(ModuleDefinition definition) {
 			Builder builder = new Builder();
@@ -221,7 +229,12 @@ public class ModuleDefinition {
 		 * @see ModuleDefinition#parameters
 		 */
 		public Builder setParameter(String name, String value) {
-			this.parameters.put(name, value);
+			if (this.mutableParameters != null) {
+				this.mutableParameters.put(name, value);
+			}
+			else {
+				this.parameters = this.parameters.with(name, value);
+			}
 			return this;
 		}
 
@@ -234,7 +247,12 @@ public class ModuleDefinition {
 		 * @see ModuleDefinition#parameters
 		 */
 		public Builder addParameters(Map<String, String> parameters) {
-			this.parameters.putAll(parameters);
+			if (this.mutableParameters != null) {
+				this.mutableParameters.putAll(parameters);
+			}
+			else {
+				this.parameters = this.parameters.withAll(parameters);
+			}
 			return this;
 		}
 
@@ -277,7 +295,10 @@ public class ModuleDefinition {
 		 * @return map of module parameters
 		 */
 		public Map<String, String> getParameters() {
-			return parameters;
+			if (this.mutableParameters == null) {
+				this.mutableParameters = new HashMap<String, String>(this.parameters);
+			}
+			return this.mutableParameters;
 		}
 
 		/**
@@ -289,7 +310,8 @@ public class ModuleDefinition {
 			if (this.label == null) {
 				this.label = this.name;
 			}
-			return new ModuleDefinition(this.name, this.label, this.group, this.parameters);
+			return new ModuleDefinition(this.name, this.label, this.group,
+					this.mutableParameters != null ? this.mutableParameters : this.parameters);
 		}
 	}
 
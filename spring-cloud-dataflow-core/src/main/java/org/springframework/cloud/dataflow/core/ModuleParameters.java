@@ -0,0 +1,190 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.springframework.util.Assert;
+
+/**
+ * Compact, immutable map of {@link ModuleDefinition} parameters. Keys are held
+ * sorted in an array, and values in a parallel array; lookups use a binary search.
+ * Keys are interned, so that the names of well known parameters (such as the
+ * {@link BindingProperties} keys) are shared by all instances.
+ * <p>
+ * Deriving a map that only differs by one value shares the array of keys with
+ * the original map.
+ *
+ * @author Patrick Peralta
+ */
+final class ModuleParameters extends AbstractMap<String, String> {
+
+	static final ModuleParameters EMPTY = new ModuleParameters(new String[0], new String[0]);
+
+	private final String[] keys;
+
+	private final String[] values;
+
+	private ModuleParameters(String[] keys, String[] values) {
+		this.keys = keys;
+		this.values = values;
+	}
+
+	/**
+	 * Return a {@code ModuleParameters} holding the same entries as the given map,
+	 * which is returned as is if it already is a {@code ModuleParameters}.
+	 *
+	 * @param parameters the parameters; may be {@code null}
+	 * @return an immutable copy of the parameters
+	 */
+	static ModuleParameters of(Map<String, String> parameters) {
+		if (parameters instanceof ModuleParameters) {
+			return (ModuleParameters) parameters;
+		}
+		if (parameters == null || parameters.isEmpty()) {
+			return EMPTY;
+		}
+		String[] keys = new String[parameters.size()];
+		int i = 0;
+		for (String key : parameters.keySet()) {
+			Assert.notNull(key, "parameter names must not be null");
+			keys[i++] = key.intern();
+		}
+		Arrays.sort(keys);
+		String[] values = new String[keys.length];
+		for (i = 0; i < keys.length; i++) {
+			values[i] = parameters.get(keys[i]);
+		}
+		return new ModuleParameters(keys, values);
+	}
+
+	/**
+	 * Return a {@code ModuleParameters} that has the given parameter set to the
+	 * given value, and is otherwise identical to this one.
+	 *
+	 * @param key the parameter name
+	 * @param value the parameter value
+	 * @return the derived parameters, which may be this instance if it already
+	 * holds the given value
+	 */
+	ModuleParameters with(String key, String value) {
+		Assert.notNull(key, "parameter names must not be null");
+		int index = Arrays.binarySearch(keys, key);
+		if (index >= 0) {
+			if (value == null ? values[index] == null : value.equals(values[index])) {
+				return this;
+			}
+			String[] newValues = values.clone();
+			newValues[index] = value;
+			return new ModuleParameters(keys, newValues);
+		}
+		int insertion = -(index + 1);
+		String[] newKeys = new String[keys.length + 1];
+		String[] newValues = new String[keys.length + 1];
+		System.arraycopy(keys, 0, newKeys, 0, insertion);
+		System.arraycopy(values, 0, newValues, 0, insertion);
+		newKeys[insertion] = key.intern();
+		newValues[insertion] = value;
+		System.arraycopy(keys, insertion, newKeys, insertion + 1, keys.length - insertion);
+		System.arraycopy(values, insertion, newValues, insertion + 1, keys.length - insertion);
+		return new ModuleParameters(newKeys, newValues);
+	}
+
+	/**
+	 * Return a {@code ModuleParameters} that has all the given parameters set,
+	 * and is otherwise identical to this one.
+	 *
+	 * @param parameters the parameters to set
+	 * @return the derived parameters
+	 */
+	ModuleParameters withAll(Map<String, String> parameters) {
+		if (isEmpty()) {
+			return of(parameters);
+		}
+		ModuleParameters result = this;
+		for (Map.Entry<String, String> entry : parameters.entrySet()) {
+			result = result.with(entry.getKey(), entry.getValue());
+		}
+		return result;
+	}
+
+	@Override
+	public int size() {
+		return keys.length;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof String && Arrays.binarySearch(keys, key) >= 0;
+	}
+
+	@Override
+	public String get(Object key) {
+		if (!(key instanceof String)) {
+			return null;
+		}
+		int index = Arrays.binarySearch(keys, key);
+		return index >= 0 ? values[index] : null;
+	}
+
+	@Override
+	public Set<Map.Entry<String, String>> entrySet() {
+		return new AbstractSet<Map.Entry<String, String>>() {
+
+			@Override
+			public Iterator<Map.Entry<String, String>> iterator() {
+				return new Iterator<Map.Entry<String, String>>() {
+
+					private int index;
+
+					@Override
+					public boolean hasNext() {
+						return index < keys.length;
+					}
+
+					@Override
+					public Map.Entry<String, String> next() {
+						if (index >= keys.length) {
+							throw new NoSuchElementException();
+						}
+						Map.Entry<String, String> entry =
+								new SimpleImmutableEntry<>(keys[index], values[index]);
+						index++;
+						return entry;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return keys.length;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.util.Assert;
+
+/**
+ * A size bounded, least recently used cache of the result of parsing a definition,
+ * keyed on the definition name and its DSL text. Both are part of the key as the name
+ * of a definition influences the outcome of parsing (for example, stream names end up
+ * in binding properties).
+ * <p>
+ * Values must be immutable, as they are shared by every caller asking for the same
+ * definition. Hit, miss and eviction counts are kept for monitoring purposes.
+ *
+ * @param <V> the type of parsed values
+ *
+ * @author Patrick Peralta
+ */
+public class ParsedDefinitionCache<V> {
+
+	private final LinkedHashMap<Key, V> entries = new LinkedHashMap<Key, V>(16, 0.75f, true) {
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+			if (size() > maxSize) {
+				evictions.incrementAndGet();
+				return true;
+			}
+			return false;
+		}
+	};
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	private volatile int maxSize;
+
+	/**
+	 * Construct a cache holding at most {@code maxSize} entries.
+	 *
+	 * @param maxSize maximum number of entries, {@code 0} disables caching
+	 */
+	public ParsedDefinitionCache(int maxSize) {
+		Assert.isTrue(maxSize >= 0, "maxSize must not be negative");
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Return the value cached for the given definition, or {@code null} if there is none.
+	 *
+	 * @param name the definition name
+	 * @param dslText the definition DSL text
+	 * @return the cached value, or {@code null}
+	 */
+	public V get(String name, String dslText) {
+		V value;
+		synchronized (entries) {
+			value = entries.get(new Key(name, dslText));
+		}
+		if (value != null) {
+			hits.incrementAndGet();
+		}
+		else {
+			misses.incrementAndGet();
+		}
+		return value;
+	}
+
+	/**
+	 * Cache the parsed value of the given definition, evicting the least recently used
+	 * entry if the cache is full.
+	 *
+	 * @param name the definition name
+	 * @param dslText the definition DSL text
+	 * @param value the parsed value
+	 */
+	public void put(String name, String dslText, V value) {
+		Assert.notNull(value, "value must not be null");
+		if (maxSize == 0) {
+			return;
+		}
+		synchronized (entries) {
+			entries.put(new Key(name, dslText), value);
+		}
+	}
+
+	/**
+	 * Remove all entries. Statistics are preserved.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Change the maximum number of entries, evicting least recently used entries
+	 * if needed.
+	 *
+	 * @param maxSize maximum number of entries, {@code 0} disables caching
+	 */
+	public void setMaxSize(int maxSize) {
+		Assert.isTrue(maxSize >= 0, "maxSize must not be negative");
+		synchronized (entries) {
+			this.maxSize = maxSize;
+			Iterator<Key> it = entries.keySet().iterator();
+			while (entries.size() > maxSize && it.hasNext()) {
+				it.next();
+				it.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	private static final class Key {
+
+		private final String name;
+
+		private final String dslText;
+
+		private final int hash;
+
+		private Key(String name, String dslText) {
+			this.name = name;
+			this.dslText = dslText;
+			this.hash = 31 * name.hashCode() + dslText.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return hash == other.hash && name.equals(other.name) && dslText.equals(other.dslText);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+}
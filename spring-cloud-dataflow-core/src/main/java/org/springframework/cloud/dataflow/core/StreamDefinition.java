@@ -16,13 +16,15 @@
 
 package org.springframework.cloud.dataflow.core;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 
 import org.springframework.cloud.dataflow.core.dsl.StreamNode;
 import org.springframework.cloud.dataflow.core.dsl.StreamParser;
+import org.springframework.cloud.dataflow.core.dsl.TokenBuffer;
 import org.springframework.core.style.ToStringCreator;
 import org.springframework.util.Assert;
 
@@ -42,6 +44,17 @@ import org.springframework.util.Assert;
  */
 public class StreamDefinition {
 
+	/**
+	 * Default maximum number of entries of the {@link #getParseCache() parse cache}.
+	 */
+	public static final int DEFAULT_PARSE_CACHE_SIZE = 10000;
+
+	/**
+	 * Cache of parsed module lists, shared by all users of {@link #cached(String, String)}.
+	 */
+	private static final ParsedDefinitionCache<List<ModuleDefinition>> parseCache =
+			new ParsedDefinitionCache<>(DEFAULT_PARSE_CACHE_SIZE);
+
 	/**
 	 * Name of stream.
 	 */
@@ -53,10 +66,10 @@ public class StreamDefinition {
 	private final String dslText;
 
 	/**
-	 * Ordered list of {@link ModuleDefinition}s comprising this stream.
+	 * Ordered, read-only list of {@link ModuleDefinition}s comprising this stream.
 	 * The source is the first entry and the sink is the last entry.
 	 */
-	private final LinkedList<ModuleDefinition> modules;
+	private final List<ModuleDefinition> modules;
 
 	/**
 	 * Construct a {@code StreamDefinition}.
@@ -69,11 +82,62 @@ public class StreamDefinition {
 		Assert.hasText(dslText, "dslText is required");
 		this.name = name;
 		this.dslText = dslText;
-		this.modules = new LinkedList<>();
-		StreamNode streamNode = new StreamParser(name, dslText).parse();
-		for (ModuleDefinition module : new ModuleDefinitionBuilder(name, streamNode).build()) {
-			this.modules.addFirst(module);
+		this.modules = parse(name, dslText);
+	}
+
+	StreamDefinition(String name, String dslText, List<ModuleDefinition> modules) {
+		this.name = name;
+		this.dslText = dslText;
+		this.modules = modules;
+	}
+
+	/**
+	 * Return a {@code StreamDefinition} for the given name and DSL, reusing the
+	 * parsed modules of an identical definition if it is present in the
+	 * {@link #getParseCache() parse cache}.
+	 *
+	 * @param name     name of stream
+	 * @param dslText  DSL definition for stream
+	 * @return the stream definition
+	 */
+	public static StreamDefinition cached(String name, String dslText) {
+		Assert.hasText(name, "name is required");
+		Assert.hasText(dslText, "dslText is required");
+		List<ModuleDefinition> modules = parseCache.get(name, dslText);
+		if (modules == null) {
+			modules = parse(name, dslText);
+			parseCache.put(name, dslText, modules);
 		}
+		return new StreamDefinition(name, dslText, modules);
+	}
+
+	/**
+	 * Return the cache used by {@link #cached(String, String)}, for monitoring
+	 * and sizing purposes.
+	 *
+	 * @return the shared parse cache
+	 */
+	public static ParsedDefinitionCache<List<ModuleDefinition>> getParseCache() {
+		return parseCache;
+	}
+
+	/**
+	 * Parse the given definition into a read-only list of modules, in stream flow order.
+	 */
+	private static List<ModuleDefinition> parse(String name, String dslText) {
+		return toModules(name, new StreamParser(name, dslText, TokenBuffer.forCurrentThread()).parse());
+	}
+
+	/**
+	 * Build the read-only list of modules, in stream flow order, of a parsed definition.
+	 */
+	static List<ModuleDefinition> toModules(String name, StreamNode streamNode) {
+		List<ModuleDefinition> built = new ModuleDefinitionBuilder(name, streamNode).build();
+		List<ModuleDefinition> modules = new ArrayList<>(built.size());
+		for (int i = built.size() - 1; i >= 0; i--) {
+			modules.add(built.get(i));
+		}
+		return Collections.unmodifiableList(modules);
 	}
 
 	/**
@@ -102,7 +166,7 @@ public class StreamDefinition {
 	 * @return list of module descriptors for this stream definition
 	 */
 	public List<ModuleDefinition> getModuleDefinitions() {
-		return Collections.unmodifiableList(modules);
+		return modules;
 	}
 
 	/**
@@ -114,7 +178,7 @@ public class StreamDefinition {
 	 * @return iterator that iterates over the modules in deployment order
 	 */
 	public Iterator<ModuleDefinition> getDeploymentOrderIterator() {
-		return new ReadOnlyIterator<>(modules.descendingIterator());
+		return new ReverseIterator<>(modules.listIterator(modules.size()));
 	}
 
 	@Override
@@ -127,25 +191,25 @@ public class StreamDefinition {
 
 
 	/**
-	 * Iterator that prevents mutation of its backing data structure.
+	 * Iterator that walks a list backwards and prevents mutation of its backing data structure.
 	 *
 	 * @param <T> the type of elements returned by this iterator
 	 */
-	private static class ReadOnlyIterator<T> implements Iterator<T> {
-		private final Iterator<T> wrapped;
+	private static class ReverseIterator<T> implements Iterator<T> {
+		private final ListIterator<T> wrapped;
 
-		public ReadOnlyIterator(Iterator<T> wrapped) {
+		public ReverseIterator(ListIterator<T> wrapped) {
 			this.wrapped = wrapped;
 		}
 
 		@Override
 		public boolean hasNext() {
-			return wrapped.hasNext();
+			return wrapped.hasPrevious();
 		}
 
 		@Override
 		public T next() {
-			return wrapped.next();
+			return wrapped.previous();
 		}
 
 		@Override
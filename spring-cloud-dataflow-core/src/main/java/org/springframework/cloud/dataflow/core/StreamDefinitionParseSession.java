@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core;
+
+import org.springframework.cloud.dataflow.core.dsl.ParseFailure;
+import org.springframework.cloud.dataflow.core.dsl.ParseResult;
+import org.springframework.cloud.dataflow.core.dsl.StreamNode;
+import org.springframework.cloud.dataflow.core.dsl.StreamParser;
+import org.springframework.cloud.dataflow.core.dsl.TokenBuffer;
+import org.springframework.util.Assert;
+
+/**
+ * Parses successive versions of a stream definition, such as the ones produced
+ * while a definition is being typed in, reusing as much of the work done for the
+ * previous version as possible: only the text that follows the last change is
+ * tokenized again, and the modules that precede that change are not parsed again.
+ * <p>
+ * Parsing the very same text twice in a row returns the previous outcome, be it
+ * a definition or a parse failure.
+ * <p>
+ * This class is thread safe, although concurrent users of the same session
+ * (typically working on unrelated texts) will not benefit from reuse. Such users
+ * should rather share a {@link StreamDefinitionParseSessionPool}.
+ *
+ * @author Patrick Peralta
+ */
+public class StreamDefinitionParseSession {
+
+	/**
+	 * Name given to the parsed stream definitions.
+	 */
+	private final String name;
+
+	/**
+	 * Buffer holding the tokens of the last parsed text.
+	 */
+	private final TokenBuffer buffer = new TokenBuffer();
+
+	/**
+	 * Parser of the last text, or {@code null} if none.
+	 */
+	private StreamParser parser;
+
+	/**
+	 * Last parsed text.
+	 */
+	private volatile String lastDslText;
+
+	/**
+	 * Outcome of parsing {@link #lastDslText}.
+	 */
+	private ParseResult<StreamDefinition> lastResult;
+
+	/**
+	 * Construct a {@code StreamDefinitionParseSession}.
+	 *
+	 * @param name name given to the parsed stream definitions
+	 */
+	public StreamDefinitionParseSession(String name) {
+		Assert.hasText(name, "name is required");
+		this.name = name;
+	}
+
+	/**
+	 * @return the last parsed text, or {@code null} if none
+	 */
+	String getLastDslText() {
+		return lastDslText;
+	}
+
+	/**
+	 * Parse the given text into a {@link StreamDefinition}, throwing the same
+	 * exceptions as {@link StreamDefinition#StreamDefinition(String, String)}.
+	 *
+	 * @param dslText DSL definition for stream
+	 * @return the stream definition
+	 */
+	public StreamDefinition parse(String dslText) {
+		Assert.hasText(dslText, "dslText is required");
+		return tryParse(dslText).getValue();
+	}
+
+	/**
+	 * Parse the given text into a {@link StreamDefinition}, reporting a failure
+	 * as a {@link ParseFailure} rather than by throwing an exception.
+	 *
+	 * @param dslText DSL definition for stream, possibly empty
+	 * @return the stream definition, or why parsing failed
+	 * @see StreamParser#tryParse()
+	 */
+	public synchronized ParseResult<StreamDefinition> tryParse(String dslText) {
+		Assert.notNull(dslText, "dslText must not be null");
+		if (dslText.equals(lastDslText)) {
+			return lastResult;
+		}
+		parser = parser == null
+				? new StreamParser(name, dslText, buffer)
+				: new StreamParser(name, dslText, parser);
+		ParseResult<StreamNode> parsed = parser.tryParse();
+		lastDslText = dslText;
+		lastResult = parsed.isSuccessful()
+				? ParseResult.success(new StreamDefinition(name, dslText,
+						StreamDefinition.toModules(name, parsed.getValue())))
+				: ParseResult.<StreamDefinition>failure(parsed.getFailure());
+		return lastResult;
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.cloud.dataflow.core.dsl.ParseResult;
+import org.springframework.util.Assert;
+
+/**
+ * A fixed number of {@link StreamDefinitionParseSession parse sessions}, shared by
+ * concurrent users that each type in their own definition.
+ * <p>
+ * Each text is parsed by the idle session whose last text shares the longest prefix
+ * with it, which is most likely the session that parsed the previous version of the
+ * same definition; among equally good sessions, the least recently used one. Users therefore do not wait for each other, and do not discard
+ * each other's work as long as there are no more of them than sessions. When all
+ * sessions are busy, the text is parsed from scratch.
+ *
+ * @author Patrick Peralta
+ */
+public class StreamDefinitionParseSessionPool {
+
+	/**
+	 * Default number of sessions.
+	 */
+	public static final int DEFAULT_SIZE = 8;
+
+	private final String name;
+
+	private final StreamDefinitionParseSession[] sessions;
+
+	/**
+	 * Whether each session is in use: 1 if so, 0 if not.
+	 */
+	private final AtomicIntegerArray busy;
+
+	/**
+	 * When each session was last claimed, as a value of {@link #clock}.
+	 */
+	private final AtomicLongArray lastUsed;
+
+	private final AtomicLong clock = new AtomicLong();
+
+	/**
+	 * Construct a {@code StreamDefinitionParseSessionPool} of the
+	 * {@link #DEFAULT_SIZE default size}.
+	 *
+	 * @param name name given to the parsed stream definitions
+	 */
+	public StreamDefinitionParseSessionPool(String name) {
+		this(name, DEFAULT_SIZE);
+	}
+
+	/**
+	 * Construct a {@code StreamDefinitionParseSessionPool}.
+	 *
+	 * @param name name given to the parsed stream definitions
+	 * @param size number of sessions
+	 */
+	public StreamDefinitionParseSessionPool(String name, int size) {
+		Assert.hasText(name, "name is required");
+		Assert.isTrue(size > 0, "size must be positive");
+		this.name = name;
+		this.sessions = new StreamDefinitionParseSession[size];
+		for (int i = 0; i < size; i++) {
+			sessions[i] = new StreamDefinitionParseSession(name);
+		}
+		this.busy = new AtomicIntegerArray(size);
+		this.lastUsed = new AtomicLongArray(size);
+	}
+
+	/**
+	 * Parse the given text into a {@link StreamDefinition}, reporting a failure
+	 * as a {@link org.springframework.cloud.dataflow.core.dsl.ParseFailure} rather
+	 * than by throwing an exception.
+	 *
+	 * @param dslText DSL definition for stream, possibly empty
+	 * @return the stream definition, or why parsing failed
+	 * @see StreamDefinitionParseSession#tryParse(String)
+	 */
+	public ParseResult<StreamDefinition> tryParse(String dslText) {
+		Assert.notNull(dslText, "dslText must not be null");
+		int index = acquire(dslText);
+		if (index < 0) {
+			return new StreamDefinitionParseSession(name).tryParse(dslText);
+		}
+		try {
+			return sessions[index].tryParse(dslText);
+		}
+		finally {
+			busy.set(index, 0);
+		}
+	}
+
+	/**
+	 * Claim the idle session whose last text shares the longest prefix with the
+	 * given text, or the least recently used of such sessions.
+	 *
+	 * @return the index of the claimed session, or {@code -1} if all were busy
+	 */
+	private int acquire(String dslText) {
+		// another user may claim the chosen session first: try again, a bounded number of times
+		for (int attempt = 0; attempt < sessions.length; attempt++) {
+			int best = -1;
+			int bestLength = -1;
+			for (int i = 0; i < sessions.length; i++) {
+				if (busy.get(i) == 0) {
+					int length = commonPrefixLength(sessions[i].getLastDslText(), dslText);
+					if (length > bestLength || (length == bestLength && lastUsed.get(i) < lastUsed.get(best))) {
+						best = i;
+						bestLength = length;
+					}
+				}
+			}
+			if (best < 0) {
+				return -1;
+			}
+			if (busy.compareAndSet(best, 0, 1)) {
+				lastUsed.set(best, clock.incrementAndGet());
+				return best;
+			}
+		}
+		return -1;
+	}
+
+	private static int commonPrefixLength(String a, String b) {
+		if (a == null) {
+			return 0;
+		}
+		int max = Math.min(a.length(), b.length());
+		int length = 0;
+		while (length < max && a.charAt(length) == b.charAt(length)) {
+			length++;
+		}
+		return length;
+	}
+
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.springframework.cloud.dataflow.core.dsl.DSLMessage;
+import org.springframework.cloud.dataflow.core.dsl.ParseException;
+import org.springframework.cloud.dataflow.core.dsl.ScriptParseException;
+import org.springframework.cloud.dataflow.core.dsl.StreamNode;
+import org.springframework.cloud.dataflow.core.dsl.StreamParser;
+import org.springframework.cloud.dataflow.core.dsl.TokenBuffer;
+import org.springframework.util.Assert;
+
+/**
+ * Reads stream definitions one at a time from a script, such as a dump of all
+ * the streams of a system. Entries of the script have the form
+ * {@code name = definition} and are separated by newlines or semicolons
+ * (outside of quoted strings). Blank entries are ignored, as are comments: text
+ * from a {@code #} at the start of an entry to the end of its line.
+ * <p>
+ * The script is consumed lazily, so that memory use is bounded by the size of
+ * an entry rather than by the size of the script. Errors are reported as
+ * {@link ScriptParseException ScriptParseExceptions} that locate the error by line
+ * and column in the script. Reading may go on after such an error, with the next entry.
+ * <p>
+ * This class is not thread safe, although the {@link Entry entries} it returns
+ * may be parsed concurrently.
+ *
+ * @author Patrick Peralta
+ */
+public class StreamDefinitionReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Source of the script.
+	 */
+	private final Reader reader;
+
+	/**
+	 * Characters read from {@link #reader} and not consumed yet,
+	 * from {@link #position} to {@link #limit}.
+	 */
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	private int position;
+
+	private int limit;
+
+	/**
+	 * Text of the entry being read.
+	 */
+	private final StringBuilder entryText = new StringBuilder();
+
+	/**
+	 * Line of the next character of the script, starting at 1.
+	 */
+	private int line = 1;
+
+	/**
+	 * Column of the next character of the script, starting at 1.
+	 */
+	private int column = 1;
+
+	/**
+	 * Construct a {@code StreamDefinitionReader} for a script read from the given reader.
+	 *
+	 * @param reader the source of the script
+	 */
+	public StreamDefinitionReader(Reader reader) {
+		Assert.notNull(reader, "reader must not be null");
+		this.reader = reader;
+	}
+
+	/**
+	 * Construct a {@code StreamDefinitionReader} for a script held in a UTF-8 encoded file.
+	 *
+	 * @param file the file holding the script
+	 * @throws IOException if the file cannot be opened
+	 */
+	public StreamDefinitionReader(File file) throws IOException {
+		this(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Read and parse the next definition of the script.
+	 *
+	 * @return the next stream definition, or {@code null} at the end of the script
+	 * @throws ScriptParseException if the next entry is ill formed; the entry is skipped
+	 * @throws IOException if the script cannot be read
+	 */
+	public StreamDefinition read() throws IOException {
+		Entry entry = readEntry();
+		return entry != null ? entry.parse() : null;
+	}
+
+	/**
+	 * Read the next entry of the script, without parsing its definition. This allows
+	 * reading to be done sequentially and parsing in parallel.
+	 *
+	 * @return the next entry, or {@code null} at the end of the script
+	 * @throws ScriptParseException if the next entry does not have the
+	 * {@code name = definition} form; the entry is skipped
+	 * @throws IOException if the script cannot be read
+	 */
+	public Entry readEntry() throws IOException {
+		boolean more = true;
+		while (more) {
+			int entryLine = this.line;
+			int entryColumn = this.column;
+			more = readEntryText();
+			int start = 0;
+			while (start < entryText.length() && Character.isWhitespace(entryText.charAt(start))) {
+				start++;
+			}
+			if (start < entryText.length()) {
+				return toEntry(entryText.toString(), start, entryLine, entryColumn);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Read the text of the next entry into {@link #entryText}, leaving out comments,
+	 * and consume the separator that follows it.
+	 *
+	 * @return {@code false} if the end of the script was reached
+	 */
+	private boolean readEntryText() throws IOException {
+		entryText.setLength(0);
+		char quote = 0;
+		boolean blank = true;
+		boolean comment = false;
+		int c;
+		while ((c = nextChar()) != -1) {
+			if (c == '\n') {
+				return true;
+			}
+			if (comment) {
+				continue;
+			}
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			}
+			else if (c == ';') {
+				return true;
+			}
+			else if (c == '\'' || c == '"') {
+				quote = (char) c;
+			}
+			else if (c == '#' && blank) {
+				comment = true;
+				continue;
+			}
+			blank &= Character.isWhitespace(c);
+			entryText.append((char) c);
+		}
+		return false;
+	}
+
+	/**
+	 * Return the next character of the script, keeping track of its location,
+	 * or {@code -1} at the end of the script.
+	 */
+	private int nextChar() throws IOException {
+		if (position == limit) {
+			limit = reader.read(buffer, 0, buffer.length);
+			position = 0;
+			if (limit < 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+		char c = buffer[position++];
+		if (c == '\n') {
+			line++;
+			column = 1;
+		}
+		else {
+			column++;
+		}
+		return c;
+	}
+
+	/**
+	 * Split the text of an entry, which starts on the given line and column,
+	 * into a stream name and its definition.
+	 */
+	private Entry toEntry(String text, int start, int line, int column) {
+		int i = start;
+		while (i < text.length() && !Character.isWhitespace(text.charAt(i)) && text.charAt(i) != '=') {
+			i++;
+		}
+		String name = text.substring(start, i);
+		while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+			i++;
+		}
+		if (name.isEmpty() || i == text.length() || text.charAt(i) != '=') {
+			String found = text.substring(start).trim();
+			throw new ScriptParseException(found, 0, line, column + start,
+					DSLMessage.EXPECTED_STREAM_NAME_ASSIGNMENT, found);
+		}
+		i++;
+		while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+			i++;
+		}
+		int end = text.length();
+		while (end > i && Character.isWhitespace(text.charAt(end - 1))) {
+			end--;
+		}
+		return new Entry(name, text.substring(i, end), line, column + start, column + i);
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+
+	/**
+	 * An entry of a script: a stream name and its definition, not parsed yet.
+	 */
+	public static final class Entry {
+
+		private final String name;
+
+		private final String dslText;
+
+		private final int line;
+
+		private final int column;
+
+		private final int dslColumn;
+
+		private Entry(String name, String dslText, int line, int column, int dslColumn) {
+			this.name = name;
+			this.dslText = dslText;
+			this.line = line;
+			this.column = column;
+			this.dslColumn = dslColumn;
+		}
+
+		/**
+		 * Parse the definition of this entry.
+		 *
+		 * @return the stream definition
+		 * @throws ScriptParseException if the definition is ill formed
+		 */
+		public StreamDefinition parse() {
+			try {
+				StreamNode streamNode = new StreamParser(name, dslText, TokenBuffer.forCurrentThread()).parse();
+				return new StreamDefinition(name, dslText, StreamDefinition.toModules(name, streamNode));
+			}
+			catch (ParseException e) {
+				// An illegal name is reported relative to the name, anything else relative to the definition
+				int errorColumn = e.getMessageCode() == DSLMessage.ILLEGAL_STREAM_NAME
+						? column : dslColumn + Math.max(e.getPosition(), 0);
+				throw new ScriptParseException(e, line, errorColumn);
+			}
+		}
+
+		/**
+		 * @return the stream name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the definition DSL text
+		 */
+		public String getDslText() {
+			return dslText;
+		}
+
+		/**
+		 * @return the line of the entry in the script, starting at 1
+		 */
+		public int getLine() {
+			return line;
+		}
+
+		/**
+		 * @return the column of the entry in the script, starting at 1
+		 */
+		public int getColumn() {
+			return column;
+		}
+
+		@Override
+		public String toString() {
+			return name + " = " + dslText;
+		}
+	}
+
+}
@@ -21,14 +21,27 @@ import java.util.Map;
 import org.springframework.cloud.dataflow.core.dsl.ArgumentNode;
 import org.springframework.cloud.dataflow.core.dsl.ModuleNode;
 import org.springframework.cloud.dataflow.core.dsl.TaskParser;
+import org.springframework.cloud.dataflow.core.dsl.TokenBuffer;
 import org.springframework.core.style.ToStringCreator;
 
 /**
  * @author Michael Minella
  * @author Mark Fisher
+ * @author Patrick Peralta
  */
 public class TaskDefinition {
 
+	/**
+	 * Default maximum number of entries of the {@link #getParseCache() parse cache}.
+	 */
+	public static final int DEFAULT_PARSE_CACHE_SIZE = 1000;
+
+	/**
+	 * Cache of parsed modules, shared by all users of {@link #cached(String, String)}.
+	 */
+	private static final ParsedDefinitionCache<ModuleDefinition> parseCache =
+			new ParsedDefinitionCache<>(DEFAULT_PARSE_CACHE_SIZE);
+
 	/**
 	 * Name of module.
 	 */
@@ -42,9 +55,48 @@ public class TaskDefinition {
 	private final ModuleDefinition moduleDefinition;
 
 	public TaskDefinition(String name, String dsl) {
+		this(name, dsl, parse(name, dsl));
+	}
+
+	private TaskDefinition(String name, String dsl, ModuleDefinition moduleDefinition) {
 		this.name = name;
 		this.dslText = dsl;
-		ModuleNode taskNode = new TaskParser(name, dsl).parse();
+		this.moduleDefinition = moduleDefinition;
+	}
+
+	/**
+	 * Return a {@code TaskDefinition} for the given name and DSL, reusing the
+	 * parsed module of an identical definition if it is present in the
+	 * {@link #getParseCache() parse cache}.
+	 *
+	 * @param name     name of task
+	 * @param dsl      DSL definition for task
+	 * @return the task definition
+	 */
+	public static TaskDefinition cached(String name, String dsl) {
+		ModuleDefinition moduleDefinition = parseCache.get(name, dsl);
+		if (moduleDefinition == null) {
+			moduleDefinition = parse(name, dsl);
+			parseCache.put(name, dsl, moduleDefinition);
+		}
+		return new TaskDefinition(name, dsl, moduleDefinition);
+	}
+
+	/**
+	 * Return the cache used by {@link #cached(String, String)}, for monitoring
+	 * and sizing purposes.
+	 *
+	 * @return the shared parse cache
+	 */
+	public static ParsedDefinitionCache<ModuleDefinition> getParseCache() {
+		return parseCache;
+	}
+
+	/**
+	 * Parse the given definition into the definition of its module.
+	 */
+	private static ModuleDefinition parse(String name, String dsl) {
+		ModuleNode taskNode = new TaskParser(name, dsl, TokenBuffer.forCurrentThread()).parse();
 		ModuleDefinition.Builder builder = new ModuleDefinition.Builder()
 				.setGroup(name)
 				.setLabel(taskNode.getLabelName())
@@ -55,7 +107,7 @@ public class TaskDefinition {
 				builder.setParameter(argumentNode.getName(), argumentNode.getValue());
 			}
 		}
-		this.moduleDefinition = builder.build();
+		return builder.build();
 	}
 
 	public String getName() {
@@ -16,7 +16,9 @@
 
 package org.springframework.cloud.dataflow.core.dsl;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * An extension of {@link ParseException} that indicates where the parse
@@ -33,6 +35,8 @@ public class CheckPointedParseException extends ParseException {
 
 	private int tokenPointer;
 
+	private Set<TokenKind> expectedTokens = Collections.emptySet();
+
 	/**
 	 * Construct a new {@code CheckPointedParseException}.
 	 *
@@ -52,6 +56,23 @@ public class CheckPointedParseException extends ParseException {
 		this.tokens = tokens;
 	}
 
+	/**
+	 * Construct a new {@code CheckPointedParseException} that also records the
+	 * kinds of token that the parser would have accepted where the error occurred,
+	 * and may skip capturing a stack trace.
+	 *
+	 * @see #CheckPointedParseException(String, int, int, int, List, DSLMessage, Object...)
+	 */
+	protected CheckPointedParseException(String expressionString, int textPosition, int tokenPointer,
+			int checkpointPointer, List<Token> tokens, Set<TokenKind> expectedTokens,
+			boolean writableStackTrace, DSLMessage message, Object... inserts) {
+		super(expressionString, textPosition, writableStackTrace, message, inserts);
+		this.tokenPointer = tokenPointer;
+		this.checkpointPointer = checkpointPointer;
+		this.tokens = tokens;
+		this.expectedTokens = expectedTokens;
+	}
+
 
 	/**
 	 * @return a formatted message with inserts applied.
@@ -113,4 +134,12 @@ public class CheckPointedParseException extends ParseException {
 		return tokenPointer;
 	}
 
+	/**
+	 * Return the kinds of token that would have been accepted where the error
+	 * occurred (as far as the parser knows), if known.
+	 */
+	public Set<TokenKind> getExpectedTokens() {
+		return expectedTokens;
+	}
+
 }
\ No newline at end of file
@@ -106,6 +106,7 @@ public enum DSLMessage {
 			"no whitespace is allowed between dot and components of a name"),
 	NAMED_CHANNELS_UNSUPPORTED_HERE(ERROR, 146, "a named channel is not supported in this kind of definition"),
 	EXPECTED_WHITESPACE_AFTER_LABEL_COLON(ERROR, 147, "whitespace is expected after a moudle label"), //
+	EXPECTED_STREAM_NAME_ASSIGNMENT(ERROR, 148, "expected ''<name> = <definition>'' but found ''{0}''"), //
 	;
 
 	private Kind kind;
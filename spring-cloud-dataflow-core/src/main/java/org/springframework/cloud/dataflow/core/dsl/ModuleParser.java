@@ -65,10 +65,11 @@ public class ModuleParser {
 	 */
 	protected ModuleNode eatModule() {
 		Token label = null;
+		tokens.expect(TokenKind.IDENTIFIER);
 		Token name = tokens.next();
 		if (!name.isKind(TokenKind.IDENTIFIER)) {
 			tokens.raiseException(name.startPos, DSLMessage.EXPECTED_MODULENAME,
-					name.data != null ? name.data : new String(name.getKind().tokenChars));
+					name.stringValue() != null ? name.stringValue() : new String(name.getKind().tokenChars));
 		}
 		if (tokens.peek(TokenKind.COLON)) {
 			if (!tokens.isNextAdjacent()) {
@@ -87,7 +88,7 @@ public class ModuleParser {
 		tokens.checkpoint();
 		ArgumentNode[] args = eatModuleArgs();
 		int startPos = label != null ? label.startPos : moduleName.startPos;
-		return new ModuleNode(toLabelNode(label), moduleName.data, startPos, moduleName.endPos, args);
+		return new ModuleNode(toLabelNode(label), moduleName.stringValue(), startPos, moduleName.endPos, args);
 	}
 
 	/**
@@ -144,18 +145,21 @@ public class ModuleParser {
 	 * @return argument value
 	 */
 	protected String eatArgValue() {
+		tokens.expect(TokenKind.IDENTIFIER);
+		tokens.expect(TokenKind.LITERAL_STRING);
 		Token t = tokens.next();
 		String argValue = null;
 		if (t.getKind() == TokenKind.IDENTIFIER) {
-			argValue = t.data;
+			argValue = t.stringValue();
 		}
 		else if (t.getKind() == TokenKind.LITERAL_STRING) {
-			String quotesUsed = t.data.substring(0, 1);
-			argValue = t.data.substring(1, t.data.length() - 1)
+			String data = t.stringValue();
+			String quotesUsed = data.substring(0, 1);
+			argValue = data.substring(1, data.length() - 1)
 					.replace(quotesUsed + quotesUsed, quotesUsed);
 		}
 		else {
-			tokens.raiseException(t.startPos, DSLMessage.EXPECTED_ARGUMENT_VALUE, t.data);
+			tokens.raiseException(t.startPos, DSLMessage.EXPECTED_ARGUMENT_VALUE, t.stringValue());
 		}
 		return argValue;
 	}
@@ -169,10 +173,11 @@ public class ModuleParser {
 	 */
 	protected List<Token> eatDottedName() {
 		List<Token> result = new ArrayList<Token>(3);
+		tokens.expect(TokenKind.IDENTIFIER);
 		Token name = tokens.next();
 		if (!name.isKind(TokenKind.IDENTIFIER)) {
 			tokens.raiseException(name.startPos, DSLMessage.NOT_EXPECTED_TOKEN,
-					name.data != null ? name.data : new String(name.getKind().tokenChars));
+					name.stringValue() != null ? name.stringValue() : new String(name.getKind().tokenChars));
 		}
 		result.add(name);
 		while (tokens.peek(TokenKind.DOT)) {
@@ -198,7 +203,7 @@ public class ModuleParser {
 	 * or {@code null} if the provided token is {@code null}
 	 */
 	protected LabelNode toLabelNode(Token label) {
-		return label == null ? null : new LabelNode(label.data, label.startPos, label.endPos);
+		return label == null ? null : new LabelNode(label.stringValue(), label.startPos, label.endPos);
 	}
 
 	/**
@@ -210,7 +215,7 @@ public class ModuleParser {
 		StringBuilder result = new StringBuilder();
 		for (Token t : iterable) {
 			if (t.getKind().hasPayload()) {
-				result.append(t.data);
+				result.append(t.stringValue());
 			}
 			else {
 				result.append(t.getKind().tokenChars);
@@ -231,7 +236,7 @@ public class ModuleParser {
 		}
 		List<String> data = new ArrayList<String>();
 		for (Token token : tokens) {
-			data.add(token.data);
+			data.add(token.stringValue());
 		}
 		return data;
 	}
@@ -36,7 +36,18 @@ public class ParseException extends RuntimeException {
 	protected Object[] inserts;
 
 	public ParseException(String expressionString, int position, DSLMessage message, Object... inserts) {
-		super(message.formatMessage(position, inserts));
+		this(expressionString, position, true, message, inserts);
+	}
+
+	/**
+	 * Construct a {@code ParseException} that may skip capturing a stack trace,
+	 * which is only worth it for exceptions that are thrown back at the user.
+	 *
+	 * @see StreamParser#tryParse()
+	 */
+	protected ParseException(String expressionString, int position, boolean writableStackTrace,
+			DSLMessage message, Object... inserts) {
+		super(message.formatMessage(position, inserts), null, false, writableStackTrace);
 		this.position = position;
 		this.message = message;
 		this.inserts = inserts;
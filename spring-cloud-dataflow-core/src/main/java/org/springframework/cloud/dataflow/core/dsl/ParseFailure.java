@@ -0,0 +1,164 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core.dsl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Describes why some DSL text could not be parsed: the {@link DSLMessage} code and
+ * its inserts, where the problem lies (both as a text offset and as a token index),
+ * which kinds of token would have been accepted there, and the last position up to
+ * which the text was well formed.
+ * <p>
+ * This carries the same information as a {@link ParseException}, without the cost
+ * of a stack trace, and is meant for callers that react to parse failures rather
+ * than report them, such as code completion.
+ *
+ * @author Eric Bottard
+ * @see StreamParser#tryParse()
+ */
+public class ParseFailure {
+
+	private final String expressionString;
+
+	private final DSLMessage messageCode;
+
+	private final Object[] inserts;
+
+	private final int position;
+
+	private final int tokenPosition;
+
+	private final int checkpointTokenPosition;
+
+	private final List<Token> tokens;
+
+	private final Set<TokenKind> expectedTokens;
+
+	/**
+	 * Construct a {@code ParseFailure} from the exception raised by a parser.
+	 */
+	ParseFailure(ParseException exception) {
+		this.expressionString = exception.getExpressionString();
+		this.messageCode = exception.getMessageCode();
+		this.inserts = exception.getInserts();
+		this.position = exception.getPosition();
+		if (exception instanceof CheckPointedParseException) {
+			CheckPointedParseException checkPointed = (CheckPointedParseException) exception;
+			this.tokenPosition = checkPointed.getTokenPointer();
+			this.checkpointTokenPosition = checkPointed.getCheckpointPointer();
+			this.tokens = checkPointed.getTokens();
+			this.expectedTokens = Collections.unmodifiableSet(checkPointed.getExpectedTokens());
+		}
+		else {
+			// Lexical error, or error detected once the whole text has been parsed
+			this.tokenPosition = -1;
+			this.checkpointTokenPosition = 0;
+			this.tokens = Collections.emptyList();
+			this.expectedTokens = Collections.emptySet();
+		}
+	}
+
+	/**
+	 * @return the message code
+	 */
+	public DSLMessage getMessageCode() {
+		return messageCode;
+	}
+
+	/**
+	 * @return the message inserts
+	 */
+	public Object[] getInserts() {
+		return inserts;
+	}
+
+	/**
+	 * @return the dsl expression text
+	 */
+	public String getExpressionString() {
+		return expressionString;
+	}
+
+	/**
+	 * @return location of the error in the expression text
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+	/**
+	 * @return index of the token where the error occurred, or {@code -1} if the
+	 * error was not detected while processing tokens
+	 */
+	public int getTokenPosition() {
+		return tokenPosition;
+	}
+
+	/**
+	 * @return the tokens of the expression text (empty if the error was not
+	 * detected while processing tokens)
+	 */
+	public List<Token> getTokens() {
+		return tokens;
+	}
+
+	/**
+	 * @return the kinds of token that would have been accepted where the error
+	 * occurred, as far as the parser knows
+	 */
+	public Set<TokenKind> getExpectedTokens() {
+		return expectedTokens;
+	}
+
+	/**
+	 * @return the text offset up to which the expression is known to be well formed
+	 */
+	public int getCheckpointPosition() {
+		return checkpointTokenPosition <= 0 ? 0 : tokens.get(checkpointTokenPosition - 1).endPos;
+	}
+
+	/**
+	 * Return the parsed expression until the last known, well formed position.
+	 * Attempting to re-parse that expression is guaranteed to not fail.
+	 */
+	public String getExpressionStringUntilCheckpoint() {
+		return expressionString.substring(0, getCheckpointPosition());
+	}
+
+	/**
+	 * Return a {@link ParseException} describing this failure, as would have been
+	 * thrown by the parser.
+	 *
+	 * @return a new parse exception
+	 */
+	public ParseException toException() {
+		if (tokenPosition < 0) {
+			return new ParseException(expressionString, position, messageCode, inserts);
+		}
+		return new CheckPointedParseException(expressionString, position, tokenPosition,
+				checkpointTokenPosition, tokens, expectedTokens, true, messageCode, inserts);
+	}
+
+	@Override
+	public String toString() {
+		return messageCode.formatMessage(position, inserts);
+	}
+
+}
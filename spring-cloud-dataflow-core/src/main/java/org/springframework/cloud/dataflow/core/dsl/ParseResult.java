@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core.dsl;
+
+import org.springframework.util.Assert;
+
+/**
+ * Outcome of parsing some DSL text: either the parsed value, or a
+ * {@link ParseFailure} describing why parsing failed.
+ *
+ * @param <T> the type of the parsed value
+ *
+ * @author Eric Bottard
+ * @see StreamParser#tryParse()
+ */
+public class ParseResult<T> {
+
+	private final T value;
+
+	private final ParseFailure failure;
+
+	private ParseResult(T value, ParseFailure failure) {
+		this.value = value;
+		this.failure = failure;
+	}
+
+	/**
+	 * Return a result for successfully parsed text.
+	 *
+	 * @param value the parsed value
+	 * @param <T> the type of the parsed value
+	 * @return a successful result
+	 */
+	public static <T> ParseResult<T> success(T value) {
+		Assert.notNull(value, "value must not be null");
+		return new ParseResult<>(value, null);
+	}
+
+	/**
+	 * Return a result for text that could not be parsed.
+	 *
+	 * @param failure why parsing failed
+	 * @param <T> the type of the value that parsing would have produced
+	 * @return a failed result
+	 */
+	public static <T> ParseResult<T> failure(ParseFailure failure) {
+		Assert.notNull(failure, "failure must not be null");
+		return new ParseResult<>(null, failure);
+	}
+
+	/**
+	 * @return whether parsing succeeded
+	 */
+	public boolean isSuccessful() {
+		return failure == null;
+	}
+
+	/**
+	 * Return the parsed value.
+	 *
+	 * @return the parsed value
+	 * @throws ParseException if parsing failed
+	 */
+	public T getValue() {
+		if (failure != null) {
+			throw failure.toException();
+		}
+		return value;
+	}
+
+	/**
+	 * @return why parsing failed, or {@code null} if it succeeded
+	 */
+	public ParseFailure getFailure() {
+		return failure;
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core.dsl;
+
+/**
+ * An extension of {@link ParseException} for errors in a script that holds
+ * several definitions, which also locates the error by line and column
+ * in the script.
+ *
+ * @author Eric Bottard
+ */
+@SuppressWarnings("serial")
+public class ScriptParseException extends ParseException {
+
+	private final int line;
+
+	private final int column;
+
+	/**
+	 * Construct a new {@code ScriptParseException}.
+	 *
+	 * @param expressionString the text of the definition that was being parsed
+	 * @param position the offset of the error in {@code expressionString}
+	 * @param line the line of the error in the script, starting at 1
+	 * @param column the column of the error in the script, starting at 1
+	 * @param message the error message
+	 * @param inserts variables that may be inserted in the error message
+	 */
+	public ScriptParseException(String expressionString, int position, int line, int column,
+			DSLMessage message, Object... inserts) {
+		super(expressionString, position, message, inserts);
+		this.line = line;
+		this.column = column;
+	}
+
+	/**
+	 * Construct a new {@code ScriptParseException} that locates an error reported
+	 * while parsing one definition of the script.
+	 *
+	 * @param cause the error reported for the definition
+	 * @param line the line of the error in the script, starting at 1
+	 * @param column the column of the error in the script, starting at 1
+	 */
+	public ScriptParseException(ParseException cause, int line, int column) {
+		this(cause.getExpressionString(), cause.getPosition(), line, column,
+				cause.getMessageCode(), cause.getInserts());
+	}
+
+	/**
+	 * @return a formatted message with inserts applied, prefixed by the location of the error
+	 */
+	@Override
+	public String getMessage() {
+		return "line " + line + ", column " + column + ": " + super.getMessage();
+	}
+
+	/**
+	 * @return the line of the error in the script, starting at 1
+	 */
+	public int getLine() {
+		return line;
+	}
+
+	/**
+	 * @return the column of the error in the script, starting at 1
+	 */
+	public int getColumn() {
+		return column;
+	}
+
+}
@@ -39,6 +39,37 @@ public class StreamParser extends ModuleParser {
 	 */
 	private final String dsl;
 
+	/**
+	 * Parser of a previous text whose leading modules are reused (may be {@code null}).
+	 * Released once those have been copied.
+	 */
+	private StreamParser previous;
+
+	/**
+	 * Point of {@link #previous} from which parsing resumes (may be {@code null}).
+	 */
+	private final ResumePoint resumePoint;
+
+	/**
+	 * Stream name, as found by {@link #eatStreamName()}.
+	 */
+	private String streamName;
+
+	/**
+	 * Source channel, as found by {@link #eatSourceChannel()}.
+	 */
+	private SourceChannelNode sourceChannelNode;
+
+	/**
+	 * Modules parsed so far.
+	 */
+	private final List<ModuleNode> moduleNodes = new ArrayList<ModuleNode>();
+
+	/**
+	 * Points between modules from which a later parse of a similar text may resume.
+	 */
+	private final List<ResumePoint> resumePoints = new ArrayList<ResumePoint>();
+
 
 	/**
 	 * Construct a {@code StreamParser} without supplying the stream name up front.
@@ -58,9 +89,81 @@ public class StreamParser extends ModuleParser {
 	 * @param dsl  stream dsl text
 	 */
 	public StreamParser(String name, String dsl) {
-		super(new Tokens(dsl));
+		super(Tokens.forParser(dsl, null));
 		this.name = name;
 		this.dsl = dsl;
+		this.previous = null;
+		this.resumePoint = null;
+	}
+
+	/**
+	 * Construct a {@code StreamParser} for a stream with the provided name,
+	 * tokenizing into a (possibly reused) {@link TokenBuffer}.
+	 *
+	 * @param name stream name
+	 * @param dsl  stream dsl text
+	 * @param buffer the buffer to tokenize into
+	 */
+	public StreamParser(String name, String dsl, TokenBuffer buffer) {
+		super(Tokens.forParser(dsl, buffer));
+		this.name = name;
+		this.dsl = dsl;
+		this.previous = null;
+		this.resumePoint = null;
+	}
+
+	/**
+	 * Construct a {@code StreamParser} for a stream with the provided name that
+	 * reuses the work of a {@code previous} parser (whether it succeeded or not):
+	 * only the part of the text that differs from the previous text is tokenized
+	 * again, and the modules of the previous text that precede that part are reused
+	 * rather than parsed again. This is most effective when a definition is being
+	 * typed in, one character at a time. The previous parser must not be used afterwards.
+	 *
+	 * @param name stream name
+	 * @param dsl  stream dsl text
+	 * @param previous the parser of an earlier, typically similar, text
+	 */
+	public StreamParser(String name, String dsl, StreamParser previous) {
+		super(new Tokens(dsl, previous.getTokens()));
+		this.name = name;
+		this.dsl = dsl;
+		this.resumePoint = previous.lastResumePointBefore(getTokens().getReusedTokenCount());
+		this.previous = resumePoint != null ? previous : null;
+	}
+
+	/**
+	 * Return the last recorded resume point that only depends on the first
+	 * {@code tokenCount} tokens, or {@code null}.
+	 */
+	private ResumePoint lastResumePointBefore(int tokenCount) {
+		for (int i = resumePoints.size() - 1; i >= 0; i--) {
+			if (resumePoints.get(i).pipePosition < tokenCount) {
+				return resumePoints.get(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Parse a stream definition, reporting a failure as a {@link ParseFailure}
+	 * rather than by throwing an exception. This is cheaper than {@link #parse()}
+	 * for text that is expected to be ill formed, such as a definition being typed in.
+	 *
+	 * @return the AST for the parsed stream, or why parsing failed
+	 */
+	public ParseResult<StreamNode> tryParse() {
+		Tokens tokens = getTokens();
+		tokens.setFillInStackTraces(false);
+		try {
+			return ParseResult.success(parse());
+		}
+		catch (ParseException e) {
+			return ParseResult.failure(new ParseFailure(e));
+		}
+		finally {
+			tokens.setFillInStackTraces(true);
+		}
 	}
 
 	/**
@@ -70,14 +173,15 @@ public class StreamParser extends ModuleParser {
 	 * @throws ParseException
 	 */
 	public StreamNode parse() {
+		getTokens().raiseTokenizationFailure();
 		StreamNode ast = eatStream();
 
 		// Check the stream name, however it was specified
 		if (ast.getName() != null && !isValidName(ast.getName())) {
-			throw new ParseException(ast.getName(), 0, DSLMessage.ILLEGAL_STREAM_NAME, ast.getName());
+			throw parseException(ast.getName(), 0, DSLMessage.ILLEGAL_STREAM_NAME, ast.getName());
 		}
 		if (name != null && !isValidName(name)) {
-			throw new ParseException(name, 0, DSLMessage.ILLEGAL_STREAM_NAME, name);
+			throw parseException(name, 0, DSLMessage.ILLEGAL_STREAM_NAME, name);
 		}
 
 		// Check that each module has a unique label (either explicit or implicit)
@@ -88,7 +192,7 @@ public class StreamParser extends ModuleParser {
 			if (previous != null) {
 				String duplicate = node.getLabelName();
 				int previousIndex = new ArrayList<String>(alreadySeen.keySet()).indexOf(duplicate);
-				throw new ParseException(dsl, node.startPos, DSLMessage.DUPLICATE_LABEL,
+				throw parseException(dsl, node.startPos, DSLMessage.DUPLICATE_LABEL,
 						duplicate, previous.getName(), previousIndex, node.getName(), m);
 			}
 		}
@@ -96,7 +200,7 @@ public class StreamParser extends ModuleParser {
 		// Check if the stream name is same as that of any of its modules' names
 		// Can lead to infinite recursion during resolution, when parsing a composite module.
 		if (ast.getModule(name) != null) {
-			throw new ParseException(dsl, dsl.indexOf(name),
+			throw parseException(dsl, dsl.indexOf(name),
 					DSLMessage.STREAM_NAME_MATCHING_MODULE_NAME,
 					name);
 		}
@@ -109,6 +213,15 @@ public class StreamParser extends ModuleParser {
 		return ast;
 	}
 
+	/**
+	 * Return a {@link ParseException} that only captures a stack trace if
+	 * exceptions raised by the {@link Tokens} do.
+	 */
+	private ParseException parseException(String expressionString, int position, DSLMessage message,
+			Object... inserts) {
+		return new ParseException(expressionString, position, getTokens().isFillInStackTraces(), message, inserts);
+	}
+
 	/**
 	 * If a stream name is present, return it and advance the token position -
 	 * otherwise return {@code null}.
@@ -123,7 +236,7 @@ public class StreamParser extends ModuleParser {
 		String streamName = null;
 		if (tokens.lookAhead(1, TokenKind.EQUALS)) {
 			if (tokens.peek(TokenKind.IDENTIFIER)) {
-				streamName = tokens.eat(TokenKind.IDENTIFIER).data;
+				streamName = tokens.eat(TokenKind.IDENTIFIER).stringValue();
 				tokens.next(); // skip '='
 			}
 			else {
@@ -143,13 +256,21 @@ public class StreamParser extends ModuleParser {
 	 * @return {@code StreamNode} based on parsed DSL
 	 */
 	private StreamNode eatStream() {
-		String streamName = eatStreamName();
-		SourceChannelNode sourceChannelNode = eatSourceChannel();
+		if (resumePoint != null) {
+			// Everything up to the resume point is known to be identical to the previous text
+			streamName = previous.streamName;
+			sourceChannelNode = previous.sourceChannelNode;
+		}
+		else {
+			streamName = eatStreamName();
+			sourceChannelNode = eatSourceChannel();
+		}
 
 		// This construct: queue:foo > topic:bar is a source then a sink channel
 		// with no module. Special handling for that is right here:
+		// (a resume point implies a pipe after any source channel, hence no bridge)
 		boolean bridge = false;
-		if (sourceChannelNode != null) { // so if we are just after a '>'
+		if (sourceChannelNode != null && resumePoint == null) { // so if we are just after a '>'
 			if (looksLikeChannel() && noMorePipes()) {
 				bridge = true;
 			}
@@ -228,7 +349,7 @@ public class StreamParser extends ModuleParser {
 		int size = tokenList.size();
 
 		if (tokens.hasNext() && tokenList.get(position).getKind() == TokenKind.IDENTIFIER) {
-			String prefix = tokenList.get(position).data;
+			String prefix = tokenList.get(position).stringValue();
 			if (isLegalChannelPrefix(prefix)) {
 				if (tokens.position() + 1 < size && tokenList.get(position + 1).getKind() == TokenKind.COLON) {
 					return true;
@@ -340,8 +461,9 @@ public class StreamParser extends ModuleParser {
 	 */
 	private ChannelNode eatChannelReference(boolean tapAllowed) {
 		Tokens tokens = getTokens();
+		tokens.expect(TokenKind.IDENTIFIER);
 		Token firstToken = tokens.next();
-		if (!firstToken.isIdentifier() || !isLegalChannelPrefix(firstToken.data)) {
+		if (!firstToken.isIdentifier() || !isLegalChannelPrefix(firstToken.stringValue())) {
 			tokens.raiseException(firstToken.startPos,
 					tapAllowed
 							? DSLMessage.EXPECTED_CHANNEL_PREFIX_QUEUE_TOPIC_TAP
@@ -356,20 +478,20 @@ public class StreamParser extends ModuleParser {
 						DSLMessage.NO_WHITESPACE_IN_CHANNEL_DEFINITION);
 			}
 			tokens.next(); // skip colon
-			if (!tokens.isNextAdjacent()) {
+			if (tokens.hasNext() && !tokens.isNextAdjacent()) {
 				tokens.raiseException(tokens.peek().startPos,
 						DSLMessage.NO_WHITESPACE_IN_CHANNEL_DEFINITION);
 			}
 			channelScopeComponents.add(tokens.eat(TokenKind.IDENTIFIER));
 		}
 		List<Token> channelReferenceComponents = new ArrayList<Token>();
-		if (tapAllowed && firstToken.data.equalsIgnoreCase("tap")) {
+		if (tapAllowed && firstToken.stringValue().equalsIgnoreCase("tap")) {
 			if (tokens.peek(TokenKind.DOT)) {
 				if (channelScopeComponents.size() < 3) {
 					tokens.raiseException(firstToken.startPos,
 							DSLMessage.TAP_NEEDS_THREE_COMPONENTS);
 				}
-				String tokenData = channelScopeComponents.get(1).data;
+				String tokenData = channelScopeComponents.get(1).stringValue();
 				// for Stream, tap:stream:XXX - the channel name is always indexed
 				// for Job, tap:job:XXX - the channel name can have "." in case of job notification channels
 				if (!tokenData.equalsIgnoreCase("stream") && !tokenData.equalsIgnoreCase("task")) {
@@ -383,7 +505,7 @@ public class StreamParser extends ModuleParser {
 							DSLMessage.NO_WHITESPACE_IN_CHANNEL_DEFINITION);
 				}
 				tokens.next(); // skip dot
-				if (!tokens.isNextAdjacent()) {
+				if (tokens.hasNext() && !tokens.isNextAdjacent()) {
 					tokens.raiseException(tokens.peek().startPos,
 							DSLMessage.NO_WHITESPACE_IN_CHANNEL_DEFINITION);
 				}
@@ -402,7 +524,7 @@ public class StreamParser extends ModuleParser {
 		}
 		// Verify the structure:
 		ChannelType channelType = null;
-		if (firstToken.data.equalsIgnoreCase("tap")) {
+		if (firstToken.stringValue().equalsIgnoreCase("tap")) {
 			// tap:stream:XXX.YYY
 			// tap:job:XXX
 			// tap:queue:XXX
@@ -412,7 +534,7 @@ public class StreamParser extends ModuleParser {
 						DSLMessage.TAP_NEEDS_THREE_COMPONENTS);
 			}
 			Token tappingToken = channelScopeComponents.get(1);
-			String tapping = tappingToken.data.toLowerCase();
+			String tapping = tappingToken.stringValue().toLowerCase();
 			channelScopeComponents.remove(0); // remove 'tap'
 			switch (tapping) {
 				case "stream":
@@ -429,17 +551,17 @@ public class StreamParser extends ModuleParser {
 					break;
 				default:
 					tokens.raiseException(tappingToken.startPos,
-							DSLMessage.NOT_ALLOWED_TO_TAP_THAT, tappingToken.data);
+							DSLMessage.NOT_ALLOWED_TO_TAP_THAT, tappingToken.stringValue());
 					break;
 			}
 		}
 		else {
 			// queue:XXX
 			// topic:XXX
-			if (firstToken.data.equalsIgnoreCase("queue")) {
+			if (firstToken.stringValue().equalsIgnoreCase("queue")) {
 				channelType = ChannelType.QUEUE;
 			}
-			else if (firstToken.data.equalsIgnoreCase("topic")) {
+			else if (firstToken.stringValue().equalsIgnoreCase("topic")) {
 				channelType = ChannelType.TOPIC;
 			}
 			// TODO: DT not sure if this is the best way to handle
@@ -468,12 +590,19 @@ public class StreamParser extends ModuleParser {
 	 */
 	private List<ModuleNode> eatModuleList() {
 		Tokens tokens = getTokens();
-		List<ModuleNode> moduleNodes = new ArrayList<ModuleNode>();
 
-		moduleNodes.add(eatModule());
+		if (resumePoint != null) {
+			moduleNodes.addAll(previous.moduleNodes.subList(0, resumePoint.moduleCount));
+			resumePoints.addAll(previous.resumePoints.subList(0, previous.resumePoints.indexOf(resumePoint)));
+			tokens.resume(resumePoint.pipePosition, resumePoint.lastGoodPosition);
+			previous = null;
+		}
+		else {
+			moduleNodes.add(eatModule());
+		}
 		while (tokens.hasNext()) {
-			Token t = tokens.peek();
-			if (t.kind == TokenKind.PIPE) {
+			if (tokens.peek(TokenKind.PIPE)) {
+				resumePoints.add(new ResumePoint(tokens.position(), moduleNodes.size(), tokens.lastGoodPosition()));
 				tokens.next();
 				moduleNodes.add(eatModule());
 			}
@@ -485,6 +614,34 @@ public class StreamParser extends ModuleParser {
 		return moduleNodes;
 	}
 
+	/**
+	 * A position in the token stream, just before a pipe, where module list parsing
+	 * may resume when parsing a text that starts the same way.
+	 */
+	private static class ResumePoint {
+
+		/**
+		 * Index of the pipe token.
+		 */
+		private final int pipePosition;
+
+		/**
+		 * Number of modules that precede the pipe.
+		 */
+		private final int moduleCount;
+
+		/**
+		 * Index of the last good token (as per {@link Tokens#checkpoint()}) when reaching the pipe.
+		 */
+		private final int lastGoodPosition;
+
+		private ResumePoint(int pipePosition, int moduleCount, int lastGoodPosition) {
+			this.pipePosition = pipePosition;
+			this.moduleCount = moduleCount;
+			this.lastGoodPosition = lastGoodPosition;
+		}
+	}
+
 	@Override
 	public String toString() {
 		Tokens tokens = getTokens();
@@ -47,7 +47,20 @@ public class TaskParser extends ModuleParser {
 	 * @param dsl  task dsl text
 	 */
 	public TaskParser(String name, String dsl) {
-		super(new Tokens(dsl));
+		super(Tokens.forParser(dsl, null));
+		this.name = name;
+	}
+
+	/**
+	 * Construct a {@code TaskParser} for a task with the provided name,
+	 * tokenizing into a (possibly reused) {@link TokenBuffer}.
+	 *
+	 * @param name task name
+	 * @param dsl  task dsl text
+	 * @param buffer the buffer to tokenize into
+	 */
+	public TaskParser(String name, String dsl, TokenBuffer buffer) {
+		super(Tokens.forParser(dsl, buffer));
 		this.name = name;
 	}
 
@@ -58,6 +71,7 @@ public class TaskParser extends ModuleParser {
 	 * @throws ParseException
 	 */
 	public ModuleNode parse() {
+		getTokens().raiseTokenizationFailure();
 		ModuleNode ast = eatModule();
 
 		// Check the task name, however it was specified
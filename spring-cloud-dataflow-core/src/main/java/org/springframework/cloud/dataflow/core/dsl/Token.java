@@ -29,10 +29,16 @@ public class Token {
 	 */
 	TokenKind kind;
 
+	/**
+	 * The text this token was lexed from, used to lazily compute {@link #data}.
+	 */
+	private CharSequence source;
+
 	/**
 	 * Any extra data for this token instance, e.g. the text for an identifier token.
+	 * Computed on first access from {@link #source}.
 	 */
-	String data;
+	private String data;
 
 	/**
 	 * Index of first character.
@@ -55,23 +61,42 @@ public class Token {
 
 	/**
 	 * Constructor for use when there is extra data to associate with a token. For example the text for an identifier
-	 * token.
+	 * token. The data is not extracted from the source until requested.
 	 */
-	Token(TokenKind tokenKind, char[] tokenData, int pos, int endPos) {
+	Token(TokenKind tokenKind, CharSequence source, int pos, int endPos) {
 		this(tokenKind, pos, endPos);
-		this.data = new String(tokenData.clone());
+		this.source = source;
+	}
+
+	/**
+	 * Re-initialize this token so that it can be reused by a {@link TokenBuffer}.
+	 */
+	void reset(TokenKind tokenKind, CharSequence source, int startPos, int endPos) {
+		this.kind = tokenKind;
+		this.source = tokenKind.hasPayload() ? source : null;
+		this.data = null;
+		this.startPos = startPos;
+		this.endPos = endPos;
 	}
 
 	public TokenKind getKind() {
 		return kind;
 	}
 
+	public int getStartPos() {
+		return startPos;
+	}
+
+	public int getEndPos() {
+		return endPos;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder s = new StringBuilder();
 		s.append("[").append(kind.toString());
 		if (kind.hasPayload()) {
-			s.append(":").append(data);
+			s.append(":").append(stringValue());
 		}
 		s.append("]");
 		s.append("(").append(startPos).append(",").append(endPos).append(")");
@@ -82,14 +107,20 @@ public class Token {
 		return kind == TokenKind.IDENTIFIER;
 	}
 
+	/**
+	 * Return the text of this token, or {@code null} for tokens that carry no data.
+	 */
 	public String stringValue() {
+		if (data == null && source != null) {
+			data = source.subSequence(startPos, endPos).toString();
+		}
 		return data;
 	}
 
 	@Override
 	public int hashCode() {
 		return this.kind.ordinal() * 37 + (this.startPos + this.endPos) * 37 +
-				(this.kind.hasPayload() ? this.data.hashCode() : 0);
+				(this.kind.hasPayload() ? this.stringValue().hashCode() : 0);
 	}
 
 	@Override
@@ -103,7 +134,7 @@ public class Token {
 		if (!basicMatch)
 			return false;
 		if (this.kind.hasPayload()) {
-			if (!this.data.equals(token.data)) {
+			if (!this.stringValue().equals(token.stringValue())) {
 				return false;
 			}
 		}
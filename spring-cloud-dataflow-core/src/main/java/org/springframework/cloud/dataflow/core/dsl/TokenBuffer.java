@@ -0,0 +1,207 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core.dsl;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Reusable storage for the output of the tokenizer. Token kinds and offsets into the source
+ * text are kept in primitive arrays that survive across uses, so that tokenizing a definition
+ * into an already sized buffer allocates next to nothing.
+ * <p>
+ * The {@link Token} instances exposed by {@link #asList()} are pooled and re-initialized
+ * when the buffer is reused: a buffer (and any view of it) must only be used by one parse at
+ * a time, and tokens must not be retained once the buffer has been handed to another parse.
+ * ASTs produced by the parsers do not reference tokens, and {@link Tokens} takes a
+ * {@link #snapshot()} before reporting errors, so both are safe to keep.
+ *
+ * @author Andy Clement
+ */
+public class TokenBuffer {
+
+	private static final int DEFAULT_CAPACITY = 32;
+
+	/**
+	 * Buffers that grew past this capacity are shrunk back when reset, so that one very long
+	 * definition does not pin memory for the lifetime of a thread.
+	 */
+	private static final int MAX_RETAINED_CAPACITY = 1024;
+
+	private static final TokenKind[] KINDS = TokenKind.values();
+
+	private static final ThreadLocal<TokenBuffer> PER_THREAD = new ThreadLocal<TokenBuffer>() {
+
+		@Override
+		protected TokenBuffer initialValue() {
+			return new TokenBuffer();
+		}
+	};
+
+	/**
+	 * Text the tokens of this buffer were lexed from.
+	 */
+	private CharSequence source;
+
+	private byte[] kinds;
+
+	private int[] starts;
+
+	private int[] ends;
+
+	/**
+	 * Pooled token instances, created on first access and re-initialized on reuse.
+	 */
+	private Token[] tokens;
+
+	private int size;
+
+	private final List<Token> view = new TokenList();
+
+	public TokenBuffer() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public TokenBuffer(int initialCapacity) {
+		allocate(Math.max(initialCapacity, 1));
+	}
+
+	/**
+	 * Return a buffer private to the calling thread. Suitable for callers that parse
+	 * definitions and only keep the resulting AST.
+	 *
+	 * @return the buffer bound to the current thread
+	 */
+	public static TokenBuffer forCurrentThread() {
+		return PER_THREAD.get();
+	}
+
+	private void allocate(int capacity) {
+		kinds = new byte[capacity];
+		starts = new int[capacity];
+		ends = new int[capacity];
+		tokens = new Token[capacity];
+	}
+
+	/**
+	 * Clear this buffer so that it can hold the tokens of the given source text.
+	 */
+	void reset(CharSequence source) {
+		reset(source, 0);
+	}
+
+	/**
+	 * Prepare this buffer to hold the tokens of the given source text, keeping the
+	 * first {@code keep} tokens, which must be identical in the new source.
+	 */
+	void reset(CharSequence source, int keep) {
+		if (keep == 0 && kinds.length > MAX_RETAINED_CAPACITY) {
+			allocate(DEFAULT_CAPACITY);
+		}
+		this.source = source;
+		this.size = keep;
+	}
+
+	void add(TokenKind kind, int startPos, int endPos) {
+		if (size == kinds.length) {
+			int capacity = size * 2;
+			kinds = Arrays.copyOf(kinds, capacity);
+			starts = Arrays.copyOf(starts, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+			tokens = Arrays.copyOf(tokens, capacity);
+		}
+		kinds[size] = (byte) kind.ordinal();
+		starts[size] = startPos;
+		ends[size] = endPos;
+		if (tokens[size] != null) {
+			tokens[size].reset(kind, source, startPos, endPos);
+		}
+		size++;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	TokenKind kind(int index) {
+		return KINDS[kinds[index]];
+	}
+
+	int startPos(int index) {
+		return starts[index];
+	}
+
+	int endPos(int index) {
+		return ends[index];
+	}
+
+	Token get(int index) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		Token token = tokens[index];
+		if (token == null) {
+			token = newToken(index);
+			tokens[index] = token;
+		}
+		return token;
+	}
+
+	private Token newToken(int index) {
+		TokenKind kind = kind(index);
+		return kind.hasPayload()
+				? new Token(kind, source, starts[index], ends[index])
+				: new Token(kind, starts[index], ends[index]);
+	}
+
+	/**
+	 * Return a read-only view of the tokens currently held by this buffer. The view
+	 * reflects later reuse of the buffer.
+	 */
+	public List<Token> asList() {
+		return view;
+	}
+
+	/**
+	 * Return a copy of the tokens currently held by this buffer that is not affected by
+	 * later reuse of the buffer.
+	 */
+	public List<Token> snapshot() {
+		List<Token> copy = new ArrayList<Token>(size);
+		for (int i = 0; i < size; i++) {
+			copy.add(newToken(i));
+		}
+		return copy;
+	}
+
+	private class TokenList extends AbstractList<Token> implements RandomAccess {
+
+		@Override
+		public Token get(int index) {
+			return TokenBuffer.this.get(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+}
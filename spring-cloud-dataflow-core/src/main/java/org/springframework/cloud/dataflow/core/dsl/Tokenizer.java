@@ -16,13 +16,18 @@
 
 package org.springframework.cloud.dataflow.core.dsl;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.util.Assert;
 
 /**
  * Lex some input data into a stream of tokens that can then then be parsed.
+ * <p>
+ * Tokens are recorded as offsets into the input in a {@link TokenBuffer}; the text of
+ * identifiers and literals is only extracted from the input when a parser asks for it.
+ * <p>
+ * Lexical errors are thrown as {@link ParseException ParseExceptions} without a stack
+ * trace: {@link Tokens} records them and reports them once parsing starts.
  *
  * @author Andy Clement
  */
@@ -34,13 +39,18 @@ class Tokenizer {
 	private String expressionString;
 
 	/**
-	 * The expressionString as a char array.
+	 * The input data, read in place.
 	 */
-	private char[] toProcess;
+	private CharSequence toProcess;
 
 	/**
 	 * Length of input data.
 	 */
+	private int length;
+
+	/**
+	 * Length of input data plus one for the virtual {@code '\0'} sentinel at the end.
+	 */
 	private int max;
 
 	/**
@@ -51,20 +61,66 @@ class Tokenizer {
 	/**
 	 * Output stream of tokens.
 	 */
-	private List<Token> tokens = new ArrayList<Token>();
+	private final TokenBuffer tokens;
 
 	public Tokenizer(String inputData) {
-		this.expressionString = inputData;
-		this.toProcess = (inputData + "\0").toCharArray();
-		this.max = toProcess.length;
-		this.pos = 0;
-		process();
+		this(inputData, new TokenBuffer());
+	}
+
+	/**
+	 * Tokenize the input data into the provided buffer, replacing its previous content.
+	 */
+	public Tokenizer(CharSequence inputData, TokenBuffer tokens) {
+		this(inputData, tokens, 0);
+	}
+
+	/**
+	 * Tokenize the input data into the provided buffer, keeping the first
+	 * {@code reusedTokens} tokens already in the buffer and only lexing the input
+	 * that follows them.
+	 *
+	 * @see #reusableTokenCount(TokenBuffer, CharSequence, CharSequence)
+	 */
+	public Tokenizer(CharSequence inputData, TokenBuffer tokens, int reusedTokens) {
+		this.expressionString = inputData.toString();
+		this.toProcess = inputData;
+		this.length = inputData.length();
+		this.max = length + 1;
+		this.tokens = tokens;
+		tokens.reset(inputData, reusedTokens);
+		this.pos = reusedTokens > 0 ? tokens.endPos(reusedTokens - 1) : 0;
+		process(reusedTokens > 0 && tokens.kind(reusedTokens - 1) == TokenKind.EQUALS);
+	}
+
+	/**
+	 * Return how many of the tokens lexed from {@code previous} (and still held in
+	 * {@code tokens}) would be lexed identically from {@code next}. A token is
+	 * stable if it ends before the first character where both texts differ: lexing
+	 * a token never looks further than one character past its end.
+	 */
+	static int reusableTokenCount(TokenBuffer tokens, CharSequence previous, CharSequence next) {
+		int limit = Math.min(previous.length(), next.length());
+		int commonPrefix = 0;
+		while (commonPrefix < limit && previous.charAt(commonPrefix) == next.charAt(commonPrefix)) {
+			commonPrefix++;
+		}
+		int count = 0;
+		while (count < tokens.size() && tokens.endPos(count) < commonPrefix) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Return the character at the given position, or {@code '\0'} past the end of the input.
+	 */
+	private char charAt(int index) {
+		return index < length ? toProcess.charAt(index) : 0;
 	}
 
-	private void process() {
-		boolean justProcessedEquals = false;
+	private void process(boolean justProcessedEquals) {
 		while (pos < max) {
-			char ch = toProcess[pos];
+			char ch = charAt(pos);
 
 			if (justProcessedEquals) {
 				if (!isWhitespace(ch) && ch != 0) {
@@ -86,7 +142,7 @@ class Tokenizer {
 					case '-':
 						if (!isTwoCharToken(TokenKind.DOUBLE_MINUS)) {
 							throw new ParseException(
-									expressionString, pos,
+									expressionString, pos, false,
 									DSLMessage.MISSING_CHARACTER, "-");
 						}
 						pushPairToken(TokenKind.DOUBLE_MINUS);
@@ -137,10 +193,10 @@ class Tokenizer {
 						break;
 					case '\\':
 						throw new ParseException(
-								expressionString, pos, DSLMessage.UNEXPECTED_ESCAPE_CHAR);
+								expressionString, pos, false, DSLMessage.UNEXPECTED_ESCAPE_CHAR);
 					default:
 						throw new ParseException(
-								expressionString, pos, DSLMessage.UNEXPECTED_DATA,
+								expressionString, pos, false, DSLMessage.UNEXPECTED_DATA,
 								Character.valueOf(ch).toString());
 				}
 			}
@@ -148,7 +204,7 @@ class Tokenizer {
 	}
 
 	public List<Token> getTokens() {
-		return tokens;
+		return tokens.asList();
 	}
 
 	/**
@@ -160,10 +216,10 @@ class Tokenizer {
 		boolean terminated = false;
 		while (!terminated) {
 			pos++;
-			char ch = toProcess[pos];
+			char ch = charAt(pos);
 			if (ch == '\'') {
 				// may not be the end if the char after is also a '
-				if (toProcess[pos + 1] == '\'') {
+				if (charAt(pos + 1) == '\'') {
 					pos++; // skip over that too, and continue
 				}
 				else {
@@ -171,13 +227,12 @@ class Tokenizer {
 				}
 			}
 			if (ch == 0) {
-				throw new ParseException(expressionString, start,
+				throw new ParseException(expressionString, start, false,
 						DSLMessage.NON_TERMINATING_QUOTED_STRING);
 			}
 		}
 		pos++;
-		tokens.add(new Token(TokenKind.LITERAL_STRING,
-				subArray(start, pos), start, pos));
+		tokens.add(TokenKind.LITERAL_STRING, start, pos);
 	}
 
 	/**
@@ -189,10 +244,10 @@ class Tokenizer {
 		boolean terminated = false;
 		while (!terminated) {
 			pos++;
-			char ch = toProcess[pos];
+			char ch = charAt(pos);
 			if (ch == '"') {
 				// may not be the end if the char after is also a "
-				if (toProcess[pos + 1] == '"') {
+				if (charAt(pos + 1) == '"') {
 					pos++; // skip over that too, and continue
 				}
 				else {
@@ -200,13 +255,12 @@ class Tokenizer {
 				}
 			}
 			if (ch == 0) {
-				throw new ParseException(expressionString, start,
+				throw new ParseException(expressionString, start, false,
 						DSLMessage.NON_TERMINATING_DOUBLE_QUOTED_STRING);
 			}
 		}
 		pos++;
-		tokens.add(new Token(TokenKind.LITERAL_STRING,
-				subArray(start, pos), start, pos));
+		tokens.add(TokenKind.LITERAL_STRING, start, pos);
 	}
 
 	private void lexIdentifier() {
@@ -214,9 +268,8 @@ class Tokenizer {
 		do {
 			pos++;
 		}
-		while (isIdentifier(toProcess[pos]));
-		char[] subarray = subArray(start, pos);
-		tokens.add(new Token(TokenKind.IDENTIFIER, subarray, start, pos));
+		while (isIdentifier(charAt(pos)));
+		tokens.add(TokenKind.IDENTIFIER, start, pos);
 	}
 
 	/**
@@ -251,14 +304,14 @@ class Tokenizer {
 		boolean quoteOpen = false;
 		int quoteClosedCount = 0; // Enables identification of this pattern: 'hello'+'world'
 		Character quoteInUse = null; // If set, indicates this is being treated as a quoted string
-		if (isQuote(toProcess[pos])) {
+		if (isQuote(charAt(pos))) {
 			quoteOpen = true;
-			quoteInUse = toProcess[pos++];
+			quoteInUse = charAt(pos++);
 		}
 		do {
-			char ch = toProcess[pos];
+			char ch = charAt(pos);
 			if ((quoteInUse != null && ch == quoteInUse) || (quoteInUse == null && isQuote(ch))) {
-				if (quoteInUse != null && quoteInUse == '\'' && ch == '\'' && toProcess[pos + 1] == '\'') {
+				if (quoteInUse != null && quoteInUse == '\'' && ch == '\'' && charAt(pos + 1) == '\'') {
 					pos++; // skip over that too, and continue
 				}
 				else {
@@ -270,48 +323,43 @@ class Tokenizer {
 			}
 			pos++;
 		}
-		while (!isArgValueIdentifierTerminator(toProcess[pos], quoteOpen));
-		char[] subarray = null;
-		if (quoteClosedCount < 2 && sameQuotes(start, pos - 1)) {
-			tokens.add(new Token(TokenKind.LITERAL_STRING,
-					subArray(start, pos), start, pos));
+		while (!isArgValueIdentifierTerminator(charAt(pos), quoteOpen));
+		if (pos > length) {
+			// a lone quote at the very end swallowed the end of data marker
+			pos = length;
+		}
+		if (quoteClosedCount < 2 && pos - start > 1 && sameQuotes(start, pos - 1)) {
+			tokens.add(TokenKind.LITERAL_STRING, start, pos);
 		}
 		else {
-			subarray = subArray(start, pos);
-			tokens.add(new Token(TokenKind.IDENTIFIER, subarray, start, pos));
+			tokens.add(TokenKind.IDENTIFIER, start, pos);
 		}
 	}
 
 	private boolean sameQuotes(int pos1, int pos2) {
-		if (toProcess[pos1] == '\'') {
-			return toProcess[pos2] == '\'';
+		if (charAt(pos1) == '\'') {
+			return charAt(pos2) == '\'';
 		}
-		else if (toProcess[pos1] == '"') {
-			return toProcess[pos2] == '"';
+		else if (charAt(pos1) == '"') {
+			return charAt(pos2) == '"';
 		}
 		return false;
 	}
 
-	private char[] subArray(int start, int end) {
-		char[] result = new char[end - start];
-		System.arraycopy(toProcess, start, result, 0, end - start);
-		return result;
-	}
-
 	/**
 	 * Check if this might be a two character token.
 	 */
 	private boolean isTwoCharToken(TokenKind kind) {
 		Assert.isTrue(kind.tokenChars.length == 2);
-		Assert.isTrue(toProcess[pos] == kind.tokenChars[0]);
-		return toProcess[pos + 1] == kind.tokenChars[1];
+		Assert.isTrue(charAt(pos) == kind.tokenChars[0]);
+		return charAt(pos + 1) == kind.tokenChars[1];
 	}
 
 	/**
 	 * Push a token of just one character in length.
 	 */
 	private void pushCharToken(TokenKind kind) {
-		tokens.add(new Token(kind, pos, pos + 1));
+		tokens.add(kind, pos, pos + 1);
 		pos++;
 	}
 
@@ -319,7 +367,7 @@ class Tokenizer {
 	 * Push a token of two characters in length.
 	 */
 	private void pushPairToken(TokenKind kind) {
-		tokens.add(new Token(kind, pos, pos + 2));
+		tokens.add(kind, pos, pos + 2);
 		pos += 2;
 	}
 
@@ -384,7 +432,7 @@ class Tokenizer {
 			s.append(" ");
 		}
 		s.append("^\n");
-		s.append(tokens).append("\n");
+		s.append(tokens.asList()).append("\n");
 		return s.toString();
 	}
 
@@ -16,8 +16,9 @@
 
 package org.springframework.cloud.dataflow.core.dsl;
 
-import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Class that converts an expression into a list of {@link Token tokens}.
@@ -34,11 +35,48 @@ public class Tokens {
 	 */
 	private final String expression;
 
+	/**
+	 * Buffer holding the tokens created from {@link #expression}.
+	 */
+	private final TokenBuffer buffer;
+
+	/**
+	 * Whether {@link #buffer} may be reused once this instance is done with it.
+	 */
+	private final boolean reusableBuffer;
+
 	/**
 	 * List of tokens created from {@link #expression}.
 	 */
 	private final List<Token> tokenStream;
 
+	/**
+	 * Number of leading tokens carried over from a previous expression.
+	 */
+	private final int reusedTokenCount;
+
+	/**
+	 * Error that stopped tokenization, if any; {@link #tokenStream} then holds
+	 * the tokens that precede the error.
+	 */
+	private final ParseException tokenizationFailure;
+
+	/**
+	 * Whether exceptions raised while parsing capture a stack trace.
+	 */
+	private boolean fillInStackTraces = true;
+
+	/**
+	 * Bit mask of the {@link TokenKind TokenKinds} that the parser checked for,
+	 * or would have accepted, at {@link #expectedPosition}.
+	 */
+	private long expectedKinds;
+
+	/**
+	 * Token position that {@link #expectedKinds} relates to.
+	 */
+	private int expectedPosition = -1;
+
 	/**
 	 * Index of stream token currently being processed.
 	 */
@@ -54,10 +92,141 @@ public class Tokens {
 	 * Construct a {@code TokenProcessor} based on the provided string expression.
 	 *
 	 * @param expression string expression to convert into {@link Token tokens}.
+	 * @throws ParseException if the expression could not be tokenized
 	 */
 	public Tokens(String expression) {
+		this(expression, new TokenBuffer(), false, 0, false);
+	}
+
+	/**
+	 * Construct a {@code TokenProcessor} based on the provided string expression,
+	 * tokenizing into the provided buffer. The buffer may be reused once processing
+	 * of these tokens is done; see {@link TokenBuffer} for the constraints that apply.
+	 *
+	 * @param expression string expression to convert into {@link Token tokens}.
+	 * @param buffer the buffer to hold the tokens, whose previous content is discarded
+	 * @throws ParseException if the expression could not be tokenized
+	 */
+	public Tokens(String expression, TokenBuffer buffer) {
+		this(expression, buffer, true, 0, false);
+	}
+
+	/**
+	 * Construct a {@code TokenProcessor} based on the provided string expression,
+	 * taking over the buffer of {@code previous} and only re-tokenizing the part of
+	 * {@code expression} that differs from the expression of {@code previous}.
+	 * The previous instance must not be used afterwards. As with
+	 * {@link #forParser(String, TokenBuffer)}, lexical errors are deferred.
+	 *
+	 * @param expression string expression to convert into {@link Token tokens}.
+	 * @param previous tokens of an earlier, typically similar, expression
+	 */
+	Tokens(String expression, Tokens previous) {
+		this(expression, previous.buffer, true,
+				Tokenizer.reusableTokenCount(previous.buffer, previous.expression, expression), true);
+	}
+
+	private Tokens(String expression, TokenBuffer buffer, boolean reusableBuffer, int reusedTokenCount,
+			boolean deferFailure) {
 		this.expression = expression;
-		this.tokenStream = Collections.unmodifiableList(new Tokenizer(expression).getTokens());
+		this.buffer = buffer;
+		this.reusableBuffer = reusableBuffer;
+		this.reusedTokenCount = reusedTokenCount;
+		ParseException failure = null;
+		try {
+			new Tokenizer(expression, buffer, reusedTokenCount);
+		}
+		catch (ParseException e) {
+			if (!deferFailure) {
+				throw e;
+			}
+			failure = e;
+		}
+		this.tokenizationFailure = failure;
+		this.tokenStream = buffer.asList();
+	}
+
+	/**
+	 * Create the tokens of an expression about to be parsed. Unlike the public
+	 * constructors, a lexical error does not fail construction: the tokens preceding
+	 * the error are kept and the error is thrown by {@link #raiseTokenizationFailure()}
+	 * once parsing starts, so that it can be reported like any other parse failure.
+	 *
+	 * @param expression string expression to convert into {@link Token tokens}.
+	 * @param buffer the (possibly reused) buffer to hold the tokens, or {@code null}
+	 * to allocate one
+	 * @return the tokens
+	 */
+	static Tokens forParser(String expression, TokenBuffer buffer) {
+		return (buffer == null
+				? new Tokens(expression, new TokenBuffer(), false, 0, true)
+				: new Tokens(expression, buffer, true, 0, true));
+	}
+
+	/**
+	 * Throw the error, if any, that stopped tokenization of the expression.
+	 * Only tokens created for a parser defer lexical errors this way.
+	 *
+	 * @throws ParseException if the expression could not be tokenized
+	 */
+	protected void raiseTokenizationFailure() {
+		if (tokenizationFailure != null) {
+			if (!fillInStackTraces) {
+				throw tokenizationFailure;
+			}
+			throw new ParseException(tokenizationFailure.getExpressionString(), tokenizationFailure.getPosition(),
+					tokenizationFailure.getMessageCode(), tokenizationFailure.getInserts());
+		}
+	}
+
+	/**
+	 * Set whether exceptions raised while parsing capture a stack trace. This can
+	 * be switched off when failures are reported by other means than exceptions.
+	 *
+	 * @param fillInStackTraces whether to capture stack traces
+	 */
+	void setFillInStackTraces(boolean fillInStackTraces) {
+		this.fillInStackTraces = fillInStackTraces;
+	}
+
+	/**
+	 * Return whether exceptions raised while parsing capture a stack trace.
+	 *
+	 * @return whether to capture stack traces
+	 */
+	boolean isFillInStackTraces() {
+		return fillInStackTraces;
+	}
+
+	/**
+	 * Record that a token of the given kind would be accepted at the current position.
+	 * Together with the kinds checked through {@link #peek(TokenKind)}, this yields
+	 * the expected kinds reported by {@link CheckPointedParseException#getExpectedTokens()}.
+	 *
+	 * @param kind an acceptable token kind
+	 */
+	protected void expect(TokenKind kind) {
+		if (expectedPosition != position) {
+			expectedPosition = position;
+			expectedKinds = 0L;
+		}
+		expectedKinds |= 1L << kind.ordinal();
+	}
+
+	/**
+	 * Return the kinds of token that would be accepted at the current position or,
+	 * if the offending token has just been consumed, at the previous one.
+	 */
+	private Set<TokenKind> expectedTokens() {
+		Set<TokenKind> expected = EnumSet.noneOf(TokenKind.class);
+		if (expectedPosition == position || expectedPosition == position - 1) {
+			for (TokenKind kind : TokenKind.values()) {
+				if ((expectedKinds & (1L << kind.ordinal())) != 0) {
+					expected.add(kind);
+				}
+			}
+		}
+		return expected;
 	}
 
 	/**
@@ -88,7 +257,39 @@ public class Tokens {
 	}
 
 	/**
-	 * Return an immutable list of {@link Token tokens}
+	 * Return the index of the last successfully processed token.
+	 *
+	 * @return last good token position
+	 */
+	int lastGoodPosition() {
+		return lastGoodPosition;
+	}
+
+	/**
+	 * Return how many leading tokens were carried over from a previous expression,
+	 * and hence are known to be identical to the ones of that expression.
+	 *
+	 * @return number of reused tokens
+	 */
+	int getReusedTokenCount() {
+		return reusedTokenCount;
+	}
+
+	/**
+	 * Move to the given position, as if tokens up to there had been processed.
+	 *
+	 * @param position new token position
+	 * @param lastGoodPosition index of the last successfully processed token
+	 */
+	void resume(int position, int lastGoodPosition) {
+		this.position = position;
+		this.lastGoodPosition = lastGoodPosition;
+	}
+
+	/**
+	 * Return an immutable list of {@link Token tokens}. When these tokens are
+	 * backed by a reusable {@link TokenBuffer}, the list is only valid until
+	 * the buffer is reused.
 	 *
 	 * @return list of tokens
 	 */
@@ -107,11 +308,10 @@ public class Tokens {
 	 * {@code desiredTokenKind}
 	 */
 	protected boolean lookAhead(int distance, TokenKind desiredTokenKind) {
-		if ((position + distance) >= tokenStream.size()) {
+		if ((position + distance) >= buffer.size()) {
 			return false;
 		}
-		Token t = tokenStream.get(position + distance);
-		return t.kind == desiredTokenKind;
+		return buffer.kind(position + distance) == desiredTokenKind;
 	}
 
 	/**
@@ -120,7 +320,7 @@ public class Tokens {
 	 * @return {@code true} if there are more tokens to process
 	 */
 	protected boolean hasNext() {
-		return position < tokenStream.size();
+		return position < buffer.size();
 	}
 
 	/**
@@ -141,6 +341,7 @@ public class Tokens {
 	 * @return true if the current token kind matches the provided token kind
 	 */
 	protected boolean peek(TokenKind desiredTokenKind) {
+		expect(desiredTokenKind);
 		return peek(desiredTokenKind, false);
 	}
 
@@ -156,8 +357,7 @@ public class Tokens {
 		if (!hasNext()) {
 			return false;
 		}
-		Token t = peek();
-		if (t.kind == desiredTokenKind) {
+		if (buffer.kind(position) == desiredTokenKind) {
 			if (consumeIfMatched) {
 				position++;
 			}
@@ -190,6 +390,7 @@ public class Tokens {
 	 * the expected token kind
 	 */
 	protected Token eat(TokenKind expectedKind) {
+		expect(expectedKind);
 		Token t = next();
 		if (t == null) {
 			raiseException(expression.length(), DSLMessage.OOD);
@@ -197,7 +398,7 @@ public class Tokens {
 		if (t.kind != expectedKind) {
 			raiseException(t.startPos, DSLMessage.NOT_EXPECTED_TOKEN,
 					expectedKind.toString().toLowerCase(),
-					t.getKind().toString().toLowerCase() + (t.data == null ? "" : "(" + t.data + ")"));
+					t.getKind().toString().toLowerCase() + (t.stringValue() == null ? "" : "(" + t.stringValue() + ")"));
 		}
 		return t;
 	}
@@ -214,9 +415,7 @@ public class Tokens {
 			return false;
 		}
 
-		Token last = tokenStream.get(position - 1);
-		Token next = tokenStream.get(position);
-		return next.startPos == last.endPos;
+		return buffer.startPos(position) == buffer.endPos(position - 1);
 	}
 
 	/**
@@ -230,7 +429,9 @@ public class Tokens {
 
 	/**
 	 * Throw a new {@link CheckPointedParseException} based on the current and
-	 * last successfully processed token position.
+	 * last successfully processed token position. The exception carries its own
+	 * copy of the tokens if the buffer backing them may be reused, as well as the
+	 * token kinds {@link #expect(TokenKind) expected} at the current position.
 	 *
 	 * @param position position where parse error occurred
 	 * @param message  parse exception message
@@ -238,7 +439,8 @@ public class Tokens {
 	 */
 	protected void raiseException(int position, DSLMessage message, Object... inserts) {
 		throw new CheckPointedParseException(expression, position, this.position,
-				lastGoodPosition, tokenStream, message, inserts);
+				lastGoodPosition, reusableBuffer ? buffer.snapshot() : tokenStream,
+				expectedTokens(), fillInStackTraces, message, inserts);
 	}
 
 }
@@ -0,0 +1,556 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core.store;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.util.Assert;
+
+/**
+ * Durable map of strings, held in memory and persisted in an append-only log file.
+ * <p>
+ * Every change is appended to the log (and, by default, forced to disk) before it
+ * is applied to the in-memory map, which serves all reads. On start, the log is
+ * replayed to rebuild the map; an incomplete or corrupt record at the end of the
+ * log, as left by a crash in the middle of a write, is discarded. Once the log has
+ * grown to more than twice the size needed to hold the live entries, it is compacted
+ * by writing those entries to a new file that atomically replaces the log.
+ * <p>
+ * Each record is made of the length of its payload, the CRC32 checksum of the payload,
+ * and the payload itself: an operation code, the length of the key, the key and the
+ * value, strings being encoded in UTF-8.
+ * <p>
+ * Reads may be done concurrently with writes; writes are serialized. Failures to
+ * write the log are reported as {@link IllegalStateException IllegalStateExceptions}.
+ * The part of a record written before a failure is cut off the log, so that later
+ * records follow the last complete one; should that fail too, the store refuses any
+ * further change. A failure to compact the log after a change is logged rather than
+ * reported, as the change itself is durable by then; compaction is tried again once
+ * the log has grown further.
+ *
+ * @author Patrick Peralta
+ */
+public class LogFileStore implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(LogFileStore.class);
+
+	private static final byte PUT = 1;
+
+	private static final byte REMOVE = 2;
+
+	/**
+	 * Size of the payload length and checksum that precede each payload.
+	 */
+	private static final int RECORD_HEADER_SIZE = 8;
+
+	/**
+	 * Size of the operation code and key length at the start of each payload.
+	 */
+	private static final int PAYLOAD_HEADER_SIZE = 5;
+
+	/**
+	 * Logs smaller than this are not compacted.
+	 */
+	private static final long MIN_COMPACTION_SIZE = 64 * 1024;
+
+	private final Path path;
+
+	private final boolean sync;
+
+	private final ConcurrentNavigableMap<String, String> entries = new ConcurrentSkipListMap<>();
+
+	private FileChannel channel;
+
+	/**
+	 * Size of the log, in bytes.
+	 */
+	private long logSize;
+
+	/**
+	 * Size of the records needed to represent the current entries, in bytes.
+	 */
+	private long liveSize;
+
+	/**
+	 * Failure that left the end of the log in an unknown state, if any; the
+	 * store can then no longer be changed.
+	 */
+	private IOException writeFailure;
+
+	/**
+	 * Size the log must exceed before compaction is tried again after a failure.
+	 */
+	private long compactionRetrySize;
+
+	/**
+	 * Construct a {@code LogFileStore} persisted in the given file, forcing every
+	 * change to disk. The file and its parent directories are created if needed.
+	 *
+	 * @param file the log file
+	 * @throws IOException if the log cannot be read or opened
+	 */
+	public LogFileStore(File file) throws IOException {
+		this(file, true);
+	}
+
+	/**
+	 * Construct a {@code LogFileStore} persisted in the given file. The file and
+	 * its parent directories are created if needed.
+	 *
+	 * @param file the log file
+	 * @param sync whether every change is forced to disk before being applied
+	 * @throws IOException if the log cannot be read or opened
+	 */
+	public LogFileStore(File file, boolean sync) throws IOException {
+		Assert.notNull(file, "file must not be null");
+		this.path = file.toPath().toAbsolutePath();
+		this.sync = sync;
+		Files.createDirectories(path.getParent());
+		long validSize = Files.exists(path) ? replay() : 0;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		if (channel.size() > validSize) {
+			channel.truncate(validSize);
+		}
+		channel.position(validSize);
+		this.logSize = validSize;
+	}
+
+	/**
+	 * Rebuild the entries from the log.
+	 *
+	 * @return the size of the valid part of the log
+	 */
+	private long replay() throws IOException {
+		long fileSize = Files.size(path);
+		long position = 0;
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 64 * 1024)) {
+			DataInputStream data = new DataInputStream(in);
+			CRC32 crc = new CRC32();
+			while (fileSize - position >= RECORD_HEADER_SIZE) {
+				int length = data.readInt();
+				int checksum = data.readInt();
+				if (length < PAYLOAD_HEADER_SIZE || length > fileSize - position - RECORD_HEADER_SIZE) {
+					break;
+				}
+				byte[] payload = new byte[length];
+				data.readFully(payload);
+				crc.reset();
+				crc.update(payload, 0, length);
+				if ((int) crc.getValue() != checksum || !apply(ByteBuffer.wrap(payload))) {
+					break;
+				}
+				position += RECORD_HEADER_SIZE + length;
+			}
+		}
+		catch (EOFException e) {
+			// truncated record, dropped along with anything after it
+		}
+		return position;
+	}
+
+	/**
+	 * Apply a payload read from the log to the entries.
+	 *
+	 * @return {@code false} if the payload is malformed
+	 */
+	private boolean apply(ByteBuffer payload) {
+		byte operation = payload.get();
+		int keyLength = payload.getInt();
+		if (keyLength < 0 || keyLength > payload.remaining()) {
+			return false;
+		}
+		String key = new String(payload.array(), PAYLOAD_HEADER_SIZE, keyLength, StandardCharsets.UTF_8);
+		if (operation == PUT) {
+			String value = new String(payload.array(), PAYLOAD_HEADER_SIZE + keyLength,
+					payload.remaining() - keyLength, StandardCharsets.UTF_8);
+			applyPut(key, value);
+			return true;
+		}
+		else if (operation == REMOVE) {
+			applyRemove(key);
+			return true;
+		}
+		return false;
+	}
+
+	private String applyPut(String key, String value) {
+		String previous = entries.put(key, value);
+		liveSize += recordSize(key, value) - (previous == null ? 0 : recordSize(key, previous));
+		return previous;
+	}
+
+	private String applyRemove(String key) {
+		String previous = entries.remove(key);
+		if (previous != null) {
+			liveSize -= recordSize(key, previous);
+		}
+		return previous;
+	}
+
+	private static long recordSize(String key, String value) {
+		return RECORD_HEADER_SIZE + PAYLOAD_HEADER_SIZE + utf8Length(key) + utf8Length(value);
+	}
+
+	private static int utf8Length(String s) {
+		int length = s.length();
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c >= 0x800) {
+				// surrogate pairs take 4 bytes for 2 chars
+				length += Character.isSurrogate(c) ? 1 : 2;
+			}
+			else if (c >= 0x80) {
+				length++;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Return the value of the given key, or {@code null} if there is none.
+	 *
+	 * @param key the key
+	 * @return the value of the key
+	 */
+	public String get(String key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * @param key the key
+	 * @return whether the key has a value
+	 */
+	public boolean containsKey(String key) {
+		return entries.containsKey(key);
+	}
+
+	/**
+	 * @return the number of entries
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Return a read-only view of the entries, sorted by key.
+	 *
+	 * @return the entries
+	 */
+	public SortedMap<String, String> asMap() {
+		return Collections.unmodifiableSortedMap(entries);
+	}
+
+	/**
+	 * Return a read-only view of the entries whose key starts with the given prefix,
+	 * sorted by key.
+	 *
+	 * @param prefix the key prefix
+	 * @return the entries whose key starts with the prefix
+	 */
+	public SortedMap<String, String> prefixMap(String prefix) {
+		return prefixMap(prefix, false);
+	}
+
+	/**
+	 * Return a read-only view of the entries whose key starts with the given prefix,
+	 * sorted by key in either direction. An empty prefix selects all entries.
+	 *
+	 * @param prefix the key prefix
+	 * @param descending whether the entries are sorted in descending order of keys
+	 * @return the entries whose key starts with the prefix
+	 */
+	public SortedMap<String, String> prefixMap(String prefix, boolean descending) {
+		ConcurrentNavigableMap<String, String> view = (prefix.isEmpty() ? entries
+				: entries.subMap(prefix, true, prefix + Character.MAX_VALUE, false));
+		return Collections.unmodifiableSortedMap(descending ? view.descendingMap() : view);
+	}
+
+	/**
+	 * Set the value of a key.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @return the previous value of the key, or {@code null} if there was none
+	 */
+	public synchronized String put(String key, String value) {
+		Assert.notNull(key, "key must not be null");
+		Assert.notNull(value, "value must not be null");
+		append(Collections.singletonList(record(PUT, key, value)));
+		String previous = applyPut(key, value);
+		compactIfNeeded();
+		return previous;
+	}
+
+	/**
+	 * Set the value of a key, unless it already has one.
+	 *
+	 * @param key the key
+	 * @param value the value
+	 * @return the current value of the key, or {@code null} if the given value was set
+	 */
+	public synchronized String putIfAbsent(String key, String value) {
+		String current = entries.get(key);
+		return current != null ? current : put(key, value);
+	}
+
+	/**
+	 * Set the value of several keys at once, forcing the log to disk once.
+	 *
+	 * @param values the values, by key
+	 */
+	public synchronized void putAll(Map<String, String> values) {
+		List<ByteBuffer> records = new ArrayList<>(values.size());
+		for (Map.Entry<String, String> entry : values.entrySet()) {
+			Assert.notNull(entry.getKey(), "key must not be null");
+			Assert.notNull(entry.getValue(), "value must not be null");
+			records.add(record(PUT, entry.getKey(), entry.getValue()));
+		}
+		append(records);
+		for (Map.Entry<String, String> entry : values.entrySet()) {
+			applyPut(entry.getKey(), entry.getValue());
+		}
+		compactIfNeeded();
+	}
+
+	/**
+	 * Set the value of several keys at once, unless any of them already has one,
+	 * in which case none is set.
+	 *
+	 * @param values the values, by key
+	 * @return the keys that already have a value, empty if the given values were set
+	 */
+	public synchronized Set<String> putAllIfAbsent(Map<String, String> values) {
+		Set<String> present = new TreeSet<>();
+		for (String key : values.keySet()) {
+			if (entries.containsKey(key)) {
+				present.add(key);
+			}
+		}
+		if (present.isEmpty()) {
+			putAll(values);
+		}
+		return present;
+	}
+
+	/**
+	 * Remove the value of a key.
+	 *
+	 * @param key the key
+	 * @return the removed value, or {@code null} if the key had no value
+	 */
+	public synchronized String remove(String key) {
+		if (!entries.containsKey(key)) {
+			return null;
+		}
+		append(Collections.singletonList(record(REMOVE, key, "")));
+		String previous = applyRemove(key);
+		compactIfNeeded();
+		return previous;
+	}
+
+	/**
+	 * Remove the values of several keys at once, forcing the log to disk once.
+	 *
+	 * @param keys the keys
+	 */
+	public synchronized void removeAll(Collection<String> keys) {
+		List<ByteBuffer> records = new ArrayList<>(keys.size());
+		for (String key : keys) {
+			if (entries.containsKey(key)) {
+				records.add(record(REMOVE, key, ""));
+			}
+		}
+		append(records);
+		for (String key : keys) {
+			applyRemove(key);
+		}
+		compactIfNeeded();
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	public synchronized void clear() {
+		removeAll(new ArrayList<>(entries.keySet()));
+	}
+
+	private static ByteBuffer record(byte operation, String key, String value) {
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+		int length = PAYLOAD_HEADER_SIZE + keyBytes.length + valueBytes.length;
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + length);
+		record.putInt(length);
+		record.putInt(0);
+		record.put(operation).putInt(keyBytes.length).put(keyBytes).put(valueBytes);
+		CRC32 crc = new CRC32();
+		crc.update(record.array(), RECORD_HEADER_SIZE, length);
+		record.putInt(4, (int) crc.getValue());
+		record.flip();
+		return record;
+	}
+
+	/**
+	 * Append records to the log, then compact it if it has grown large enough.
+	 */
+	private void append(List<ByteBuffer> records) {
+		if (records.isEmpty()) {
+			return;
+		}
+		Assert.state(channel != null, "store is closed");
+		if (writeFailure != null) {
+			throw new IllegalStateException("Could not write to " + path + " since an earlier write failed",
+					writeFailure);
+		}
+		try {
+			long written = write(channel, records);
+			if (sync) {
+				channel.force(false);
+			}
+			logSize += written;
+		}
+		catch (IOException e) {
+			discardPartialWrite(e);
+			throw new IllegalStateException("Could not write to " + path, e);
+		}
+	}
+
+	/**
+	 * Cut off whatever was written of records that could not be appended. Otherwise,
+	 * replaying the log would stop at them, and drop the records appended afterwards.
+	 * If the log cannot be restored to its last known size, further changes are refused.
+	 */
+	private void discardPartialWrite(IOException cause) {
+		try {
+			channel.truncate(logSize);
+			channel.position(logSize);
+		}
+		catch (IOException e) {
+			cause.addSuppressed(e);
+			writeFailure = cause;
+		}
+	}
+
+	private static long write(FileChannel channel, List<ByteBuffer> records) throws IOException {
+		long written = 0;
+		for (ByteBuffer record : records) {
+			while (record.hasRemaining()) {
+				written += channel.write(record);
+			}
+		}
+		return written;
+	}
+
+	/**
+	 * Compact the log if it is more than twice as large as needed for the
+	 * current entries. This is done after every change, which is durable by
+	 * then: a failure is logged, not thrown, so that the change is not taken
+	 * for a failed one.
+	 */
+	private void compactIfNeeded() {
+		if (logSize > MIN_COMPACTION_SIZE && logSize > 2 * liveSize && logSize > compactionRetrySize) {
+			try {
+				compact();
+			}
+			catch (IllegalStateException e) {
+				compactionRetrySize = logSize + MIN_COMPACTION_SIZE;
+				logger.warn("Could not compact " + path + ", will try again once the log has grown", e);
+			}
+		}
+	}
+
+	/**
+	 * Rewrite the log so that it only holds the current entries. The new log is
+	 * written to a temporary file, which then atomically replaces the log.
+	 */
+	public synchronized void compact() {
+		Assert.state(channel != null, "store is closed");
+		Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+		try {
+			List<ByteBuffer> records = new ArrayList<>(entries.size());
+			for (Map.Entry<String, String> entry : entries.entrySet()) {
+				records.add(record(PUT, entry.getKey(), entry.getValue()));
+			}
+			long written;
+			try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				written = write(out, records);
+				out.force(false);
+			}
+			channel.close();
+			try {
+				Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				logSize = written;
+			}
+			finally {
+				// reopen whichever log is in place: the compacted one, or the original one on failure
+				channel = FileChannel.open(path, StandardOpenOption.WRITE);
+				channel.position(logSize);
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not compact " + path, e);
+		}
+	}
+
+	/**
+	 * @return the size of the log, in bytes
+	 */
+	public synchronized long getLogSize() {
+		return logSize;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[" + path + "]";
+	}
+
+}
@@ -17,6 +17,8 @@
 package org.springframework.cloud.dataflow.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 import org.junit.Test;
 
@@ -92,6 +94,46 @@ public class ArtifactCoordinatesTests {
 						.build());
 	}
 
+	@Test
+	public void testParseWithEmptyExtension() {
+		ArtifactCoordinates expected = new ArtifactCoordinates.Builder()
+				.setGroupId(GROUP_ID)
+				.setArtifactId(ARTIFACT_ID)
+				.setClassifier("exec")
+				.setVersion(VERSION)
+				.build();
+		validateModuleCoordinates(expected, ArtifactCoordinates.parse(
+				String.format("%s:%s::%s:%s", GROUP_ID, ARTIFACT_ID, "exec", VERSION)));
+		assertEquals(ArtifactCoordinates.DEFAULT_EXTENSION,
+				ArtifactCoordinates.parse(String.format("%s:%s::%s", GROUP_ID, ARTIFACT_ID, VERSION)).getExtension());
+	}
+
+	@Test
+	public void testParseInvalid() {
+		String[] invalid = {"foo", "foo:bar", ":bar:1.0", "foo::1.0", "foo:bar:", "foo:bar:jar::1.0",
+				"foo:bar:jar:exec:1.0:extra", "foo:bar baz:1.0", "foo:bar:jar:exec:"};
+		for (String coordinates : invalid) {
+			try {
+				ArtifactCoordinates.parse(coordinates);
+				fail("expected '" + coordinates + "' to be rejected");
+			}
+			catch (IllegalArgumentException expected) {
+			}
+		}
+	}
+
+	@Test
+	public void testCanonicalInstances() {
+		ArtifactCoordinates built = new ArtifactCoordinates.Builder()
+				.setGroupId(GROUP_ID)
+				.setArtifactId(ARTIFACT_ID)
+				.setVersion("canonical")
+				.build();
+		assertSame(built, ArtifactCoordinates.parse(GROUP_ID + ":" + ARTIFACT_ID + ":canonical"));
+		assertSame(built, ArtifactCoordinates.parse(built.toString()));
+		assertEquals(GROUP_ID + ":" + ARTIFACT_ID + ":jar:canonical", built.toString());
+	}
+
 	private void validateModuleCoordinates(ArtifactCoordinates expected, ArtifactCoordinates actual) {
 		assertEquals(expected.getGroupId(), actual.getGroupId());
 		assertEquals(expected.getArtifactId(), actual.getArtifactId());
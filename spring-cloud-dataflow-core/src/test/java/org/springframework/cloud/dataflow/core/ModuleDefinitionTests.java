@@ -18,6 +18,9 @@ package org.springframework.cloud.dataflow.core;
 
 import static org.junit.Assert.*;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.junit.Test;
 
 /**
@@ -43,4 +46,49 @@ public class ModuleDefinitionTests {
 		assertEquals("channel", definition.getParameters().get(OUTPUT_BINDING_KEY));
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testParametersAreImmutable() {
+		ModuleDefinition definition = new ModuleDefinition.Builder()
+				.setGroup("ticktock")
+				.setName("time")
+				.setParameter(OUTPUT_BINDING_KEY, "channel").build();
+		try {
+			definition.getParameters().put("foo", "bar");
+			fail();
+		}
+		catch (UnsupportedOperationException expected) {
+		}
+		assertEquals(1, definition.getParameters().size());
+	}
+
+	@Test
+	public void testBuilderFromDefinition() {
+		Map<String, String> parameters = new HashMap<>();
+		parameters.put(BindingProperties.INPUT_BINDING_KEY, "ticktock.0");
+		parameters.put(BindingProperties.OUTPUT_BINDING_KEY, "ticktock.1");
+		parameters.put("expression", "payload");
+		ModuleDefinition definition = new ModuleDefinition.Builder()
+				.setGroup("ticktock")
+				.setName("transform")
+				.addParameters(parameters).build();
+		assertEquals(parameters, definition.getParameters());
+		assertEquals(parameters.hashCode(), definition.getParameters().hashCode());
+
+		ModuleDefinition copy = ModuleDefinition.Builder.from(definition).build();
+		assertSame(definition.getParameters(), copy.getParameters());
+
+		ModuleDefinition changed = ModuleDefinition.Builder.from(definition)
+				.setParameter("expression", "payload.toUpperCase()").build();
+		assertEquals("payload.toUpperCase()", changed.getParameters().get("expression"));
+		assertEquals("payload", definition.getParameters().get("expression"));
+		assertEquals(3, changed.getParameters().size());
+
+		ModuleDefinition.Builder builder = ModuleDefinition.Builder.from(definition);
+		builder.getParameters().remove("expression");
+		ModuleDefinition removed = builder.setParameter("foo", "bar").build();
+		assertFalse(removed.getParameters().containsKey("expression"));
+		assertEquals("bar", removed.getParameters().get("foo"));
+		assertEquals(3, definition.getParameters().size());
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * @author Patrick Peralta
+ */
+public class ModuleParametersTests {
+
+	@Test
+	public void lookups() {
+		Map<String, String> map = new HashMap<>();
+		map.put("b", "2");
+		map.put("c", "3");
+		map.put("a", "1");
+		ModuleParameters parameters = ModuleParameters.of(map);
+		assertEquals(map, parameters);
+		assertEquals("[a, b, c]", parameters.keySet().toString());
+		assertEquals("1", parameters.get("a"));
+		assertNull(parameters.get("d"));
+		assertNull(parameters.get(42));
+		assertTrue(parameters.containsValue("3"));
+		assertSame(ModuleParameters.EMPTY, ModuleParameters.of(Collections.<String, String>emptyMap()));
+		assertSame(parameters, ModuleParameters.of(parameters));
+	}
+
+	@Test
+	public void keysAreInterned() {
+		String key = new String(BindingProperties.INPUT_BINDING_KEY);
+		ModuleParameters parameters = ModuleParameters.of(Collections.singletonMap(key, "foo"));
+		assertSame(BindingProperties.INPUT_BINDING_KEY, parameters.keySet().iterator().next());
+		parameters = ModuleParameters.EMPTY.with(new String(BindingProperties.OUTPUT_BINDING_KEY), "bar");
+		assertSame(BindingProperties.OUTPUT_BINDING_KEY, parameters.keySet().iterator().next());
+	}
+
+	@Test
+	public void derivedParameters() {
+		ModuleParameters parameters = ModuleParameters.EMPTY.with("b", "2").with("a", "1").with("c", "3");
+		assertEquals("{a=1, b=2, c=3}", parameters.toString());
+		assertSame(parameters, parameters.with("b", "2"));
+		ModuleParameters changed = parameters.with("b", "two");
+		assertEquals("{a=1, b=two, c=3}", changed.toString());
+		assertEquals("{a=1, b=2, c=3}", parameters.toString());
+		assertEquals("{a=1, b=2, bb=22, c=3}", parameters.withAll(Collections.singletonMap("bb", "22")).toString());
+	}
+
+	/**
+	 * Parameters are kept in two arrays. Deriving parameters that only differ by a value
+	 * shares the array of keys, and the keys themselves are shared by all instances.
+	 */
+	@Test
+	public void derivedParametersShareKeys() throws Exception {
+		Map<String, String> source = new HashMap<>();
+		source.put(BindingProperties.INPUT_BINDING_KEY, "ticktock.0");
+		source.put(BindingProperties.OUTPUT_BINDING_KEY, "ticktock.1");
+		source.put("expression", "payload");
+		ModuleParameters parameters = ModuleParameters.of(source);
+		ModuleParameters changed = parameters.with("expression", "headers");
+		assertSame(array(parameters, "keys"), array(changed, "keys"));
+		assertNotSame(array(parameters, "values"), array(changed, "values"));
+		assertEquals("payload", parameters.get("expression"));
+
+		String[] keys = array(parameters, "keys");
+		String[] otherKeys = array(ModuleParameters.of(new HashMap<>(source)), "keys");
+		assertNotSame(keys, otherKeys);
+		for (int i = 0; i < keys.length; i++) {
+			assertSame(keys[i], otherKeys[i]);
+		}
+	}
+
+	private static String[] array(ModuleParameters parameters, String name) throws Exception {
+		Field field = ModuleParameters.class.getDeclaredField(name);
+		field.setAccessible(true);
+		return (String[]) field.get(parameters);
+	}
+
+}
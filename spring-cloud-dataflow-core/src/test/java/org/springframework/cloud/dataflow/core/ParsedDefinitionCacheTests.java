@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * @author Patrick Peralta
+ */
+public class ParsedDefinitionCacheTests {
+
+	@Test
+	public void hitsAndMisses() {
+		ParsedDefinitionCache<String> cache = new ParsedDefinitionCache<>(10);
+		assertNull(cache.get("foo", "time | log"));
+		cache.put("foo", "time | log", "parsed");
+		assertEquals("parsed", cache.get("foo", "time | log"));
+		assertNull(cache.get("bar", "time | log"));
+		assertNull(cache.get("foo", "time | file"));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(3, cache.getMissCount());
+		assertEquals(0, cache.getEvictionCount());
+	}
+
+	@Test
+	public void leastRecentlyUsedIsEvicted() {
+		ParsedDefinitionCache<String> cache = new ParsedDefinitionCache<>(2);
+		cache.put("a", "time | log", "a");
+		cache.put("b", "time | log", "b");
+		cache.get("a", "time | log");
+		cache.put("c", "time | log", "c");
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals("a", cache.get("a", "time | log"));
+		assertNull(cache.get("b", "time | log"));
+		assertEquals("c", cache.get("c", "time | log"));
+	}
+
+	@Test
+	public void shrinking() {
+		ParsedDefinitionCache<String> cache = new ParsedDefinitionCache<>(3);
+		cache.put("a", "time | log", "a");
+		cache.put("b", "time | log", "b");
+		cache.put("c", "time | log", "c");
+		cache.setMaxSize(1);
+		assertEquals(1, cache.size());
+		assertEquals(2, cache.getEvictionCount());
+		assertEquals("c", cache.get("c", "time | log"));
+		cache.setMaxSize(0);
+		cache.put("d", "time | log", "d");
+		assertEquals(0, cache.size());
+	}
+
+}
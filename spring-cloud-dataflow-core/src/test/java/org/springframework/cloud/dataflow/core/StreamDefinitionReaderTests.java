@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import org.springframework.cloud.dataflow.core.dsl.DSLMessage;
+import org.springframework.cloud.dataflow.core.dsl.ScriptParseException;
+
+/**
+ * @author Patrick Peralta
+ */
+public class StreamDefinitionReaderTests {
+
+	@Test
+	public void readsEntriesSeparatedByNewlinesAndSemicolons() throws IOException {
+		StreamDefinitionReader reader = new StreamDefinitionReader(new StringReader(
+				"# some streams\n"
+				+ "ticktock = time | log\r\n"
+				+ "\n"
+				+ "  foo=http --port=9000 | log ; bar = time --format='HH;mm' | log;\n"
+				+ "baz = queue:foo > log"));
+		assertDefinition(reader.read(), "ticktock", "time | log", 2);
+		assertDefinition(reader.read(), "foo", "http --port=9000 | log", 2);
+		StreamDefinition bar = reader.read();
+		assertDefinition(bar, "bar", "time --format='HH;mm' | log", 2);
+		assertEquals("HH;mm", bar.getModuleDefinitions().get(0).getParameters().get("format"));
+		assertDefinition(reader.read(), "baz", "queue:foo > log", 1);
+		assertNull(reader.read());
+		assertNull(reader.read());
+	}
+
+	@Test
+	public void readsScriptLargerThanBuffer() throws IOException {
+		StringBuilder script = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			script.append("stream").append(i).append(" = time --fixedDelay=").append(i).append(" | log\n");
+		}
+		StreamDefinitionReader reader = new StreamDefinitionReader(new StringReader(script.toString()));
+		for (int i = 0; i < 2000; i++) {
+			StreamDefinition definition = reader.read();
+			assertEquals("stream" + i, definition.getName());
+			assertEquals(String.valueOf(i), definition.getModuleDefinitions().get(0).getParameters().get("fixedDelay"));
+		}
+		assertNull(reader.read());
+	}
+
+	@Test
+	public void reportsErrorsByLineAndColumn() throws IOException {
+		StreamDefinitionReader reader = new StreamDefinitionReader(new StringReader(
+				"ok = time | log\n"
+				+ "  bad = time | | log\n"
+				+ "time | log; 1st = time | log\n"
+				+ "noModules =   \n"
+				+ "last = time | log"));
+		assertEquals("ok", reader.read().getName());
+		checkError(reader, 2, 16, DSLMessage.EXPECTED_MODULENAME);
+		checkError(reader, 3, 1, DSLMessage.EXPECTED_STREAM_NAME_ASSIGNMENT);
+		checkError(reader, 3, 13, DSLMessage.ILLEGAL_STREAM_NAME);
+		checkError(reader, 4, 15, DSLMessage.OOD);
+		assertEquals("last", reader.read().getName());
+		assertNull(reader.read());
+	}
+
+	@Test
+	public void readEntriesWithoutParsing() throws IOException {
+		Reader script = new StringReader("a = time | | log\nb = time | log");
+		try (StreamDefinitionReader reader = new StreamDefinitionReader(script)) {
+			StreamDefinitionReader.Entry a = reader.readEntry();
+			StreamDefinitionReader.Entry b = reader.readEntry();
+			assertNull(reader.readEntry());
+			assertEquals("b", b.parse().getName());
+			assertEquals(2, b.getLine());
+			assertEquals("time | | log", a.getDslText());
+			try {
+				a.parse();
+				fail();
+			}
+			catch (ScriptParseException e) {
+				assertEquals(1, e.getLine());
+				assertEquals(12, e.getColumn());
+			}
+		}
+	}
+
+	private void assertDefinition(StreamDefinition definition, String name, String dslText, int moduleCount) {
+		assertEquals(name, definition.getName());
+		assertEquals(dslText, definition.getDslText());
+		assertEquals(moduleCount, definition.getModuleDefinitions().size());
+	}
+
+	private void checkError(StreamDefinitionReader reader, int line, int column, DSLMessage message)
+			throws IOException {
+		try {
+			reader.read();
+			fail("expected an error at line " + line + ", column " + column);
+		}
+		catch (ScriptParseException e) {
+			assertEquals(message, e.getMessageCode());
+			assertEquals(line, e.getLine());
+			assertEquals(column, e.getColumn());
+		}
+	}
+
+}
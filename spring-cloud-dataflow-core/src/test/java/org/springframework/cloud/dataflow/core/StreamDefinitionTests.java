@@ -28,7 +28,9 @@ import java.util.Map;
 
 import org.junit.Test;
 
+import org.springframework.cloud.dataflow.core.dsl.DSLMessage;
 import org.springframework.cloud.dataflow.core.dsl.ParseException;
+import org.springframework.cloud.dataflow.core.dsl.ParseResult;
 
 /**
  * @author Mark Fisher
@@ -222,4 +224,80 @@ public class StreamDefinitionTests {
 		assertFalse(sink.getParameters().containsKey(BindingProperties.OUTPUT_BINDING_KEY));
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void cachedStreamDefinitionsShareParsedModules() {
+		StreamDefinition first = StreamDefinition.cached("cachedticktock", "time | log --level=WARN");
+		StreamDefinition second = StreamDefinition.cached("cachedticktock", "time | log --level=WARN");
+		assertEquals("cachedticktock", second.getName());
+		assertEquals("time | log --level=WARN", second.getDslText());
+		assertTrue(first.getModuleDefinitions() == second.getModuleDefinitions());
+		assertEquals("WARN", second.getModuleDefinitions().get(1).getParameters().get("level"));
+		assertEquals("cachedticktock.0", second.getModuleDefinitions().get(1).getParameters()
+				.get(BindingProperties.INPUT_BINDING_KEY));
+
+		StreamDefinition renamed = StreamDefinition.cached("othername", "time | log --level=WARN");
+		assertFalse(first.getModuleDefinitions() == renamed.getModuleDefinitions());
+		assertEquals("othername.0", renamed.getModuleDefinitions().get(1).getParameters()
+				.get(BindingProperties.INPUT_BINDING_KEY));
+	}
+
+	@Test(expected = ParseException.class)
+	public void cachedStreamDefinitionRejectsInvalidDsl() {
+		StreamDefinition.cached("broken", "time | | log");
+	}
+
+	@Test
+	public void parseSession() {
+		StreamDefinitionParseSession session = new StreamDefinitionParseSession("typing");
+		String dsl = "time --format=hh | filter --expression=true | log";
+		for (int i = 1; i <= dsl.length(); i++) {
+			String text = dsl.substring(0, i);
+			String expected;
+			try {
+				expected = new StreamDefinition("typing", text).getModuleDefinitions().toString();
+			}
+			catch (RuntimeException e) {
+				expected = e.toString();
+			}
+			String actual;
+			try {
+				actual = session.parse(text).getModuleDefinitions().toString();
+			}
+			catch (RuntimeException e) {
+				actual = e.toString();
+			}
+			assertEquals(expected, actual);
+		}
+		StreamDefinition last = session.parse(dsl);
+		assertTrue(last == session.parse(dsl));
+		assertEquals("typing", last.getName());
+		assertEquals("true", last.getModuleDefinitions().get(1).getParameters().get("expression"));
+		assertEquals("typing.1", last.getModuleDefinitions().get(2).getParameters()
+				.get(BindingProperties.INPUT_BINDING_KEY));
+	}
+
+	@Test
+	public void parseSessionRepeatsFailure() {
+		StreamDefinitionParseSession session = new StreamDefinitionParseSession("typing");
+		ParseResult<StreamDefinition> first = session.tryParse("time | ");
+		assertFalse(first.isSuccessful());
+		assertEquals(DSLMessage.OOD, first.getFailure().getMessageCode());
+		assertTrue(first == session.tryParse("time | "));
+		assertEquals("log", session.parse("time | log").getModuleDefinitions().get(1).getName());
+		assertFalse(session.tryParse("").isSuccessful());
+	}
+
+	@Test
+	public void parseSessionPoolKeepsInterleavedTextsApart() {
+		StreamDefinitionParseSessionPool pool = new StreamDefinitionParseSessionPool("typing", 2);
+		StreamDefinition ticktock = pool.tryParse("time | log").getValue();
+		StreamDefinition ingest = pool.tryParse("http | file").getValue();
+		assertTrue(ticktock == pool.tryParse("time | log").getValue());
+		assertTrue(ingest == pool.tryParse("http | file").getValue());
+		assertEquals("filter", pool.tryParse("time | filter | log").getValue().getModuleDefinitions().get(1).getName());
+		assertTrue(ingest == pool.tryParse("http | file").getValue());
+		assertFalse(pool.tryParse("http | ").isSuccessful());
+		assertEquals("file", pool.tryParse("http | file").getValue().getModuleDefinitions().get(1).getName());
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import org.springframework.cloud.dataflow.core.dsl.ParseException;
+
+/**
+ * @author Patrick Peralta
+ */
+public class TaskDefinitionTests {
+
+	@Test
+	public void definition() {
+		TaskDefinition definition = new TaskDefinition("test", "timestamp --format=yyyy");
+		assertEquals("test", definition.getName());
+		assertEquals("timestamp", definition.getModuleDefinition().getName());
+		assertEquals("test", definition.getModuleDefinition().getGroup());
+		assertEquals("yyyy", definition.getParameters().get("format"));
+	}
+
+	@Test
+	public void cachedTaskDefinitionsShareParsedModule() {
+		TaskDefinition first = TaskDefinition.cached("cachedtask", "timestamp --format=yyyy");
+		TaskDefinition second = TaskDefinition.cached("cachedtask", "timestamp --format=yyyy");
+		assertEquals("cachedtask", second.getName());
+		assertEquals("timestamp --format=yyyy", second.getDslText());
+		assertTrue(first.getModuleDefinition() == second.getModuleDefinition());
+		assertEquals("yyyy", second.getParameters().get("format"));
+
+		TaskDefinition renamed = TaskDefinition.cached("othertask", "timestamp --format=yyyy");
+		assertFalse(first.getModuleDefinition() == renamed.getModuleDefinition());
+		assertEquals("othertask", renamed.getModuleDefinition().getGroup());
+	}
+
+	@Test(expected = ParseException.class)
+	public void cachedTaskDefinitionRejectsInvalidDsl() {
+		TaskDefinition.cached("broken", "timestamp --format");
+	}
+
+}
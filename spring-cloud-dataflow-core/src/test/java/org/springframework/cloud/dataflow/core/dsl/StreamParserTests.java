@@ -18,10 +18,12 @@ package org.springframework.cloud.dataflow.core.dsl;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Properties;
 
@@ -542,6 +544,181 @@ public class StreamParserTests {
 		assertThat((String) ast.getModuleNodes().get(1).getArgumentsAsProperties().get("expression"), equalTo("payload.replace(\"abc\", '')"));
 	}
 
+	@Test
+	public void reusedTokenBuffer() {
+		TokenBuffer buffer = new TokenBuffer(2);
+		StreamNode first = new StreamParser("first", "http --port=9000 | transform --expression='hi'+payload | log", buffer).parse();
+		StreamNode second = new StreamParser("second", "queue:foo > filter --expression=true > topic:bar", buffer).parse();
+		assertEquals("[(ModuleNode:http --port=9000)(ModuleNode:transform --expression='hi'+payload)(ModuleNode:log)]",
+				first.stringify());
+		assertEquals("9000", first.getModuleNodes().get(0).getArguments()[0].getValue());
+		assertEquals("[(queue:foo)>(ModuleNode:filter --expression=true)>(topic:bar)]", second.stringify());
+	}
+
+	@Test
+	public void tokensOfExceptionSurviveBufferReuse() {
+		TokenBuffer buffer = new TokenBuffer();
+		try {
+			new StreamParser("broken", "http --port=", buffer).parse();
+			fail("expected to fail");
+		}
+		catch (CheckPointedParseException e) {
+			new StreamParser("other", "time | log", buffer).parse();
+			List<Token> tokens = e.getTokens();
+			assertEquals(4, tokens.size());
+			assertEquals("http", tokens.get(0).stringValue());
+			assertEquals("port", tokens.get(2).stringValue());
+			assertEquals("http", e.getExpressionStringUntilCheckpoint());
+		}
+	}
+
+	@Test
+	public void incrementalParsingWhileTyping() {
+		String[] definitions = {
+				"http --port=9000 | transform --expression='hi'+payload | filter --expression=true | log",
+				"foo = queue:in > a: transform --expression=payload | b: transform | c: log > topic:out",
+				"queue:foo > topic:bar",
+				":other.http > counter --name=\"a b\" | log --level=WARN",
+		};
+		for (String definition : definitions) {
+			StreamParser previous = null;
+			for (int i = 1; i <= definition.length(); i++) {
+				previous = checkIncrementalParse(definition.substring(0, i), previous);
+			}
+			// Now delete the text, one character at a time
+			for (int i = definition.length() - 1; i > 0; i--) {
+				previous = checkIncrementalParse(definition.substring(0, i), previous);
+			}
+		}
+	}
+
+	@Test
+	public void incrementalParsingReusesLeadingModules() {
+		StreamParser first = new StreamParser("s", "http --port=9000 | filter | log", new TokenBuffer());
+		first.parse();
+		StreamParser second = new StreamParser("s", "http --port=9000 | filter | logger", first);
+		StreamNode ast = second.parse();
+		assertEquals(8, second.getTokens().getReusedTokenCount());
+		assertEquals("[(ModuleNode:http --port=9000:0>16)(ModuleNode:filter:19>25)(ModuleNode:logger:28>34)]",
+				ast.stringify(true));
+		StreamParser third = new StreamParser("s", "http --port=9001 | filter | logger", second);
+		assertEquals("[(ModuleNode:http --port=9001)(ModuleNode:filter)(ModuleNode:logger)]", third.parse().stringify());
+		assertEquals(4, third.getTokens().getReusedTokenCount());
+	}
+
+	@Test
+	public void tryParseSuccess() {
+		ParseResult<StreamNode> result = new StreamParser("s", "time | log").tryParse();
+		assertEquals("[(ModuleNode:time)(ModuleNode:log)]", result.getValue().stringify());
+		assertEquals(null, result.getFailure());
+	}
+
+	@Test
+	public void tryParseReportsExpectedTokens() {
+		checkFailure("http | ", DSLMessage.OOD, 7, 2, "http", EnumSet.of(TokenKind.IDENTIFIER));
+		checkFailure("http | filter --", DSLMessage.OOD, 16, 4, "http | filter", EnumSet.of(TokenKind.IDENTIFIER));
+		checkFailure("http --port=", DSLMessage.OOD, 12, 4, "http",
+				EnumSet.of(TokenKind.IDENTIFIER, TokenKind.LITERAL_STRING));
+		checkFailure("http --use.ssl", DSLMessage.OOD, 14, 5, "http", EnumSet.of(TokenKind.DOT, TokenKind.EQUALS));
+		checkFailure("queue:foo > ", DSLMessage.OOD, 12, 4, "", EnumSet.of(TokenKind.IDENTIFIER));
+		checkFailure("http > queue:", DSLMessage.OOD, 13, 4, "http", EnumSet.of(TokenKind.IDENTIFIER));
+		checkFailure("http log", DSLMessage.UNEXPECTED_DATA_AFTER_STREAMDEF, 5, 1, "http",
+				EnumSet.of(TokenKind.COLON, TokenKind.DOUBLE_MINUS, TokenKind.PIPE, TokenKind.GT));
+	}
+
+	@Test
+	public void tryParseReportsLexicalErrors() {
+		ParseResult<StreamNode> result = new StreamParser("s", "http -").tryParse();
+		ParseFailure failure = result.getFailure();
+		assertEquals(DSLMessage.MISSING_CHARACTER, failure.getMessageCode());
+		assertEquals(5, failure.getPosition());
+		assertEquals(-1, failure.getTokenPosition());
+		assertEquals("", failure.getExpressionStringUntilCheckpoint());
+		try {
+			result.getValue();
+			fail("expected to fail");
+		}
+		catch (ParseException e) {
+			assertEquals(DSLMessage.MISSING_CHARACTER, e.getMessageCode());
+			assertFalse(e.getStackTrace().length == 0);
+		}
+	}
+
+	@Test
+	public void tokensReportLexicalErrorsOnConstruction() {
+		try {
+			new Tokens("http -");
+			fail("expected to fail");
+		}
+		catch (ParseException e) {
+			assertEquals(DSLMessage.MISSING_CHARACTER, e.getMessageCode());
+		}
+		try {
+			new Tokens("http -", new TokenBuffer());
+			fail("expected to fail");
+		}
+		catch (ParseException e) {
+			assertEquals(DSLMessage.MISSING_CHARACTER, e.getMessageCode());
+		}
+	}
+
+	private void checkFailure(String dsl, DSLMessage messageCode, int position, int tokenPosition,
+			String checkpoint, EnumSet<TokenKind> expected) {
+		ParseResult<StreamNode> result = new StreamParser("s", dsl).tryParse();
+		assertFalse(result.isSuccessful());
+		ParseFailure failure = result.getFailure();
+		assertEquals(messageCode, failure.getMessageCode());
+		assertEquals(position, failure.getPosition());
+		assertEquals(tokenPosition, failure.getTokenPosition());
+		assertEquals(checkpoint, failure.getExpressionStringUntilCheckpoint());
+		assertEquals(expected, failure.getExpectedTokens());
+		ParseException exception = failure.toException();
+		assertEquals(messageCode, exception.getMessageCode());
+		try {
+			new StreamParser("s", dsl).parse();
+			fail("expected to fail");
+		}
+		catch (ParseException e) {
+			assertEquals(e.getMessage(), exception.getMessage());
+		}
+	}
+
+	/**
+	 * Parse {@code dsl} both from scratch and incrementally, and assert that outcomes are identical.
+	 */
+	private StreamParser checkIncrementalParse(String dsl, StreamParser previous) {
+		String expected;
+		try {
+			expected = new StreamParser("s", dsl).parse().stringify(true);
+		}
+		catch (RuntimeException e) {
+			expected = describe(e);
+		}
+		StreamParser parser = null;
+		String actual;
+		try {
+			parser = previous == null ? new StreamParser("s", dsl, new TokenBuffer())
+					: new StreamParser("s", dsl, previous);
+			actual = parser.parse().stringify(true);
+		}
+		catch (RuntimeException e) {
+			actual = describe(e);
+		}
+		assertEquals("Incremental parsing of '" + dsl + "'", expected, actual);
+		return parser;
+	}
+
+	private String describe(RuntimeException e) {
+		if (e instanceof CheckPointedParseException) {
+			CheckPointedParseException cppe = (CheckPointedParseException) e;
+			return e.getMessage() + " @" + cppe.getPosition() + " [" + cppe.getExpressionStringUntilCheckpoint() + "]";
+		}
+		else if (e instanceof ParseException) {
+			return e.getMessage() + " @" + ((ParseException) e).getPosition();
+		}
+		return e.toString();
+	}
+
 	StreamNode parse(String streamDefinition) {
 		return new StreamParser(streamDefinition).parse();
 	}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.core.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * @author Patrick Peralta
+ */
+public class LogFileStoreTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void entriesSurviveRestart() throws IOException {
+		File file = new File(folder.getRoot(), "store/streams.log");
+		try (LogFileStore store = new LogFileStore(file)) {
+			assertNull(store.put("ticktock", "time | log"));
+			assertEquals("time | log", store.put("ticktock", "time --fixedDelay=5 | log"));
+			store.put("http", "http | log");
+			store.put("h\u00e9llo", "time | log --name='\u65e5\u672c'");
+			assertEquals("http | log", store.remove("http"));
+			assertNull(store.remove("http"));
+			assertEquals("time --fixedDelay=5 | log", store.putIfAbsent("ticktock", "other"));
+		}
+		try (LogFileStore store = new LogFileStore(file)) {
+			assertEquals(2, store.size());
+			assertEquals("time --fixedDelay=5 | log", store.get("ticktock"));
+			assertEquals("time | log --name='\u65e5\u672c'", store.get("h\u00e9llo"));
+			assertFalse(store.containsKey("http"));
+		}
+	}
+
+	@Test
+	public void bulkOperations() throws IOException {
+		File file = new File(folder.getRoot(), "bulk.log");
+		try (LogFileStore store = new LogFileStore(file)) {
+			Map<String, String> values = new HashMap<>();
+			values.put("source.time", "org.example:time:1.0");
+			values.put("source.http", "org.example:http:1.0");
+			values.put("sink.log", "org.example:log:1.0");
+			store.putAll(values);
+			assertEquals(Arrays.asList("source.http", "source.time"),
+					Arrays.asList(store.prefixMap("source.").keySet().toArray()));
+			store.removeAll(Arrays.asList("source.http", "sink.log", "unknown"));
+		}
+		try (LogFileStore store = new LogFileStore(file)) {
+			assertEquals(1, store.size());
+			assertEquals("org.example:time:1.0", store.get("source.time"));
+			store.clear();
+		}
+		try (LogFileStore store = new LogFileStore(file)) {
+			assertEquals(0, store.size());
+		}
+	}
+
+	@Test
+	public void putAllIfAbsentSetsAllValuesOrNone() throws IOException {
+		File file = new File(folder.getRoot(), "ifabsent.log");
+		try (LogFileStore store = new LogFileStore(file)) {
+			store.put("source.http", "org.example:http:1.0");
+			long logSize = store.getLogSize();
+			Map<String, String> values = new HashMap<>();
+			values.put("source.time", "org.example:time:1.0");
+			values.put("source.http", "org.example:http:2.0");
+			assertEquals(Collections.singleton("source.http"), store.putAllIfAbsent(values));
+			assertEquals(1, store.size());
+			assertEquals(logSize, store.getLogSize());
+			values.remove("source.http");
+			assertTrue(store.putAllIfAbsent(values).isEmpty());
+			assertTrue(store.getLogSize() > logSize);
+		}
+		try (LogFileStore store = new LogFileStore(file)) {
+			assertEquals(2, store.size());
+			assertEquals("org.example:http:1.0", store.get("source.http"));
+			assertEquals("org.example:time:1.0", store.get("source.time"));
+		}
+	}
+
+	@Test
+	public void truncatedRecordIsDropped() throws IOException {
+		File file = new File(folder.getRoot(), "torn.log");
+		long validSize;
+		try (LogFileStore store = new LogFileStore(file)) {
+			store.put("a", "time | log");
+			validSize = store.getLogSize();
+			store.put("b", "http | log");
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(raf.length() - 3);
+		}
+		try (LogFileStore store = new LogFileStore(file)) {
+			assertEquals(1, store.size());
+			assertEquals("time | log", store.get("a"));
+			assertEquals(validSize, file.length());
+			store.put("c", "time | file");
+		}
+		try (LogFileStore store = new LogFileStore(file)) {
+			assertEquals(2, store.size());
+			assertEquals("time | file", store.get("c"));
+		}
+	}
+
+	@Test
+	public void corruptRecordIsDropped() throws IOException {
+		File file = new File(folder.getRoot(), "corrupt.log");
+		try (LogFileStore store = new LogFileStore(file)) {
+			store.put("a", "time | log");
+			store.put("b", "http | log");
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(raf.length() - 1);
+			raf.write('X');
+		}
+		try (LogFileStore store = new LogFileStore(file)) {
+			assertEquals(1, store.size());
+			assertTrue(store.containsKey("a"));
+		}
+	}
+
+	@Test
+	public void changesAreRefusedOnceTheLogIsInAnUnknownState() throws Exception {
+		File file = new File(folder.getRoot(), "failed.log");
+		try (LogFileStore store = new LogFileStore(file)) {
+			store.put("a", "time | log");
+			// closing the channel behind the store's back fails the next write, as well
+			// as the attempt to cut off what it may have written
+			Field channel = LogFileStore.class.getDeclaredField("channel");
+			channel.setAccessible(true);
+			((FileChannel) channel.get(store)).close();
+			try {
+				store.put("b", "http | log");
+				fail("expected to fail");
+			}
+			catch (IllegalStateException e) {
+				assertTrue(e.getCause() instanceof IOException);
+			}
+			assertFalse(store.containsKey("b"));
+			try {
+				store.put("c", "time | file");
+				fail("expected to fail");
+			}
+			catch (IllegalStateException e) {
+				assertTrue(e.getMessage(), e.getMessage().contains("earlier write failed"));
+			}
+		}
+		try (LogFileStore store = new LogFileStore(file)) {
+			assertEquals(1, store.size());
+			assertEquals("time | log", store.get("a"));
+			store.put("b", "http | log");
+		}
+		try (LogFileStore store = new LogFileStore(file)) {
+			assertEquals(2, store.size());
+		}
+	}
+
+	@Test
+	public void logIsCompacted() throws IOException {
+		File file = new File(folder.getRoot(), "compact.log");
+		StringBuilder dsl = new StringBuilder("time");
+		for (int i = 0; i < 100; i++) {
+			dsl.append(" | transform --expression=payload").append(i);
+		}
+		try (LogFileStore store = new LogFileStore(file, false)) {
+			store.put("other", "http | log");
+			for (int i = 0; i < 1000; i++) {
+				store.put("stream", dsl.toString() + i);
+			}
+			assertTrue(store.getLogSize() < 2 * 64 * 1024);
+			assertEquals(store.getLogSize(), file.length());
+			assertFalse(new File(folder.getRoot(), "compact.log.compact").exists());
+			store.put("last", "time | log");
+		}
+		try (LogFileStore store = new LogFileStore(file)) {
+			assertEquals(3, store.size());
+			assertEquals(dsl.toString() + 999, store.get("stream"));
+			assertEquals("time | log", store.get("last"));
+		}
+	}
+
+	@Test
+	public void changesSucceedWhenCompactionFails() throws IOException {
+		File file = new File(folder.getRoot(), "uncompacted.log");
+		// the compacted log cannot be written where a directory is in the way
+		assertTrue(new File(folder.getRoot(), "uncompacted.log.compact").mkdir());
+		StringBuilder dsl = new StringBuilder("time");
+		for (int i = 0; i < 100; i++) {
+			dsl.append(" | transform --expression=payload").append(i);
+		}
+		try (LogFileStore store = new LogFileStore(file, false)) {
+			for (int i = 0; i < 1000; i++) {
+				store.put("stream", dsl.toString() + i);
+			}
+			assertTrue(store.getLogSize() > 2 * 64 * 1024);
+			assertEquals(store.getLogSize(), file.length());
+			store.remove("stream");
+			store.put("last", "time | log");
+		}
+		try (LogFileStore store = new LogFileStore(file)) {
+			assertEquals(1, store.size());
+			assertEquals("time | log", store.get("last"));
+		}
+	}
+
+}
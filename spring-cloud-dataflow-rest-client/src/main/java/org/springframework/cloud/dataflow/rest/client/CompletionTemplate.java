@@ -16,28 +16,236 @@
 
 package org.springframework.cloud.dataflow.rest.client;
 
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.cloud.dataflow.rest.resource.CompletionProposalsResource;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.UriTemplate;
+import org.springframework.util.Assert;
 import org.springframework.web.client.RestTemplate;
 
 /**
- * Created by ericbottard on 05/10/15.
+ * Implementation of {@link CompletionOperations} that uses {@link RestTemplate}
+ * to issue commands to the admin server.
+ * <p>
+ * Successive completion requests mostly add a few characters to the text of the
+ * previous one. The last proposals returned by the server are therefore kept, and
+ * filtered locally when the new text only extends the word being typed: they are
+ * then known to include every proposal the server would return. The server is
+ * asked again when a word is completed or a separator typed, when the level of
+ * detail changes, or when the kept proposals are older than the time to live.
+ * <p>
+ * Requests issued while another one is in flight wait for its response, and are
+ * answered from it if possible rather than sent to the server as well.
+ *
+ * @author Eric Bottard
+ * @author Patrick Peralta
  */
 public class CompletionTemplate implements CompletionOperations {
 
+	/**
+	 * Default time, in milliseconds, during which proposals returned by the server
+	 * are used to answer subsequent requests.
+	 */
+	public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.SECONDS.toMillis(30);
+
 	private final RestTemplate restTemplate;
 
 	private final UriTemplate uriTemplate;
 
+	/**
+	 * Time, in nanoseconds, during which proposals returned by the server are used.
+	 */
+	private final long timeToLiveNanos;
+
+	/**
+	 * The last proposals returned by the server. Guarded by {@code this}.
+	 */
+	private Response last;
+
+	/**
+	 * The request to the server in flight, if any. Guarded by {@code this}.
+	 */
+	private Response pending;
+
 	public CompletionTemplate(RestTemplate restTemplate, Link link) {
+		this(restTemplate, link, DEFAULT_TIME_TO_LIVE);
+	}
+
+	/**
+	 * Construct a {@code CompletionTemplate}.
+	 *
+	 * @param restTemplate template for HTTP/rest commands
+	 * @param link the link to stream completions
+	 * @param timeToLive time, in milliseconds, during which proposals returned by the
+	 * server are used to answer subsequent requests, {@code 0} to always ask the server
+	 */
+	public CompletionTemplate(RestTemplate restTemplate, Link link, long timeToLive) {
+		Assert.isTrue(timeToLive >= 0, "timeToLive must not be negative");
 		this.restTemplate = restTemplate;
 		this.uriTemplate = new UriTemplate(link.getHref());
+		this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLive);
 	}
 
 	@Override
 	public CompletionProposalsResource streamCompletions(String prefix, int levelOfDetail) {
-		return restTemplate.getForObject(uriTemplate.expand(prefix, levelOfDetail), CompletionProposalsResource.class);
+		Response pending;
+		synchronized (this) {
+			CompletionProposalsResource refined = refine(last, prefix, levelOfDetail);
+			if (refined != null) {
+				return refined;
+			}
+			pending = this.pending;
+		}
+		if (pending != null && pending.extendedBy(prefix, levelOfDetail)) {
+			CompletionProposalsResource refined = refine(pending.await(), prefix, levelOfDetail);
+			if (refined != null) {
+				return refined;
+			}
+		}
+		return fetch(prefix, levelOfDetail).await().proposals;
+	}
+
+	/**
+	 * Ask the server for proposals, and keep them for subsequent requests.
+	 */
+	private Response fetch(final String prefix, final int levelOfDetail) {
+		Response response = new Response(prefix, levelOfDetail, new Callable<CompletionProposalsResource>() {
+
+			@Override
+			public CompletionProposalsResource call() {
+				return restTemplate.getForObject(uriTemplate.expand(prefix, levelOfDetail),
+						CompletionProposalsResource.class);
+			}
+		});
+		synchronized (this) {
+			this.pending = response;
+		}
+		try {
+			response.task.run();
+			response.await();
+			synchronized (this) {
+				this.last = response;
+			}
+		}
+		finally {
+			synchronized (this) {
+				if (this.pending == response) {
+					this.pending = null;
+				}
+			}
+		}
+		return response;
+	}
+
+	/**
+	 * Answer a request from the proposals of a previous one, if possible.
+	 *
+	 * @return the proposals, or {@code null} if the server must be asked
+	 */
+	private CompletionProposalsResource refine(Response response, String prefix, int levelOfDetail) {
+		if (response == null || response.proposals == null || !response.extendedBy(prefix, levelOfDetail)
+				|| System.nanoTime() - response.received >= timeToLiveNanos) {
+			return null;
+		}
+		List<CompletionProposalsResource.Proposal> proposals = response.proposals.getProposals();
+		CompletionProposalsResource refined = new CompletionProposalsResource();
+		for (CompletionProposalsResource.Proposal proposal : proposals) {
+			if (!proposal.getText().startsWith(response.prefix)) {
+				// the proposals do not all extend the text, so no telling what else they may be
+				return null;
+			}
+			if (proposal.getText().equals(prefix) && prefix.length() > response.prefix.length()) {
+				// a complete word may be followed by anything, such as options
+				return null;
+			}
+			if (proposal.getText().startsWith(prefix)) {
+				refined.addProposal(proposal.getText(), proposal.getExplanation());
+			}
+		}
+		// without any proposal left, the server may know of constructs the previous text did not allow
+		return (refined.getProposals().isEmpty() && prefix.length() > response.prefix.length() ? null : refined);
+	}
+
+
+	/**
+	 * A request to the server, and its response once received.
+	 */
+	private static class Response {
+
+		private final String prefix;
+
+		private final int levelOfDetail;
+
+		private final FutureTask<CompletionProposalsResource> task;
+
+		/**
+		 * The proposals, once received.
+		 */
+		private volatile CompletionProposalsResource proposals;
+
+		/**
+		 * Time the proposals were received, from {@link System#nanoTime()}.
+		 */
+		private long received;
+
+		private Response(String prefix, int levelOfDetail, final Callable<CompletionProposalsResource> callable) {
+			this.prefix = prefix;
+			this.levelOfDetail = levelOfDetail;
+			this.task = new FutureTask<>(new Callable<CompletionProposalsResource>() {
+
+				@Override
+				public CompletionProposalsResource call() throws Exception {
+					CompletionProposalsResource proposals = callable.call();
+					received = System.nanoTime();
+					return proposals;
+				}
+			});
+		}
+
+		/**
+		 * Whether the given request only adds characters to the word being typed in
+		 * this request. Such requests may be answered with a subset of its proposals.
+		 */
+		private boolean extendedBy(String prefix, int levelOfDetail) {
+			if (levelOfDetail != this.levelOfDetail || !prefix.startsWith(this.prefix)) {
+				return false;
+			}
+			for (int i = this.prefix.length(); i < prefix.length(); i++) {
+				char c = prefix.charAt(i);
+				if (!Character.isLetterOrDigit(c) && c != '_') {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Wait for the response of the server.
+		 *
+		 * @return this response, with its proposals
+		 */
+		private Response await() {
+			try {
+				proposals = task.get();
+				return this;
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for completion proposals", e);
+			}
+			catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw new IllegalStateException(cause);
+			}
+		}
 	}
 
 }
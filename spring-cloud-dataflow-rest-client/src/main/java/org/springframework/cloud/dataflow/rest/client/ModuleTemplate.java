@@ -16,6 +16,9 @@
 
 package org.springframework.cloud.dataflow.rest.client;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.cloud.dataflow.core.ArtifactType;
 import org.springframework.cloud.dataflow.rest.resource.DetailedModuleRegistrationResource;
 import org.springframework.cloud.dataflow.rest.resource.ModuleRegistrationResource;
@@ -38,6 +41,11 @@ import org.springframework.web.client.RestTemplate;
  */
 public class ModuleTemplate implements ModuleOperations {
 
+	/**
+	 * Number of registrations requested at once when listing modules.
+	 */
+	private static final int PAGE_SIZE = 1000;
+
 	/**
 	 * Template used for http interaction.
 	 */
@@ -64,11 +72,27 @@ public class ModuleTemplate implements ModuleOperations {
 		return list(/* ArtifactType */null);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The server caps the size of pages, so this implementation requests pages of
+	 * {@value #PAGE_SIZE} registrations and follows their {@code next} links, returning
+	 * all registrations as a single page.
+	 */
 	@Override
 	public PagedResources<ModuleRegistrationResource> list(ArtifactType type) {
-		// TODO handle pagination at the client side
-		String uri = uriTemplate + "?size=10000" + ((type == null) ? "" : "&type=" + type.name());
-		return restTemplate.getForObject(uri, ModuleRegistrationResource.Page.class);
+		String uri = uriTemplate + "?size=" + PAGE_SIZE + ((type == null) ? "" : "&type=" + type.name());
+		ModuleRegistrationResource.Page page = restTemplate.getForObject(uri, ModuleRegistrationResource.Page.class);
+		if (page.getNextLink() == null) {
+			return page;
+		}
+		List<ModuleRegistrationResource> modules = new ArrayList<>(page.getContent());
+		while (page.getNextLink() != null) {
+			page = restTemplate.getForObject(page.getNextLink().expand().getHref(),
+					ModuleRegistrationResource.Page.class);
+			modules.addAll(page.getContent());
+		}
+		return new PagedResources<>(modules, new PagedResources.PageMetadata(modules.size(), 0, modules.size(), 1));
 	}
 
 	@Override
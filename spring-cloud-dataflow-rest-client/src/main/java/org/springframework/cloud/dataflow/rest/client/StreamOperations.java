@@ -19,6 +19,7 @@ package org.springframework.cloud.dataflow.rest.client;
 import java.util.Map;
 
 import org.springframework.cloud.dataflow.rest.resource.StreamDefinitionResource;
+import org.springframework.cloud.dataflow.rest.resource.StreamImportResultResource;
 import org.springframework.hateoas.PagedResources;
 
 /**
@@ -40,6 +41,13 @@ public interface StreamOperations {
 	 */
 	public StreamDefinitionResource createStream(String name, String definition, boolean deploy);
 
+	/**
+	 * Create several streams at once, from {@literal name = definition} entries
+	 * separated by newlines or semicolons. Either all streams are created or none is; the result
+	 * tells the outcome for each entry.
+	 */
+	public StreamImportResultResource.Results importStreams(String definitions);
+
 	/**
 	 * Deploy an already created stream.
 	 */
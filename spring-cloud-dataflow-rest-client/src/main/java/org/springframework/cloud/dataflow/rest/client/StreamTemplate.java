@@ -16,12 +16,17 @@
 
 package org.springframework.cloud.dataflow.rest.client;
 
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.Map;
 
 import org.springframework.cloud.dataflow.rest.resource.StreamDefinitionResource;
+import org.springframework.cloud.dataflow.rest.resource.StreamImportResultResource;
 import org.springframework.cloud.dataflow.rest.util.DeploymentPropertiesUtils;
 import org.springframework.hateoas.UriTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.util.Assert;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -72,6 +77,15 @@ public class StreamTemplate implements StreamOperations {
 		return stream;
 	}
 
+	@Override
+	public StreamImportResultResource.Results importStreams(String definitions) {
+		String uriTemplate = definitionsPath.toString() + "/batch";
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(new MediaType(MediaType.TEXT_PLAIN, Charset.forName("UTF-8")));
+		return restTemplate.postForObject(uriTemplate, new HttpEntity<String>(definitions, headers),
+				StreamImportResultResource.Results.class);
+	}
+
 	@Override
 	public void deploy(String name, Map<String, String> properties) {
 		String uriTemplate = deploymentsPath.toString() + "/{name}";
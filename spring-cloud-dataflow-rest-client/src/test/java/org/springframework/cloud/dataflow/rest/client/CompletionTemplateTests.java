@@ -0,0 +1,226 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.dataflow.rest.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cloud.dataflow.rest.resource.CompletionProposalsResource;
+import org.springframework.hateoas.Link;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Tests for {@link CompletionTemplate}.
+ *
+ * @author Patrick Peralta
+ */
+public class CompletionTemplateTests {
+
+	private static final Link LINK = new Link("http://localhost:9393/completions/stream{?start,detailLevel}");
+
+	private Server server;
+
+	private CompletionTemplate template;
+
+	@Before
+	public void setUp() {
+		server = new Server("time", "timer", "transform", "time | log", "time --fixedDelay=");
+		template = new CompletionTemplate(server, LINK, TimeUnit.MINUTES.toMillis(1));
+	}
+
+	@Test
+	public void extendedWordIsAnsweredLocally() {
+		assertEquals(Arrays.asList("time", "timer", "transform", "time | log", "time --fixedDelay="),
+				texts(template.streamCompletions("t", 1)));
+		assertEquals(Arrays.asList("time", "timer", "time | log", "time --fixedDelay="),
+				texts(template.streamCompletions("ti", 1)));
+		assertEquals(Arrays.asList("transform"), texts(template.streamCompletions("tr", 1)));
+		assertEquals(Collections.singletonList("t"), server.requests);
+	}
+
+	@Test
+	public void completedWordIsAskedAgain() {
+		template.streamCompletions("t", 1);
+		template.streamCompletions("time", 1);
+		assertEquals(Arrays.asList("t", "time"), server.requests);
+	}
+
+	@Test
+	public void separatorIsAskedAgain() {
+		template.streamCompletions("time", 1);
+		assertEquals(Arrays.asList("time | log", "time --fixedDelay="),
+				texts(template.streamCompletions("time ", 1)));
+		assertEquals(Arrays.asList("time", "time "), server.requests);
+	}
+
+	@Test
+	public void emptyRefinementIsAskedAgain() {
+		template.streamCompletions("t", 1);
+		server.texts.add("tx");
+		assertEquals(Collections.singletonList("tx"), texts(template.streamCompletions("tx", 1)));
+		assertEquals(Arrays.asList("t", "tx"), server.requests);
+	}
+
+	@Test
+	public void proposalsNotExtendingTheTextAreNotRefined() {
+		server = new Server("time", "log");
+		template = new CompletionTemplate(server, LINK, TimeUnit.MINUTES.toMillis(1));
+		server.unfiltered = true;
+		template.streamCompletions("t", 1);
+		template.streamCompletions("ti", 1);
+		assertEquals(Arrays.asList("t", "ti"), server.requests);
+	}
+
+	@Test
+	public void expiredProposalsAreNotUsed() {
+		template = new CompletionTemplate(server, LINK, 0);
+		template.streamCompletions("t", 1);
+		template.streamCompletions("ti", 1);
+		assertEquals(Arrays.asList("t", "ti"), server.requests);
+	}
+
+	@Test
+	public void levelOfDetailChangeIsAskedAgain() {
+		template.streamCompletions("t", 1);
+		template.streamCompletions("ti", 2);
+		template.streamCompletions("tim", 2);
+		assertEquals(Arrays.asList("t", "ti"), server.requests);
+		assertEquals(Arrays.asList(1, 2), server.levelsOfDetail);
+	}
+
+	@Test
+	public void requestWaitsForTheOneInFlight() throws Exception {
+		final CountDownLatch received = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		server.received = received;
+		server.release = release;
+		Thread first = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				template.streamCompletions("t", 1);
+			}
+		});
+		first.start();
+		assertTrue(received.await(10, TimeUnit.SECONDS));
+		final AtomicReference<CompletionProposalsResource> result = new AtomicReference<>();
+		Thread second = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				result.set(template.streamCompletions("ti", 1));
+			}
+		});
+		second.start();
+		// wait until the second request blocks on the response to the first one
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (second.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertEquals(Thread.State.WAITING, second.getState());
+		release.countDown();
+		first.join(10000);
+		second.join(10000);
+		assertEquals(Arrays.asList("time", "timer", "time | log", "time --fixedDelay="), texts(result.get()));
+		assertEquals(Collections.singletonList("t"), server.requests);
+	}
+
+	private static List<String> texts(CompletionProposalsResource resource) {
+		List<String> texts = new ArrayList<>();
+		for (CompletionProposalsResource.Proposal proposal : resource.getProposals()) {
+			texts.add(proposal.getText());
+		}
+		return texts;
+	}
+
+
+	/**
+	 * Stands in for the admin server: proposes the known texts that start with the
+	 * requested one, and records requests.
+	 */
+	private static class Server extends RestTemplate {
+
+		private final List<String> texts;
+
+		private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+
+		private final List<Integer> levelsOfDetail = Collections.synchronizedList(new ArrayList<Integer>());
+
+		/**
+		 * Whether to propose every known text, as the server does for some constructs.
+		 */
+		private volatile boolean unfiltered;
+
+		/**
+		 * Counted down when a request is received; may be {@code null}.
+		 */
+		private volatile CountDownLatch received;
+
+		/**
+		 * Awaited before answering a request; may be {@code null}.
+		 */
+		private volatile CountDownLatch release;
+
+		private Server(String... texts) {
+			this.texts = new ArrayList<>(Arrays.asList(texts));
+		}
+
+		@Override
+		public <T> T getForObject(URI url, Class<T> responseType) {
+			Map<String, String> parameters = new LinkedHashMap<>();
+			for (String parameter : url.getQuery().split("&")) {
+				String[] pair = parameter.split("=", 2);
+				parameters.put(pair[0], pair[1]);
+			}
+			String start = parameters.get("start");
+			requests.add(start);
+			levelsOfDetail.add(Integer.valueOf(parameters.get("detailLevel")));
+			if (received != null) {
+				received.countDown();
+			}
+			if (release != null) {
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			CompletionProposalsResource proposals = new CompletionProposalsResource();
+			for (String text : texts) {
+				if (unfiltered || text.startsWith(start)) {
+					proposals.addProposal(text, null);
+				}
+			}
+			return responseType.cast(proposals);
+		}
+	}
+
+}
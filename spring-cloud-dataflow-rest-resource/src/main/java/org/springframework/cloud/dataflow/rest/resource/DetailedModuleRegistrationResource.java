@@ -69,6 +69,7 @@ public class DetailedModuleRegistrationResource extends ModuleRegistrationResour
 	 */
 	public DetailedModuleRegistrationResource(ModuleRegistrationResource resource) {
 		super(resource.getName(), resource.getType(), resource.getCoordinates());
+		setMetadataStatus(resource.getMetadataStatus());
 	}
 
 	/**
@@ -44,6 +44,13 @@ public class ModuleRegistrationResource extends ResourceSupport {
 	 */
 	private String coordinates;
 
+	/**
+	 * Progress of the extraction of the module configuration metadata: one of
+	 * {@code pending}, {@code ready} or {@code failed}, or {@code null} if it
+	 * was not requested yet.
+	 */
+	private String metadataStatus;
+
 	/**
 	 * Default constructor for serialization frameworks.
 	 */
@@ -84,6 +91,20 @@ public class ModuleRegistrationResource extends ResourceSupport {
 		return coordinates;
 	}
 
+	/**
+	 * @see #metadataStatus
+	 */
+	public String getMetadataStatus() {
+		return metadataStatus;
+	}
+
+	/**
+	 * @see #metadataStatus
+	 */
+	public void setMetadataStatus(String metadataStatus) {
+		this.metadataStatus = metadataStatus;
+	}
+
 	/**
 	 * Dedicated subclass to workaround type erasure.
 	 */
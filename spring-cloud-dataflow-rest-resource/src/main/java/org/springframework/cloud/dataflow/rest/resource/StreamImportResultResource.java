@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.dataflow.rest.resource;
+
+import org.springframework.hateoas.ResourceSupport;
+import org.springframework.hateoas.Resources;
+
+/**
+ * Rest resource reporting the outcome of importing one stream definition
+ * as part of a batch.
+ *
+ * @author Patrick Peralta
+ */
+public class StreamImportResultResource extends ResourceSupport {
+
+	/**
+	 * Status of a stream that was created.
+	 */
+	public static final String CREATED = "created";
+
+	/**
+	 * Status of a definition that could not be read or parsed.
+	 */
+	public static final String INVALID = "invalid";
+
+	/**
+	 * Status of a stream whose name is already taken, either by an existing
+	 * stream or by another definition of the same batch.
+	 */
+	public static final String DUPLICATE = "duplicate";
+
+	/**
+	 * Status of a valid definition that was not created because other
+	 * definitions of the same batch were rejected.
+	 */
+	public static final String SKIPPED = "skipped";
+
+	/**
+	 * Stream name, or {@code null} if it could not be read.
+	 */
+	private String name;
+
+	/**
+	 * Line of the definition in the imported text, starting at 1.
+	 */
+	private int line;
+
+	/**
+	 * Outcome of the import, one of {@link #CREATED}, {@link #INVALID},
+	 * {@link #DUPLICATE} or {@link #SKIPPED}.
+	 */
+	private String status;
+
+	/**
+	 * Reason why the stream was not created, if any.
+	 */
+	private String message;
+
+	/**
+	 * Default constructor for serialization frameworks.
+	 */
+	protected StreamImportResultResource() {
+	}
+
+	/**
+	 * Construct a {@code StreamImportResultResource}.
+	 *
+	 * @param name stream name
+	 * @param line line of the definition in the imported text
+	 * @param status outcome of the import
+	 * @param message reason why the stream was not created; may be {@code null}
+	 */
+	public StreamImportResultResource(String name, int line, String status, String message) {
+		this.name = name;
+		this.line = line;
+		this.status = status;
+		this.message = message;
+	}
+
+	/**
+	 * @see #name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @see #line
+	 */
+	public int getLine() {
+		return line;
+	}
+
+	/**
+	 * @see #status
+	 */
+	public String getStatus() {
+		return status;
+	}
+
+	/**
+	 * @see #message
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * Dedicated subclass to workaround type erasure.
+	 */
+	public static class Results extends Resources<StreamImportResultResource> {
+	}
+
+}
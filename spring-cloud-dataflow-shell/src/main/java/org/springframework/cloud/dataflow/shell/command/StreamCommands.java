@@ -19,6 +19,7 @@ package org.springframework.cloud.dataflow.shell.command;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Properties;
@@ -26,6 +27,7 @@ import java.util.Properties;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.dataflow.rest.client.StreamOperations;
 import org.springframework.cloud.dataflow.rest.resource.StreamDefinitionResource;
+import org.springframework.cloud.dataflow.rest.resource.StreamImportResultResource;
 import org.springframework.cloud.dataflow.rest.util.DeploymentPropertiesUtils;
 import org.springframework.cloud.dataflow.shell.config.DataFlowShell;
 import org.springframework.hateoas.PagedResources;
@@ -36,6 +38,7 @@ import org.springframework.shell.core.annotation.CliOption;
 import org.springframework.shell.support.table.Table;
 import org.springframework.shell.support.table.TableHeader;
 import org.springframework.stereotype.Component;
+import org.springframework.util.FileCopyUtils;
 
 /**
  * Stream commands.
@@ -51,6 +54,8 @@ public class StreamCommands implements CommandMarker {
 
 	private static final String CREATE_STREAM = "stream create";
 
+	private static final String IMPORT_STREAMS = "stream import";
+
 	private static final String DEPLOY_STREAM = "stream deploy";
 
 	private static final String UNDEPLOY_STREAM = "stream undeploy";
@@ -71,7 +76,7 @@ public class StreamCommands implements CommandMarker {
 	@Autowired
 	private UserInput userInput;
 
-	@CliAvailabilityIndicator({ LIST_STREAM, CREATE_STREAM, DEPLOY_STREAM, UNDEPLOY_STREAM, UNDEPLOY_STREAM_ALL,
+	@CliAvailabilityIndicator({ LIST_STREAM, CREATE_STREAM, IMPORT_STREAMS, DEPLOY_STREAM, UNDEPLOY_STREAM, UNDEPLOY_STREAM_ALL,
 		DESTROY_STREAM, DESTROY_STREAM_ALL })
 	public boolean available() {
 		return dataFlowShell.getDataFlowOperations() != null;
@@ -103,6 +108,29 @@ public class StreamCommands implements CommandMarker {
 				"Created new stream '%s'", name);
 	}
 
+	@CliCommand(value = IMPORT_STREAMS, help = "Create several stream definitions at once, from a file holding 'name = definition' entries, separated by newlines or semicolons")
+	public Table importStreams(
+			@CliOption(mandatory = true, key = { "", "file" }, help = "the file to read stream definitions from") File file) throws IOException {
+		String definitions;
+		try (InputStreamReader reader = new InputStreamReader(new FileInputStream(file), "UTF-8")) {
+			definitions = FileCopyUtils.copyToString(reader);
+		}
+		StreamImportResultResource.Results results = streamOperations().importStreams(definitions);
+		final Table table = new Table()
+				.addHeader(1, new TableHeader("Line"))
+				.addHeader(2, new TableHeader("Stream Name"))
+				.addHeader(3, new TableHeader("Status"))
+				.addHeader(4, new TableHeader("Message"));
+		for (StreamImportResultResource result : results) {
+			table.newRow()
+					.addValue(1, String.valueOf(result.getLine()))
+					.addValue(2, result.getName() != null ? result.getName() : "")
+					.addValue(3, result.getStatus())
+					.addValue(4, result.getMessage() != null ? result.getMessage() : "");
+		}
+		return table;
+	}
+
 	@CliCommand(value = DEPLOY_STREAM, help = "Deploy a previously created stream")
 	public String deployStream(
 			@CliOption(key = { "", "name" }, help = "the name of the stream to deploy", mandatory = true/*, optionContext = "existing-stream undeployed disable-string-converter"*/) String name,